@@ -1,15 +1,17 @@
 package com.roomie.services.admin_service.controller;
 
 import com.roomie.services.admin_service.dto.response.ApiResponse;
+import com.roomie.services.admin_service.dto.response.CursorPageResponse;
 import com.roomie.services.admin_service.dto.response.property.PropertyResponse;
 import com.roomie.services.admin_service.service.PropertyAdminService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/properties")
@@ -21,8 +23,19 @@ public class PropertyAdminController {
     PropertyAdminService propertyAdminService;
 
     @GetMapping("/pending")
-    public ApiResponse<List<PropertyResponse>> getPendingProperties() {
-        return ApiResponse.success(propertyAdminService.getPendingProperties(),"Pending properties retrieved");
+    public ApiResponse<CursorPageResponse<PropertyResponse>> getPendingProperties(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyAdminService.getPendingProperties(cursor, size),
+                "Pending properties retrieved");
+    }
+
+    /** One PropertyResponse JSON object per line, relayed from property-service as it arrives. */
+    @GetMapping(value = "/pending/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPendingProperties() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(propertyAdminService::streamPendingProperties);
     }
 
     @PutMapping("/{id}/approve")
@@ -1,21 +1,28 @@
 package com.roomie.services.admin_service.repository.httpclient;
 
 import com.roomie.services.admin_service.dto.response.ApiResponse;
+import com.roomie.services.admin_service.dto.response.CursorPageResponse;
 import com.roomie.services.admin_service.dto.response.property.PropertyResponse;
 import com.roomie.services.admin_service.configuration.FeignConfiguration;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-
-import java.util.List;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @FeignClient(name = "property-service",
         configuration = { FeignConfiguration.class })
 public interface PropertyClient {
-    @GetMapping("internal/pending")
-    ApiResponse<List<PropertyResponse>> getPendingProperties();
+    @GetMapping("/internal/pending/page")
+    ApiResponse<CursorPageResponse<PropertyResponse>> getPendingPropertiesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("size") int size);
+
+    // NDJSON: one PropertyResponse per line; the caller must close the response
+    @GetMapping(value = "/internal/pending/stream", produces = "application/x-ndjson")
+    Response streamPendingProperties();
 
     @PutMapping("/internal/{id}/approve")
     ApiResponse<Void> approveProperty(@PathVariable("id") String id);
@@ -1,15 +1,21 @@
 package com.roomie.services.admin_service.service;
 
+import com.roomie.services.admin_service.dto.response.CursorPageResponse;
 import com.roomie.services.admin_service.dto.response.property.PropertyResponse;
+import com.roomie.services.admin_service.exception.AppException;
+import com.roomie.services.admin_service.exception.ErrorCode;
 import com.roomie.services.admin_service.repository.httpclient.PropertyClient;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import feign.Response;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -20,28 +26,36 @@ public class PropertyAdminService {
     PropertyClient propertyClient;
     RedisTemplate<String, Object> redis;
 
-    public List<PropertyResponse> getPendingProperties() {
-        String key = "property:pending";
-
-        List<PropertyResponse> cached = (List<PropertyResponse>) redis.opsForValue().get(key);
-        if (cached != null) return cached;
-
-        List<PropertyResponse> list = propertyClient.getPendingProperties().getResult();
-
-        redis.opsForValue().set(key, list, 30, TimeUnit.SECONDS);
+    /**
+     * One page of pending properties, keyset-paged by property-service like its other listings
+     */
+    public CursorPageResponse<PropertyResponse> getPendingProperties(String cursor, int size) {
+        return propertyClient.getPendingPropertiesPage(cursor, size).getResult();
+    }
 
-        return list;
+    /**
+     * Copy the NDJSON pending stream of property-service to the caller as it arrives,
+     * so memory stays bounded by the copy buffer however many properties are pending
+     */
+    public void streamPendingProperties(OutputStream out) throws IOException {
+        try (Response response = propertyClient.streamPendingProperties()) {
+            if (response.status() != 200 || response.body() == null) {
+                throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+            }
+            try (InputStream in = response.body().asInputStream()) {
+                in.transferTo(out);
+            }
+            out.flush();
+        }
     }
 
     public void approveProperty(String id) {
         propertyClient.approveProperty(id);
-        redis.delete("property:pending");
         redis.delete("property:" + id);
     }
 
     public void rejectProperty(String id) {
         propertyClient.rejectProperty(id);
-        redis.delete("property:pending");
         redis.delete("property:" + id);
     }
 
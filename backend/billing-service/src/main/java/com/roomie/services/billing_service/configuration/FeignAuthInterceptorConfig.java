@@ -5,6 +5,8 @@ import feign.RequestTemplate;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -16,7 +18,13 @@ public class FeignAuthInterceptorConfig {
         return (RequestTemplate template) -> {
             ServletRequestAttributes attributes =
                     (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes == null) return;
+            if (attributes == null) {
+                // Background jobs have no request; use the token of the propagated security context
+                if (SecurityContextHolder.getContext().getAuthentication() instanceof JwtAuthenticationToken jwt) {
+                    template.header("Authorization", "Bearer " + jwt.getToken().getTokenValue());
+                }
+                return;
+            }
 
             HttpServletRequest request = attributes.getRequest();
             String authHeader = request.getHeader("Authorization");
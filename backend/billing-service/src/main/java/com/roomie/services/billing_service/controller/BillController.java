@@ -3,8 +3,10 @@ package com.roomie.services.billing_service.controller;
 import org.springframework.http.ResponseEntity;
 import com.roomie.services.billing_service.dto.request.BillRequest;
 import com.roomie.services.billing_service.dto.response.ApiResponse;
+import com.roomie.services.billing_service.dto.response.BillBatchJobResponse;
 import com.roomie.services.billing_service.dto.response.BillResponse;
 import com.roomie.services.billing_service.dto.response.ContractResponse;
+import com.roomie.services.billing_service.dto.response.InvoiceEmailJobResponse;
 import com.roomie.services.billing_service.dto.response.property.PropertyResponse;
 import com.roomie.services.billing_service.entity.Bill;
 import com.roomie.services.billing_service.repository.BillRepository;
@@ -20,10 +22,16 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequiredArgsConstructor
@@ -41,6 +49,7 @@ public class BillController {
     BillStatisticsService statisticsService;
     BillBulkOperationsService bulkOperationsService;
     BillExportService exportService;
+    BillValidationService validationService;
 
     @PostMapping
     public ApiResponse<BillResponse> createOrUpdate(
@@ -230,18 +239,95 @@ public class BillController {
         }
     }
 
+    /**
+     * Download all invoices of the current landlord for one month as a ZIP (rendered in parallel)
+     */
+    @GetMapping("/landlord/invoices")
+    public ResponseEntity<StreamingResponseBody> downloadMonthlyInvoices(
+            @RequestParam String billingMonth) {
+
+        String landlordId = SecurityContextHolder.getContext().getAuthentication().getName();
+        LocalDate month = validationService.validateAndParseBillingMonth(billingMonth);
+        log.info("Generating invoices of {} for landlord: {}", billingMonth, landlordId);
+
+        List<Bill> bills = billRepository.findByLandlordIdAndBillingMonth(landlordId, month);
+
+        Map<String, ContractResponse> contracts = new HashMap<>();
+        if (!bills.isEmpty()) {
+            List<String> contractIds = bills.stream().map(Bill::getContractId).distinct().toList();
+            List<ContractResponse> result = contractClient.getByIds(contractIds).getResult();
+            if (result != null) {
+                result.forEach(c -> contracts.put(c.getId(), c));
+            }
+        }
+
+        Map<String, PropertyResponse> properties = new HashMap<>();
+        if (!contracts.isEmpty()) {
+            try {
+                List<PropertyResponse> result = propertyClient.getByIds(contracts.values().stream()
+                        .map(ContractResponse::getPropertyId).distinct().toList()).getResult();
+                if (result != null) {
+                    result.forEach(p -> properties.put(p.getPropertyId(), p));
+                }
+            } catch (Exception e) {
+                log.warn("Could not fetch property details: {}", e.getMessage());
+            }
+        }
+
+        Map<String, byte[]> pdfs = pdfGeneratorService.generateInvoicePdfs(bills, contracts, properties);
+
+        StreamingResponseBody body = out -> {
+            try (ZipOutputStream zip = new ZipOutputStream(out)) {
+                for (Map.Entry<String, byte[]> entry : pdfs.entrySet()) {
+                    // Full bill id: a truncated prefix can repeat across bills and break the archive
+                    zip.putNextEntry(new ZipEntry("invoice_" + entry.getKey() + ".pdf"));
+                    zip.write(entry.getValue());
+                    zip.closeEntry();
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"invoices_" + billingMonth + ".zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
     @PostMapping("/{billId}/email")
-    public ApiResponse<Void> emailInvoice(
+    public ApiResponse<InvoiceEmailJobResponse> emailInvoice(
             @PathVariable String billId,
             @RequestParam(required = false) String recipientEmail) {
 
         log.info("Emailing invoice for bill: {} to: {}",
                 billId, recipientEmail != null ? recipientEmail : "tenant email");
 
-        emailService.sendInvoiceEmail(billId, recipientEmail);
+        InvoiceEmailJobResponse result = emailService.queueInvoiceEmail(billId, recipientEmail);
 
-        return ApiResponse.success(null,
-                "Invoice sent successfully via email");
+        return ApiResponse.success(result,
+                "Invoice email queued");
+    }
+
+    /**
+     * Queue invoice emails for all sent bills of the current landlord in one month
+     */
+    @PostMapping("/landlord/invoices/email")
+    public ApiResponse<Map<String, Object>> emailMonthlyInvoices(
+            @RequestParam String billingMonth,
+            @RequestParam(defaultValue = "false") boolean resend) {
+
+        log.info("Emailing invoices of {} (resend: {})", billingMonth, resend);
+
+        Map<String, Object> result = emailService.queueMonthlyInvoiceEmails(billingMonth, resend);
+
+        return ApiResponse.success(result,
+                String.format("Queued %s invoice emails", result.get("queued")));
+    }
+
+    @GetMapping("/emails/{jobId}")
+    public ApiResponse<InvoiceEmailJobResponse> getEmailJob(@PathVariable String jobId) {
+        return ApiResponse.success(emailService.getEmailJob(jobId),
+                "Email job retrieved");
     }
 
     @GetMapping("/landlord/stats")
@@ -288,8 +374,42 @@ public class BillController {
                 "Bulk send completed");
     }
 
+    @PostMapping("/bulk/generate/async")
+    public ApiResponse<BillBatchJobResponse> bulkGenerateAsync(
+            @RequestBody List<BillRequest> requests) {
+
+        log.info("Submitting bulk generation job for {} bills", requests.size());
+
+        return ApiResponse.success(bulkOperationsService.startBulkGenerate(requests),
+                "Bulk generation job submitted");
+    }
+
+    @PostMapping("/bulk/send/async")
+    public ApiResponse<BillBatchJobResponse> bulkSendAsync(
+            @RequestBody List<String> billIds) {
+
+        log.info("Submitting bulk send job for {} bills", billIds.size());
+
+        return ApiResponse.success(bulkOperationsService.startBulkSend(billIds),
+                "Bulk send job submitted");
+    }
+
+    @GetMapping("/bulk/jobs/{jobId}")
+    public ApiResponse<BillBatchJobResponse> getBulkJob(@PathVariable String jobId) {
+        return ApiResponse.success(bulkOperationsService.getJob(jobId),
+                "Bulk job status retrieved");
+    }
+
+    @DeleteMapping("/bulk/jobs/{jobId}")
+    public ApiResponse<BillBatchJobResponse> cancelBulkJob(@PathVariable String jobId) {
+        log.info("Cancelling bulk job {}", jobId);
+
+        return ApiResponse.success(bulkOperationsService.cancelJob(jobId),
+                "Bulk job cancellation requested");
+    }
+
     @GetMapping("/export")
-    public ResponseEntity<Resource> exportBills(
+    public ResponseEntity<StreamingResponseBody> exportBills(
             @RequestParam(defaultValue = "excel") String format,
             @RequestParam(required = false) String contractId,
             @RequestParam(required = false) String from,
@@ -298,7 +418,7 @@ public class BillController {
         log.info("Exporting bills to {}: contractId={}, from={}, to={}",
                 format, contractId, from, to);
 
-        Resource resource = exportService.exportBills(format, contractId, from, to);
+        StreamingResponseBody body = exportService.exportBills(format, contractId, from, to);
 
         String filename = "bills_export." + (format.equals("excel") ? "xlsx" : "csv");
         String contentType = format.equals("excel")
@@ -308,6 +428,6 @@ public class BillController {
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
                 .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+                .body(body);
     }
 }
\ No newline at end of file
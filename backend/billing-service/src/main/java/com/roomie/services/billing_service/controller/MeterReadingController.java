@@ -2,11 +2,14 @@ package com.roomie.services.billing_service.controller;
 
 import org.springframework.http.ResponseEntity;
 import com.roomie.services.billing_service.dto.response.ApiResponse;
+import com.roomie.services.billing_service.dto.response.MeterOcrJobResponse;
 import com.roomie.services.billing_service.dto.response.MeterReadingResult;
+import com.roomie.services.billing_service.dto.response.OcrCacheStatsResponse;
 import com.roomie.services.billing_service.entity.MeterReading;
 import com.roomie.services.billing_service.repository.MeterReadingRepository;
 import com.roomie.services.billing_service.service.MeterOcrService;
 import com.roomie.services.billing_service.service.MeterReadingService;
+import com.roomie.services.billing_service.service.OcrResultCache;
 import com.roomie.services.billing_service.service.VietnameseMeterOcrService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +34,7 @@ public class MeterReadingController {
     MeterReadingService meterReadingService;
     MeterOcrService ocrService;
     VietnameseMeterOcrService vietnameseOcrService;
+    OcrResultCache ocrResultCache;
 
     @GetMapping("/{id}")
     public ApiResponse<MeterReading> getOne(@PathVariable String id) {
@@ -98,6 +102,27 @@ public class MeterReadingController {
         return ApiResponse.success(updated, message);
     }
 
+    @PostMapping(value = "/{id}/upload-with-ai/async",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResponse<MeterOcrJobResponse> uploadWithAiAsync(
+            @PathVariable String id,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("meterType") String meterType) {
+
+        log.info("🤖 AI Upload (queued): {} meter photo for reading: {}", meterType, id);
+
+        MeterOcrJobResponse job = meterReadingService.submitMeterPhotoOcr(id, file, meterType);
+        return ApiResponse.success(job,
+                "Photo uploaded, reading is being extracted. Listen on /user/queue/meter-ocr or poll the job");
+    }
+
+    @GetMapping("/ocr-jobs/{jobId}")
+    public ApiResponse<MeterOcrJobResponse> getOcrJob(@PathVariable String jobId) {
+        return ApiResponse.success(meterReadingService.getOcrJob(jobId),
+                "OCR job retrieved");
+    }
+
     @PostMapping(value = "/test-ocr",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ApiResponse<MeterReadingResult> testOcr(
@@ -115,6 +140,22 @@ public class MeterReadingController {
         return ApiResponse.success(result, message);
     }
 
+    @GetMapping("/ocr-cache/stats")
+    public ApiResponse<OcrCacheStatsResponse> getOcrCacheStats() {
+        OcrCacheStatsResponse stats = ocrResultCache.stats();
+        return ApiResponse.success(stats,
+                String.format("OCR cache hit rate: %.0f%%", stats.getHitRate() * 100));
+    }
+
+    @DeleteMapping("/ocr-cache")
+    public ApiResponse<OcrCacheStatsResponse> purgeOcrCache() {
+        log.info("Purging OCR result cache");
+
+        OcrCacheStatsResponse stats = ocrResultCache.purge();
+        return ApiResponse.success(stats,
+                String.format("Purged %d cached OCR entries", stats.getPurgedKeys()));
+    }
+
     @PostMapping(value = "/test-vietnamese-ocr",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ApiResponse<VietnameseMeterOcrService.MeterReadingResult> testVietnameseOcr(
@@ -0,0 +1,27 @@
+package com.roomie.services.billing_service.dto.event;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+/**
+ * Published on meter.ocr.requested (only jobId is needed there) and on meter.ocr.updated,
+ * which notification-service pushes to the requesting user over WebSocket.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MeterOcrJobEvent {
+    String jobId;
+    String meterReadingId;
+    String meterType;
+    String userId;
+    String status;      // QUEUED, RUNNING, COMPLETED, FAILED
+    Double value;
+    Double confidence;
+    String error;
+    Instant timestamp;
+}
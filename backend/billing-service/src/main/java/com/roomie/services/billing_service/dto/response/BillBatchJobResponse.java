@@ -0,0 +1,31 @@
+package com.roomie.services.billing_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BillBatchJobResponse {
+    String jobId;
+    String type;            // GENERATE, SEND
+    String state;           // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+
+    int total;
+    int processed;
+    int successCount;
+    int failedCount;
+    Double progressPercent;
+
+    Instant createdAt;
+    Instant startedAt;
+    Instant finishedAt;
+    String error;
+
+    Map<String, Object> result;  // same shape as the synchronous bulk endpoints, once finished
+}
@@ -51,6 +51,7 @@ public class BillResponse {
 
     String notes;
 
+    Instant emailedAt;
     Instant createdAt;
     Instant updatedAt;
 }
@@ -0,0 +1,27 @@
+package com.roomie.services.billing_service.dto.response;
+
+import com.roomie.services.billing_service.enums.EmailJobStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InvoiceEmailJobResponse {
+    String id;
+    String billId;
+    String recipientEmail;
+
+    EmailJobStatus status;
+    int attempts;
+    Instant nextAttemptAt;
+    String lastError;
+
+    Instant sentAt;
+    Instant createdAt;
+    Instant updatedAt;
+}
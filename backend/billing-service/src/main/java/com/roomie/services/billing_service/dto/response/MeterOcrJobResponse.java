@@ -0,0 +1,31 @@
+package com.roomie.services.billing_service.dto.response;
+
+import com.roomie.services.billing_service.enums.OcrJobStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MeterOcrJobResponse {
+    String id;
+    String meterReadingId;
+    String meterType;
+    String photoUrl;
+
+    OcrJobStatus status;
+    int attempts;
+
+    Double value;
+    Double confidence;
+    String strategy;
+    String error;
+
+    Instant createdAt;
+    Instant startedAt;
+    Instant finishedAt;
+}
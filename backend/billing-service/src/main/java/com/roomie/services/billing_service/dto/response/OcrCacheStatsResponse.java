@@ -0,0 +1,22 @@
+package com.roomie.services.billing_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OcrCacheStatsResponse {
+    long localSize;
+    double localHitRate;      // Caffeine only, since start
+
+    long localHits;           // exact content, served from memory
+    long redisHits;           // exact content, served from Redis
+    long similarHits;         // perceptual hash within max distance
+    long misses;              // full OCR pipeline ran
+    double hitRate;           // all hits / lookups, since start
+
+    Long purgedKeys;          // only set by the purge endpoint
+}
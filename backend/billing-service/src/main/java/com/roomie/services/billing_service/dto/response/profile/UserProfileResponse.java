@@ -0,0 +1,20 @@
+package com.roomie.services.billing_service.dto.response.profile;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserProfileResponse {
+    String id;
+    String userId;
+
+    String username;
+    String email;
+
+    String firstName;
+    String lastName;
+}
@@ -3,6 +3,8 @@ package com.roomie.services.billing_service.entity;
 import com.roomie.services.billing_service.enums.BillStatus;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
@@ -11,6 +13,11 @@ import java.time.Instant;
 import java.time.LocalDate;
 
 @Document(collection = "bills")
+@CompoundIndexes({
+        @CompoundIndex(name = "landlord_created_idx", def = "{'landlordId': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "tenant_status_due_idx", def = "{'tenantId': 1, 'status': 1, 'dueDate': 1}"),
+        @CompoundIndex(name = "contract_month_idx", def = "{'contractId': 1, 'billingMonth': 1}")
+})
 @Getter
 @Setter
 @Builder
@@ -71,6 +78,7 @@ public class Bill {
 
     // Timestamps
     Instant paidAt;
+    Instant emailedAt; // Last invoice email delivered
     Instant createdAt;
     Instant updatedAt;
 }
\ No newline at end of file
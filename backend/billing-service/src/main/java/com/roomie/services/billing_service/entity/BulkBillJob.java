@@ -0,0 +1,52 @@
+package com.roomie.services.billing_service.entity;
+
+import com.roomie.services.billing_service.enums.BulkJobStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Asynchronous bulk generate/send job
+ * Written by whichever instance runs it and read by status polls on any instance; the running
+ * instance keeps {@code lockedUntil} in the future, so a job whose lease ran out lost its worker.
+ */
+@Document(collection = "bulk_bill_jobs")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BulkBillJob {
+    @MongoId
+    String id;
+
+    String type;            // GENERATE, SEND
+    BulkJobStatus status;
+    String createdBy;
+
+    // Progress
+    int total;
+    int successCount;
+    int failedCount;
+
+    boolean cancelRequested;
+    Instant lockedUntil;    // Lease of the running instance
+
+    String error;
+    Map<String, Object> result;
+
+    // Timestamps
+    Instant createdAt;
+    Instant startedAt;
+    Instant finishedAt;
+    Instant updatedAt;
+
+    @Indexed(name = "expire_at_ttl", expireAfterSeconds = 0)
+    Instant expireAt;       // Set when finished; Mongo removes the job after the retention
+}
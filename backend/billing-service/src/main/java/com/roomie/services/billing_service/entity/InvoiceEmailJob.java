@@ -0,0 +1,56 @@
+package com.roomie.services.billing_service.entity;
+
+import com.roomie.services.billing_service.dto.response.ContractResponse;
+import com.roomie.services.billing_service.dto.response.property.PropertyResponse;
+import com.roomie.services.billing_service.enums.EmailJobStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.Instant;
+
+/**
+ * Outbound invoice email
+ * Queued by the API and delivered by InvoiceEmailDispatcher; contract and property are
+ * snapshotted at enqueue time because the worker has no user token for the other services.
+ */
+@Document(collection = "invoice_emails")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_next_attempt_idx", def = "{'status': 1, 'nextAttemptAt': 1}"),
+        @CompoundIndex(name = "bill_status_idx", def = "{'billId': 1, 'status': 1}")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InvoiceEmailJob {
+    @MongoId
+    String id;
+
+    // References
+    String billId;
+    String landlordId; // Who queued it
+
+    String recipientEmail;
+
+    // Snapshots for rendering
+    ContractResponse contract;
+    PropertyResponse property;
+
+    // Delivery state
+    EmailJobStatus status;
+    int attempts;
+    Instant nextAttemptAt;
+    Instant lockedUntil; // Claim lease of the worker sending it
+    String lastError;
+
+    // Timestamps
+    Instant sentAt;
+    Instant createdAt;
+    Instant updatedAt;
+}
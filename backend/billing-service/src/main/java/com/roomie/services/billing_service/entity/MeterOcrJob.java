@@ -0,0 +1,58 @@
+package com.roomie.services.billing_service.entity;
+
+import com.roomie.services.billing_service.enums.OcrJobStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.Instant;
+
+/**
+ * Asynchronous OCR of an uploaded meter photo
+ * Created by the API after the photo is stored; read by MeterOcrWorker, which gets the job id
+ * over Kafka. The image bytes stay on the job until it finishes, so any worker instance can run it.
+ */
+@Document(collection = "meter_ocr_jobs")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}"),
+        @CompoundIndex(name = "reading_created_idx", def = "{'meterReadingId': 1, 'createdAt': -1}")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MeterOcrJob {
+    @MongoId
+    String id;
+
+    // References
+    String meterReadingId;
+    String meterType;   // ELECTRICITY, WATER
+    String requestedBy; // Receives the progress pushes
+
+    String photoUrl;
+    byte[] image;       // Removed once the job finishes
+
+    // Processing state
+    OcrJobStatus status;
+    int attempts;
+    Instant lockedUntil; // Claim lease of the worker running it
+
+    // Result
+    Double value;
+    Double confidence;
+    String strategy;
+    String rawText;
+    String error;
+
+    // Timestamps
+    Instant createdAt;
+    Instant startedAt;
+    Instant finishedAt;
+    Instant updatedAt;
+}
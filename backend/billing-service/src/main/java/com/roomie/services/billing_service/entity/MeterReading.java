@@ -2,6 +2,7 @@ package com.roomie.services.billing_service.entity;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
@@ -13,6 +14,7 @@ import java.time.LocalDate;
  * Tracks historical meter readings for electricity, water, gas
  */
 @Document(collection = "meter_readings")
+@CompoundIndex(name = "contract_reading_month_idx", def = "{'contractId': 1, 'readingMonth': -1}")
 @Getter
 @Setter
 @Builder
@@ -0,0 +1,9 @@
+package com.roomie.services.billing_service.enums;
+
+public enum BulkJobStatus {
+    QUEUED,     // Đã nhận, chưa chạy
+    RUNNING,    // Đang chạy trên một instance
+    COMPLETED,  // Xong (có thể có item lỗi)
+    FAILED,     // Lỗi hoặc instance chạy job đã dừng
+    CANCELLED   // Người dùng huỷ hoặc instance tắt giữa chừng
+}
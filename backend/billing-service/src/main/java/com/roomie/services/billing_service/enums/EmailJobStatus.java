@@ -0,0 +1,8 @@
+package com.roomie.services.billing_service.enums;
+
+public enum EmailJobStatus {
+    PENDING,    // Chờ gửi (hoặc chờ gửi lại)
+    SENDING,    // Worker đang gửi
+    SENT,       // Đã gửi
+    FAILED      // Hết số lần thử
+}
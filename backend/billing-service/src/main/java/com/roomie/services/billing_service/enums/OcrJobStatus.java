@@ -0,0 +1,8 @@
+package com.roomie.services.billing_service.enums;
+
+public enum OcrJobStatus {
+    QUEUED,     // Chờ worker (hoặc chờ chạy lại)
+    RUNNING,    // Worker đang đọc ảnh
+    COMPLETED,  // Đã đọc xong (kể cả khi OCR không ra chỉ số)
+    FAILED      // Hết số lần thử
+}
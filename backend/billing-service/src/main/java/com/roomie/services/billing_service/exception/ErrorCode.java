@@ -26,6 +26,11 @@ public enum ErrorCode {
     BILL_NOT_FOUND(1017,"Bill not found", HttpStatus.NOT_FOUND),
     INVALID_BILL_STATUS(1018,"Invalid bill status", HttpStatus.BAD_REQUEST),
     INVALID_METER_READING(1019,"Invalid meter reading", HttpStatus.BAD_REQUEST),
+    BATCH_JOB_NOT_FOUND(1020,"Batch job not found", HttpStatus.NOT_FOUND),
+    EMAIL_JOB_NOT_FOUND(1021,"Email job not found", HttpStatus.NOT_FOUND),
+    OCR_JOB_NOT_FOUND(1022,"OCR job not found", HttpStatus.NOT_FOUND),
+    RECIPIENT_EMAIL_NOT_FOUND(1023,"Tenant has no email address", HttpStatus.BAD_REQUEST),
+    PROFILE_SERVICE_ERROR(1024,"Lỗi khi lấy thông tin người thuê", HttpStatus.INTERNAL_SERVER_ERROR),
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
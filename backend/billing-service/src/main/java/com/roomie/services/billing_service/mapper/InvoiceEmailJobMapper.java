@@ -0,0 +1,11 @@
+package com.roomie.services.billing_service.mapper;
+
+import com.roomie.services.billing_service.dto.response.InvoiceEmailJobResponse;
+import com.roomie.services.billing_service.entity.InvoiceEmailJob;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface InvoiceEmailJobMapper {
+
+    InvoiceEmailJobResponse toResponse(InvoiceEmailJob job);
+}
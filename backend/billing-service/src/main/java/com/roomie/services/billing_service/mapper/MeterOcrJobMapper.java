@@ -0,0 +1,11 @@
+package com.roomie.services.billing_service.mapper;
+
+import com.roomie.services.billing_service.dto.response.MeterOcrJobResponse;
+import com.roomie.services.billing_service.entity.MeterOcrJob;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface MeterOcrJobMapper {
+
+    MeterOcrJobResponse toResponse(MeterOcrJob job);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +21,9 @@ public interface BillRepository extends MongoRepository<Bill, String> {
     // Find by landlord/tenant
     List<Bill> findByLandlordId(String landlordId);
     List<Bill> findByTenantId(String tenantId);
+    List<Bill> findByLandlordIdAndBillingMonth(String landlordId, LocalDate billingMonth);
+    List<Bill> findByLandlordIdAndBillingMonthAndStatusIn(
+            String landlordId, LocalDate billingMonth, Collection<BillStatus> statuses);
 
     // Find by status
     List<Bill> findByStatus(BillStatus status);
@@ -30,4 +34,5 @@ public interface BillRepository extends MongoRepository<Bill, String> {
 
     // Bulk operations
     List<Bill> findByContractIdIn(List<String> contractIds);
+    List<Bill> findByContractIdInAndBillingMonthIn(Collection<String> contractIds, Collection<LocalDate> billingMonths);
 }
\ No newline at end of file
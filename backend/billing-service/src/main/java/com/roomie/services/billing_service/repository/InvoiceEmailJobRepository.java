@@ -0,0 +1,17 @@
+package com.roomie.services.billing_service.repository;
+
+import com.roomie.services.billing_service.entity.InvoiceEmailJob;
+import com.roomie.services.billing_service.enums.EmailJobStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InvoiceEmailJobRepository extends MongoRepository<InvoiceEmailJob, String> {
+
+    List<InvoiceEmailJob> findByBillIdOrderByCreatedAtDesc(String billId);
+
+    List<InvoiceEmailJob> findByBillIdInAndStatusIn(Collection<String> billIds, Collection<EmailJobStatus> statuses);
+}
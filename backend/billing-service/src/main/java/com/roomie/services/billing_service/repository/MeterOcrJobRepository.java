@@ -0,0 +1,9 @@
+package com.roomie.services.billing_service.repository;
+
+import com.roomie.services.billing_service.entity.MeterOcrJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MeterOcrJobRepository extends MongoRepository<MeterOcrJob, String> {
+}
@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,7 @@ public interface MeterReadingRepository extends MongoRepository<MeterReading, St
 
     // Find by bill
     Optional<MeterReading> findByBillId(String billId);
+    List<MeterReading> findByBillIdIn(Collection<String> billIds);
 
     // Find by date range
     List<MeterReading> findByContractIdAndReadingMonthBetween(
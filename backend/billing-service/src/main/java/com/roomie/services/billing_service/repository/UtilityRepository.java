@@ -4,6 +4,7 @@ import com.roomie.services.billing_service.entity.Utility;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,10 @@ public interface UtilityRepository extends MongoRepository<Utility, String> {
     // Find by landlord
     List<Utility> findByLandlordId(String landlordId);
 
+    // Bulk lookups (bill generation)
+    List<Utility> findByContractIdInAndActiveTrue(Collection<String> contractIds);
+    List<Utility> findByPropertyIdInAndActiveTrue(Collection<String> propertyIds);
+
     // Check if utility config exists
     boolean existsByPropertyIdAndActiveTrue(String propertyId);
     boolean existsByContractIdAndActiveTrue(String contractId);
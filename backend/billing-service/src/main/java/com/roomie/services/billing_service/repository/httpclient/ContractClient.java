@@ -8,6 +8,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +19,8 @@ import java.util.Map;
 public interface ContractClient {
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     ResponseEntity<ApiResponse<ContractResponse>> get(@PathVariable String id);
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    ApiResponse<List<ContractResponse>> getByIds(@RequestBody List<String> ids);
     @GetMapping("/my-contracts")
     ApiResponse<Map<String, List<ContractResponse>>> getMyContracts();
 }
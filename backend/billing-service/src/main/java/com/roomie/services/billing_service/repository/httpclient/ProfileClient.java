@@ -0,0 +1,19 @@
+package com.roomie.services.billing_service.repository.httpclient;
+
+import com.roomie.services.billing_service.configuration.FeignMultipartConfig;
+import com.roomie.services.billing_service.dto.response.ApiResponse;
+import com.roomie.services.billing_service.dto.response.profile.UserProfileResponse;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+@FeignClient(name = "profile-service",
+        configuration = {FeignMultipartConfig.class})
+public interface ProfileClient {
+    // Profiles of the given user ids; unknown ids are left out
+    @PostMapping(value = "/internal/users/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    ApiResponse<List<UserProfileResponse>> getProfiles(@RequestBody List<String> userIds);
+}
@@ -7,11 +7,16 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 @FeignClient(name = "property-service",
         configuration = {FeignMultipartConfig.class})
 public interface PropertyClient {
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     ApiResponse<PropertyResponse> get(@PathVariable String id);
+    @PostMapping(value = "/internal/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    ApiResponse<List<PropertyResponse>> getByIds(@RequestBody List<String> ids);
 }
-
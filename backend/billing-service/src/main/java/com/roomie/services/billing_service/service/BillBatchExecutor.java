@@ -0,0 +1,289 @@
+package com.roomie.services.billing_service.service;
+
+import com.roomie.services.billing_service.dto.response.BillBatchJobResponse;
+import com.roomie.services.billing_service.entity.BulkBillJob;
+import com.roomie.services.billing_service.enums.BulkJobStatus;
+import com.roomie.services.billing_service.exception.AppException;
+import com.roomie.services.billing_service.exception.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Execution layer for billing batch work.
+ *
+ * Jobs run on virtual threads, since the work is dominated by blocking Feign and Mongo
+ * calls. Every chunk of work takes a permit from a shared semaphore
+ * ({@code billing.batch.max-concurrency}), which bounds the number of concurrent calls
+ * against the contract service and Mongo whether the batch came in synchronously or as a job.
+ * The caller's security context is carried into the job so Feign keeps forwarding its token.
+ *
+ * Job state lives in {@code bulk_bill_jobs}, so any instance can report or cancel a job. The
+ * running instance renews a lease on its jobs; a job whose lease expired is reported as failed,
+ * since a job is not resumed after its instance stops.
+ */
+@Service
+@Slf4j
+public class BillBatchExecutor {
+
+    private static final List<BulkJobStatus> ACTIVE = List.of(BulkJobStatus.QUEUED, BulkJobStatus.RUNNING);
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bill-batch-", 0).factory());
+    // Jobs this instance is running, for lease renewal and shutdown
+    private final ConcurrentMap<String, BillBatchJob> running = new ConcurrentHashMap<>();
+
+    private final MongoTemplate mongoTemplate;
+    private final Semaphore permits;
+    private final Duration retention;
+    private final Duration lease;
+    private final Duration shutdownTimeout;
+
+    public BillBatchExecutor(MongoTemplate mongoTemplate,
+                             @Value("${billing.batch.max-concurrency:4}") int maxConcurrency,
+                             @Value("${billing.batch.job-retention:PT1H}") Duration retention,
+                             @Value("${billing.batch.lease:PT2M}") Duration lease,
+                             @Value("${billing.batch.shutdown-timeout:PT20S}") Duration shutdownTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency), true);
+        this.retention = retention;
+        this.lease = lease;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Start a job in the background; {@code work} receives the job to report progress
+     * and check for cancellation, and returns the final result map.
+     */
+    public BillBatchJobResponse submit(String type, int total, Function<BillBatchJob, Map<String, Object>> work) {
+        Instant now = Instant.now();
+        BulkBillJob record = mongoTemplate.insert(BulkBillJob.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .status(BulkJobStatus.QUEUED)
+                .createdBy(getCurrentUserId())
+                .total(total)
+                .lockedUntil(now.plus(lease))
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+
+        BillBatchJob job = new BillBatchJob(record.getId(), mongoTemplate);
+        running.put(job.getId(), job);
+
+        Runnable task = new DelegatingSecurityContextRunnable(() -> run(job, work));
+        executor.submit(task);
+
+        log.info("Submitted {} job {} with {} items", type, job.getId(), total);
+        return toResponse(record);
+    }
+
+    /**
+     * Run one unit of batch work under a concurrency permit.
+     */
+    public void withPermit(Runnable action) {
+        withPermit(null, action);
+    }
+
+    /**
+     * Run one chunk of a job under a concurrency permit, unless the job was cancelled while
+     * waiting for it; a chunk that starts always runs to the end.
+     */
+    public void withPermit(BillBatchJob job, Runnable action) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a batch permit");
+        }
+        try {
+            if (job != null) job.checkCancelled();
+            action.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public BillBatchJobResponse getJob(String jobId) {
+        BulkBillJob record = load(jobId);
+
+        if (ACTIVE.contains(record.getStatus()) && record.getLockedUntil().isBefore(Instant.now())) {
+            // Its instance stopped without finishing it
+            finish(Query.query(Criteria.where("_id").is(jobId)
+                            .and("status").in(ACTIVE)
+                            .and("lockedUntil").lt(Instant.now())),
+                    BulkJobStatus.FAILED, null, "The instance running this job stopped before it finished");
+            record = load(jobId);
+        }
+        return toResponse(record);
+    }
+
+    public BillBatchJobResponse cancel(String jobId) {
+        BulkBillJob record = load(jobId);
+        if (!ACTIVE.contains(record.getStatus())) {
+            return toResponse(record);
+        }
+
+        BillBatchJob local = running.get(jobId);
+        if (local != null) local.requestCancel();
+
+        // The worker, wherever it runs, stops at its next chunk boundary
+        mongoTemplate.updateFirst(active(jobId),
+                new Update().set("cancelRequested", true).set("updatedAt", Instant.now()),
+                BulkBillJob.class);
+        // Not started yet: it will not start
+        finish(Query.query(Criteria.where("_id").is(jobId).and("status").is(BulkJobStatus.QUEUED)),
+                BulkJobStatus.CANCELLED, null, null);
+
+        log.info("Cancellation requested for job {}", jobId);
+        return toResponse(load(jobId));
+    }
+
+    /**
+     * Keep the leases of this instance's jobs from running out while they wait for permits
+     * or work through long chunks.
+     */
+    @Scheduled(fixedDelayString = "${billing.batch.lease-renewal:PT30S}",
+            initialDelayString = "${billing.batch.lease-renewal:PT30S}")
+    void renewLeases() {
+        if (running.isEmpty()) return;
+
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(running.keySet()).and("status").in(ACTIVE)),
+                new Update().set("lockedUntil", Instant.now().plus(lease)),
+                BulkBillJob.class);
+    }
+
+    private void run(BillBatchJob job, Function<BillBatchJob, Map<String, Object>> work) {
+        try {
+            Instant now = Instant.now();
+            boolean started = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(job.getId()).and("status").is(BulkJobStatus.QUEUED)),
+                    new Update()
+                            .set("status", BulkJobStatus.RUNNING)
+                            .set("startedAt", now)
+                            .set("lockedUntil", now.plus(lease))
+                            .set("updatedAt", now),
+                    BulkBillJob.class).getModifiedCount() > 0;
+            if (!started) {
+                log.info("Job {} was cancelled before it started", job.getId());
+                return;
+            }
+
+            job.checkCancelled();
+            complete(job.getId(), work.apply(job));
+            log.info("Job {} completed", job.getId());
+        } catch (CancellationException e) {
+            finish(active(job.getId()), BulkJobStatus.CANCELLED, null,
+                    executor.isShutdown() ? "The instance running this job shut down" : null);
+            log.info("Job {} cancelled", job.getId());
+        } catch (Exception e) {
+            finish(active(job.getId()), BulkJobStatus.FAILED, null, e.getMessage());
+            log.error("Job {} failed", job.getId(), e);
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    private void complete(String jobId, Map<String, Object> result) {
+        try {
+            finish(active(jobId), BulkJobStatus.COMPLETED, result, null);
+        } catch (RuntimeException e) {
+            // A very large batch can exceed the 16 MB document limit; the failures are what matters
+            log.warn("Could not store the full result of job {}, storing it without successList", jobId, e);
+            Map<String, Object> trimmed = new HashMap<>(result);
+            trimmed.remove("successList");
+            trimmed.put("successListOmitted", true);
+            finish(active(jobId), BulkJobStatus.COMPLETED, trimmed, null);
+        }
+    }
+
+    private void finish(Query query, BulkJobStatus status, Map<String, Object> result, String error) {
+        Instant now = Instant.now();
+        mongoTemplate.updateFirst(query,
+                new Update()
+                        .set("status", status)
+                        .set("result", result)
+                        .set("error", error)
+                        .set("finishedAt", now)
+                        .set("updatedAt", now)
+                        .set("expireAt", now.plus(retention)),
+                BulkBillJob.class);
+    }
+
+    private Query active(String jobId) {
+        return Query.query(Criteria.where("_id").is(jobId).and("status").in(ACTIVE));
+    }
+
+    private BulkBillJob load(String jobId) {
+        BulkBillJob record = mongoTemplate.findById(jobId, BulkBillJob.class);
+        if (record == null) {
+            throw new AppException(ErrorCode.BATCH_JOB_NOT_FOUND);
+        }
+        if (!record.getCreatedBy().equals(getCurrentUserId())) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        return record;
+    }
+
+    private BillBatchJobResponse toResponse(BulkBillJob record) {
+        int total = record.getTotal();
+        int processed = record.getSuccessCount() + record.getFailedCount();
+        return BillBatchJobResponse.builder()
+                .jobId(record.getId())
+                .type(record.getType())
+                .state(record.getStatus().name())
+                .total(total)
+                .processed(processed)
+                .successCount(record.getSuccessCount())
+                .failedCount(record.getFailedCount())
+                .progressPercent(total > 0 ? Math.round(processed * 1000.0 / total) / 10.0 : 100.0)
+                .createdAt(record.getCreatedAt())
+                .startedAt(record.getStartedAt())
+                .finishedAt(record.getFinishedAt())
+                .error(record.getError())
+                .result(record.getResult())
+                .build();
+    }
+
+    private String getCurrentUserId() {
+        return SecurityContextHolder.getContext()
+                .getAuthentication()
+                .getName();
+    }
+
+    /**
+     * Stop this instance's jobs at their next chunk boundary and give running chunks time to
+     * finish their writes; jobs still running after the timeout are reported as failed once
+     * their lease runs out.
+     */
+    @PreDestroy
+    void shutdown() {
+        running.values().forEach(BillBatchJob::requestCancel);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("{} bulk jobs still running after {}", running.size(), shutdownTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
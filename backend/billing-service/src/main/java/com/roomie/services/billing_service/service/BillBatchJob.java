@@ -0,0 +1,62 @@
+package com.roomie.services.billing_service.service;
+
+import com.roomie.services.billing_service.entity.BulkBillJob;
+import lombok.Getter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Worker-side handle of one asynchronous bulk billing job; progress and cancellation go
+ * through the job's {@link BulkBillJob} document, so polls and cancels work from any instance.
+ */
+@Getter
+public class BillBatchJob {
+
+    private final String id;
+    private final MongoTemplate mongoTemplate;
+
+    private volatile boolean cancelRequested;
+
+    BillBatchJob(String id, MongoTemplate mongoTemplate) {
+        this.id = id;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Called by the worker after each chunk. */
+    public void recordProgress(int succeeded, int failed) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                new Update()
+                        .inc("successCount", succeeded)
+                        .inc("failedCount", failed)
+                        .set("updatedAt", Instant.now()),
+                BulkBillJob.class);
+    }
+
+    /**
+     * Called by the worker between chunks; aborts the job if a cancel was requested here,
+     * on another instance, or the thread was interrupted.
+     */
+    public void checkCancelled() {
+        if (!cancelRequested && !Thread.currentThread().isInterrupted()) {
+            cancelRequested = mongoTemplate.exists(
+                    Query.query(Criteria.where("_id").is(id).and("cancelRequested").is(true)),
+                    BulkBillJob.class);
+        }
+        if (cancelRequested || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Job " + id + " was cancelled");
+        }
+    }
+
+    /**
+     * Cooperative: the worker stops at its next chunk boundary, so a chunk already running
+     * finishes (and is counted) rather than being interrupted halfway through its writes.
+     */
+    void requestCancel() {
+        cancelRequested = true;
+    }
+}
@@ -1,29 +1,52 @@
 package com.roomie.services.billing_service.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
 import com.roomie.services.billing_service.dto.request.BillRequest;
-import com.roomie.services.billing_service.dto.response.BillResponse;
+import com.roomie.services.billing_service.dto.response.ApiResponse;
+import com.roomie.services.billing_service.dto.response.BillBatchJobResponse;
+import com.roomie.services.billing_service.dto.response.ContractResponse;
 import com.roomie.services.billing_service.entity.Bill;
+import com.roomie.services.billing_service.entity.MeterReading;
+import com.roomie.services.billing_service.entity.Utility;
 import com.roomie.services.billing_service.enums.BillStatus;
 import com.roomie.services.billing_service.exception.AppException;
 import com.roomie.services.billing_service.exception.ErrorCode;
 import com.roomie.services.billing_service.repository.BillRepository;
+import com.roomie.services.billing_service.repository.MeterReadingRepository;
+import com.roomie.services.billing_service.repository.UtilityRepository;
+import com.roomie.services.billing_service.repository.httpclient.ContractClient;
+import feign.FeignException;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
  * Bill Bulk Operations Service
  * Handles bulk bill generation and sending
+ *
+ * Bulk generation runs as a pipeline per chunk of requests: prefetch contracts (one batch
+ * call), utilities, existing bills and latest meter readings (a few $in queries), calculate
+ * every bill in memory, then write bills and meter readings with unordered bulkWrites.
  */
 @Service
 @RequiredArgsConstructor
@@ -31,141 +54,468 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BillBulkOperationsService {
 
+    private static final int CHUNK_SIZE = 500;
+    private static final String TOPIC_BILL_SENT = "bill.sent";
+    private static final String JOB_GENERATE = "GENERATE";
+    private static final String JOB_SEND = "SEND";
+
     EnhancedBillingService billingService;
+    BillValidationService validationService;
     BillRepository billRepository;
-    ExecutorService executorService = Executors.newFixedThreadPool(10);
+    MeterReadingRepository meterReadingRepository;
+    UtilityRepository utilityRepository;
+    ContractClient contractClient;
+    MongoTemplate mongoTemplate;
+    KafkaTemplate<String, Object> kafkaTemplate;
+    CacheManager cacheManager;
+    BillBatchExecutor batchExecutor;
 
     /**
      * Bulk generate bills
-     * Processes multiple bill requests in parallel
+     * Creates new DRAFT bills or updates existing DRAFT bills for the same contract and month
      */
-    @Transactional
     public Map<String, Object> bulkGenerateBills(List<BillRequest> requests) {
+        return generate(requests, null);
+    }
+
+    /**
+     * Start bulk generation as a background job that can be polled and cancelled
+     */
+    public BillBatchJobResponse startBulkGenerate(List<BillRequest> requests) {
+        List<BillRequest> snapshot = List.copyOf(requests);
+        return batchExecutor.submit(JOB_GENERATE, snapshot.size(), job -> generate(snapshot, job));
+    }
+
+    private Map<String, Object> generate(List<BillRequest> requests, BillBatchJob job) {
         log.info("Starting bulk generation for {} bills", requests.size());
+        long started = System.currentTimeMillis();
 
-        Map<String, Object> result = new HashMap<>();
         List<Map<String, Object>> successList = new ArrayList<>();
         List<Map<String, Object>> failedList = new ArrayList<>();
 
-        // Process in parallel
-        List<CompletableFuture<Map<String, Object>>> futures = requests.stream()
-                .map(request -> CompletableFuture.supplyAsync(() -> {
-                    try {
-                        BillResponse bill = billingService.createOrUpdateBill(request);
-
-                        Map<String, Object> success = new HashMap<>();
-                        success.put("contractId", request.getContractId());
-                        success.put("billingMonth", request.getBillingMonth());
-                        success.put("billId", bill.getId());
-                        success.put("status", "success");
-
-                        return success;
-                    } catch (Exception e) {
-                        log.error("Error generating bill for contract: {}",
-                                request.getContractId(), e);
-
-                        Map<String, Object> failed = new HashMap<>();
-                        failed.put("contractId", request.getContractId());
-                        failed.put("billingMonth", request.getBillingMonth());
-                        failed.put("status", "failed");
-                        failed.put("error", e.getMessage());
-
-                        return failed;
-                    }
-                }, executorService))
-                .collect(Collectors.toList());
+        try {
+            for (int from = 0; from < requests.size(); from += CHUNK_SIZE) {
+                if (job != null) job.checkCancelled();
+
+                List<BillRequest> chunk = requests.subList(from, Math.min(from + CHUNK_SIZE, requests.size()));
+                int successBefore = successList.size();
+                int failedBefore = failedList.size();
+
+                batchExecutor.withPermit(job, () -> generateChunk(chunk, successList, failedList));
+
+                if (job != null) {
+                    job.recordProgress(successList.size() - successBefore, failedList.size() - failedBefore);
+                }
+            }
+        } finally {
+            // Evict even when cancelled part-way: earlier chunks are already written
+            evictBillCaches();
+        }
+
+        log.info("Bulk generation completed: {} success, {} failed in {} ms",
+                successList.size(), failedList.size(), System.currentTimeMillis() - started);
+
+        Map<String, Object> result = toResult(requests.size(), successList, failedList);
+        result.put("durationMs", System.currentTimeMillis() - started);
+        return result;
+    }
+
+    private void generateChunk(List<BillRequest> requests,
+                               List<Map<String, Object>> successList,
+                               List<Map<String, Object>> failedList) {
+        // 1. Parse billing months and reject duplicate contract/month pairs
+        List<BulkItem> items = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (BillRequest request : requests) {
+            try {
+                if (request.getContractId() == null) {
+                    throw new AppException(ErrorCode.CONTRACT_NOT_FOUND);
+                }
+                LocalDate billingMonth = validationService.validateAndParseBillingMonth(request.getBillingMonth());
+                BulkItem item = new BulkItem(request, billingMonth);
+                if (!seen.add(item.key())) {
+                    throw new AppException(ErrorCode.BILL_ALREADY_EXISTS,
+                            "Duplicate request for the same contract and month in this batch");
+                }
+                items.add(item);
+            } catch (Exception e) {
+                failedList.add(failure(request.getContractId(), request.getBillingMonth(), e));
+            }
+        }
+        if (items.isEmpty()) return;
+
+        // 2. Prefetch everything the chunk needs
+        Set<String> contractIds = items.stream().map(i -> i.request.getContractId()).collect(Collectors.toSet());
+        Set<LocalDate> months = items.stream().map(i -> i.billingMonth).collect(Collectors.toSet());
+
+        Map<String, ContractResponse> contracts;
+        boolean contractServiceFailed = false;
+        try {
+            contracts = fetchContracts(contractIds);
+        } catch (FeignException e) {
+            log.error("Batch contract lookup failed for {} contracts", contractIds.size(), e);
+            contracts = Map.of();
+            contractServiceFailed = true;
+        }
+
+        Map<String, Bill> existingBills = new HashMap<>();
+        billRepository.findByContractIdInAndBillingMonthIn(contractIds, months)
+                .forEach(b -> existingBills.put(b.getContractId() + "|" + b.getBillingMonth(), b));
+
+        Map<String, MeterReading> readingsByBill = new HashMap<>();
+        if (!existingBills.isEmpty()) {
+            meterReadingRepository.findByBillIdIn(existingBills.values().stream().map(Bill::getId).toList())
+                    .forEach(r -> readingsByBill.put(r.getBillId(), r));
+        }
 
-        // Wait for all to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        Map<String, MeterReading> latestReadings = findLatestReadings(contractIds);
+
+        Set<String> propertyIds = contracts.values().stream()
+                .map(ContractResponse::getPropertyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Utility> utilityByContract = new HashMap<>();
+        utilityRepository.findByContractIdInAndActiveTrue(contractIds)
+                .forEach(u -> utilityByContract.put(u.getContractId(), u));
+        Map<String, Utility> utilityByProperty = new HashMap<>();
+        if (!propertyIds.isEmpty()) {
+            // Property-wide configs only: a contract-specific one must not apply to other contracts
+            utilityRepository.findByPropertyIdInAndActiveTrue(propertyIds).stream()
+                    .filter(u -> u.getContractId() == null || u.getContractId().isBlank())
+                    .forEach(u -> utilityByProperty.putIfAbsent(u.getPropertyId(), u));
+        }
+
+        // 3. Calculate in memory; earlier months first so a later month inherits its readings
+        items.sort(Comparator.comparing((BulkItem i) -> i.billingMonth));
+        List<BulkItem> prepared = new ArrayList<>();
 
-        // Collect results
-        futures.forEach(future -> {
+        for (BulkItem item : items) {
+            String contractId = item.request.getContractId();
             try {
-                Map<String, Object> item = future.get();
-                if ("success".equals(item.get("status"))) {
-                    successList.add(item);
+                ContractResponse contract = contracts.get(contractId);
+                if (contract == null) {
+                    throw new AppException(contractServiceFailed
+                            ? ErrorCode.CONTRACT_SERVICE_ERROR
+                            : ErrorCode.CONTRACT_NOT_FOUND);
+                }
+
+                Bill existing = existingBills.get(item.key());
+                if (existing != null) {
+                    billingService.prepareBillUpdate(existing, item.request);
+                    item.bill = existing;
+                    item.created = false;
+
+                    MeterReading reading = readingsByBill.get(existing.getId());
+                    if (reading != null) {
+                        billingService.applyMeterReadingUpdate(reading, existing);
+                        item.reading = reading;
+                    }
                 } else {
-                    failedList.add(item);
+                    Utility utility = utilityByContract.getOrDefault(contractId,
+                            utilityByProperty.get(contract.getPropertyId()));
+                    if (utility == null) {
+                        throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION,
+                                "No utility configuration found for property: " + contract.getPropertyId());
+                    }
+
+                    Bill bill = billingService.prepareNewBill(item.request, contract, item.billingMonth, utility,
+                            billingService.toPreviousReadings(latestReadings.get(contractId)));
+                    bill.setId(new ObjectId().toHexString());
+                    item.bill = bill;
+                    item.created = true;
+                    item.reading = billingService.buildMeterReadingHistory(bill);
+
+                    latestReadings.put(contractId, item.reading);
                 }
+                prepared.add(item);
             } catch (Exception e) {
-                log.error("Error collecting result", e);
+                log.debug("Bill for contract {} rejected: {}", contractId, e.getMessage());
+                failedList.add(failure(contractId, item.request.getBillingMonth(), e));
+            }
+        }
+        if (prepared.isEmpty()) return;
+
+        // 4. Write bills, then meter readings only for bills that were written
+        Set<Integer> failedBillWrites = executeBillWrites(prepared);
+        writeMeterReadings(prepared, failedBillWrites);
+
+        // 5. Per-item results
+        for (int i = 0; i < prepared.size(); i++) {
+            BulkItem item = prepared.get(i);
+            if (failedBillWrites.contains(i)) {
+                failedList.add(failure(item.request.getContractId(), item.request.getBillingMonth(),
+                        new IllegalStateException("Failed to save bill")));
+                continue;
             }
-        });
 
-        result.put("total", requests.size());
-        result.put("successCount", successList.size());
-        result.put("failedCount", failedList.size());
-        result.put("successList", successList);
-        result.put("failedList", failedList);
+            Map<String, Object> success = new HashMap<>();
+            success.put("contractId", item.request.getContractId());
+            success.put("billingMonth", item.request.getBillingMonth());
+            success.put("billId", item.bill.getId());
+            success.put("action", item.created ? "created" : "updated");
+            success.put("status", "success");
+            successList.add(success);
+        }
+    }
 
-        log.info("Bulk generation completed: {} success, {} failed",
-                successList.size(), failedList.size());
+    private Map<String, ContractResponse> fetchContracts(Collection<String> contractIds) {
+        ApiResponse<List<ContractResponse>> response = contractClient.getByIds(new ArrayList<>(contractIds));
 
-        return result;
+        Map<String, ContractResponse> contracts = new HashMap<>();
+        if (response != null && response.getResult() != null) {
+            response.getResult().forEach(c -> contracts.put(c.getId(), c));
+        }
+        return contracts;
+    }
+
+    /** Latest meter reading per contract in one aggregation ($sort + $group $first). */
+    private Map<String, MeterReading> findLatestReadings(Collection<String> contractIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("contractId").in(contractIds)),
+                Aggregation.sort(Sort.Direction.DESC, "readingMonth"),
+                Aggregation.group("contractId").first("$$ROOT").as("latest"),
+                Aggregation.replaceRoot("latest"));
+
+        Map<String, MeterReading> latest = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, MeterReading.class, MeterReading.class)
+                .forEach(r -> latest.put(r.getContractId(), r));
+        return latest;
+    }
+
+    /** One unordered bulkWrite for all bills; returns the indexes (into prepared) that failed. */
+    private Set<Integer> executeBillWrites(List<BulkItem> prepared) {
+        BulkOperations bills = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Bill.class);
+        for (BulkItem item : prepared) {
+            if (item.created) {
+                bills.insert(item.bill);
+            } else {
+                bills.replaceOne(Query.query(Criteria.where("_id").is(item.bill.getId())), item.bill);
+            }
+        }
+
+        try {
+            bills.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            log.error("Bulk bill write finished with {} errors", e.getErrors().size());
+            return e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+        }
+    }
+
+    private void writeMeterReadings(List<BulkItem> prepared, Set<Integer> failedBillWrites) {
+        BulkOperations readings = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MeterReading.class);
+        int count = 0;
+
+        for (int i = 0; i < prepared.size(); i++) {
+            BulkItem item = prepared.get(i);
+            if (item.reading == null || failedBillWrites.contains(i)) continue;
+
+            if (item.created) {
+                readings.insert(item.reading);
+            } else {
+                readings.replaceOne(Query.query(Criteria.where("_id").is(item.reading.getId())), item.reading);
+            }
+            count++;
+        }
+        if (count == 0) return;
+
+        try {
+            readings.execute();
+        } catch (BulkOperationException e) {
+            log.error("Bulk meter reading write finished with {} errors", e.getErrors().size());
+        }
+    }
+
+    private Map<String, Object> failure(String contractId, String billingMonth, Exception e) {
+        Map<String, Object> failed = new HashMap<>();
+        failed.put("contractId", contractId);
+        failed.put("billingMonth", billingMonth);
+        failed.put("status", "failed");
+        failed.put("error", e.getMessage());
+        return failed;
+    }
+
+    /** One request moving through the pipeline. */
+    private static class BulkItem {
+        final BillRequest request;
+        final LocalDate billingMonth;
+        Bill bill;
+        MeterReading reading;
+        boolean created;
+
+        BulkItem(BillRequest request, LocalDate billingMonth) {
+            this.request = request;
+            this.billingMonth = billingMonth;
+        }
+
+        String key() {
+            return request.getContractId() + "|" + billingMonth;
+        }
     }
 
     /**
      * Bulk send bills
      * Changes status from DRAFT to PENDING for multiple bills
      */
-    @Transactional
     public Map<String, Object> bulkSendBills(List<String> billIds) {
+        return send(billIds, null);
+    }
+
+    /**
+     * Start bulk send as a background job that can be polled and cancelled
+     */
+    public BillBatchJobResponse startBulkSend(List<String> billIds) {
+        List<String> snapshot = List.copyOf(billIds);
+        return batchExecutor.submit(JOB_SEND, snapshot.size(), job -> send(snapshot, job));
+    }
+
+    public BillBatchJobResponse getJob(String jobId) {
+        return batchExecutor.getJob(jobId);
+    }
+
+    public BillBatchJobResponse cancelJob(String jobId) {
+        return batchExecutor.cancel(jobId);
+    }
+
+    private Map<String, Object> send(List<String> billIds, BillBatchJob job) {
         log.info("Starting bulk send for {} bills", billIds.size());
 
-        Map<String, Object> result = new HashMap<>();
         List<Map<String, Object>> successList = new ArrayList<>();
         List<Map<String, Object>> failedList = new ArrayList<>();
 
-        for (String billId : billIds) {
-            try {
-                Bill bill = billRepository.findById(billId)
-                        .orElseThrow(() -> new AppException(ErrorCode.BILL_NOT_FOUND));
+        try {
+            for (int from = 0; from < billIds.size(); from += CHUNK_SIZE) {
+                if (job != null) job.checkCancelled();
+
+                List<String> chunk = billIds.subList(from, Math.min(from + CHUNK_SIZE, billIds.size()));
+                int successBefore = successList.size();
+                int failedBefore = failedList.size();
 
-                // Validate status
-                if (bill.getStatus() != BillStatus.DRAFT) {
-                    throw new IllegalStateException(
-                            "Can only send bills in DRAFT status. Current: " + bill.getStatus());
+                batchExecutor.withPermit(job, () -> sendChunk(chunk, successList, failedList));
+
+                if (job != null) {
+                    job.recordProgress(successList.size() - successBefore, failedList.size() - failedBefore);
                 }
+            }
+        } finally {
+            evictBillCaches();
+        }
 
-                // Change status
-                bill.setStatus(BillStatus.PENDING);
-                bill.setUpdatedAt(Instant.now());
-                billRepository.save(bill);
+        log.info("Bulk send completed: {} success, {} failed",
+                successList.size(), failedList.size());
 
-                Map<String, Object> success = new HashMap<>();
-                success.put("billId", billId);
-                success.put("status", "success");
-                success.put("contractId", bill.getContractId());
-                success.put("billingMonth", bill.getBillingMonth());
+        return toResult(billIds.size(), successList, failedList);
+    }
 
-                successList.add(success);
+    /**
+     * One status update for every eligible bill of the chunk, then one bill.sent event per sent bill.
+     */
+    private void sendChunk(List<String> billIds,
+                           List<Map<String, Object>> successList,
+                           List<Map<String, Object>> failedList) {
+        Map<String, Bill> bills = new HashMap<>();
+        billRepository.findAllById(new LinkedHashSet<>(billIds)).forEach(b -> bills.put(b.getId(), b));
+
+        List<Bill> eligible = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String billId : billIds) {
+            Bill bill = bills.get(billId);
+            if (bill == null) {
+                failedList.add(sendFailure(billId, ErrorCode.BILL_NOT_FOUND.getMessage()));
+            } else if (bill.getStatus() != BillStatus.DRAFT) {
+                failedList.add(sendFailure(billId,
+                        "Can only send bills in DRAFT status. Current: " + bill.getStatus()));
+            } else if (!seen.add(billId)) {
+                failedList.add(sendFailure(billId, "Duplicate bill id in this batch"));
+            } else {
+                eligible.add(bill);
+            }
+        }
+        if (eligible.isEmpty()) return;
+
+        List<String> eligibleIds = eligible.stream().map(Bill::getId).toList();
+        Instant now = Instant.now();
+        UpdateResult update = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(eligibleIds).and("status").is(BillStatus.DRAFT)),
+                new Update().set("status", BillStatus.PENDING).set("updatedAt", now),
+                Bill.class);
+
+        // A concurrent send/delete can win the race for some ids; find out which ones we moved
+        Set<String> sent = new HashSet<>(eligibleIds);
+        if (update.getModifiedCount() < eligibleIds.size()) {
+            Query ours = Query.query(Criteria.where("_id").in(eligibleIds)
+                    .and("status").is(BillStatus.PENDING)
+                    .and("updatedAt").is(now));
+            ours.fields().include("_id");
+            sent = mongoTemplate.find(ours, Bill.class).stream().map(Bill::getId).collect(Collectors.toSet());
+        }
 
-                log.debug("Bill sent successfully: {}", billId);
+        List<String> published = new ArrayList<>();
+        for (Bill bill : eligible) {
+            if (!sent.contains(bill.getId())) {
+                failedList.add(sendFailure(bill.getId(), "Bill was modified concurrently"));
+                continue;
+            }
+            published.add(bill.getId());
+
+            Map<String, Object> success = new HashMap<>();
+            success.put("billId", bill.getId());
+            success.put("status", "success");
+            success.put("contractId", bill.getContractId());
+            success.put("billingMonth", bill.getBillingMonth());
+            successList.add(success);
+        }
 
-            } catch (Exception e) {
-                log.error("Error sending bill: {}", billId, e);
+        publishSentEvents(published);
+    }
 
-                Map<String, Object> failed = new HashMap<>();
-                failed.put("billId", billId);
-                failed.put("status", "failed");
-                failed.put("error", e.getMessage());
+    /**
+     * Hand all events to the producer without waiting on each one, then flush once so they
+     * go out in as few produce requests as possible.
+     */
+    private void publishSentEvents(List<String> billIds) {
+        if (billIds.isEmpty()) return;
 
-                failedList.add(failed);
+        for (String billId : billIds) {
+            try {
+                kafkaTemplate.send(TOPIC_BILL_SENT, billId).whenComplete((r, e) -> {
+                    if (e != null) log.error("Failed to publish {} for bill {}", TOPIC_BILL_SENT, billId, e);
+                });
+            } catch (Exception e) {
+                log.error("Failed to publish {} for bill {}", TOPIC_BILL_SENT, billId, e);
             }
         }
+        kafkaTemplate.flush();
+        log.debug("Published {} {} events", billIds.size(), TOPIC_BILL_SENT);
+    }
 
-        result.put("total", billIds.size());
+    private Map<String, Object> sendFailure(String billId, String error) {
+        Map<String, Object> failed = new HashMap<>();
+        failed.put("billId", billId);
+        failed.put("status", "failed");
+        failed.put("error", error);
+        return failed;
+    }
+
+    private Map<String, Object> toResult(int total,
+                                         List<Map<String, Object>> successList,
+                                         List<Map<String, Object>> failedList) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", total);
         result.put("successCount", successList.size());
         result.put("failedCount", failedList.size());
         result.put("successList", successList);
         result.put("failedList", failedList);
-
-        log.info("Bulk send completed: {} success, {} failed",
-                successList.size(), failedList.size());
-
         return result;
     }
 
+    private void evictBillCaches() {
+        for (String name : List.of("bill", "bill_by_contract")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+    }
+
     /**
      * Validate bills for bulk operations
      */
@@ -1,20 +1,32 @@
 package com.roomie.services.billing_service.service;
 
 import com.roomie.services.billing_service.dto.response.ContractResponse;
+import com.roomie.services.billing_service.dto.response.InvoiceEmailJobResponse;
+import com.roomie.services.billing_service.dto.response.profile.UserProfileResponse;
 import com.roomie.services.billing_service.dto.response.property.PropertyResponse;
 import com.roomie.services.billing_service.entity.Bill;
+import com.roomie.services.billing_service.entity.InvoiceEmailJob;
+import com.roomie.services.billing_service.enums.BillStatus;
+import com.roomie.services.billing_service.enums.EmailJobStatus;
 import com.roomie.services.billing_service.exception.AppException;
 import com.roomie.services.billing_service.exception.ErrorCode;
+import com.roomie.services.billing_service.mapper.InvoiceEmailJobMapper;
 import com.roomie.services.billing_service.repository.BillRepository;
+import com.roomie.services.billing_service.repository.InvoiceEmailJobRepository;
 import com.roomie.services.billing_service.repository.httpclient.ContractClient;
+import com.roomie.services.billing_service.repository.httpclient.ProfileClient;
 import com.roomie.services.billing_service.repository.httpclient.PropertyClient;
+import feign.FeignException;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
@@ -22,103 +34,236 @@ import jakarta.mail.internet.MimeMessage;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.*;
 
 /**
  * Bill Email Service
  * Handles sending invoice emails to tenants
+ *
+ * Emails are queued in the invoice_emails collection and delivered by InvoiceEmailDispatcher,
+ * so the API only does the lookups (one batched call per service) and an insert.
  */
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Slf4j
 public class BillEmailService {
+    static final List<EmailJobStatus> ACTIVE_STATUSES = List.of(EmailJobStatus.PENDING, EmailJobStatus.SENDING);
+    static final List<BillStatus> SENT_BILL_STATUSES = List.of(BillStatus.PENDING, BillStatus.PAID, BillStatus.OVERDUE);
+
     final JavaMailSender mailSender;
     final BillRepository billRepository;
-    final BillPdfGeneratorService pdfGeneratorService;
+    final InvoiceEmailJobRepository emailJobRepository;
+    final InvoiceEmailJobMapper emailJobMapper;
+    final BillValidationService validationService;
     final ContractClient contractClient;
     final PropertyClient propertyClient;
+    final ProfileClient profileClient;
 
     @Value("${spring.mail.username}")
     String fromEmail;
 
     /**
-     * Send invoice email to tenant
+     * Queue invoice email to tenant
      */
-    public void sendInvoiceEmail(String billId, String recipientEmail) {
-        try {
-            // Get bill
-            Bill bill = billRepository.findById(billId)
-                    .orElseThrow(() -> new AppException(ErrorCode.BILL_NOT_FOUND));
-
-            // Get contract
-            ContractResponse contract = contractClient.get(bill.getContractId())
-                    .getBody()
-                    .getResult();
-
-            // Get property
-            PropertyResponse property = null;
-            try {
-                property = propertyClient.get(contract.getPropertyId())
-                        .getResult();
-            } catch (Exception e) {
-                log.warn("Could not fetch property details: {}", e.getMessage());
+    public InvoiceEmailJobResponse queueInvoiceEmail(String billId, String recipientEmail) {
+        Bill bill = billRepository.findById(billId)
+                .orElseThrow(() -> new AppException(ErrorCode.BILL_NOT_FOUND));
+
+        List<String> noRecipient = new ArrayList<>();
+        List<InvoiceEmailJob> jobs = enqueue(List.of(bill), recipientEmail, noRecipient);
+        if (!noRecipient.isEmpty()) {
+            throw new AppException(ErrorCode.RECIPIENT_EMAIL_NOT_FOUND);
+        }
+        if (jobs.isEmpty()) {
+            throw new AppException(ErrorCode.CONTRACT_NOT_FOUND);
+        }
+
+        log.info("Invoice email queued for bill: {}", billId);
+        return emailJobMapper.toResponse(jobs.get(0));
+    }
+
+    /**
+     * Queue invoice emails for all sent bills (PENDING, PAID, OVERDUE) of the current landlord
+     * in one month. Bills already emailed or already queued are skipped unless resend is set.
+     * Bills whose tenant has no email address are reported in noRecipient and stay unsent.
+     */
+    public Map<String, Object> queueMonthlyInvoiceEmails(String billingMonth, boolean resend) {
+        String landlordId = getCurrentUserId();
+        LocalDate month = validationService.validateAndParseBillingMonth(billingMonth);
+
+        List<Bill> bills = billRepository.findByLandlordIdAndBillingMonthAndStatusIn(
+                landlordId, month, SENT_BILL_STATUSES);
+
+        Set<String> alreadyQueued = new HashSet<>();
+        if (!bills.isEmpty()) {
+            emailJobRepository.findByBillIdInAndStatusIn(
+                            bills.stream().map(Bill::getId).toList(), ACTIVE_STATUSES)
+                    .forEach(job -> alreadyQueued.add(job.getBillId()));
+        }
+
+        List<Bill> toQueue = bills.stream()
+                .filter(bill -> !alreadyQueued.contains(bill.getId()))
+                .filter(bill -> resend || bill.getEmailedAt() == null)
+                .toList();
+
+        List<String> noRecipient = new ArrayList<>();
+        List<InvoiceEmailJob> jobs = enqueue(toQueue, null, noRecipient);
+        log.info("Queued {} invoice emails of {} for landlord: {} ({} without a recipient)",
+                jobs.size(), billingMonth, landlordId, noRecipient.size());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("billingMonth", billingMonth);
+        result.put("totalBills", bills.size());
+        result.put("queued", jobs.size());
+        result.put("skipped", bills.size() - toQueue.size());
+        result.put("failed", toQueue.size() - jobs.size() - noRecipient.size());
+        result.put("noRecipient", noRecipient);
+        result.put("jobs", jobs.stream().map(emailJobMapper::toResponse).toList());
+        return result;
+    }
+
+    public InvoiceEmailJobResponse getEmailJob(String jobId) {
+        InvoiceEmailJob job = emailJobRepository.findById(jobId)
+                .orElseThrow(() -> new AppException(ErrorCode.EMAIL_JOB_NOT_FOUND));
+        if (!getCurrentUserId().equals(job.getLandlordId())) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        return emailJobMapper.toResponse(job);
+    }
+
+    /**
+     * Resolve contracts, properties and, unless recipientEmail is given, tenant emails in one
+     * call each and insert one job per bill. Bills whose contract cannot be found are left out;
+     * bills whose tenant has no email address are left out and added to noRecipient.
+     */
+    private List<InvoiceEmailJob> enqueue(List<Bill> bills, String recipientEmail, List<String> noRecipient) {
+        if (bills.isEmpty()) return List.of();
+
+        Map<String, ContractResponse> contracts = fetchContracts(
+                bills.stream().map(Bill::getContractId).distinct().toList());
+        Map<String, PropertyResponse> properties = fetchProperties(
+                contracts.values().stream().map(ContractResponse::getPropertyId)
+                        .filter(Objects::nonNull).distinct().toList());
+
+        boolean explicitRecipient = recipientEmail != null && !recipientEmail.isBlank();
+        Map<String, String> tenantEmails = explicitRecipient ? Map.of() : fetchTenantEmails(
+                contracts.values().stream().map(ContractResponse::getTenantId)
+                        .filter(Objects::nonNull).distinct().toList());
+
+        String requestedBy = getCurrentUserId();
+        Instant now = Instant.now();
+        List<InvoiceEmailJob> jobs = new ArrayList<>();
+
+        for (Bill bill : bills) {
+            ContractResponse contract = contracts.get(bill.getContractId());
+            if (contract == null) {
+                log.warn("Not queueing invoice email for bill {}: contract {} not found",
+                        bill.getId(), bill.getContractId());
+                continue;
             }
 
-            // Determine recipient email
-            String toEmail = recipientEmail;
+            String toEmail = explicitRecipient ? recipientEmail : tenantEmails.get(contract.getTenantId());
             if (toEmail == null || toEmail.isBlank()) {
-                // TODO: Get tenant email from contract/profile service
-                toEmail = "tenant@example.com"; // Placeholder
+                log.warn("Not queueing invoice email for bill {}: tenant {} has no email address",
+                        bill.getId(), contract.getTenantId());
+                noRecipient.add(bill.getId());
+                continue;
             }
 
-            // Generate PDF
-            byte[] pdfBytes = pdfGeneratorService.generateInvoicePdf(bill, contract, property);
+            jobs.add(InvoiceEmailJob.builder()
+                    .billId(bill.getId())
+                    .landlordId(requestedBy)
+                    .recipientEmail(toEmail)
+                    .contract(contract)
+                    .property(properties.get(contract.getPropertyId()))
+                    .status(EmailJobStatus.PENDING)
+                    .attempts(0)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+
+        return jobs.isEmpty() ? jobs : emailJobRepository.insert(jobs);
+    }
 
-            // Send email
-            sendEmailWithAttachment(
-                    toEmail,
-                    buildEmailSubject(bill),
-                    buildEmailBody(bill, property),
-                    pdfBytes,
-                    "invoice_" + billId.substring(0, 12) + ".pdf"
-            );
+    private Map<String, ContractResponse> fetchContracts(List<String> contractIds) {
+        List<ContractResponse> result;
+        try {
+            result = contractClient.getByIds(contractIds).getResult();
+        } catch (FeignException e) {
+            log.error("Could not fetch contracts {}: {}", contractIds, e.getMessage());
+            throw new AppException(ErrorCode.CONTRACT_SERVICE_ERROR);
+        }
 
-            // Update bill with emailedAt timestamp
-            bill.setUpdatedAt(Instant.now());
-            billRepository.save(bill);
+        Map<String, ContractResponse> contracts = new HashMap<>();
+        if (result != null) {
+            result.forEach(contract -> contracts.put(contract.getId(), contract));
+        }
+        return contracts;
+    }
 
-            log.info("Invoice email sent successfully for bill: {}", billId);
+    /** Email by tenant user id, from one profile-service call */
+    private Map<String, String> fetchTenantEmails(List<String> tenantIds) {
+        Map<String, String> emails = new HashMap<>();
+        if (tenantIds.isEmpty()) return emails;
 
+        List<UserProfileResponse> result;
+        try {
+            result = profileClient.getProfiles(tenantIds).getResult();
+        } catch (FeignException e) {
+            log.error("Could not fetch tenant profiles {}: {}", tenantIds, e.getMessage());
+            throw new AppException(ErrorCode.PROFILE_SERVICE_ERROR);
+        }
+
+        if (result != null) {
+            result.stream()
+                    .filter(profile -> profile.getEmail() != null && !profile.getEmail().isBlank())
+                    .forEach(profile -> emails.put(profile.getUserId(), profile.getEmail()));
+        }
+        return emails;
+    }
+
+    private Map<String, PropertyResponse> fetchProperties(List<String> propertyIds) {
+        Map<String, PropertyResponse> properties = new HashMap<>();
+        if (propertyIds.isEmpty()) return properties;
+
+        try {
+            List<PropertyResponse> result = propertyClient.getByIds(propertyIds).getResult();
+            if (result != null) {
+                result.forEach(property -> properties.put(property.getPropertyId(), property));
+            }
         } catch (Exception e) {
-            log.error("Error sending invoice email for bill: {}", billId, e);
-            throw new RuntimeException("Failed to send invoice email: " + e.getMessage());
+            // Same as before: the invoice is still sent, without property details
+            log.warn("Could not fetch property details: {}", e.getMessage());
         }
+        return properties;
     }
 
     /**
-     * Send email with PDF attachment
+     * Build the invoice email with its PDF attachment
      */
-    private void sendEmailWithAttachment(
-            String to,
-            String subject,
-            String body,
-            byte[] attachment,
-            String attachmentName
-    ) throws MessagingException {
-
+    MimeMessage buildInvoiceMessage(InvoiceEmailJob job, Bill bill, byte[] pdfBytes) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
         helper.setFrom(fromEmail);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(body, true); // true = HTML
+        helper.setTo(job.getRecipientEmail());
+        helper.setSubject(buildEmailSubject(bill));
+        helper.setText(buildEmailBody(bill, job.getProperty()), true); // true = HTML
 
         // Attach PDF
-        helper.addAttachment(attachmentName, () ->
-                new java.io.ByteArrayInputStream(attachment));
+        helper.addAttachment("invoice_" + bill.getId().substring(0, 12) + ".pdf",
+                new ByteArrayResource(pdfBytes), MediaType.APPLICATION_PDF_VALUE);
+
+        return message;
+    }
 
-        mailSender.send(message);
+    private String getCurrentUserId() {
+        return SecurityContextHolder.getContext()
+                .getAuthentication()
+                .getName();
     }
 
     /**
@@ -1,30 +1,41 @@
 package com.roomie.services.billing_service.service;
 
 import com.roomie.services.billing_service.entity.Bill;
-import com.roomie.services.billing_service.repository.BillRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Bill Export Service
  * Exports bills to Excel/CSV format
+ *
+ * Exports stream: bills are read through a Mongo cursor and written row by row to the
+ * response, Excel through an SXSSF workbook that keeps only a small window of rows in
+ * memory, CSV straight to the output stream. Neither the bill list nor the file is
+ * buffered, so year-end exports run in constant heap.
  */
 @Service
 @RequiredArgsConstructor
@@ -32,7 +43,7 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BillExportService {
 
-    BillRepository billRepository;
+    MongoTemplate mongoTemplate;
 
     private static final NumberFormat CURRENCY_FORMAT =
             NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
@@ -40,202 +51,220 @@ public class BillExportService {
     private static final DateTimeFormatter DATE_FORMAT =
             DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    private static final String[] HEADERS = {
+            "Bill ID", "Contract ID", "Billing Month", "Due Date",
+            "Electricity (kWh)", "Electricity Amount",
+            "Water (m³)", "Water Amount",
+            "Internet", "Parking", "Cleaning", "Maintenance",
+            "Monthly Rent", "Total Amount", "Status", "Created At"
+    };
+
+    // Fixed widths, in characters: autoSizeColumn would measure every streamed row's text
+    private static final int[] COLUMN_WIDTHS = {
+            26, 26, 14, 12,
+            18, 20,
+            12, 16,
+            14, 14, 14, 14,
+            16, 18, 12, 18
+    };
+
+    // Created At is an Instant; the sheet shows it in local time
+    private static final ZoneId EXPORT_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private static final int ROW_WINDOW = 100;        // rows kept in memory by SXSSF
+    private static final int CURSOR_BATCH_SIZE = 500;
+
     /**
      * Export bills to Excel or CSV
+     * Filters are resolved now (on the request thread); rows are produced when the body is written.
      */
-    public Resource exportBills(String format, String contractId, String from, String to) {
+    public StreamingResponseBody exportBills(String format, String contractId, String from, String to) {
         log.info("Exporting bills: format={}, contractId={}, from={}, to={}",
                 format, contractId, from, to);
 
-        // Get bills with filters
-        List<Bill> bills = getBillsWithFilters(contractId, from, to);
+        Query query = buildFilterQuery(contractId, from, to);
+        boolean excel = "excel".equalsIgnoreCase(format);
 
-        if ("excel".equalsIgnoreCase(format)) {
-            return exportToExcel(bills);
-        } else {
-            return exportToCsv(bills);
-        }
+        return out -> {
+            long started = System.currentTimeMillis();
+            try (Stream<Bill> bills = mongoTemplate.stream(query, Bill.class)) {
+                long rows = excel ? writeExcel(bills, out) : writeCsv(bills, out);
+                log.info("Exported {} bills as {} in {} ms", rows, excel ? "excel" : "csv",
+                        System.currentTimeMillis() - started);
+            }
+        };
     }
 
     /**
      * Export to Excel
      */
-    private Resource exportToExcel(List<Bill> bills) {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("Bills");
+    private long writeExcel(Stream<Bill> bills, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Bills");
+            for (int i = 0; i < COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
 
             // Create header style
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle currencyStyle = createCurrencyStyle(workbook);
-            CellStyle dateStyle = createDateStyle(workbook);
+            CellStyle dateStyle = createDateStyle(workbook, "dd/MM/yyyy");
+            CellStyle dateTimeStyle = createDateStyle(workbook, "dd/MM/yyyy HH:mm");
 
             // Create header row
             Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Bill ID", "Contract ID", "Billing Month", "Due Date",
-                    "Electricity (kWh)", "Electricity Amount",
-                    "Water (m³)", "Water Amount",
-                    "Internet", "Parking", "Cleaning", "Maintenance",
-                    "Monthly Rent", "Total Amount", "Status", "Created At"
-            };
-
-            for (int i = 0; i < headers.length; i++) {
+            for (int i = 0; i < HEADERS.length; i++) {
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
+                cell.setCellValue(HEADERS[i]);
                 cell.setCellStyle(headerStyle);
             }
 
-            // Create data rows
+            // Create data rows; rows beyond the window are flushed to a temp file
             int rowNum = 1;
-            for (Bill bill : bills) {
-                Row row = sheet.createRow(rowNum++);
-
-                // Bill ID
-                row.createCell(0).setCellValue(bill.getId());
-
-                // Contract ID
-                row.createCell(1).setCellValue(bill.getContractId());
-
-                // Billing Month
-                Cell monthCell = row.createCell(2);
-                monthCell.setCellValue(formatDate(bill.getBillingMonth()));
-                monthCell.setCellStyle(dateStyle);
-
-                // Due Date
-                Cell dueCell = row.createCell(3);
-                dueCell.setCellValue(formatDate(bill.getDueDate()));
-                dueCell.setCellStyle(dateStyle);
-
-                // Electricity
-                row.createCell(4).setCellValue(bill.getElectricityConsumption());
-                Cell elecAmtCell = row.createCell(5);
-                elecAmtCell.setCellValue(bill.getElectricityAmount().doubleValue());
-                elecAmtCell.setCellStyle(currencyStyle);
-
-                // Water
-                row.createCell(6).setCellValue(bill.getWaterConsumption());
-                Cell waterAmtCell = row.createCell(7);
-                waterAmtCell.setCellValue(bill.getWaterAmount().doubleValue());
-                waterAmtCell.setCellStyle(currencyStyle);
-
-                // Services
-                Cell internetCell = row.createCell(8);
-                internetCell.setCellValue(bill.getInternetPrice().doubleValue());
-                internetCell.setCellStyle(currencyStyle);
-
-                Cell parkingCell = row.createCell(9);
-                parkingCell.setCellValue(bill.getParkingPrice().doubleValue());
-                parkingCell.setCellStyle(currencyStyle);
-
-                Cell cleaningCell = row.createCell(10);
-                cleaningCell.setCellValue(bill.getCleaningPrice().doubleValue());
-                cleaningCell.setCellStyle(currencyStyle);
-
-                Cell maintenanceCell = row.createCell(11);
-                maintenanceCell.setCellValue(bill.getMaintenancePrice().doubleValue());
-                maintenanceCell.setCellStyle(currencyStyle);
-
-                // Rent
-                Cell rentCell = row.createCell(12);
-                rentCell.setCellValue(bill.getMonthlyRent().doubleValue());
-                rentCell.setCellStyle(currencyStyle);
-
-                // Total
-                Cell totalCell = row.createCell(13);
-                totalCell.setCellValue(bill.getTotalAmount().doubleValue());
-                totalCell.setCellStyle(currencyStyle);
-
-                // Status
-                row.createCell(14).setCellValue(bill.getStatus().toString());
-
-                // Created At
-                Cell createdCell = row.createCell(15);
-                createdCell.setCellValue(bill.getCreatedAt().toString());
-                createdCell.setCellStyle(dateStyle);
+            Iterator<Bill> iterator = bills.iterator();
+            while (iterator.hasNext()) {
+                writeRow(sheet.createRow(rowNum++), iterator.next(), currencyStyle, dateStyle, dateTimeStyle);
             }
 
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+            workbook.write(out);
+            return rowNum - 1L;
+
+        } finally {
+            try {
+                workbook.close();
+            } finally {
+                // close() leaves the temp files of flushed rows behind
+                workbook.dispose();
             }
+        }
+    }
+
+    private void writeRow(Row row, Bill bill, CellStyle currencyStyle, CellStyle dateStyle, CellStyle dateTimeStyle) {
+        // Bill ID
+        row.createCell(0).setCellValue(bill.getId());
+
+        // Contract ID
+        row.createCell(1).setCellValue(bill.getContractId());
+
+        // Billing Month
+        dateCell(row, 2, bill.getBillingMonth(), dateStyle);
+
+        // Due Date
+        dateCell(row, 3, bill.getDueDate(), dateStyle);
 
-            workbook.write(baos);
-            return new ByteArrayResource(baos.toByteArray());
+        // Electricity
+        row.createCell(4).setCellValue(bill.getElectricityConsumption());
+        currencyCell(row, 5, bill.getElectricityAmount(), currencyStyle);
 
-        } catch (IOException e) {
-            log.error("Error exporting to Excel", e);
-            throw new RuntimeException("Failed to export to Excel", e);
+        // Water
+        row.createCell(6).setCellValue(bill.getWaterConsumption());
+        currencyCell(row, 7, bill.getWaterAmount(), currencyStyle);
+
+        // Services
+        currencyCell(row, 8, bill.getInternetPrice(), currencyStyle);
+        currencyCell(row, 9, bill.getParkingPrice(), currencyStyle);
+        currencyCell(row, 10, bill.getCleaningPrice(), currencyStyle);
+        currencyCell(row, 11, bill.getMaintenancePrice(), currencyStyle);
+
+        // Rent
+        currencyCell(row, 12, bill.getMonthlyRent(), currencyStyle);
+
+        // Total
+        currencyCell(row, 13, bill.getTotalAmount(), currencyStyle);
+
+        // Status
+        row.createCell(14).setCellValue(String.valueOf(bill.getStatus()));
+
+        // Created At
+        Cell createdCell = row.createCell(15);
+        if (bill.getCreatedAt() != null) {
+            createdCell.setCellValue(LocalDateTime.ofInstant(bill.getCreatedAt(), EXPORT_ZONE));
+        }
+        createdCell.setCellStyle(dateTimeStyle);
+    }
+
+    /** Real date values, so the sheet can sort and filter them; blank when missing */
+    private void dateCell(Row row, int column, LocalDate date, CellStyle dateStyle) {
+        Cell cell = row.createCell(column);
+        if (date != null) {
+            cell.setCellValue(date);
         }
+        cell.setCellStyle(dateStyle);
+    }
+
+    private void currencyCell(Row row, int column, BigDecimal amount, CellStyle currencyStyle) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(amount != null ? amount.doubleValue() : 0);
+        cell.setCellStyle(currencyStyle);
     }
 
     /**
      * Export to CSV
      */
-    private Resource exportToCsv(List<Bill> bills) {
-        StringBuilder csv = new StringBuilder();
+    private long writeCsv(Stream<Bill> bills, OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
 
         // Header
-        csv.append("Bill ID,Contract ID,Billing Month,Due Date,")
-                .append("Electricity (kWh),Electricity Amount,Water (m³),Water Amount,")
-                .append("Internet,Parking,Cleaning,Maintenance,Monthly Rent,")
-                .append("Total Amount,Status,Created At\n");
+        csv.append(String.join(",", HEADERS)).append("\n");
 
         // Data rows
-        for (Bill bill : bills) {
+        long rows = 0;
+        Iterator<Bill> iterator = bills.iterator();
+        while (iterator.hasNext()) {
+            Bill bill = iterator.next();
             csv.append(bill.getId()).append(",")
                     .append(bill.getContractId()).append(",")
                     .append(formatDate(bill.getBillingMonth())).append(",")
                     .append(formatDate(bill.getDueDate())).append(",")
-                    .append(bill.getElectricityConsumption()).append(",")
-                    .append(bill.getElectricityAmount()).append(",")
-                    .append(bill.getWaterConsumption()).append(",")
-                    .append(bill.getWaterAmount()).append(",")
-                    .append(bill.getInternetPrice()).append(",")
-                    .append(bill.getParkingPrice()).append(",")
-                    .append(bill.getCleaningPrice()).append(",")
-                    .append(bill.getMaintenancePrice()).append(",")
-                    .append(bill.getMonthlyRent()).append(",")
-                    .append(bill.getTotalAmount()).append(",")
-                    .append(bill.getStatus()).append(",")
-                    .append(bill.getCreatedAt())
+                    .append(String.valueOf(bill.getElectricityConsumption())).append(",")
+                    .append(String.valueOf(bill.getElectricityAmount())).append(",")
+                    .append(String.valueOf(bill.getWaterConsumption())).append(",")
+                    .append(String.valueOf(bill.getWaterAmount())).append(",")
+                    .append(String.valueOf(bill.getInternetPrice())).append(",")
+                    .append(String.valueOf(bill.getParkingPrice())).append(",")
+                    .append(String.valueOf(bill.getCleaningPrice())).append(",")
+                    .append(String.valueOf(bill.getMaintenancePrice())).append(",")
+                    .append(String.valueOf(bill.getMonthlyRent())).append(",")
+                    .append(String.valueOf(bill.getTotalAmount())).append(",")
+                    .append(String.valueOf(bill.getStatus())).append(",")
+                    .append(String.valueOf(bill.getCreatedAt()))
                     .append("\n");
+            rows++;
         }
 
-        return new ByteArrayResource(csv.toString().getBytes());
+        csv.flush();
+        return rows;
     }
 
     /**
-     * Get bills with filters
+     * Build the Mongo filter for the current landlord
+     * Sorted by createdAt so the cursor walks the landlord/createdAt index instead of sorting in memory.
      */
-    private List<Bill> getBillsWithFilters(String contractId, String from, String to) {
-        String landlordId = getCurrentUserId();
-        List<Bill> bills = billRepository.findByLandlordId(landlordId);
+    private Query buildFilterQuery(String contractId, String from, String to) {
+        Criteria criteria = Criteria.where("landlordId").is(getCurrentUserId());
 
         // Filter by contract
         if (contractId != null && !contractId.isBlank()) {
-            bills = bills.stream()
-                    .filter(b -> contractId.equals(b.getContractId()))
-                    .collect(Collectors.toList());
+            criteria.and("contractId").is(contractId);
         }
 
         // Filter by date range
-        if (from != null && !from.isBlank()) {
-            LocalDate fromDate = LocalDate.parse(from + "-01");
-            bills = bills.stream()
-                    .filter(b -> !b.getBillingMonth().isBefore(fromDate))
-                    .collect(Collectors.toList());
-        }
-
-        if (to != null && !to.isBlank()) {
-            LocalDate toDate = LocalDate.parse(to + "-01");
-            bills = bills.stream()
-                    .filter(b -> !b.getBillingMonth().isAfter(toDate))
-                    .collect(Collectors.toList());
+        LocalDate fromDate = from != null && !from.isBlank() ? LocalDate.parse(from + "-01") : null;
+        LocalDate toDate = to != null && !to.isBlank() ? LocalDate.parse(to + "-01") : null;
+        if (fromDate != null && toDate != null) {
+            criteria.and("billingMonth").gte(fromDate).lte(toDate);
+        } else if (fromDate != null) {
+            criteria.and("billingMonth").gte(fromDate);
+        } else if (toDate != null) {
+            criteria.and("billingMonth").lte(toDate);
         }
 
-        return bills;
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
     }
 
     // ==================== EXCEL STYLES ====================
@@ -259,10 +288,10 @@ public class BillExportService {
         return style;
     }
 
-    private CellStyle createDateStyle(Workbook workbook) {
+    private CellStyle createDateStyle(Workbook workbook, String pattern) {
         CellStyle style = workbook.createCellStyle();
         DataFormat format = workbook.createDataFormat();
-        style.setDataFormat(format.getFormat("dd/MM/yyyy"));
+        style.setDataFormat(format.getFormat(pattern));
         return style;
     }
 
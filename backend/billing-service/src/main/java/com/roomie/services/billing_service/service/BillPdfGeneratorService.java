@@ -7,7 +7,8 @@ import com.roomie.services.billing_service.entity.Bill;
 import com.roomie.services.billing_service.dto.response.ContractResponse;
 import com.roomie.services.billing_service.dto.response.MoMoPaymentResponse;
 import com.roomie.services.billing_service.dto.response.property.PropertyResponse;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -16,21 +17,44 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
 
 /**
  * Professional PDF Invoice Generator with REAL MoMo Payment QR Code
  *
  * Uses MoMo API to generate actual payment transaction and QR code
+ *
+ * Rendering is set up to be cheap to repeat:
+ * - fonts, colors and the footer page event are shared constants; the font programs are
+ *   held in memory and their subsets (the bulk of each render) are compressed for speed
+ * - output buffers come from a small pool and keep their capacity between renders
+ * - rendered PDFs are cached by bill id + updatedAt, so repeat downloads and email resends
+ *   reuse the bytes (any change to the bill bumps updatedAt). The TTL stays below the
+ *   15 minute validity of the embedded MoMo QR code; an invoice rendered without the QR
+ *   (MoMo unavailable) is not cached, so the next download tries MoMo again.
+ * - MoMo calls are bounded by their own semaphore ({@code billing.pdf.momo-concurrency}),
+ *   separate from the CPU-bound rendering permits of batch mode
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class BillPdfGeneratorService {
 
+    private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+
     private final MoMoPaymentService moMoPaymentService;
+    private final Cache<String, byte[]> renderedPdfs;
+    private final BlockingQueue<ByteArrayOutputStream> bufferPool;
+    private final Semaphore momoPermits;
+    private final int batchParallelism;
+    private final int compressionLevel;
 
     @Value("${billing.payment.bank.code:VCB}")
     private String bankCode;
@@ -78,7 +102,11 @@ public class BillPdfGeneratorService {
             try {
                 java.io.File f = new java.io.File(path);
                 if (f.exists()) {
-                    return BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+                    // Keep the font program in memory: every embedded subset re-reads it
+                    BaseFont baseFont = BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED,
+                            BaseFont.CACHED, java.nio.file.Files.readAllBytes(f.toPath()), null);
+                    baseFont.setCompressionLevel(PdfStream.BEST_SPEED);
+                    return baseFont;
                 }
             } catch (Exception ignored) {}
         }
@@ -104,11 +132,44 @@ public class BillPdfGeneratorService {
     private static final BaseColor COLOR_ROW_ODD = new BaseColor(245, 245, 245);
     private static final BaseColor COLOR_ROW_EVEN = BaseColor.WHITE;
 
+    private static final Font FONT_TABLE_HEADER = fontBold(10, BaseColor.WHITE);
+
+    private static final BaseColor COLOR_INFO_BOX = new BaseColor(249, 249, 249);
+    private static final BaseColor COLOR_TOTAL_BOX = new BaseColor(230, 240, 255);
+    private static final BaseColor COLOR_PAYMENT_BOX = new BaseColor(255, 250, 240);
+
+    private static final Rectangle PAGE_SIZE = PageSize.A4;
+    private static final float MARGIN_X = 36;
+
+    private static final HeaderFooterPageEvent FOOTER_EVENT = new HeaderFooterPageEvent();
+
     private static final NumberFormat VND_FORMAT = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    public BillPdfGeneratorService(MoMoPaymentService moMoPaymentService,
+                                   @Value("${billing.pdf.cache.max-size-mb:64}") long cacheMaxSizeMb,
+                                   @Value("${billing.pdf.cache.ttl:PT10M}") Duration cacheTtl,
+                                   @Value("${billing.pdf.buffer-pool-size:8}") int bufferPoolSize,
+                                   @Value("${billing.pdf.batch-parallelism:0}") int batchParallelism,
+                                   @Value("${billing.pdf.compression-level:1}") int compressionLevel,
+                                   @Value("${billing.pdf.momo-concurrency:8}") int momoConcurrency) {
+        this.moMoPaymentService = moMoPaymentService;
+        this.renderedPdfs = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxSizeMb * 1024 * 1024)
+                .weigher((String key, byte[] pdf) -> pdf.length)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.bufferPool = bufferPoolSize > 0 ? new ArrayBlockingQueue<>(bufferPoolSize) : null;
+        this.momoPermits = new Semaphore(Math.max(1, momoConcurrency));
+        this.batchParallelism = batchParallelism > 0
+                ? batchParallelism
+                : Runtime.getRuntime().availableProcessors();
+        this.compressionLevel = compressionLevel;
+    }
+
     /**
      * Generate PDF invoice with REAL MoMo payment QR code
+     * Served from the render cache when the bill has not changed since the last render
      */
     public byte[] generateInvoicePdf(
             Bill bill,
@@ -116,58 +177,209 @@ public class BillPdfGeneratorService {
             PropertyResponse property
     ) throws DocumentException, IOException {
 
-        log.info("🎯 Generating PDF invoice with REAL MoMo QR code for bill: {}", bill.getId());
+        byte[] cached = cachedPdf(bill);
+        if (cached != null) return cached;
 
-        Document document = new Document(PageSize.A4, 36, 36, 54, 54);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        return renderAndCache(bill, contract, property, createPaymentQr(bill));
+    }
 
-        try {
-            PdfWriter writer = PdfWriter.getInstance(document, baos);
+    /**
+     * Batch mode: render many invoices in parallel (e.g. a landlord's bills for one month)
+     * Returns PDFs by bill id in input order; bills that fail to render are logged and skipped.
+     */
+    public Map<String, byte[]> generateInvoicePdfs(
+            List<Bill> bills,
+            Map<String, ContractResponse> contractsById,
+            Map<String, PropertyResponse> propertiesById
+    ) {
+        log.info("Rendering {} PDF invoices with parallelism {}", bills.size(), batchParallelism);
+        long started = System.currentTimeMillis();
+
+        // Virtual threads cover the MoMo call, made before taking a permit and bounded by
+        // its own semaphore; this one bounds only the CPU-bound layout work
+        Semaphore permits = new Semaphore(batchParallelism);
+        Map<String, Future<byte[]>> futures = new LinkedHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Bill bill : bills) {
+                ContractResponse contract = contractsById.get(bill.getContractId());
+                if (contract == null) {
+                    log.warn("Skipping PDF for bill {}: contract {} not found", bill.getId(), bill.getContractId());
+                    continue;
+                }
+                PropertyResponse property = propertiesById.get(contract.getPropertyId());
+
+                futures.put(bill.getId(), executor.submit(() -> {
+                    byte[] cached = cachedPdf(bill);
+                    if (cached != null) return cached;
+
+                    PaymentQr paymentQr = createPaymentQr(bill);
+                    permits.acquire();
+                    try {
+                        return renderAndCache(bill, contract, property, paymentQr);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
 
-            HeaderFooterPageEvent event = new HeaderFooterPageEvent();
-            writer.setPageEvent(event);
+        Map<String, byte[]> pdfs = new LinkedHashMap<>();
+        futures.forEach((billId, future) -> {
+            try {
+                pdfs.put(billId, future.get());
+            } catch (ExecutionException e) {
+                log.error("Failed to render PDF for bill: {}", billId, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
 
-            document.open();
+        log.info("Rendered {}/{} PDF invoices in {} ms", pdfs.size(), bills.size(),
+                System.currentTimeMillis() - started);
+        return pdfs;
+    }
 
-            // 1. Logo & Company Info
-            addCompanyHeader(document);
-            document.add(Chunk.NEWLINE);
+    private byte[] cachedPdf(Bill bill) {
+        String key = cacheKey(bill);
+        byte[] cached = key != null ? renderedPdfs.getIfPresent(key) : null;
+        if (cached != null) {
+            log.debug("Serving cached PDF invoice for bill: {}", bill.getId());
+        }
+        return cached;
+    }
 
-            // 2. Invoice Title & Number
-            addInvoiceTitle(document, bill);
-            document.add(Chunk.NEWLINE);
+    private byte[] renderAndCache(
+            Bill bill,
+            ContractResponse contract,
+            PropertyResponse property,
+            PaymentQr paymentQr
+    ) throws DocumentException, IOException {
+        byte[] pdf = renderInvoicePdf(bill, contract, property, paymentQr);
+        String key = cacheKey(bill);
+        // Without the QR (MoMo down) the invoice is degraded: render it again next time
+        if (key != null && paymentQr != null) {
+            renderedPdfs.put(key, pdf);
+        }
+        return pdf;
+    }
 
-            // 3. Contract & Property Info
-            addContractInfo(document, contract, property);
-            document.add(Chunk.NEWLINE);
+    /**
+     * MoMo payment transaction and its QR image: network calls, kept out of the rendering
+     * Returns null if MoMo is unavailable; the invoice then shows bank transfer details only.
+     */
+    private PaymentQr createPaymentQr(Bill bill) {
+        try {
+            momoPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try {
+            log.info("🔄 Creating MoMo payment transaction for bill: {}", bill.getId());
 
-            // 4. Billing Period
-            addBillingPeriod(document, bill);
-            document.add(Chunk.NEWLINE);
+            // 1. Call MoMo API để tạo payment
+            String orderInfo = String.format("Thanh toan hoa don Roomie %s",
+                    bill.getId().substring(0, 8).toUpperCase());
 
-            // 5. Detailed Breakdown Table
-            addDetailedBreakdown(document, bill);
-            document.add(Chunk.NEWLINE);
+            long amount = bill.getTotalAmount().longValue();
 
-            // 6. Payment Information with REAL MoMo QR Code
-            addPaymentInfoWithRealMoMoQR(document, bill);
-            document.add(Chunk.NEWLINE);
+            MoMoPaymentResponse momoResponse = moMoPaymentService.createPaymentQR(
+                    bill.getId(),
+                    amount,
+                    orderInfo
+            );
 
-            // 7. Terms & Conditions
-            addTermsAndConditions(document);
+            log.info("✅ MoMo payment created");
+            log.info("   Order ID: {}", momoResponse.getOrderId());
+            log.info("   Pay URL: {}", momoResponse.getPayUrl());
+            log.info("   QR Code URL: {}", momoResponse.getQrCodeUrl());
 
-            log.info("PDF invoice generated successfully");
+            // 2. Get QR code image - SMART METHOD
+            // Tự động detect: có qrCodeUrl → download, không có → generate
+            byte[] qrImageBytes = moMoPaymentService.getQRCodeImage(momoResponse, 200, 200);
 
+            return new PaymentQr(momoResponse, qrImageBytes);
+        } catch (Exception e) {
+            log.error("❌ Failed to generate MoMo payment QR code", e);
+            return null;
         } finally {
-            document.close();
+            momoPermits.release();
         }
+    }
+
+    private record PaymentQr(MoMoPaymentResponse response, byte[] image) {}
+
+    private byte[] renderInvoicePdf(
+            Bill bill,
+            ContractResponse contract,
+            PropertyResponse property,
+            PaymentQr paymentQr
+    ) throws DocumentException, IOException {
+
+        log.info("🎯 Generating PDF invoice with REAL MoMo QR code for bill: {}", bill.getId());
+
+        ByteArrayOutputStream baos = acquireBuffer();
+        try {
+            Document document = new Document(PAGE_SIZE, MARGIN_X, MARGIN_X, 54, 54);
 
-        return baos.toByteArray();
+            try {
+                PdfWriter writer = PdfWriter.getInstance(document, baos);
+                writer.setPageEvent(FOOTER_EVENT);
+                writer.setCompressionLevel(compressionLevel);
+
+                document.open();
+
+                // 1. Logo & Company Info
+                addCompanyHeader(document);
+                document.add(Chunk.NEWLINE);
+
+                // 2. Invoice Title & Number
+                addInvoiceTitle(document, bill);
+                document.add(Chunk.NEWLINE);
+
+                // 3. Contract & Property Info
+                addContractInfo(document, contract, property);
+                document.add(Chunk.NEWLINE);
+
+                // 4. Billing Period
+                addBillingPeriod(document, bill);
+                document.add(Chunk.NEWLINE);
+
+                // 5. Detailed Breakdown Table
+                addDetailedBreakdown(document, bill);
+                document.add(Chunk.NEWLINE);
+
+                // 6. Payment Information with REAL MoMo QR Code
+                addPaymentInfoWithRealMoMoQR(document, bill, paymentQr);
+                document.add(Chunk.NEWLINE);
+
+                // 7. Terms & Conditions
+                addTermsAndConditions(document);
+
+                log.info("PDF invoice generated successfully");
+
+            } finally {
+                document.close();
+            }
+
+            return baos.toByteArray();
+        } finally {
+            releaseBuffer(baos);
+        }
     }
 
     // ==================== SECTION BUILDERS ====================
 
     private void addCompanyHeader(Document document) throws DocumentException {
+        document.add(buildCompanyHeaderTable());
+
+        LineSeparator line = new LineSeparator();
+        line.setLineColor(COLOR_HEADER);
+        document.add(line);
+    }
+
+    private static PdfPTable buildCompanyHeaderTable() throws DocumentException {
         PdfPTable headerTable = new PdfPTable(2);
         headerTable.setWidthPercentage(100);
         headerTable.setWidths(new float[]{1, 2});
@@ -205,11 +417,7 @@ public class BillPdfGeneratorService {
         infoCell.addElement(companyInfo);
         headerTable.addCell(infoCell);
 
-        document.add(headerTable);
-
-        LineSeparator line = new LineSeparator();
-        line.setLineColor(COLOR_HEADER);
-        document.add(line);
+        return headerTable;
     }
 
     private void addInvoiceTitle(Document document, Bill bill) throws DocumentException {
@@ -253,7 +461,7 @@ public class BillPdfGeneratorService {
 
         PdfPCell propertyCell = new PdfPCell();
         propertyCell.setPadding(10);
-        propertyCell.setBackgroundColor(new BaseColor(249, 249, 249));
+        propertyCell.setBackgroundColor(COLOR_INFO_BOX);
 
         Paragraph propertyInfo = new Paragraph();
         propertyInfo.add(new Chunk("PROPERTY INFORMATION\n\n", FONT_SUBHEADER));
@@ -267,7 +475,7 @@ public class BillPdfGeneratorService {
 
         PdfPCell contractCell = new PdfPCell();
         contractCell.setPadding(10);
-        contractCell.setBackgroundColor(new BaseColor(249, 249, 249));
+        contractCell.setBackgroundColor(COLOR_INFO_BOX);
 
         Paragraph contractInfo = new Paragraph();
         contractInfo.add(new Chunk("CONTRACT INFORMATION\n\n", FONT_SUBHEADER));
@@ -370,7 +578,7 @@ public class BillPdfGeneratorService {
         totalAmountCell.setBorder(Rectangle.NO_BORDER);
         totalAmountCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalAmountCell.setPadding(10);
-        totalAmountCell.setBackgroundColor(new BaseColor(230, 240, 255));
+        totalAmountCell.setBackgroundColor(COLOR_TOTAL_BOX);
         totalTable.addCell(totalAmountCell);
 
         document.add(totalTable);
@@ -380,43 +588,26 @@ public class BillPdfGeneratorService {
      * Add Payment Information with REAL MoMo Payment QR Code
      *
      * Flow:
-     * 1. Call MoMo API để tạo payment transaction
+     * 1. Call MoMo API để tạo payment transaction (createPaymentQr, before rendering)
      * 2. Nhận về qrCodeUrl
      * 3. Download QR code image từ MoMo
      * 4. Embed vào PDF
      */
 
-    private void addPaymentInfoWithRealMoMoQR(Document document, Bill bill) throws DocumentException {
+    private void addPaymentInfoWithRealMoMoQR(Document document, Bill bill, PaymentQr paymentQr)
+            throws DocumentException {
         Paragraph paymentTitle = new Paragraph("PAYMENT INFORMATION", FONT_SUBHEADER);
         paymentTitle.setSpacingBefore(20);
         document.add(paymentTitle);
 
         try {
-            log.info("🔄 Creating MoMo payment transaction for bill: {}", bill.getId());
-
-            // 1. Call MoMo API để tạo payment
-            String orderInfo = String.format("Thanh toan hoa don Roomie %s",
-                    bill.getId().substring(0, 8).toUpperCase());
-
-            long amount = bill.getTotalAmount().longValue();
-
-            MoMoPaymentResponse momoResponse = moMoPaymentService.createPaymentQR(
-                    bill.getId(),
-                    amount,
-                    orderInfo
-            );
-
-            log.info("✅ MoMo payment created");
-            log.info("   Order ID: {}", momoResponse.getOrderId());
-            log.info("   Pay URL: {}", momoResponse.getPayUrl());
-            log.info("   QR Code URL: {}", momoResponse.getQrCodeUrl());
-
-            // 2. Get QR code image - SMART METHOD
-            // Tự động detect: có qrCodeUrl → download, không có → generate
-            byte[] qrImageBytes = moMoPaymentService.getQRCodeImage(momoResponse, 200, 200);
+            if (paymentQr == null) {
+                throw new IllegalStateException("MoMo payment unavailable for bill " + bill.getId());
+            }
+            MoMoPaymentResponse momoResponse = paymentQr.response();
 
             // 3. Convert to iText Image
-            Image qrCodeImage = Image.getInstance(qrImageBytes);
+            Image qrCodeImage = Image.getInstance(paymentQr.image());
             qrCodeImage.scaleAbsolute(150, 150);
 
             // 4. Create payment info table với QR code
@@ -428,7 +619,7 @@ public class BillPdfGeneratorService {
             // Left cell - Payment details
             PdfPCell detailsCell = new PdfPCell();
             detailsCell.setPadding(15);
-            detailsCell.setBackgroundColor(new BaseColor(255, 250, 240));
+            detailsCell.setBackgroundColor(COLOR_PAYMENT_BOX);
 
             Paragraph paymentInfo = new Paragraph();
             paymentInfo.add(new Chunk("💳 Quét QR Code để thanh toán\n\n", FONT_SUBHEADER));
@@ -499,7 +690,9 @@ public class BillPdfGeneratorService {
             log.info("✅ MoMo QR code added to PDF invoice successfully");
 
         } catch (Exception e) {
-            log.error("❌ Failed to generate MoMo payment QR code", e);
+            if (paymentQr != null) {
+                log.error("❌ Failed to add MoMo payment QR code", e);
+            }
 
             // Fallback to bank transfer info only
             PdfPTable fallbackTable = new PdfPTable(1);
@@ -508,7 +701,7 @@ public class BillPdfGeneratorService {
 
             PdfPCell fallbackCell = new PdfPCell();
             fallbackCell.setPadding(15);
-            fallbackCell.setBackgroundColor(new BaseColor(255, 250, 240));
+            fallbackCell.setBackgroundColor(COLOR_PAYMENT_BOX);
 
             Paragraph fallbackInfo = new Paragraph();
             fallbackInfo.add(new Chunk("⚠️ Không thể tạo QR code MoMo\n\n", FONT_SUBHEADER));
@@ -541,7 +734,7 @@ public class BillPdfGeneratorService {
     // ==================== TABLE HELPERS ====================
 
     private void addTableHeader(PdfPTable table, String text) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, fontBold(10, BaseColor.WHITE)));
+        PdfPCell cell = new PdfPCell(new Phrase(text, FONT_TABLE_HEADER));
         cell.setBackgroundColor(COLOR_HEADER);
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
         cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
@@ -607,6 +800,29 @@ public class BillPdfGeneratorService {
         };
     }
 
+    // ==================== CACHE & BUFFERS ====================
+
+    private String cacheKey(Bill bill) {
+        if (bill.getId() == null || bill.getUpdatedAt() == null) return null;
+        return bill.getId() + ":" + bill.getUpdatedAt().toEpochMilli();
+    }
+
+    private ByteArrayOutputStream acquireBuffer() {
+        ByteArrayOutputStream buffer = bufferPool != null ? bufferPool.poll() : null;
+        if (buffer == null) {
+            return new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    private void releaseBuffer(ByteArrayOutputStream buffer) {
+        // Don't keep buffers that grew for an unusually large invoice
+        if (bufferPool != null && buffer.size() <= MAX_POOLED_BUFFER_SIZE) {
+            bufferPool.offer(buffer);
+        }
+    }
+
     // ==================== HEADER/FOOTER EVENT ====================
 
     static class HeaderFooterPageEvent extends PdfPageEventHelper {
@@ -2,22 +2,35 @@ package com.roomie.services.billing_service.service;
 
 import com.roomie.services.billing_service.entity.Bill;
 import com.roomie.services.billing_service.enums.BillStatus;
-import com.roomie.services.billing_service.repository.BillRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Bill Statistics Service
  * Provides statistical data for landlords and tenants
+ *
+ * Each dashboard is a single $facet aggregation: counts and sums per status, a 12-month
+ * PAID series grouped by billing month, and the top 5 bills, so only the aggregated rows
+ * leave Mongo. Amounts are stored as strings and summed with $toDecimal.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,7 +38,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BillStatisticsService {
 
-    BillRepository billRepository;
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy");
+    private static final DateTimeFormatter MONTH_KEY = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final int MONTHS = 12;
+    private static final int TOP_BILLS = 5;
+
+    MongoTemplate mongoTemplate;
 
     /**
      * Get landlord statistics
@@ -34,59 +52,44 @@ public class BillStatisticsService {
         String landlordId = getCurrentUserId();
         log.debug("Calculating statistics for landlord: {}", landlordId);
 
-        List<Bill> bills = billRepository.findByLandlordId(landlordId);
+        Document facets = aggregateDashboard(
+                Criteria.where("landlordId").is(landlordId),
+                Aggregation.sort(Sort.Direction.DESC, "createdAt"));
+        StatusTotals totals = StatusTotals.from(facets.getList("byStatus", Document.class));
 
         Map<String, Object> stats = new HashMap<>();
 
         // Count by status
-        stats.put("total", bills.size());
-        stats.put("draft", countByStatus(bills, BillStatus.DRAFT));
-        stats.put("pending", countByStatus(bills, BillStatus.PENDING));
-        stats.put("paid", countByStatus(bills, BillStatus.PAID));
-        stats.put("overdue", countByStatus(bills, BillStatus.OVERDUE));
+        stats.put("total", totals.count());
+        stats.put("draft", totals.count(BillStatus.DRAFT));
+        stats.put("pending", totals.count(BillStatus.PENDING));
+        stats.put("paid", totals.count(BillStatus.PAID));
+        stats.put("overdue", totals.count(BillStatus.OVERDUE));
 
         // Financial stats
-        BigDecimal totalRevenue = bills.stream()
-                .filter(b -> b.getStatus() == BillStatus.PAID)
-                .map(Bill::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal outstandingAmount = bills.stream()
-                .filter(b -> b.getStatus() == BillStatus.PENDING || b.getStatus() == BillStatus.OVERDUE)
-                .map(Bill::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalRevenue = totals.amount(BillStatus.PAID);
+        BigDecimal outstandingAmount = totals.amount(BillStatus.PENDING).add(totals.amount(BillStatus.OVERDUE));
 
         stats.put("totalRevenue", totalRevenue);
         stats.put("outstandingAmount", outstandingAmount);
         stats.put("totalAmount", totalRevenue.add(outstandingAmount));
 
         // Average bill amount
-        double avgBillAmount = bills.isEmpty() ? 0 :
-                bills.stream()
-                        .map(Bill::getTotalAmount)
-                        .mapToDouble(BigDecimal::doubleValue)
-                        .average()
-                        .orElse(0.0);
-        stats.put("avgBillAmount", avgBillAmount);
+        stats.put("avgBillAmount", totals.average());
 
         // Payment rate
-        long totalBillsSent = countByStatus(bills, BillStatus.PENDING) +
-                countByStatus(bills, BillStatus.PAID) +
-                countByStatus(bills, BillStatus.OVERDUE);
+        long totalBillsSent = totals.count(BillStatus.PENDING) +
+                totals.count(BillStatus.PAID) +
+                totals.count(BillStatus.OVERDUE);
         double paymentRate = totalBillsSent == 0 ? 0 :
-                (double) countByStatus(bills, BillStatus.PAID) / totalBillsSent * 100;
+                (double) totals.count(BillStatus.PAID) / totalBillsSent * 100;
         stats.put("paymentRate", paymentRate);
 
         // Monthly revenue chart (last 12 months)
-        stats.put("monthlyRevenue", getMonthlyRevenue(bills));
+        stats.put("monthlyRevenue", toMonthlySeries(facets.getList("monthly", Document.class), "revenue"));
 
         // Recent bills
-        List<Map<String, Object>> recentBills = bills.stream()
-                .sorted(Comparator.comparing(Bill::getCreatedAt).reversed())
-                .limit(5)
-                .map(this::billToMap)
-                .collect(Collectors.toList());
-        stats.put("recentBills", recentBills);
+        stats.put("recentBills", toBillMaps(facets.getList("top", Document.class)));
 
         return stats;
     }
@@ -98,110 +101,145 @@ public class BillStatisticsService {
         String tenantId = getCurrentUserId();
         log.debug("Calculating statistics for tenant: {}", tenantId);
 
-        List<Bill> bills = billRepository.findByTenantId(tenantId);
+        Document facets = aggregateDashboard(
+                Criteria.where("tenantId").is(tenantId),
+                Aggregation.match(Criteria.where("status").in(BillStatus.PENDING, BillStatus.OVERDUE)),
+                Aggregation.sort(Sort.Direction.ASC, "dueDate"));
+        StatusTotals totals = StatusTotals.from(facets.getList("byStatus", Document.class));
 
         Map<String, Object> stats = new HashMap<>();
 
         // Count by status
-        stats.put("total", bills.size());
-        stats.put("pending", countByStatus(bills, BillStatus.PENDING));
-        stats.put("paid", countByStatus(bills, BillStatus.PAID));
-        stats.put("overdue", countByStatus(bills, BillStatus.OVERDUE));
+        stats.put("total", totals.count());
+        stats.put("pending", totals.count(BillStatus.PENDING));
+        stats.put("paid", totals.count(BillStatus.PAID));
+        stats.put("overdue", totals.count(BillStatus.OVERDUE));
 
         // Financial stats
-        BigDecimal totalPaid = bills.stream()
-                .filter(b -> b.getStatus() == BillStatus.PAID)
-                .map(Bill::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalPending = bills.stream()
-                .filter(b -> b.getStatus() == BillStatus.PENDING || b.getStatus() == BillStatus.OVERDUE)
-                .map(Bill::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        stats.put("totalPaid", totalPaid);
-        stats.put("totalPending", totalPending);
+        stats.put("totalPaid", totals.amount(BillStatus.PAID));
+        stats.put("totalPending", totals.amount(BillStatus.PENDING).add(totals.amount(BillStatus.OVERDUE)));
 
         // Average bill amount
-        double avgBillAmount = bills.isEmpty() ? 0 :
-                bills.stream()
-                        .map(Bill::getTotalAmount)
-                        .mapToDouble(BigDecimal::doubleValue)
-                        .average()
-                        .orElse(0.0);
-        stats.put("avgBillAmount", avgBillAmount);
+        stats.put("avgBillAmount", totals.average());
 
         // Payment history (last 12 months)
-        stats.put("paymentHistory", getPaymentHistory(bills));
+        stats.put("paymentHistory", toMonthlySeries(facets.getList("monthly", Document.class), "amount"));
 
-        // Upcoming payments (next 3 months)
-        List<Map<String, Object>> upcomingPayments = bills.stream()
-                .filter(b -> b.getStatus() == BillStatus.PENDING || b.getStatus() == BillStatus.OVERDUE)
-                .sorted(Comparator.comparing(Bill::getDueDate))
-                .limit(5)
-                .map(this::billToMap)
-                .collect(Collectors.toList());
-        stats.put("upcomingPayments", upcomingPayments);
+        // Upcoming payments
+        stats.put("upcomingPayments", toBillMaps(facets.getList("top", Document.class)));
 
         return stats;
     }
 
-    // ==================== HELPER METHODS ====================
+    // ==================== AGGREGATION ====================
 
-    private long countByStatus(List<Bill> bills, BillStatus status) {
-        return bills.stream()
-                .filter(b -> b.getStatus() == status)
-                .count();
+    /**
+     * One round trip: {@code byStatus} (count, sum per status), {@code monthly} (PAID sum per
+     * billing month over the last 12 months) and {@code top} (the given pipeline, limited to 5).
+     */
+    private Document aggregateDashboard(Criteria owner, AggregationOperation... topPipeline) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(MONTHS - 1);
+
+        AggregationOperation[] top = Arrays.copyOf(topPipeline, topPipeline.length + 1);
+        top[topPipeline.length] = Aggregation.limit(TOP_BILLS);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(owner),
+                Aggregation.facet(
+                                Aggregation.group("status")
+                                        .count().as("count")
+                                        .sum(ConvertOperators.valueOf("totalAmount").convertToDecimal()).as("amount"))
+                        .as("byStatus")
+                        .and(
+                                Aggregation.match(Criteria.where("status").is(BillStatus.PAID)
+                                        .and("billingMonth").gte(firstMonth)),
+                                // LocalDate is stored as local midnight, so bucket in the same zone
+                                Aggregation.project()
+                                        .and(DateOperators.dateOf("billingMonth")
+                                                .withTimezone(DateOperators.Timezone.valueOf(zone.getId()))
+                                                .toString("%Y-%m")).as("month")
+                                        .and(ConvertOperators.valueOf("totalAmount").convertToDecimal()).as("amount"),
+                                Aggregation.group("month").sum("amount").as("amount"))
+                        .as("monthly")
+                        .and(top)
+                        .as("top"));
+
+        Document result = mongoTemplate.aggregate(aggregation, Bill.class, Document.class).getUniqueMappedResult();
+        return result != null ? result : new Document();
     }
 
-    private List<Map<String, Object>> getMonthlyRevenue(List<Bill> bills) {
-        LocalDate now = LocalDate.now();
-        List<Map<String, Object>> monthlyData = new ArrayList<>();
+    private List<Map<String, Object>> toMonthlySeries(List<Document> rows, String valueKey) {
+        Map<String, BigDecimal> byMonth = new HashMap<>();
+        if (rows != null) {
+            rows.forEach(row -> byMonth.put(row.getString("_id"), toBigDecimal(row.get("amount"))));
+        }
 
-        for (int i = 11; i >= 0; i--) {
+        LocalDate now = LocalDate.now();
+        List<Map<String, Object>> series = new ArrayList<>(MONTHS);
+        for (int i = MONTHS - 1; i >= 0; i--) {
             LocalDate month = now.minusMonths(i);
-            String monthLabel = month.format(java.time.format.DateTimeFormatter.ofPattern("MMM yyyy"));
-
-            BigDecimal revenue = bills.stream()
-                    .filter(b -> b.getStatus() == BillStatus.PAID)
-                    .filter(b -> b.getBillingMonth().getYear() == month.getYear() &&
-                            b.getBillingMonth().getMonth() == month.getMonth())
-                    .map(Bill::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
 
             Map<String, Object> data = new HashMap<>();
-            data.put("month", monthLabel);
-            data.put("revenue", revenue);
-            monthlyData.add(data);
+            data.put("month", month.format(MONTH_LABEL));
+            data.put(valueKey, byMonth.getOrDefault(month.format(MONTH_KEY), BigDecimal.ZERO));
+            series.add(data);
         }
+        return series;
+    }
 
-        return monthlyData;
+    private List<Map<String, Object>> toBillMaps(List<Document> rows) {
+        if (rows == null) return List.of();
+        return rows.stream()
+                .map(row -> mongoTemplate.getConverter().read(Bill.class, row))
+                .map(this::billToMap)
+                .toList();
     }
 
-    private List<Map<String, Object>> getPaymentHistory(List<Bill> bills) {
-        LocalDate now = LocalDate.now();
-        List<Map<String, Object>> history = new ArrayList<>();
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) return decimal.bigDecimalValue();
+        if (value instanceof Number number) return new BigDecimal(number.toString());
+        return BigDecimal.ZERO;
+    }
 
-        for (int i = 11; i >= 0; i--) {
-            LocalDate month = now.minusMonths(i);
-            String monthLabel = month.format(java.time.format.DateTimeFormatter.ofPattern("MMM yyyy"));
+    /** Per-status count and amount from the byStatus facet. */
+    private record StatusTotals(Map<String, Long> counts, Map<String, BigDecimal> amounts) {
+
+        static StatusTotals from(List<Document> rows) {
+            Map<String, Long> counts = new HashMap<>();
+            Map<String, BigDecimal> amounts = new HashMap<>();
+            if (rows != null) {
+                for (Document row : rows) {
+                    String status = String.valueOf(row.get("_id"));
+                    counts.put(status, ((Number) row.get("count")).longValue());
+                    amounts.put(status, toBigDecimal(row.get("amount")));
+                }
+            }
+            return new StatusTotals(counts, amounts);
+        }
 
-            BigDecimal amount = bills.stream()
-                    .filter(b -> b.getStatus() == BillStatus.PAID)
-                    .filter(b -> b.getBillingMonth().getYear() == month.getYear() &&
-                            b.getBillingMonth().getMonth() == month.getMonth())
-                    .map(Bill::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long count() {
+            return counts.values().stream().mapToLong(Long::longValue).sum();
+        }
 
-            Map<String, Object> data = new HashMap<>();
-            data.put("month", monthLabel);
-            data.put("amount", amount);
-            history.add(data);
+        long count(BillStatus status) {
+            return counts.getOrDefault(status.name(), 0L);
+        }
+
+        BigDecimal amount(BillStatus status) {
+            return amounts.getOrDefault(status.name(), BigDecimal.ZERO);
         }
 
-        return history;
+        double average() {
+            long count = count();
+            if (count == 0) return 0;
+            BigDecimal sum = amounts.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+            return sum.doubleValue() / count;
+        }
     }
 
+    // ==================== HELPER METHODS ====================
+
     private Map<String, Object> billToMap(Bill bill) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", bill.getId());
@@ -218,4 +256,4 @@ public class BillStatisticsService {
                 .getAuthentication()
                 .getName();
     }
-}
\ No newline at end of file
+}
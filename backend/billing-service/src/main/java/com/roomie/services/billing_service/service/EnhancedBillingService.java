@@ -97,7 +97,35 @@ public class EnhancedBillingService {
                 contract.getId()
         );
 
-        // 2. Auto-fill unit prices from utility config
+        // 2. Get previous meter readings (auto-inherit)
+        MeterReadings previousReadings = getPreviousReadingsFromHistory(contract.getId());
+
+        // 3. Validate, calculate and build
+        Bill bill = prepareNewBill(request, contract, billingMonth, utility, previousReadings);
+
+        Bill saved = billRepository.save(bill);
+
+        // 4. Save meter reading history
+        meterReadingRepository.save(buildMeterReadingHistory(saved));
+        log.debug("Meter reading history saved for bill: {}", saved.getId());
+
+        log.info("NEW bill created successfully: {}", saved.getId());
+
+        return billMapper.toResponse(saved);
+    }
+
+    /**
+     * Validate and calculate a new DRAFT bill from already-loaded inputs, without saving it.
+     * Shared by the single-bill path and the bulk pipeline.
+     */
+    Bill prepareNewBill(
+            BillRequest request,
+            ContractResponse contract,
+            LocalDate billingMonth,
+            Utility utility,
+            MeterReadings previousReadings
+    ) {
+        // 1. Auto-fill unit prices from utility config
         if (request.getElectricityUnitPrice() == null) {
             request.setElectricityUnitPrice(utility.getElectricityUnitPrice());
         }
@@ -121,30 +149,18 @@ public class EnhancedBillingService {
                     utility.getMaintenancePrice() : null);
         }
 
-        // 3. Get previous meter readings (auto-inherit)
-        MeterReadings previousReadings = getPreviousReadingsFromHistory(contract.getId());
-
-        // 4. Validate new meter readings
+        // 2. Validate new meter readings
         validationService.validateMeterReadings(request, previousReadings);
 
-        // 5. Calculate amounts
+        // 3. Calculate amounts
         BillCalculation calculation = calculationService.calculate(request, previousReadings);
 
-        // 6. Calculate due date
+        // 4. Calculate due date
         LocalDate dueDate = calculationService.calculateDueDate(billingMonth);
 
-        // 7. Build and save bill
-        Bill bill = buildBill(request, contract, billingMonth, dueDate,
+        // 5. Build bill
+        return buildBill(request, contract, billingMonth, dueDate,
                 previousReadings, calculation);
-
-        Bill saved = billRepository.save(bill);
-
-        // 8. Save meter reading history
-        saveMeterReadingHistory(saved, previousReadings);
-
-        log.info("NEW bill created successfully: {}", saved.getId());
-
-        return billMapper.toResponse(saved);
     }
 
     private BillResponse updateExistingBill(
@@ -154,6 +170,23 @@ public class EnhancedBillingService {
     ) {
         log.info("UPDATING existing bill: {}", existingBill.getId());
 
+        prepareBillUpdate(existingBill, request);
+
+        Bill saved = billRepository.save(existingBill);
+
+        // Update meter reading history
+        updateMeterReadingHistory(saved);
+
+        log.info("Bill updated successfully: {}", existingBill.getId());
+
+        return billMapper.toResponse(saved);
+    }
+
+    /**
+     * Validate and recalculate an existing DRAFT bill in place, without saving it.
+     * Shared by the single-bill path and the bulk pipeline.
+     */
+    void prepareBillUpdate(Bill existingBill, BillRequest request) {
         // Only allow updating if status is DRAFT
         if (existingBill.getStatus() != BillStatus.DRAFT) {
             throw new AppException(ErrorCode.INVALID_BILL_STATUS,
@@ -174,26 +207,19 @@ public class EnhancedBillingService {
 
         // Update bill fields
         updateBillFields(existingBill, request, calculation);
-
-        Bill saved = billRepository.save(existingBill);
-
-        // Update meter reading history
-        updateMeterReadingHistory(saved, currentReadings);
-
-        log.info("Bill updated successfully: {}", existingBill.getId());
-
-        return billMapper.toResponse(saved);
     }
 
     private MeterReadings getPreviousReadingsFromHistory(String contractId) {
-        Optional<MeterReading> lastReading = meterReadingRepository
-                .findFirstByContractIdOrderByReadingMonthDesc(contractId);
+        return toPreviousReadings(meterReadingRepository
+                .findFirstByContractIdOrderByReadingMonthDesc(contractId).orElse(null));
+    }
 
-        if (lastReading.isPresent()) {
-            MeterReading reading = lastReading.get();
+    /** Last recorded reading as the "old" values of the next bill; zeros for a first bill. */
+    MeterReadings toPreviousReadings(MeterReading lastReading) {
+        if (lastReading != null) {
             return MeterReadings.builder()
-                    .electricityOld(reading.getElectricityReading())
-                    .waterOld(reading.getWaterReading())
+                    .electricityOld(lastReading.getElectricityReading())
+                    .waterOld(lastReading.getWaterReading())
                     .build();
         } else {
             // First bill - readings will be from request
@@ -204,8 +230,8 @@ public class EnhancedBillingService {
         }
     }
 
-    private void saveMeterReadingHistory(Bill bill, MeterReadings previousReadings) {
-        MeterReading reading = MeterReading.builder()
+    MeterReading buildMeterReadingHistory(Bill bill) {
+        return MeterReading.builder()
                 .propertyId(bill.getPropertyId())
                 .contractId(bill.getContractId())
                 .billId(bill.getId())
@@ -216,25 +242,26 @@ public class EnhancedBillingService {
                 .recordedBy(getCurrentUserId())
                 .createdAt(Instant.now())
                 .build();
-
-        meterReadingRepository.save(reading);
-        log.debug("Meter reading history saved for bill: {}", bill.getId());
     }
 
-    private void updateMeterReadingHistory(Bill bill, MeterReadings previousReadings) {
+    private void updateMeterReadingHistory(Bill bill) {
         Optional<MeterReading> existing = meterReadingRepository.findByBillId(bill.getId());
 
         if (existing.isPresent()) {
             MeterReading reading = existing.get();
-            reading.setElectricityReading(bill.getElectricityNew());
-            reading.setWaterReading(bill.getWaterNew());
-            reading.setReadingDate(LocalDate.now());
+            applyMeterReadingUpdate(reading, bill);
 
             meterReadingRepository.save(reading);
             log.debug("Meter reading history updated for bill: {}", bill.getId());
         }
     }
 
+    void applyMeterReadingUpdate(MeterReading reading, Bill bill) {
+        reading.setElectricityReading(bill.getElectricityNew());
+        reading.setWaterReading(bill.getWaterNew());
+        reading.setReadingDate(LocalDate.now());
+    }
+
     @Transactional
     @CacheEvict(value = {"bill", "bill_by_contract"}, key = "#billId")
     public BillResponse send(String billId) {
@@ -337,7 +364,11 @@ public class EnhancedBillingService {
         log.info("Bill deleted successfully: {}", id);
     }
 
-    @Scheduled(cron = "${billing.overdue-check-cron:0 0 3 * * *}")
+    /**
+     * Off unless {@code billing.overdue-check-cron} is set: it runs on every instance that
+     * enables it, so enable it on one instance only.
+     */
+    @Scheduled(cron = "${billing.overdue-check-cron:-}")
     public void markOverdueBills() {
         log.info("Running scheduled task: markOverdueBills");
 
@@ -0,0 +1,270 @@
+package com.roomie.services.billing_service.service;
+
+import com.roomie.services.billing_service.dto.response.ContractResponse;
+import com.roomie.services.billing_service.dto.response.property.PropertyResponse;
+import com.roomie.services.billing_service.entity.Bill;
+import com.roomie.services.billing_service.entity.InvoiceEmailJob;
+import com.roomie.services.billing_service.enums.EmailJobStatus;
+import com.roomie.services.billing_service.repository.BillRepository;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Delivers queued invoice emails.
+ *
+ * Each worker claims up to {@code billing.email.batch-size} due jobs (findAndModify with a
+ * lease, so workers and instances never take the same job), renders their PDFs in one batch
+ * and hands all messages to a single {@code mailSender.send(...)} call, which sends them over
+ * one SMTP connection. Failed jobs are retried with exponential backoff until
+ * {@code billing.email.max-attempts}; a job whose lease expires (crashed worker) is claimed again.
+ */
+@Service
+@Slf4j
+public class InvoiceEmailDispatcher {
+
+    private final MongoTemplate mongoTemplate;
+    private final BillRepository billRepository;
+    private final BillPdfGeneratorService pdfGeneratorService;
+    private final BillEmailService emailService;
+    private final JavaMailSender mailSender;
+
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+
+    public InvoiceEmailDispatcher(MongoTemplate mongoTemplate,
+                                  BillRepository billRepository,
+                                  BillPdfGeneratorService pdfGeneratorService,
+                                  BillEmailService emailService,
+                                  JavaMailSender mailSender,
+                                  @Value("${billing.email.enabled:true}") boolean enabled,
+                                  @Value("${billing.email.workers:2}") int workers,
+                                  @Value("${billing.email.batch-size:50}") int batchSize,
+                                  @Value("${billing.email.max-attempts:5}") int maxAttempts,
+                                  @Value("${billing.email.lease:PT5M}") Duration lease,
+                                  @Value("${billing.email.backoff-base:PT30S}") Duration backoffBase,
+                                  @Value("${billing.email.backoff-max:PT30M}") Duration backoffMax) {
+        this.mongoTemplate = mongoTemplate;
+        this.billRepository = billRepository;
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.enabled = enabled;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lease = lease;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+    }
+
+    /**
+     * Every poll, {@code workers} drains run side by side until no full batch is due
+     */
+    @Scheduled(fixedDelayString = "${billing.email.poll-interval:PT2S}",
+            initialDelayString = "${billing.email.poll-interval:PT2S}")
+    public void poll() {
+        if (!enabled) return;
+        if (workers == 1) {
+            drain();
+            return;
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                executor.submit(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Keep sending while full batches are due
+     */
+    private void drain() {
+        try {
+            while (dispatchBatch() == batchSize) {
+                // more jobs are probably due
+            }
+        } catch (Exception e) {
+            log.error("Invoice email dispatch failed", e);
+        }
+    }
+
+    int dispatchBatch() {
+        List<InvoiceEmailJob> jobs = claim();
+        if (jobs.isEmpty()) return 0;
+
+        Instant started = Instant.now();
+        Map<String, Bill> bills = new HashMap<>();
+        billRepository.findAllById(jobs.stream().map(InvoiceEmailJob::getBillId).distinct().toList())
+                .forEach(bill -> bills.put(bill.getId(), bill));
+
+        // Render every bill once, from the snapshots taken when the email was queued
+        Map<String, ContractResponse> contracts = new HashMap<>();
+        Map<String, PropertyResponse> properties = new HashMap<>();
+        for (InvoiceEmailJob job : jobs) {
+            Bill bill = bills.get(job.getBillId());
+            if (bill == null) continue;
+            contracts.put(bill.getContractId(), job.getContract());
+            if (job.getProperty() != null) {
+                properties.put(job.getContract().getPropertyId(), job.getProperty());
+            }
+        }
+        Map<String, byte[]> pdfs = pdfGeneratorService.generateInvoicePdfs(
+                new ArrayList<>(bills.values()), contracts, properties);
+
+        Map<String, String> failures = new HashMap<>();   // jobId -> error
+        Map<MimeMessage, InvoiceEmailJob> messages = new IdentityHashMap<>();
+        for (InvoiceEmailJob job : jobs) {
+            Bill bill = bills.get(job.getBillId());
+            byte[] pdf = bill != null ? pdfs.get(bill.getId()) : null;
+            if (bill == null) {
+                failures.put(job.getId(), "Bill not found");
+            } else if (pdf == null) {
+                failures.put(job.getId(), "PDF rendering failed");
+            } else {
+                try {
+                    messages.put(emailService.buildInvoiceMessage(job, bill, pdf), job);
+                } catch (Exception e) {
+                    failures.put(job.getId(), "Invalid message: " + e.getMessage());
+                }
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            send(messages, failures);
+        }
+
+        record(jobs, failures);
+
+        log.info("Dispatched {} invoice emails ({} failed) in {} ms", jobs.size(), failures.size(),
+                Duration.between(started, Instant.now()).toMillis());
+        return jobs.size();
+    }
+
+    /**
+     * One send call for the whole batch: JavaMailSenderImpl opens a single transport for it
+     */
+    private void send(Map<MimeMessage, InvoiceEmailJob> messages, Map<String, String> failures) {
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                messages.values().forEach(job -> failures.put(job.getId(), e.getMessage()));
+            } else {
+                failed.forEach((message, cause) -> {
+                    InvoiceEmailJob job = messages.get(message);
+                    if (job != null) failures.put(job.getId(), cause.getMessage());
+                });
+            }
+        } catch (MailException e) {
+            messages.values().forEach(job -> failures.put(job.getId(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Claim due jobs one findAndModify at a time: PENDING ones whose retry time has come,
+     * and SENDING ones whose worker lease has expired.
+     */
+    private List<InvoiceEmailJob> claim() {
+        List<InvoiceEmailJob> claimed = new ArrayList<>();
+        Instant now = Instant.now();
+
+        Query query = Query.query(new Criteria().orOperator(
+                        Criteria.where("status").is(EmailJobStatus.PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(EmailJobStatus.SENDING).and("lockedUntil").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", EmailJobStatus.SENDING)
+                .set("lockedUntil", now.plus(lease))
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+
+        while (claimed.size() < batchSize) {
+            InvoiceEmailJob job = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), InvoiceEmailJob.class);
+            if (job == null) break;
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    private void record(List<InvoiceEmailJob> jobs, Map<String, String> failures) {
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InvoiceEmailJob.class);
+        List<String> sentBillIds = new ArrayList<>();
+
+        for (InvoiceEmailJob job : jobs) {
+            Query byId = Query.query(Criteria.where("_id").is(job.getId()));
+            String error = failures.get(job.getId());
+
+            if (error == null) {
+                bulk.updateOne(byId, new Update()
+                        .set("status", EmailJobStatus.SENT)
+                        .set("sentAt", now)
+                        .set("updatedAt", now)
+                        .unset("lockedUntil")
+                        .unset("lastError"));
+                sentBillIds.add(job.getBillId());
+            } else if (job.getAttempts() >= maxAttempts) {
+                bulk.updateOne(byId, new Update()
+                        .set("status", EmailJobStatus.FAILED)
+                        .set("lastError", error)
+                        .set("updatedAt", now)
+                        .unset("lockedUntil"));
+                log.error("Invoice email {} for bill {} failed after {} attempts: {}",
+                        job.getId(), job.getBillId(), job.getAttempts(), error);
+            } else {
+                bulk.updateOne(byId, new Update()
+                        .set("status", EmailJobStatus.PENDING)
+                        .set("nextAttemptAt", now.plus(backoff(job.getAttempts())))
+                        .set("lastError", error)
+                        .set("updatedAt", now)
+                        .unset("lockedUntil"));
+                log.warn("Invoice email {} for bill {} failed (attempt {}), will retry: {}",
+                        job.getId(), job.getBillId(), job.getAttempts(), error);
+            }
+        }
+        bulk.execute();
+
+        // Only the delivery timestamp changes; the bill content (and its cached PDF) stays valid
+        if (!sentBillIds.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(sentBillIds)),
+                    new Update().set("emailedAt", now),
+                    Bill.class);
+        }
+    }
+
+    /**
+     * backoff-base * 2^(attempt - 1), capped at backoff-max
+     */
+    private Duration backoff(int attempt) {
+        Duration delay = backoffBase.multipliedBy(1L << Math.min(attempt - 1, 20));
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+}
@@ -0,0 +1,450 @@
+package com.roomie.services.billing_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.Graphics2D;
+import java.awt.color.ColorSpace;
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Raster preprocessing for meter photos before OCR.
+ *
+ * Works on the raster arrays instead of getRGB/setRGB, in two passes over pooled buffers:
+ * <ol>
+ *   <li>source pixels to luma, area-averaged down to the target size (so a 12 MP photo is
+ *       reduced while it is read), with the contrast curve applied through a lookup table</li>
+ *   <li>one convolution for denoise and/or sharpen (the two kernels are pre-combined),
+ *       collecting the histogram for the Otsu threshold on the way</li>
+ * </ol>
+ * The result is written straight into a TYPE_BYTE_BINARY (packed bits) or TYPE_BYTE_GRAY image.
+ */
+@Service
+public class MeterImagePreprocessor {
+
+    /**
+     * Preprocessing steps; maxWidth / maxHeight of 0 mean no limit
+     */
+    public record Options(int maxWidth, int maxHeight, float contrast,
+                          boolean denoise, boolean sharpen, boolean binarize) {
+    }
+
+    // Same weights as Scalr.OP_ANTIALIAS (0.08 / 0.68), in 1/25
+    private static final int[] DENOISE_KERNEL = {
+            0, 2, 0,
+            2, 17, 2,
+            0, 2, 0
+    };
+    private static final int DENOISE_DIVISOR = 25;
+
+    private static final int[] SHARPEN_KERNEL = {
+            0, -1, 0,
+            -1, 5, -1,
+            0, -1, 0
+    };
+
+    private static final int MAX_POOLED_PIXELS = 4_000_000;
+    private static final byte[] IDENTITY = contrastTable(1.0f);
+
+    private final BlockingQueue<Workspace> workspaces;
+
+    public MeterImagePreprocessor(@Value("${ocr.preprocess.buffer-pool-size:4}") int bufferPoolSize) {
+        this.workspaces = new ArrayBlockingQueue<>(Math.max(1, bufferPoolSize));
+    }
+
+    public BufferedImage preprocess(BufferedImage source, Options options) {
+        int srcW = source.getWidth();
+        int srcH = source.getHeight();
+
+        double scale = 1.0;
+        if (options.maxWidth() > 0 && srcW > options.maxWidth()) {
+            scale = (double) options.maxWidth() / srcW;
+        }
+        if (options.maxHeight() > 0 && srcH * scale > options.maxHeight()) {
+            scale = (double) options.maxHeight() / srcH;
+        }
+        int dstW = Math.max(1, (int) Math.round(srcW * scale));
+        int dstH = Math.max(1, (int) Math.round(srcH * scale));
+
+        Workspace ws = acquire(srcW, dstW, dstH);
+        try {
+            // Pass 1: luma + downsample + contrast
+            downsampleToGray(source, dstW, dstH, contrastTable(options.contrast()), ws);
+
+            // Pass 2: convolution + histogram
+            Kernel kernel = kernel(options.denoise(), options.sharpen());
+            byte[] result = ws.gray;
+            if (kernel != null) {
+                convolve(ws.gray, ws.filtered, dstW, dstH, kernel, ws.histogram);
+                result = ws.filtered;
+            } else if (options.binarize()) {
+                histogram(ws.gray, dstW * dstH, ws.histogram);
+            }
+
+            return options.binarize()
+                    ? toBinary(result, dstW, dstH, otsuThreshold(ws.histogram, dstW * dstH))
+                    : toGray(result, dstW, dstH);
+        } finally {
+            release(ws);
+        }
+    }
+
+    /**
+     * Gray thumbnail of exactly width x height (area average, aspect ratio not kept),
+     * e.g. for perceptual hashing
+     */
+    public byte[] grayThumbnail(BufferedImage source, int width, int height) {
+        // May upscale: an image narrower than the thumbnail has fewer columns than xStart needs
+        Workspace ws = acquire(source.getWidth(), width, height);
+        try {
+            downsampleToGray(source, width, height, IDENTITY, ws);
+            return Arrays.copyOf(ws.gray, width * height);
+        } finally {
+            release(ws);
+        }
+    }
+
+    // ==================== PASS 1 ====================
+
+    /**
+     * Area average: every destination pixel is the mean luma of the source block it covers.
+     * Source rows are summed column-wise into {@code ws.rowSums}, then reduced per block.
+     */
+    private void downsampleToGray(BufferedImage source, int dstW, int dstH, byte[] lut, Workspace ws) {
+        LumaReader reader = LumaReader.of(source);
+        int srcW = source.getWidth();
+        int srcH = source.getHeight();
+
+        int[] xStart = ws.xStart;
+        for (int dx = 0; dx <= dstW; dx++) {
+            xStart[dx] = (int) ((long) dx * srcW / dstW);
+        }
+
+        int[] rowSums = ws.rowSums;
+        byte[] gray = ws.gray;
+        for (int dy = 0; dy < dstH; dy++) {
+            int sy0 = (int) ((long) dy * srcH / dstH);
+            int sy1 = Math.max(sy0 + 1, (int) ((long) (dy + 1) * srcH / dstH));
+
+            Arrays.fill(rowSums, 0, srcW, 0);
+            for (int sy = sy0; sy < sy1; sy++) {
+                reader.addRow(sy, rowSums);
+            }
+
+            int rows = sy1 - sy0;
+            int out = dy * dstW;
+            for (int dx = 0; dx < dstW; dx++) {
+                int sx0 = xStart[dx];
+                int sx1 = Math.max(sx0 + 1, xStart[dx + 1]);
+                int sum = 0;
+                for (int sx = sx0; sx < sx1; sx++) {
+                    sum += rowSums[sx];
+                }
+                gray[out + dx] = lut[sum / (rows * (sx1 - sx0))];
+            }
+        }
+    }
+
+    private static byte[] contrastTable(float factor) {
+        byte[] lut = new byte[256];
+        for (int v = 0; v < 256; v++) {
+            lut[v] = (byte) clamp(Math.round(128 + factor * (v - 128)));
+        }
+        return lut;
+    }
+
+    /**
+     * Reads one source row as luma (0.299 R + 0.587 G + 0.114 B, in 1/256) straight from the raster
+     */
+    private interface LumaReader {
+
+        void addRow(int y, int[] sums);
+
+        static LumaReader of(BufferedImage image) {
+            WritableRaster raster = image.getRaster();
+            SampleModel sampleModel = raster.getSampleModel();
+            DataBuffer buffer = raster.getDataBuffer();
+            int tx = raster.getSampleModelTranslateX();
+            int ty = raster.getSampleModelTranslateY();
+            int width = image.getWidth();
+            ColorSpace colorSpace = image.getColorModel().getColorSpace();
+
+            if (buffer instanceof DataBufferByte bytes && bytes.getNumBanks() == 1
+                    && sampleModel instanceof ComponentSampleModel csm
+                    && !(image.getColorModel() instanceof IndexColorModel)) {
+                byte[] data = bytes.getData();
+                int base = bytes.getOffset();
+                int pixelStride = csm.getPixelStride();
+                int scanlineStride = csm.getScanlineStride();
+                int[] bands = csm.getBandOffsets();
+
+                if (csm.getNumBands() == 1 && colorSpace.getType() == ColorSpace.TYPE_GRAY) {
+                    int gray = bands[0];
+                    return (y, sums) -> {
+                        int i = base + (y - ty) * scanlineStride - tx * pixelStride + gray;
+                        for (int x = 0; x < width; x++, i += pixelStride) {
+                            sums[x] += data[i] & 0xFF;
+                        }
+                    };
+                }
+                if (csm.getNumBands() >= 3 && colorSpace.getType() == ColorSpace.TYPE_RGB) {
+                    int r = bands[0], g = bands[1], b = bands[2];
+                    return (y, sums) -> {
+                        int i = base + (y - ty) * scanlineStride - tx * pixelStride;
+                        for (int x = 0; x < width; x++, i += pixelStride) {
+                            sums[x] += (77 * (data[i + r] & 0xFF) + 150 * (data[i + g] & 0xFF)
+                                    + 29 * (data[i + b] & 0xFF)) >> 8;
+                        }
+                    };
+                }
+            }
+
+            if (buffer instanceof DataBufferInt ints && ints.getNumBanks() == 1
+                    && sampleModel instanceof SinglePixelPackedSampleModel sppsm
+                    && sppsm.getNumBands() >= 3 && colorSpace.getType() == ColorSpace.TYPE_RGB
+                    && hasByteMasks(sppsm)) {
+                int[] data = ints.getData();
+                int base = ints.getOffset();
+                int stride = sppsm.getScanlineStride();
+                int[] shifts = sppsm.getBitOffsets();
+                int rs = shifts[0], gs = shifts[1], bs = shifts[2];
+                return (y, sums) -> {
+                    int i = base + (y - ty) * stride - tx;
+                    for (int x = 0; x < width; x++, i++) {
+                        int p = data[i];
+                        sums[x] += (77 * ((p >>> rs) & 0xFF) + 150 * ((p >>> gs) & 0xFF)
+                                + 29 * ((p >>> bs) & 0xFF)) >> 8;
+                    }
+                };
+            }
+
+            // Indexed, 16-bit, CMYK...: let Java2D convert once, then read the gray bytes
+            BufferedImage gray = new BufferedImage(width, image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+            return of(gray);
+        }
+
+        private static boolean hasByteMasks(SinglePixelPackedSampleModel sampleModel) {
+            int[] masks = sampleModel.getBitMasks();
+            int[] shifts = sampleModel.getBitOffsets();
+            for (int band = 0; band < 3; band++) {
+                if (masks[band] != 0xFF << shifts[band]) return false;
+            }
+            return true;
+        }
+    }
+
+    // ==================== PASS 2 ====================
+
+    private record Kernel(int radius, int[] dx, int[] dy, int[] weight, int divisor) {
+    }
+
+    /**
+     * Denoise and sharpen as one kernel (their convolution), keeping only the non-zero taps
+     */
+    private static Kernel kernel(boolean denoise, boolean sharpen) {
+        if (!denoise && !sharpen) return null;
+
+        int[] weights;
+        int size;
+        int divisor = 1;
+        if (denoise && sharpen) {
+            weights = combine(DENOISE_KERNEL, SHARPEN_KERNEL);
+            size = 5;
+            divisor = DENOISE_DIVISOR;
+        } else if (denoise) {
+            weights = DENOISE_KERNEL;
+            size = 3;
+            divisor = DENOISE_DIVISOR;
+        } else {
+            weights = SHARPEN_KERNEL;
+            size = 3;
+        }
+
+        int radius = size / 2;
+        int taps = 0;
+        for (int w : weights) if (w != 0) taps++;
+
+        int[] dx = new int[taps], dy = new int[taps], weight = new int[taps];
+        int t = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == 0) continue;
+            dx[t] = i % size - radius;
+            dy[t] = i / size - radius;
+            weight[t++] = weights[i];
+        }
+        return new Kernel(radius, dx, dy, weight, divisor);
+    }
+
+    private static int[] combine(int[] a, int[] b) {
+        int[] result = new int[25];
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                int x = i % 3 + j % 3;
+                int y = i / 3 + j / 3;
+                result[y * 5 + x] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    private static void convolve(byte[] src, byte[] dst, int w, int h, Kernel k, int[] histogram) {
+        Arrays.fill(histogram, 0);
+        int r = k.radius();
+        int[] dx = k.dx(), dy = k.dy(), weight = k.weight();
+        int taps = weight.length;
+        int divisor = k.divisor();
+        int half = divisor / 2;
+
+        int[] offsets = new int[taps];
+        for (int t = 0; t < taps; t++) {
+            offsets[t] = dy[t] * w + dx[t];
+        }
+
+        for (int y = 0; y < h; y++) {
+            boolean innerRow = y >= r && y < h - r;
+            int row = y * w;
+            for (int x = 0; x < w; x++) {
+                int sum = 0;
+                if (innerRow && x >= r && x < w - r) {
+                    int i = row + x;
+                    for (int t = 0; t < taps; t++) {
+                        sum += weight[t] * (src[i + offsets[t]] & 0xFF);
+                    }
+                } else {
+                    // Edges: clamp to the nearest pixel
+                    for (int t = 0; t < taps; t++) {
+                        int sx = Math.min(w - 1, Math.max(0, x + dx[t]));
+                        int sy = Math.min(h - 1, Math.max(0, y + dy[t]));
+                        sum += weight[t] * (src[sy * w + sx] & 0xFF);
+                    }
+                }
+                int value = clamp((sum + half) / divisor);
+                dst[row + x] = (byte) value;
+                histogram[value]++;
+            }
+        }
+    }
+
+    private static void histogram(byte[] pixels, int length, int[] histogram) {
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < length; i++) {
+            histogram[pixels[i] & 0xFF]++;
+        }
+    }
+
+    /**
+     * Otsu: the threshold that maximizes the between-class variance of the histogram
+     */
+    static int otsuThreshold(int[] histogram, int total) {
+        long sumAll = 0;
+        for (int v = 0; v < 256; v++) {
+            sumAll += (long) v * histogram[v];
+        }
+
+        long sumBackground = 0;
+        int weightBackground = 0;
+        double bestVariance = -1;
+        int threshold = 127;
+
+        for (int v = 0; v < 256; v++) {
+            weightBackground += histogram[v];
+            if (weightBackground == 0) continue;
+            int weightForeground = total - weightBackground;
+            if (weightForeground == 0) break;
+
+            sumBackground += (long) v * histogram[v];
+            double meanBackground = (double) sumBackground / weightBackground;
+            double meanForeground = (double) (sumAll - sumBackground) / weightForeground;
+            double diff = meanBackground - meanForeground;
+            double variance = (double) weightBackground * weightForeground * diff * diff;
+
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                threshold = v;
+            }
+        }
+        return threshold;
+    }
+
+    // ==================== OUTPUT ====================
+
+    private static BufferedImage toBinary(byte[] pixels, int w, int h, int threshold) {
+        BufferedImage binary = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] out = ((DataBufferByte) binary.getRaster().getDataBuffer()).getData();
+        int stride = (w + 7) / 8;
+
+        for (int y = 0; y < h; y++) {
+            int in = y * w;
+            int o = y * stride;
+            for (int x = 0; x < w; x += 8) {
+                int bits = 0;
+                int n = Math.min(8, w - x);
+                for (int b = 0; b < n; b++) {
+                    if ((pixels[in + x + b] & 0xFF) > threshold) {
+                        bits |= 0x80 >>> b; // 1 = white
+                    }
+                }
+                out[o + (x >> 3)] = (byte) bits;
+            }
+        }
+        return binary;
+    }
+
+    private static BufferedImage toGray(byte[] pixels, int w, int h) {
+        BufferedImage gray = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] out = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, out, 0, w * h);
+        return gray;
+    }
+
+    private static int clamp(int value) {
+        return Math.min(255, Math.max(0, value));
+    }
+
+    // ==================== BUFFER POOL ====================
+
+    private static final class Workspace {
+        byte[] gray = new byte[0];
+        byte[] filtered = new byte[0];
+        int[] rowSums = new int[0];
+        int[] xStart = new int[0];
+        final int[] histogram = new int[256];
+
+        void ensure(int srcWidth, int dstWidth, int dstHeight) {
+            int pixels = dstWidth * dstHeight;
+            if (gray.length < pixels) {
+                gray = new byte[pixels];
+                filtered = new byte[pixels];
+            }
+            if (rowSums.length < srcWidth) {
+                rowSums = new int[srcWidth];
+            }
+            // One boundary per destination column, plus the end
+            if (xStart.length < dstWidth + 1) {
+                xStart = new int[dstWidth + 1];
+            }
+        }
+    }
+
+    private Workspace acquire(int srcWidth, int dstWidth, int dstHeight) {
+        Workspace ws = workspaces.poll();
+        if (ws == null) {
+            ws = new Workspace();
+        }
+        ws.ensure(srcWidth, dstWidth, dstHeight);
+        return ws;
+    }
+
+    private void release(Workspace ws) {
+        // Don't keep buffers that grew for an unusually large image
+        if (ws.gray.length <= MAX_POOLED_PIXELS) {
+            workspaces.offer(ws);
+        }
+    }
+}
@@ -2,20 +2,18 @@ package com.roomie.services.billing_service.service;
 
 import com.roomie.services.billing_service.dto.response.MeterCandidate;
 import com.roomie.services.billing_service.dto.response.MeterReadingResult;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
-import org.imgscalr.Scalr;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -33,11 +31,21 @@ import java.util.regex.Pattern;
  * - Google Cloud Vision API (backup method)
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class MeterOcrService {
 
-    @Value("C:/Program Files/Tesseract-OCR/tessdata")
-    private String tesseractDataPath;
+    private static final String METRIC_SERVICE = "meter";
+
+    // English for numbers, single text block, LSTM engine, digits only
+    private static final TesseractPool.Settings DIGITS =
+            new TesseractPool.Settings("eng", 6, 1, "0123456789.");
+
+    private static final MeterImagePreprocessor.Options PREPROCESS =
+            new MeterImagePreprocessor.Options(1920, 0, 1.5f, true, true, false);
+
+    private final TesseractPool tesseractPool;
+    private final MeterImagePreprocessor imagePreprocessor;
 
     @Value("${ocr.confidence-threshold:0.7}")
     private double confidenceThreshold;
@@ -53,7 +61,7 @@ public class MeterOcrService {
 
         try {
             // 1. Load image
-            BufferedImage originalImage = ImageIO.read(imageFile.getInputStream());
+            BufferedImage originalImage = tesseractPool.timed(METRIC_SERVICE, "load", () -> loadImage(imageFile));
             if (originalImage == null) {
                 throw new IOException("Failed to load image");
             }
@@ -63,7 +71,8 @@ public class MeterOcrService {
 //
 //            // 3. Extract text using Tesseract
 //            String extractedText = extractTextWithTesseract(processedImage);
-            String extractedText = extractTextWithTesseract(originalImage);
+            String extractedText = tesseractPool.timed(METRIC_SERVICE, "ocr",
+                    () -> extractTextWithTesseract(originalImage));
 
             log.debug("Extracted text: {}", extractedText);
 
@@ -92,124 +101,36 @@ public class MeterOcrService {
 
     /**
      * Tiền xử lý ảnh để tăng độ chính xác OCR
+     * Resize to 1920 wide, grayscale, contrast 1.5, denoise, sharpen (two passes over the raster)
      */
     private BufferedImage preprocessImage(BufferedImage original) {
         log.debug("Preprocessing image...");
-
-        BufferedImage processed = original;
-
-        // 1. Resize if too large (faster processing)
-        if (processed.getWidth() > 1920 || processed.getHeight() > 1080) {
-            processed = Scalr.resize(processed, Scalr.Method.QUALITY,
-                    Scalr.Mode.FIT_TO_WIDTH, 1920);
-        }
-
-        // 2. Convert to grayscale
-        processed = convertToGrayscale(processed);
-
-        // 3. Increase contrast
-        processed = increaseContrast(processed);
-
-        // 4. Denoise
-        processed = denoise(processed);
-
-        // 5. Sharpen
-        processed = sharpen(processed);
-
-        return processed;
-    }
-
-    /**
-     * Chuyển ảnh sang grayscale
-     */
-    private BufferedImage convertToGrayscale(BufferedImage image) {
-        BufferedImage gray = new BufferedImage(
-                image.getWidth(),
-                image.getHeight(),
-                BufferedImage.TYPE_BYTE_GRAY
-        );
-
-        Graphics2D g = gray.createGraphics();
-        g.drawImage(image, 0, 0, null);
-        g.dispose();
-
-        return gray;
-    }
-
-    /**
-     * Tăng contrast
-     */
-    private BufferedImage increaseContrast(BufferedImage image) {
-        float contrastFactor = 1.5f;
-
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                int rgb = image.getRGB(x, y);
-                int r = (rgb >> 16) & 0xFF;
-                int g = (rgb >> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                r = (int) Math.min(255, Math.max(0, 128 + contrastFactor * (r - 128)));
-                g = (int) Math.min(255, Math.max(0, 128 + contrastFactor * (g - 128)));
-                b = (int) Math.min(255, Math.max(0, 128 + contrastFactor * (b - 128)));
-
-                image.setRGB(x, y, (r << 16) | (g << 8) | b);
-            }
-        }
-
-        return image;
-    }
-
-    /**
-     * Denoise (làm mịn ảnh)
-     */
-    private BufferedImage denoise(BufferedImage image) {
-        // Simple box blur
-        int radius = 1;
-        return Scalr.apply(image, Scalr.OP_ANTIALIAS);
-    }
-
-    /**
-     * Sharpen
-     */
-    private BufferedImage sharpen(BufferedImage image) {
-        float[] sharpenKernel = {
-                0, -1, 0,
-                -1, 5, -1,
-                0, -1, 0
-        };
-
-        // TODO: Apply convolution kernel
-        return image;
+        return imagePreprocessor.preprocess(original, PREPROCESS);
     }
 
     /**
-     * Trích xuất text bằng Tesseract OCR
+     * Trích xuất text bằng Tesseract OCR (warm engine from the pool)
      */
     private String extractTextWithTesseract(BufferedImage image) {
         try {
-            Tesseract tesseract = new Tesseract();
-
-            // Configure Tesseract
-            tesseract.setDatapath(tesseractDataPath);
-            tesseract.setLanguage("eng"); // English for numbers
-            tesseract.setPageSegMode(6); // Single text line
-            tesseract.setOcrEngineMode(1); // Neural nets LSTM engine
-
-            // Configure for digit recognition
-            tesseract.setTessVariable("tessedit_char_whitelist", "0123456789.");
-
-            // Perform OCR
-            String result = tesseract.doOCR(image);
+            String result = tesseractPool.recognize(image, DIGITS);
 
             return result != null ? result.trim() : "";
 
-        } catch (TesseractException e) {
+        } catch (RuntimeException e) {
             log.error("Tesseract OCR failed", e);
             return "";
         }
     }
 
+    private BufferedImage loadImage(MultipartFile imageFile) {
+        try {
+            return ImageIO.read(imageFile.getInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Trích xuất text bằng Google Cloud Vision API (backup method)
      */
@@ -0,0 +1,255 @@
+package com.roomie.services.billing_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomie.services.billing_service.dto.event.MeterOcrJobEvent;
+import com.roomie.services.billing_service.entity.MeterOcrJob;
+import com.roomie.services.billing_service.enums.OcrJobStatus;
+import com.roomie.services.billing_service.service.VietnameseMeterOcrService.MeterReadingResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Runs queued meter photo OCR jobs.
+ *
+ * Job ids arrive on {@code meter.ocr.requested}; {@code billing.ocr-jobs.concurrency} listener
+ * threads bound how many jobs run at once, on top of the Tesseract pool. A job is claimed with
+ * findAndModify and a lease, so a redelivered or re-published id never runs twice. Set
+ * {@code billing.ocr-jobs.worker-enabled=false} on API-only instances to run OCR elsewhere.
+ *
+ * Progress (RUNNING, COMPLETED, FAILED) is published on {@code meter.ocr.updated}, keyed by user,
+ * for notification-service to push over WebSocket. A sweep re-publishes jobs whose request
+ * was lost or whose worker died.
+ */
+@Service
+@Slf4j
+public class MeterOcrWorker {
+
+    public static final String TOPIC_REQUESTED = "meter.ocr.requested";
+    public static final String TOPIC_UPDATED = "meter.ocr.updated";
+
+    private static final int SWEEP_BATCH = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterReadingService meterReadingService;
+    private final VietnameseMeterOcrService vietnameseOcrService;
+    private final OcrResultCache ocrResultCache;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration requeueAfter;
+
+    public MeterOcrWorker(MongoTemplate mongoTemplate,
+                          MeterReadingService meterReadingService,
+                          VietnameseMeterOcrService vietnameseOcrService,
+                          OcrResultCache ocrResultCache,
+                          KafkaTemplate<String, Object> kafkaTemplate,
+                          ObjectMapper objectMapper,
+                          @Value("${billing.ocr-jobs.worker-enabled:true}") boolean enabled,
+                          @Value("${billing.ocr-jobs.max-attempts:3}") int maxAttempts,
+                          @Value("${billing.ocr-jobs.lease:PT5M}") Duration lease,
+                          @Value("${billing.ocr-jobs.requeue-after:PT5M}") Duration requeueAfter) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterReadingService = meterReadingService;
+        this.vietnameseOcrService = vietnameseOcrService;
+        this.ocrResultCache = ocrResultCache;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lease = lease;
+        this.requeueAfter = requeueAfter;
+    }
+
+    @KafkaListener(topics = TOPIC_REQUESTED,
+            groupId = "billing-ocr-worker",
+            concurrency = "${billing.ocr-jobs.concurrency:2}",
+            autoStartup = "${billing.ocr-jobs.worker-enabled:true}")
+    public void onRequested(String message) {
+        String jobId;
+        try {
+            jobId = objectMapper.readValue(message, MeterOcrJobEvent.class).getJobId();
+        } catch (Exception e) {
+            log.warn("Ignoring malformed OCR request: {}", message);
+            return;
+        }
+        if (jobId != null) {
+            process(jobId);
+        }
+    }
+
+    void process(String jobId) {
+        MeterOcrJob job = claim(jobId);
+        if (job == null) {
+            log.debug("OCR job {} already taken or finished", jobId);
+            return;
+        }
+        if (job.getAttempts() > maxAttempts) {
+            // Its workers kept dying, e.g. on a poison image
+            fail(job, "Worker lost the job " + maxAttempts + " times");
+            return;
+        }
+        publish(job);
+
+        try {
+            MeterReadingResult result = ocrResultCache.getOrRead(
+                    job.getMeterReadingId() + ":" + job.getMeterType(),
+                    job.getImage(),
+                    vietnameseOcrService::readVietnameseMeter);
+
+            meterReadingService.saveOcrResult(job.getMeterReadingId(), job.getMeterType(),
+                    job.getPhotoUrl(), result);
+            complete(job, result);
+
+            log.info("OCR job {} completed: success={}, value={}", jobId, result.isSuccess(), result.getValue());
+        } catch (Exception e) {
+            log.error("OCR job {} failed (attempt {})", jobId, job.getAttempts(), e);
+            if (job.getAttempts() >= maxAttempts) {
+                fail(job, e.getMessage());
+            } else {
+                retry(job, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Take the job if it is queued, or running under an expired lease
+     */
+    private MeterOcrJob claim(String jobId) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(jobId).orOperator(
+                Criteria.where("status").is(OcrJobStatus.QUEUED),
+                Criteria.where("status").is(OcrJobStatus.RUNNING).and("lockedUntil").lte(now)));
+        Update update = new Update()
+                .set("status", OcrJobStatus.RUNNING)
+                .set("lockedUntil", now.plus(lease))
+                .set("startedAt", now)
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), MeterOcrJob.class);
+    }
+
+    private void complete(MeterOcrJob job, MeterReadingResult result) {
+        Instant now = Instant.now();
+        job.setStatus(OcrJobStatus.COMPLETED);
+        job.setValue(result.getValue());
+        job.setConfidence(result.getConfidence());
+        job.setStrategy(result.getStrategy());
+        job.setRawText(result.getRawText());
+        job.setError(result.getError());
+        job.setFinishedAt(now);
+
+        finish(job, new Update()
+                .set("status", OcrJobStatus.COMPLETED)
+                .set("value", result.getValue())
+                .set("confidence", result.getConfidence())
+                .set("strategy", result.getStrategy())
+                .set("rawText", result.getRawText())
+                .set("error", result.getError())
+                .set("finishedAt", now)
+                .set("updatedAt", now)
+                .unset("image")
+                .unset("lockedUntil"));
+    }
+
+    private void fail(MeterOcrJob job, String error) {
+        Instant now = Instant.now();
+        job.setStatus(OcrJobStatus.FAILED);
+        job.setError(error);
+        job.setFinishedAt(now);
+
+        finish(job, new Update()
+                .set("status", OcrJobStatus.FAILED)
+                .set("error", error)
+                .set("finishedAt", now)
+                .set("updatedAt", now)
+                .unset("image")
+                .unset("lockedUntil"));
+    }
+
+    /**
+     * Back to QUEUED; the sweep re-publishes it after requeue-after
+     */
+    private void retry(MeterOcrJob job, String error) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())), new Update()
+                        .set("status", OcrJobStatus.QUEUED)
+                        .set("error", error)
+                        .set("updatedAt", Instant.now())
+                        .unset("lockedUntil"),
+                MeterOcrJob.class);
+    }
+
+    private void finish(MeterOcrJob job, Update update) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())), update, MeterOcrJob.class);
+        publish(job);
+    }
+
+    private void publish(MeterOcrJob job) {
+        kafkaTemplate.send(TOPIC_UPDATED, job.getRequestedBy(), toEvent(job));
+    }
+
+    /**
+     * Re-publish jobs that sat queued (lost send, failed attempt) or whose lease ran out
+     */
+    @Scheduled(fixedDelayString = "${billing.ocr-jobs.requeue-after:PT5M}",
+            initialDelayString = "${billing.ocr-jobs.requeue-after:PT5M}")
+    public void sweep() {
+        if (!enabled) return;
+        try {
+            Instant now = Instant.now();
+            Instant cutoff = now.minus(requeueAfter);
+            Query query = Query.query(new Criteria().orOperator(
+                            Criteria.where("status").is(OcrJobStatus.QUEUED).and("updatedAt").lte(cutoff),
+                            Criteria.where("status").is(OcrJobStatus.RUNNING).and("lockedUntil").lte(now)
+                                    .and("updatedAt").lte(cutoff)))
+                    .limit(SWEEP_BATCH);
+            query.fields().include("_id");
+
+            List<String> ids = mongoTemplate.find(query, MeterOcrJob.class).stream()
+                    .map(MeterOcrJob::getId)
+                    .toList();
+            if (ids.isEmpty()) return;
+
+            // Touch them so the next sweep does not send them again straight away
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)),
+                    new Update().set("updatedAt", now), MeterOcrJob.class);
+            ids.forEach(id -> kafkaTemplate.send(TOPIC_REQUESTED, id,
+                    MeterOcrJobEvent.builder().jobId(id).timestamp(now).build()));
+
+            log.info("Re-published {} stalled OCR jobs", ids.size());
+        } catch (Exception e) {
+            log.error("OCR job sweep failed", e);
+        }
+    }
+
+    static MeterOcrJobEvent toEvent(MeterOcrJob job) {
+        return MeterOcrJobEvent.builder()
+                .jobId(job.getId())
+                .meterReadingId(job.getMeterReadingId())
+                .meterType(job.getMeterType())
+                .userId(job.getRequestedBy())
+                .status(job.getStatus().name())
+                .value(job.getValue())
+                .confidence(job.getConfidence())
+                .error(job.getError())
+                .timestamp(Instant.now())
+                .build();
+    }
+}
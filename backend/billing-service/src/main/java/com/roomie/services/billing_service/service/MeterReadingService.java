@@ -1,15 +1,29 @@
 package com.roomie.services.billing_service.service;
 
 import com.roomie.services.billing_service.dto.response.FileResponse;
+import com.roomie.services.billing_service.dto.response.MeterOcrJobResponse;
+import com.roomie.services.billing_service.entity.MeterOcrJob;
 import com.roomie.services.billing_service.entity.MeterReading;
+import com.roomie.services.billing_service.enums.OcrJobStatus;
 import com.roomie.services.billing_service.exception.AppException;
 import com.roomie.services.billing_service.exception.ErrorCode;
+import com.roomie.services.billing_service.mapper.MeterOcrJobMapper;
+import com.roomie.services.billing_service.repository.MeterOcrJobRepository;
 import com.roomie.services.billing_service.repository.MeterReadingRepository;
 import com.roomie.services.billing_service.repository.httpclient.FileClient;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators.Literal;
+import org.springframework.data.mongodb.core.aggregation.StringOperators.Concat;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +48,11 @@ public class MeterReadingService {
     FileClient fileClient;
     MeterOcrService ocrService;
     VietnameseMeterOcrService vietnameseOcrService; // ← NEW
+    OcrResultCache ocrResultCache;
+    MeterOcrJobRepository ocrJobRepository;
+    MeterOcrJobMapper ocrJobMapper;
+    KafkaTemplate<String, Object> kafkaTemplate;
+    MongoTemplate mongoTemplate;
 
     private static final List<String> ALLOWED_IMAGE_TYPES = Arrays.asList(
             "image/jpeg", "image/jpg", "image/png", "image/webp"
@@ -46,6 +65,7 @@ public class MeterReadingService {
     /**
      * Upload meter photo and auto-extract reading
      * Uses VIETNAMESE OCR (specialized for VN meters)
+     * Re-uploads of an already read photo are served from the OCR result cache
      */
     @Transactional
     public MeterReading uploadMeterPhotoWithOcr(
@@ -63,67 +83,91 @@ public class MeterReadingService {
         MeterReading reading = getMeterReading(meterReadingId);
 
         try {
-            // 3. Perform OCR using VIETNAMESE specialized service
-            VietnameseMeterOcrService.MeterReadingResult ocrResult =
-                    vietnameseOcrService.readVietnameseMeter(file);
+            // 3. Perform OCR using VIETNAMESE specialized service, unless this photo was read before
+            VietnameseMeterOcrService.MeterReadingResult ocrResult = ocrResultCache.getOrRead(
+                    meterReadingId + ":" + meterType.toUpperCase(),
+                    file.getBytes(),
+                    vietnameseOcrService::readVietnameseMeter);
 
             log.info("🇻🇳 Vietnamese OCR result: success={}, value={}, confidence={}, strategy={}",
                     ocrResult.isSuccess(), ocrResult.getValue(),
                     ocrResult.getConfidence(), ocrResult.getStrategy());
 
             // 4. Upload photo to file service
-            FileResponse fileResponse = fileClient.uploadFile(
-                    file,
-                    "METER_READING",
-                    meterReadingId
-            ).getResult();
+            String photoUrl = uploadPhoto(file, meterReadingId);
 
-            String photoUrl = fileResponse.getPublicUrl();
+            // 5-7. Update meter reading based on type, add OCR notes
+            MeterReading updated = saveOcrResult(reading.getId(), meterType, photoUrl, ocrResult);
 
-            // 5. Update meter reading based on type
-            switch (meterType.toUpperCase()) {
-                case "ELECTRICITY":
-                    reading.setElectricityPhotoUrl(photoUrl);
-                    if (ocrResult.isSuccess() && ocrResult.getValue() != null) {
-                        reading.setElectricityReading(ocrResult.getValue());
-                        log.info("Auto-filled electricity reading: {} kWh", ocrResult.getValue());
-                    }
-                    break;
+            log.info("Meter photo uploaded successfully with Vietnamese OCR");
 
-                case "WATER":
-                    reading.setWaterPhotoUrl(photoUrl);
-                    if (ocrResult.isSuccess() && ocrResult.getValue() != null) {
-                        reading.setWaterReading(ocrResult.getValue());
-                        log.info("Auto-filled water reading: {} m³", ocrResult.getValue());
-                    }
-                    break;
+            return updated;
 
-                default:
-                    throw new IllegalArgumentException("Invalid meter type: " + meterType);
-            }
+        } catch (Exception e) {
+            log.error("Error uploading meter photo with OCR", e);
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION,
+                    "Failed to upload meter photo: " + e.getMessage());
+        }
+    }
 
-            // 6. Add OCR notes
-            String notes = reading.getNotes() != null ? reading.getNotes() + "\n" : "";
-            notes += String.format("🇻🇳 OCR: confidence=%.2f%%, strategy=%s, raw=%s",
-                    ocrResult.getConfidence() * 100,
-                    ocrResult.getStrategy(),
-                    ocrResult.getRawText());
-            reading.setNotes(notes);
+    /**
+     * Upload meter photo and queue the OCR instead of running it in the request
+     * The photo is stored right away (file-service needs the caller's token); MeterOcrWorker reads
+     * it later and the result is pushed over the notification WebSocket or polled via getOcrJob.
+     */
+    public MeterOcrJobResponse submitMeterPhotoOcr(
+            String meterReadingId,
+            MultipartFile file,
+            String meterType) {
 
-            // 7. Save
-            MeterReading updated = meterReadingRepository.save(reading);
+        log.info("Queueing {} meter photo OCR for reading: {}", meterType, meterReadingId);
 
-            log.info("Meter photo uploaded successfully with Vietnamese OCR");
+        validateImageFile(file);
+        String type = normalizeMeterType(meterType);
+        MeterReading reading = getMeterReading(meterReadingId);
 
-            return updated;
+        try {
+            String photoUrl = uploadPhoto(file, meterReadingId);
+            if ("ELECTRICITY".equals(type)) {
+                reading.setElectricityPhotoUrl(photoUrl);
+            } else {
+                reading.setWaterPhotoUrl(photoUrl);
+            }
+            meterReadingRepository.save(reading);
+
+            Instant now = Instant.now();
+            MeterOcrJob job = ocrJobRepository.insert(MeterOcrJob.builder()
+                    .meterReadingId(meterReadingId)
+                    .meterType(type)
+                    .requestedBy(getCurrentUserId())
+                    .photoUrl(photoUrl)
+                    .image(file.getBytes())
+                    .status(OcrJobStatus.QUEUED)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+
+            // A lost send is picked up again by the worker's sweep
+            kafkaTemplate.send(MeterOcrWorker.TOPIC_REQUESTED, job.getId(), MeterOcrWorker.toEvent(job));
+
+            return ocrJobMapper.toResponse(job);
 
         } catch (Exception e) {
-            log.error("Error uploading meter photo with OCR", e);
+            log.error("Error queueing meter photo OCR", e);
             throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION,
                     "Failed to upload meter photo: " + e.getMessage());
         }
     }
 
+    public MeterOcrJobResponse getOcrJob(String jobId) {
+        MeterOcrJob job = ocrJobRepository.findById(jobId)
+                .orElseThrow(() -> new AppException(ErrorCode.OCR_JOB_NOT_FOUND));
+        if (!getCurrentUserId().equals(job.getRequestedBy())) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        return ocrJobMapper.toResponse(job);
+    }
+
     /**
      * Upload meter photo without OCR (manual entry)
      */
@@ -271,8 +315,75 @@ public class MeterReadingService {
         meterReadingRepository.save(reading);
     }
 
+    // ==================== OCR RESULT ====================
+
+    /**
+     * Set photo URL and, when OCR succeeded, the reading value of the given meter type; append OCR notes
+     */
+    MeterReading saveOcrResult(
+            String meterReadingId,
+            String meterType,
+            String photoUrl,
+            VietnameseMeterOcrService.MeterReadingResult ocrResult) {
+
+        // Only this meter's fields, and the note appended in place: the electricity and water jobs
+        // of one reading run concurrently and a full save would drop the other meter's result
+        String prefix = switch (meterType.toUpperCase()) {
+            case "ELECTRICITY" -> "electricity";
+            case "WATER" -> "water";
+            default -> throw new IllegalArgumentException("Invalid meter type: " + meterType);
+        };
+
+        AggregationUpdate update = AggregationUpdate.update()
+                .set(prefix + "PhotoUrl").toValueOf(Literal.asLiteral(photoUrl));
+        if (ocrResult.isSuccess() && ocrResult.getValue() != null) {
+            update.set(prefix + "Reading").toValue(ocrResult.getValue());
+            log.info("Auto-filled {} reading: {}", prefix, ocrResult.getValue());
+        }
+        update.set("notes").toValueOf(Concat
+                .valueOf(ConditionalOperators.ifNull(Concat.valueOf("notes").concat("\n")).then(""))
+                .concatValueOf(Literal.asLiteral(ocrNote(ocrResult))));
+
+        MeterReading updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(meterReadingId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                MeterReading.class);
+        if (updated == null) {
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION,
+                    "Meter reading not found: " + meterReadingId);
+        }
+        return updated;
+    }
+
+    private static String ocrNote(VietnameseMeterOcrService.MeterReadingResult ocrResult) {
+        return String.format("🇻🇳 OCR: confidence=%.2f%%, strategy=%s, raw=%s",
+                ocrResult.getConfidence() * 100,
+                ocrResult.getStrategy(),
+                ocrResult.getRawText());
+    }
+
+    private String uploadPhoto(MultipartFile file, String meterReadingId) {
+        FileResponse fileResponse = fileClient.uploadFile(
+                file,
+                "METER_READING",
+                meterReadingId
+        ).getResult();
+
+        return fileResponse.getPublicUrl();
+    }
+
     // ==================== VALIDATION ====================
 
+    private String normalizeMeterType(String meterType) {
+        String type = meterType == null ? "" : meterType.toUpperCase();
+        if (!type.equals("ELECTRICITY") && !type.equals("WATER")) {
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION,
+                    "Invalid meter type: " + meterType);
+        }
+        return type;
+    }
+
     private void validateImageFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION,
@@ -0,0 +1,267 @@
+package com.roomie.services.billing_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.roomie.services.billing_service.dto.response.OcrCacheStatsResponse;
+import com.roomie.services.billing_service.service.VietnameseMeterOcrService.MeterReadingResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of meter OCR results, so re-uploading a photo does not run the OCR pipeline again.
+ *
+ * Two keys per result, both in Caffeine (per instance) and Redis (shared):
+ * - content: SHA-256 of the uploaded bytes, global, since the same bytes always read the same
+ * - perceptual: 64-bit dHash of the decoded image, matched within {@code ocr.cache.max-distance}
+ *   bits; catches the same photo re-encoded or resized by the client. Scoped to one meter
+ *   reading and meter type, because next month's photo of the same meter hashes almost the same.
+ *
+ * Only successful readings are cached. Redis failures are logged and treated as misses.
+ * Metrics: {@code ocr.cache.requests} tagged by result, plus Caffeine's {@code cache.*} for "ocr.results".
+ */
+@Service
+@Slf4j
+public class OcrResultCache {
+
+    private static final String KEY_PREFIX = "billing:ocr:";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int PURGE_BATCH = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterImagePreprocessor imagePreprocessor;
+    private final Cache<String, MeterReadingResult> local;
+    private final Duration redisTtl;
+    private final int maxDistance;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter similarHits;
+    private final Counter misses;
+
+    public OcrResultCache(StringRedisTemplate redisTemplate,
+                          MeterImagePreprocessor imagePreprocessor,
+                          MeterRegistry meterRegistry,
+                          @Value("${ocr.cache.local-max-size:1000}") long localMaxSize,
+                          @Value("${ocr.cache.local-ttl:PT10M}") Duration localTtl,
+                          @Value("${ocr.cache.redis-ttl:P7D}") Duration redisTtl,
+                          @Value("${ocr.cache.max-distance:3}") int maxDistance) {
+        this.redisTemplate = redisTemplate;
+        this.imagePreprocessor = imagePreprocessor;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        this.redisTtl = redisTtl;
+        this.maxDistance = maxDistance;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "ocr.results");
+        this.localHits = meterRegistry.counter("ocr.cache.requests", "result", "hit_local");
+        this.redisHits = meterRegistry.counter("ocr.cache.requests", "result", "hit_redis");
+        this.similarHits = meterRegistry.counter("ocr.cache.requests", "result", "hit_similar");
+        this.misses = meterRegistry.counter("ocr.cache.requests", "result", "miss");
+    }
+
+    /**
+     * Cached result for these image bytes, or decode and run {@code ocr} and cache its result.
+     *
+     * @param scope identifies one meter (e.g. reading id + meter type); perceptual matches never cross it
+     */
+    public MeterReadingResult getOrRead(String scope, byte[] content, Function<BufferedImage, MeterReadingResult> ocr) {
+        String contentKey = "sha:" + contentHash(content);
+
+        MeterReadingResult cached = local.getIfPresent(contentKey);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        cached = readRedis(contentKey);
+        if (cached != null) {
+            redisHits.increment();
+            local.put(contentKey, cached);
+            return cached;
+        }
+
+        BufferedImage image = decode(content);
+        if (image == null) {
+            misses.increment();
+            return MeterReadingResult.error("Cannot load image");
+        }
+
+        String hash = HexFormat.of().toHexDigits(perceptualHash(image));
+        String similarKey = "similar:" + scope;
+        cached = findSimilar(similarKey, hash);
+        if (cached != null) {
+            similarHits.increment();
+            store(contentKey, similarKey, hash, cached);
+            return cached;
+        }
+
+        misses.increment();
+        MeterReadingResult result = ocr.apply(image);
+        if (result != null && result.isSuccess()) {
+            store(contentKey, similarKey, hash, result);
+        }
+        return result;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public OcrCacheStatsResponse stats() {
+        long hits = (long) (localHits.count() + redisHits.count() + similarHits.count());
+        long lookups = hits + (long) misses.count();
+
+        return OcrCacheStatsResponse.builder()
+                .localSize(local.estimatedSize())
+                .localHitRate(local.stats().hitRate())
+                .localHits((long) localHits.count())
+                .redisHits((long) redisHits.count())
+                .similarHits((long) similarHits.count())
+                .misses((long) misses.count())
+                .hitRate(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    /**
+     * Drop every cached OCR result from Redis and from this instance's memory.
+     * Other instances keep their in-memory copies until {@code ocr.cache.local-ttl} expires them.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public OcrCacheStatsResponse purge() {
+        long removed = 0;
+        List<String> batch = new ArrayList<>(PURGE_BATCH);
+
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(PURGE_BATCH).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                batch.add(keys.next());
+                if (batch.size() == PURGE_BATCH) {
+                    removed += unlink(batch);
+                }
+            }
+        }
+        removed += unlink(batch);
+        local.invalidateAll();
+
+        log.info("Purged OCR result cache: {} Redis keys", removed);
+        OcrCacheStatsResponse stats = stats();
+        stats.setPurgedKeys(removed);
+        return stats;
+    }
+
+    /**
+     * Difference hash: 9x8 gray thumbnail, one bit per horizontal neighbour pair (left brighter)
+     */
+    long perceptualHash(BufferedImage image) {
+        byte[] gray = imagePreprocessor.grayThumbnail(image, 9, 8);
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                int left = gray[y * 9 + x] & 0xFF;
+                int right = gray[y * 9 + x + 1] & 0xFF;
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ==================== LOOKUP ====================
+
+    /**
+     * Closest result within max distance among this scope's perceptual hashes (a handful per meter)
+     */
+    private MeterReadingResult findSimilar(String similarKey, String hash) {
+        MeterReadingResult exact = local.getIfPresent(similarKey + ":" + hash);
+        if (exact != null) return exact;
+
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(KEY_PREFIX + similarKey);
+            long target = HexFormat.fromHexDigitsToLong(hash);
+            String best = null;
+            int bestDistance = maxDistance + 1;
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                int distance = Long.bitCount(target ^ HexFormat.fromHexDigitsToLong((String) entry.getKey()));
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = (String) entry.getValue();
+                }
+            }
+            return best != null ? fromJson(best) : null;
+        } catch (Exception e) {
+            log.warn("OCR cache lookup failed for {}: {}", similarKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private MeterReadingResult readRedis(String key) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+            return json != null ? fromJson(json) : null;
+        } catch (Exception e) {
+            log.warn("OCR cache lookup failed for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String contentKey, String similarKey, String hash, MeterReadingResult result) {
+        local.put(contentKey, result);
+        local.put(similarKey + ":" + hash, result);
+        try {
+            String json = MAPPER.writeValueAsString(result);
+            redisTemplate.opsForValue().set(KEY_PREFIX + contentKey, json, redisTtl);
+            redisTemplate.opsForHash().put(KEY_PREFIX + similarKey, hash, json);
+            redisTemplate.expire(KEY_PREFIX + similarKey, redisTtl);
+        } catch (Exception e) {
+            log.warn("Could not store OCR result in Redis: {}", e.getMessage());
+        }
+    }
+
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) return 0;
+        Long removed = redisTemplate.unlink(keys);
+        keys.clear();
+        return removed != null ? removed : 0;
+    }
+
+    private static BufferedImage decode(byte[] content) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static MeterReadingResult fromJson(String json) throws JsonProcessingException {
+        return MAPPER.readValue(json, MeterReadingResult.class);
+    }
+}
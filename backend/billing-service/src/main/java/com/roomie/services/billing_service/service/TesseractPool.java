@@ -0,0 +1,224 @@
+package com.roomie.services.billing_service.service;
+
+import com.sun.jna.Pointer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.TessAPI;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Pool of warm Tesseract engines for the meter OCR services.
+ *
+ * A TessBaseAPI handle is not thread-safe and {@code Tesseract.doOCR} loads the traineddata
+ * and frees it again on every call, so each worker thread keeps its own initialized handle
+ * per language / engine mode and only swaps page segmentation mode and whitelist per call.
+ * The number of workers ({@code ocr.pool.size}) bounds both concurrency and native memory.
+ *
+ * Timers: {@code ocr.engine.wait} (queued for a worker), {@code ocr.engine.recognize}
+ * (native recognition, tagged by language) and {@code ocr.stage} for the services' pipeline steps.
+ */
+@Service
+@Slf4j
+public class TesseractPool {
+
+    /** How one OCR call should be run; engines are shared by language and engine mode. */
+    public record Settings(String language, int pageSegMode, int ocrEngineMode, String whitelist) {
+
+        String engineKey() {
+            return language + "|" + ocrEngineMode;
+        }
+    }
+
+    private final String datapath;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService workers;
+    private final ThreadLocal<Map<String, Engine>> threadEngines = ThreadLocal.withInitial(HashMap::new);
+    private final Set<Engine> allEngines = ConcurrentHashMap.newKeySet();
+
+    private final Timer waitTimer;
+
+    public TesseractPool(@Value("${ocr.tesseract.datapath:/usr/share/tesseract-ocr/4.00/tessdata}") String datapath,
+                         @Value("${ocr.pool.size:0}") int size,
+                         MeterRegistry meterRegistry) {
+        int poolSize = size > 0 ? size : Runtime.getRuntime().availableProcessors();
+        this.datapath = datapath;
+        this.meterRegistry = meterRegistry;
+        this.workers = Executors.newFixedThreadPool(poolSize,
+                Thread.ofPlatform().name("ocr-worker-", 0).daemon(true).factory());
+        this.waitTimer = meterRegistry.timer("ocr.engine.wait");
+        log.info("Tesseract pool with {} workers, tessdata: {}", poolSize, datapath);
+    }
+
+    /**
+     * Recognize text on a pool worker. Cancelling the future before a worker picks it up skips the call.
+     */
+    public CompletableFuture<String> recognizeAsync(BufferedImage image, Settings settings) {
+        return supplyAsync(() -> recognizeOnWorker(image, settings));
+    }
+
+    /**
+     * Run image work plus recognition on a pool worker (e.g. rotate, then OCR)
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            return work.get();
+        }, workers);
+    }
+
+    /**
+     * Recognize text and wait for it (not to be called from a pool worker)
+     */
+    public String recognize(BufferedImage image, Settings settings) {
+        return join(recognizeAsync(image, settings));
+    }
+
+    /**
+     * Must run on a pool worker: uses (and lazily creates) this thread's engine
+     */
+    public String recognizeOnWorker(BufferedImage image, Settings settings) {
+        Engine engine = threadEngines.get().computeIfAbsent(settings.engineKey(),
+                key -> createEngine(settings.language(), settings.ocrEngineMode()));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return engine.recognize(image, settings.pageSegMode(), settings.whitelist());
+        } finally {
+            sample.stop(meterRegistry.timer("ocr.engine.recognize", "language", settings.language()));
+        }
+    }
+
+    /**
+     * Wait until one result satisfies {@code good} or all futures finish, then cancel the rest.
+     * Returns the results that completed normally, in input order.
+     */
+    public static <T> List<T> awaitFirst(List<CompletableFuture<T>> futures, Predicate<T> good) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((result, error) -> {
+                if (error == null && result != null && good.test(result)) {
+                    done.complete(null);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            });
+        }
+        if (futures.isEmpty()) done.complete(null);
+
+        join(done);
+        futures.forEach(future -> future.cancel(false));
+
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                T result = future.getNow(null);
+                if (result != null) results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Time one pipeline step of an OCR service
+     */
+    public <T> T timed(String service, String stage, Supplier<T> work) {
+        return meterRegistry.timer("ocr.stage", "service", service, "stage", stage).record(work);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for OCR");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new CompletionException(e.getCause());
+        }
+    }
+
+    private Engine createEngine(String language, int ocrEngineMode) {
+        Engine engine = new Engine(datapath, language, ocrEngineMode);
+        allEngines.add(engine);
+        log.info("Initialized Tesseract engine {} (oem {}) on {}", language, ocrEngineMode,
+                Thread.currentThread().getName());
+        return engine;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdownNow();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("OCR workers still busy, leaking their Tesseract engines");
+            return;
+        }
+        allEngines.forEach(Engine::close);
+        allEngines.clear();
+    }
+
+    /**
+     * Bits per pixel of the buffer ImageIOHelper.getImageByteBuffer produces, as in Tesseract.setImage:
+     * images not backed by bytes (e.g. TYPE_INT_RGB) are converted to 8-bit gray
+     */
+    static int bitsPerPixel(BufferedImage image) {
+        return image.getRaster().getDataBuffer() instanceof DataBufferByte
+                ? image.getColorModel().getPixelSize()
+                : 8;
+    }
+
+    /**
+     * One initialized TessBaseAPI handle; only ever used by the worker thread that created it
+     */
+    private static final class Engine {
+
+        private final TessAPI api = TessAPI.INSTANCE;
+        private final TessBaseAPI handle;
+
+        Engine(String datapath, String language, int ocrEngineMode) {
+            handle = api.TessBaseAPICreate();
+            if (api.TessBaseAPIInit2(handle, datapath, language, ocrEngineMode) != 0) {
+                api.TessBaseAPIDelete(handle);
+                throw new IllegalStateException("Could not initialize Tesseract for language " + language);
+            }
+        }
+
+        String recognize(BufferedImage image, int pageSegMode, String whitelist) {
+            api.TessBaseAPISetPageSegMode(handle, pageSegMode);
+            api.TessBaseAPISetVariable(handle, "tessedit_char_whitelist", whitelist != null ? whitelist : "");
+
+            int bpp = bitsPerPixel(image);
+            ByteBuffer buffer = ImageIOHelper.getImageByteBuffer(image);
+            api.TessBaseAPISetImage(handle, buffer, image.getWidth(), image.getHeight(),
+                    bpp / 8, (int) Math.ceil(image.getWidth() * bpp / 8.0));
+
+            Pointer text = api.TessBaseAPIGetUTF8Text(handle);
+            try {
+                return text != null ? text.getString(0, "UTF-8") : "";
+            } finally {
+                if (text != null) api.TessDeleteText(text);
+                api.TessBaseAPIClear(handle);
+            }
+        }
+
+        void close() {
+            api.TessBaseAPIEnd(handle);
+            api.TessBaseAPIDelete(handle);
+        }
+    }
+}
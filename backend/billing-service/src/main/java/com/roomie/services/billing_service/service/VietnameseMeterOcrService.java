@@ -1,9 +1,7 @@
 package com.roomie.services.billing_service.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
-import org.imgscalr.Scalr;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -12,8 +10,10 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,50 +29,82 @@ import java.util.regex.Pattern;
  * Example: Ảnh đồng hồ bạn upload có chỉ số "000007" kWh
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class VietnameseMeterOcrService {
 
-    @Value("${ocr.tesseract.datapath:/usr/share/tesseract-ocr/4.00/tessdata}")
-    private String tesseractDataPath;
+    private static final String METRIC_SERVICE = "vietnamese";
+
+    // Default page segmentation and engine, as a plain Tesseract would use
+    private static final TesseractPool.Settings QUICK_SCAN =
+            new TesseractPool.Settings("vie", 3, 3, null);
+    // Single line, LSTM, digits only
+    private static final TesseractPool.Settings DIRECT_NUMBERS =
+            new TesseractPool.Settings("eng", 7, 1, "0123456789.");
+    // Single block, both languages
+    private static final TesseractPool.Settings FULL_TEXT =
+            new TesseractPool.Settings("eng+vie", 6, 3, null);
+
+    private static final int[] ROTATION_ANGLES = {0, 90, 180, 270};
+
+    // Meter type detection only needs the text, so read a reduced gray copy
+    private static final MeterImagePreprocessor.Options DETECT =
+            new MeterImagePreprocessor.Options(1920, 0, 1.0f, false, false, false);
+    // Analog meters: black digits on white background
+    private static final MeterImagePreprocessor.Options ANALOG =
+            new MeterImagePreprocessor.Options(1920, 0, 2.0f, true, false, true);
+    private static final MeterImagePreprocessor.Options DEFAULT =
+            new MeterImagePreprocessor.Options(1920, 0, 1.0f, true, false, false);
+
+    private final TesseractPool tesseractPool;
+    private final MeterImagePreprocessor imagePreprocessor;
+
+    @Value("${ocr.confidence-threshold:0.7}")
+    private double confidenceThreshold;
 
     /**
      * Đọc chỉ số từ đồng hồ điện Việt Nam
      * Ví dụ: Ảnh của bạn có chỉ số "000007" kWh
+     *
+     * All strategies (and every rotation) run concurrently on the Tesseract pool; as soon as
+     * one reading reaches the confidence threshold the remaining ones are cancelled.
      */
     public MeterReadingResult readVietnameseMeter(MultipartFile imageFile) {
         log.info("🇻🇳 Reading Vietnamese meter from: {}", imageFile.getOriginalFilename());
 
         try {
             // 1. Load image
-            BufferedImage originalImage = ImageIO.read(imageFile.getInputStream());
+            BufferedImage originalImage = tesseractPool.timed(METRIC_SERVICE, "load", () -> loadImage(imageFile));
             if (originalImage == null) {
                 throw new IOException("Cannot load image");
             }
+            return readVietnameseMeter(originalImage);
 
+        } catch (Exception e) {
+            log.error("Error reading Vietnamese meter", e);
+            return MeterReadingResult.error("Lỗi đọc đồng hồ: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Đọc chỉ số từ ảnh đã decode (e.g. when the caller already decoded it for hashing)
+     */
+    public MeterReadingResult readVietnameseMeter(BufferedImage originalImage) {
+        try {
             // 2. Detect meter type from image
-            MeterType meterType = detectMeterType(originalImage);
+            MeterType meterType = tesseractPool.timed(METRIC_SERVICE, "detect", () -> detectMeterType(originalImage));
             log.info("Detected meter type: {}", meterType);
 
             // 3. Extract meter display region
             BufferedImage displayRegion = extractDisplayRegion(originalImage, meterType);
 
             // 4. Preprocess for Vietnamese meters
-            BufferedImage processed = preprocessVietnameseMeter(displayRegion, meterType);
-
-            // 5. Multiple OCR strategies
-            List<MeterReadingResult> results = new ArrayList<>();
-
-            // Strategy 1: Direct number reading
-            results.add(readDirectNumbers(processed));
-
-            // Strategy 2: Full text extraction
-            results.add(readFullText(processed));
+            BufferedImage processed = tesseractPool.timed(METRIC_SERVICE, "preprocess",
+                    () -> preprocessVietnameseMeter(displayRegion, meterType));
 
-            // Strategy 3: Rotating image (sometimes helps)
-            results.add(readWithRotation(processed));
-
-            // 6. Select best result
-            MeterReadingResult best = selectBestResult(results);
+            // 5. Multiple OCR strategies, concurrently
+            MeterReadingResult best = tesseractPool.timed(METRIC_SERVICE, "strategies",
+                    () -> runStrategies(processed));
 
             log.info("Best reading: value={}, confidence={}",
                     best.getValue(), best.getConfidence());
@@ -90,7 +122,7 @@ public class VietnameseMeterOcrService {
      */
     private MeterType detectMeterType(BufferedImage image) {
         // Simple detection based on common text
-        String quickScan = quickTextScan(image);
+        String quickScan = quickTextScan(imagePreprocessor.preprocess(image, DETECT));
 
         if (quickScan.contains("CÔNG TY ĐIỆN") || quickScan.contains("EMIC")) {
             return MeterType.ELECTRIC_ANALOG;
@@ -108,11 +140,7 @@ public class VietnameseMeterOcrService {
      */
     private String quickTextScan(BufferedImage image) {
         try {
-            Tesseract tesseract = new Tesseract();
-            tesseract.setDatapath(tesseractDataPath);
-            tesseract.setLanguage("vie"); // Vietnamese
-
-            return tesseract.doOCR(image);
+            return tesseractPool.recognize(image, QUICK_SCAN);
         } catch (Exception e) {
             return "";
         }
@@ -143,96 +171,111 @@ public class VietnameseMeterOcrService {
 
     /**
      * Tiền xử lý cho đồng hồ Việt Nam
+     * Resize to 1920 wide and grayscale; analog meters also get contrast 2.0 and an Otsu
+     * threshold. Denoise now runs before binarization so the output stays black & white.
      */
     private BufferedImage preprocessVietnameseMeter(BufferedImage image, MeterType type) {
-        BufferedImage processed = image;
+        return imagePreprocessor.preprocess(image, type == MeterType.ELECTRIC_ANALOG ? ANALOG : DEFAULT);
+    }
 
-        // 1. Resize if too large
-        if (processed.getWidth() > 1920) {
-            processed = Scalr.resize(processed, Scalr.Method.QUALITY, 1920);
-        }
+    /**
+     * Submit strategies 1 and 2 and every rotation of strategy 3 as separate pool tasks,
+     * stop at the first reading above the confidence threshold, then pick the best.
+     */
+    private MeterReadingResult runStrategies(BufferedImage image) {
+        List<CompletableFuture<MeterReadingResult>> futures = new ArrayList<>();
+
+        // Strategy 1: Direct number reading
+        futures.add(tesseractPool.supplyAsync(() -> readDirectNumbers(image)));
+
+        // Strategy 2: Full text extraction
+        futures.add(tesseractPool.supplyAsync(() -> readFullText(image)));
 
-        // 2. For analog meters with black digits on white background
-        if (type == MeterType.ELECTRIC_ANALOG) {
-            processed = convertToGrayscale(processed);
-            processed = increaseContrast(processed, 2.0f); // Higher contrast
-            processed = binarize(processed, 128); // Black & white
+        // Strategy 3: Rotating image (sometimes helps)
+        for (int angle : ROTATION_ANGLES) {
+            futures.add(tesseractPool.supplyAsync(() -> readRotated(image, angle)));
         }
 
-        // 3. Denoise
-        processed = denoise(processed);
+        List<MeterReadingResult> completed = TesseractPool.awaitFirst(futures,
+                result -> result.isSuccess() && result.getConfidence() >= confidenceThreshold);
 
-        return processed;
+        List<MeterReadingResult> results = new ArrayList<>();
+        List<MeterReadingResult> rotations = new ArrayList<>();
+        for (MeterReadingResult result : completed) {
+            if (result.getStrategy() != null && result.getStrategy().startsWith("Rotation")) {
+                rotations.add(result);
+            } else {
+                results.add(result);
+            }
+        }
+        results.add(selectRotationResult(rotations));
+
+        // 6. Select best result
+        return selectBestResult(results);
     }
 
     /**
-     * Strategy 1: Đọc trực tiếp số
+     * Strategy 1: Đọc trực tiếp số (runs on a pool worker)
      */
     private MeterReadingResult readDirectNumbers(BufferedImage image) {
         try {
-            Tesseract tesseract = new Tesseract();
-            tesseract.setDatapath(tesseractDataPath);
-            tesseract.setLanguage("eng");
-            tesseract.setPageSegMode(7); // Single line
-            tesseract.setOcrEngineMode(1); // LSTM
-
-            // Only accept digits
-            tesseract.setTessVariable("tessedit_char_whitelist", "0123456789.");
-
-            String text = tesseract.doOCR(image).trim();
+            String text = tesseractPool.recognizeOnWorker(image, DIRECT_NUMBERS).trim();
 
             return parseVietnameseMeterReading(text, "DirectNumbers");
 
-        } catch (TesseractException e) {
+        } catch (RuntimeException e) {
             log.error("Strategy 1 failed", e);
             return MeterReadingResult.error("Strategy 1 failed");
         }
     }
 
     /**
-     * Strategy 2: Đọc full text (bao gồm "kWh", "m³")
+     * Strategy 2: Đọc full text (bao gồm "kWh", "m³") (runs on a pool worker)
      */
     private MeterReadingResult readFullText(BufferedImage image) {
         try {
-            Tesseract tesseract = new Tesseract();
-            tesseract.setDatapath(tesseractDataPath);
-            tesseract.setLanguage("eng+vie"); // Both languages
-            tesseract.setPageSegMode(6); // Single block
-
-            String text = tesseract.doOCR(image).trim();
+            String text = tesseractPool.recognizeOnWorker(image, FULL_TEXT).trim();
 
             return parseVietnameseMeterReading(text, "FullText");
 
-        } catch (TesseractException e) {
+        } catch (RuntimeException e) {
             log.error("Strategy 2 failed", e);
             return MeterReadingResult.error("Strategy 2 failed");
         }
     }
 
     /**
-     * Strategy 3: Thử xoay ảnh (0°, 90°, 180°, 270°)
+     * Strategy 3: Thử xoay ảnh (0°, 90°, 180°, 270°), one rotation per pool task
      */
-    private MeterReadingResult readWithRotation(BufferedImage image) {
-        List<MeterReadingResult> results = new ArrayList<>();
+    private MeterReadingResult readRotated(BufferedImage image, int angle) {
+        try {
+            BufferedImage rotated = rotateImage(image, angle);
+            MeterReadingResult result = readDirectNumbers(rotated);
+            // Same scoring as strategy 1; the tag only groups the rotations
+            result.setStrategy("Rotation" + angle);
+            return result;
+        } catch (Exception e) {
+            // Skip this rotation
+            return MeterReadingResult.error("Rotation " + angle + " failed");
+        }
+    }
 
-        // Try different rotations
-        int[] angles = {0, 90, 180, 270};
+    /**
+     * Strategy 3 result: the first successful rotation in angle order
+     */
+    private MeterReadingResult selectRotationResult(List<MeterReadingResult> rotations) {
+        return rotations.stream()
+                .filter(MeterReadingResult::isSuccess)
+                .findFirst()
+                .orElse(MeterReadingResult.error("No rotation worked"));
+    }
 
-        for (int angle : angles) {
-            try {
-                BufferedImage rotated = rotateImage(image, angle);
-                MeterReadingResult result = readDirectNumbers(rotated);
-                if (result.isSuccess()) {
-                    results.add(result);
-                }
-            } catch (Exception e) {
-                // Skip this rotation
-            }
+    private BufferedImage loadImage(MultipartFile imageFile) {
+        try {
+            return ImageIO.read(imageFile.getInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return results.isEmpty()
-                ? MeterReadingResult.error("No rotation worked")
-                : results.get(0);
     }
 
     /**
@@ -366,58 +409,6 @@ public class VietnameseMeterOcrService {
 
     // ==================== IMAGE PROCESSING ====================
 
-    private BufferedImage convertToGrayscale(BufferedImage image) {
-        BufferedImage gray = new BufferedImage(
-                image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g = gray.createGraphics();
-        g.drawImage(image, 0, 0, null);
-        g.dispose();
-        return gray;
-    }
-
-    private BufferedImage increaseContrast(BufferedImage image, float factor) {
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                int rgb = image.getRGB(x, y);
-                int r = (rgb >> 16) & 0xFF;
-                int g = (rgb >> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                r = clamp((int)(128 + factor * (r - 128)));
-                g = clamp((int)(128 + factor * (g - 128)));
-                b = clamp((int)(128 + factor * (b - 128)));
-
-                image.setRGB(x, y, (r << 16) | (g << 8) | b);
-            }
-        }
-        return image;
-    }
-
-    /**
-     * Binarize image (chuyển thành đen-trắng thuần)
-     * Helps với đồng hồ analog
-     */
-    private BufferedImage binarize(BufferedImage image, int threshold) {
-        BufferedImage binary = new BufferedImage(
-                image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
-
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                int rgb = image.getRGB(x, y);
-                int gray = (rgb >> 16) & 0xFF;
-
-                int newColor = gray > threshold ? 255 : 0;
-                int newRgb = (newColor << 16) | (newColor << 8) | newColor;
-                binary.setRGB(x, y, newRgb);
-            }
-        }
-        return binary;
-    }
-
-    private BufferedImage denoise(BufferedImage image) {
-        return Scalr.apply(image, Scalr.OP_ANTIALIAS);
-    }
-
     private BufferedImage rotateImage(BufferedImage image, int angle) {
         int width = image.getWidth();
         int height = image.getHeight();
@@ -432,10 +423,6 @@ public class VietnameseMeterOcrService {
         return rotated;
     }
 
-    private int clamp(int value) {
-        return Math.min(255, Math.max(0, value));
-    }
-
     // ==================== ENUMS & CLASSES ====================
 
     enum MeterType {
@@ -0,0 +1,153 @@
+package com.roomie.services.billing_service.service;
+
+import com.itextpdf.text.pdf.PdfStream;
+import com.roomie.services.billing_service.dto.response.ContractResponse;
+import com.roomie.services.billing_service.dto.response.MoMoPaymentResponse;
+import com.roomie.services.billing_service.dto.response.property.AddressResponse;
+import com.roomie.services.billing_service.dto.response.property.PropertyResponse;
+import com.roomie.services.billing_service.entity.Bill;
+import com.roomie.services.billing_service.enums.BillStatus;
+import com.roomie.services.billing_service.enums.ContractStatus;
+import com.roomie.services.billing_service.enums.PropertyType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice PDF rendering throughput (invoices per second) of the current renderer:
+ * - render: one uncached invoice
+ * - cached: repeat download / email resend of an unchanged bill
+ * - batch: one month of invoices rendered in parallel (scales with cores)
+ *
+ * There is no baseline mode: fonts, styles and the page event are static, so no
+ * configuration of this class reproduces the renderer before caching and pooling.
+ * MoMo is stubbed with a fixed QR image so only PDF work is measured.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.roomie.services.billing_service.service.InvoicePdfBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoicePdfBenchmark {
+
+    private static final int MONTH_SIZE = 50;
+
+    BillPdfGeneratorService renderer;
+
+    Bill uncachedBill;
+    Bill cachedBill;
+    ContractResponse contract;
+    PropertyResponse property;
+
+    List<Bill> month;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        MoMoPaymentService momo = new StubMoMoPaymentService();
+        renderer = new BillPdfGeneratorService(momo, 64, Duration.ofMinutes(10), 8, 0, PdfStream.BEST_SPEED, 8);
+
+        contract = ContractResponse.builder()
+                .id("6650f1c2a9b3e4d5f6a7b8c9")
+                .propertyId("p1")
+                .startDate(Instant.parse("2025-01-01T00:00:00Z"))
+                .endDate(Instant.parse("2026-01-01T00:00:00Z"))
+                .status(ContractStatus.ACTIVE)
+                .build();
+        property = PropertyResponse.builder()
+                .title("Căn hộ dịch vụ Quận 1")
+                .propertyType(PropertyType.values()[0])
+                .size(35.0)
+                .address(AddressResponse.builder().fullAddress("12 Nguyễn Huệ, Quận 1, TP. Hồ Chí Minh").build())
+                .build();
+
+        // No updatedAt: never cached, every call renders
+        uncachedBill = bill("6650f1c2a9b3e4d5f6a7b800", null);
+        cachedBill = bill("6650f1c2a9b3e4d5f6a7b801", Instant.now());
+        renderer.generateInvoicePdf(cachedBill, contract, property);
+
+        month = new ArrayList<>();
+        for (int i = 0; i < MONTH_SIZE; i++) {
+            month.add(bill(String.format("6650f1c2a9b3e4d5f6a7%04d", i), null));
+        }
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        return renderer.generateInvoicePdf(uncachedBill, contract, property);
+    }
+
+    @Benchmark
+    public byte[] cached() throws Exception {
+        return renderer.generateInvoicePdf(cachedBill, contract, property);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONTH_SIZE)
+    public Map<String, byte[]> batch() {
+        return renderer.generateInvoicePdfs(month,
+                Map.of(contract.getId(), contract), Map.of(contract.getPropertyId(), property));
+    }
+
+    private Bill bill(String id, Instant updatedAt) {
+        return Bill.builder()
+                .id(id)
+                .contractId(contract.getId())
+                .monthlyRent(new BigDecimal("5500000"))
+                .electricityOld(1200.0).electricityNew(1385.0).electricityConsumption(185.0)
+                .electricityUnitPrice(3500.0).electricityAmount(new BigDecimal("647500"))
+                .waterOld(310.0).waterNew(322.0).waterConsumption(12.0)
+                .waterUnitPrice(18000.0).waterAmount(new BigDecimal("216000"))
+                .internetPrice(new BigDecimal("150000"))
+                .parkingPrice(new BigDecimal("100000"))
+                .cleaningPrice(new BigDecimal("50000"))
+                .totalAmount(new BigDecimal("6663500"))
+                .billingMonth(LocalDate.of(2025, 6, 1))
+                .dueDate(LocalDate.of(2025, 6, 10))
+                .status(BillStatus.PENDING)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    /** Returns a fixed payment and QR image instead of calling the MoMo API. */
+    static class StubMoMoPaymentService extends MoMoPaymentService {
+        private final byte[] qr = generateQRCodeFromUrl("https://test-payment.momo.vn/pay/benchmark", 200, 200);
+
+        @Override
+        public MoMoPaymentResponse createPaymentQR(String billId, long amount, String orderInfo) {
+            return MoMoPaymentResponse.builder()
+                    .orderId("ROOMIE-" + billId)
+                    .payUrl("https://test-payment.momo.vn/pay/benchmark")
+                    .build();
+        }
+
+        @Override
+        public byte[] getQRCodeImage(MoMoPaymentResponse momoResponse, int width, int height) {
+            return qr;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoicePdfBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,158 @@
+package com.roomie.services.billing_service.service;
+
+import org.imgscalr.Scalr;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meter photo preprocessing on a 12 MP phone photo (4000 x 3000, 3-byte BGR as decoded from JPEG):
+ * - analog: VietnameseMeterOcrService path, display region crop, then resize, grayscale,
+ *   contrast 2.0, binarize, denoise
+ * - full: MeterOcrService.preprocessImage on the whole photo, i.e. resize, grayscale,
+ *   contrast 1.5, denoise, sharpen ("before" has no sharpen, it was a TODO)
+ *
+ * "before" is the previous getRGB/setRGB + Scalr pipeline, copied here; "after" the raster engine.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.roomie.services.billing_service.service.MeterImagePreprocessBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class MeterImagePreprocessBenchmark {
+
+    private static final MeterImagePreprocessor.Options ANALOG =
+            new MeterImagePreprocessor.Options(1920, 0, 2.0f, true, false, true);
+    private static final MeterImagePreprocessor.Options FULL =
+            new MeterImagePreprocessor.Options(1920, 0, 1.5f, true, true, false);
+
+    @Param({"before", "after"})
+    String mode;
+
+    MeterImagePreprocessor preprocessor;
+    BufferedImage photo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        preprocessor = new MeterImagePreprocessor(4);
+        photo = phonePhoto(4000, 3000);
+    }
+
+    @Benchmark
+    public BufferedImage analog() {
+        BufferedImage region = photo.getSubimage(photo.getWidth() / 4, photo.getHeight() / 6,
+                photo.getWidth() / 2, photo.getHeight() / 3);
+        return "before".equals(mode)
+                ? Legacy.analog(region)
+                : preprocessor.preprocess(region, ANALOG);
+    }
+
+    @Benchmark
+    public BufferedImage full() {
+        return "before".equals(mode)
+                ? Legacy.full(photo)
+                : preprocessor.preprocess(photo, FULL);
+    }
+
+    /** Gray meter face with a dark digit row, uneven lighting and sensor noise. */
+    private static BufferedImage phonePhoto(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(200, 196, 188), width, height, new Color(120, 118, 110)));
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(245, 245, 240));
+        g.fillRect(width / 4, height / 6, width / 2, height / 3);
+        g.setColor(new Color(25, 25, 30));
+        g.setFont(new Font(Font.MONOSPACED, Font.BOLD, height / 8));
+        g.drawString("000007", width / 4 + width / 20, height / 6 + height / 4);
+        g.dispose();
+
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            int value = (data[i] & 0xFF) + random.nextInt(17) - 8;
+            data[i] = (byte) Math.min(255, Math.max(0, value));
+        }
+        return image;
+    }
+
+    /** The previous pipeline of MeterOcrService / VietnameseMeterOcrService. */
+    static final class Legacy {
+
+        static BufferedImage analog(BufferedImage image) {
+            BufferedImage processed = image;
+            if (processed.getWidth() > 1920) {
+                processed = Scalr.resize(processed, Scalr.Method.QUALITY, 1920);
+            }
+            processed = grayscale(processed);
+            processed = contrast(processed, 2.0f);
+            processed = binarize(processed, 128);
+            return Scalr.apply(processed, Scalr.OP_ANTIALIAS);
+        }
+
+        static BufferedImage full(BufferedImage image) {
+            BufferedImage processed = image;
+            if (processed.getWidth() > 1920 || processed.getHeight() > 1080) {
+                processed = Scalr.resize(processed, Scalr.Method.QUALITY, Scalr.Mode.FIT_TO_WIDTH, 1920);
+            }
+            processed = grayscale(processed);
+            processed = contrast(processed, 1.5f);
+            return Scalr.apply(processed, Scalr.OP_ANTIALIAS);
+        }
+
+        private static BufferedImage grayscale(BufferedImage image) {
+            BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+            return gray;
+        }
+
+        private static BufferedImage contrast(BufferedImage image, float factor) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    int rgb = image.getRGB(x, y);
+                    int r = clamp((int) (128 + factor * (((rgb >> 16) & 0xFF) - 128)));
+                    int g = clamp((int) (128 + factor * (((rgb >> 8) & 0xFF) - 128)));
+                    int b = clamp((int) (128 + factor * ((rgb & 0xFF) - 128)));
+                    image.setRGB(x, y, (r << 16) | (g << 8) | b);
+                }
+            }
+            return image;
+        }
+
+        private static BufferedImage binarize(BufferedImage image, int threshold) {
+            BufferedImage binary = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    int gray = (image.getRGB(x, y) >> 16) & 0xFF;
+                    int color = gray > threshold ? 255 : 0;
+                    binary.setRGB(x, y, (color << 16) | (color << 8) | color);
+                }
+            }
+            return binary;
+        }
+
+        private static int clamp(int value) {
+            return Math.min(255, Math.max(0, value));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MeterImagePreprocessBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,34 @@
+package com.roomie.services.billing_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeterImagePreprocessorTest {
+
+    private final MeterImagePreprocessor preprocessor = new MeterImagePreprocessor(1);
+
+    @Test
+    void thumbnailOfAnImageNarrowerThanItUpscales() {
+        BufferedImage tiny = new BufferedImage(3, 2, BufferedImage.TYPE_BYTE_GRAY);
+        tiny.getRaster().setSample(2, 0, 0, 255);
+
+        byte[] thumbnail = preprocessor.grayThumbnail(tiny, 9, 8);
+
+        assertThat(thumbnail).hasSize(9 * 8);
+        // Top-right source pixel covers the last three columns of the top four rows
+        assertThat(thumbnail[8] & 0xFF).isEqualTo(255);
+        assertThat(thumbnail[0] & 0xFF).isZero();
+    }
+
+    @Test
+    void pooledWorkspaceFromASmallImageServesAWiderThumbnail() {
+        preprocessor.grayThumbnail(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), 1, 1);
+
+        byte[] thumbnail = preprocessor.grayThumbnail(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), 9, 8);
+
+        assertThat(thumbnail).hasSize(9 * 8);
+    }
+}
@@ -0,0 +1,34 @@
+package com.roomie.services.billing_service.service;
+
+import net.sourceforge.tess4j.util.ImageIOHelper;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TesseractPoolTest {
+
+    @Test
+    void intRgbImageIsPassedAsEightBitGray() {
+        BufferedImage image = new BufferedImage(10, 4, BufferedImage.TYPE_INT_RGB);
+
+        int bpp = TesseractPool.bitsPerPixel(image);
+        ByteBuffer buffer = ImageIOHelper.getImageByteBuffer(image);
+
+        assertThat(bpp).isEqualTo(8);
+        // bytes per line and per pixel handed to Tesseract must match the converted buffer
+        assertThat(buffer.capacity()).isEqualTo(image.getWidth() * image.getHeight() * bpp / 8);
+    }
+
+    @Test
+    void byteBackedImagesKeepTheirPixelSize() {
+        BufferedImage bgr = new BufferedImage(10, 4, BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage gray = new BufferedImage(10, 4, BufferedImage.TYPE_BYTE_GRAY);
+
+        assertThat(TesseractPool.bitsPerPixel(bgr)).isEqualTo(24);
+        assertThat(ImageIOHelper.getImageByteBuffer(bgr).capacity()).isEqualTo(10 * 4 * 3);
+        assertThat(TesseractPool.bitsPerPixel(gray)).isEqualTo(8);
+    }
+}
@@ -3,6 +3,7 @@ package com.roomie.services.booking_service.repository.httpclient;
 import com.roomie.services.booking_service.configuration.FeignMultipartConfig;
 import com.roomie.services.booking_service.dto.response.ApiResponse;
 import com.roomie.services.booking_service.dto.response.property.PropertyResponse;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -29,4 +30,8 @@ public interface PropertyClient {
     @GetMapping(value = "/internal/owner/{ownerId}", produces = MediaType.APPLICATION_JSON_VALUE)
     ApiResponse<List<PropertyResponse>> getPropertiesByOwner(@PathVariable String ownerId);
 
+    // NDJSON: one PropertyResponse per line; the caller must close the response
+    @GetMapping(value = "/internal/owner/{ownerId}/stream", produces = "application/x-ndjson")
+    Response streamPropertiesByOwner(@PathVariable String ownerId);
+
 }
@@ -14,6 +14,9 @@ import com.roomie.services.booking_service.mapper.BookingMapper;
 import com.roomie.services.booking_service.repository.LeaseLongTermRepository;
 import com.roomie.services.booking_service.repository.httpclient.ProfileClient;
 import com.roomie.services.booking_service.repository.httpclient.PropertyClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -23,7 +26,11 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +46,7 @@ public class BookingService {
     PropertyClient propertyClient;
     ProfileClient profileClient;
     KafkaTemplate<String, Object> kafkaTemplate;
+    ObjectMapper objectMapper;
 
     long LOCK_TTL_SECONDS = 15 * 60;
     long CACHE_TTL_SECONDS = 5 * 60;
@@ -117,17 +125,27 @@ public class BookingService {
     }
 
     private List<String> getOwnerPropertyIds(String ownerId) {
-        // Call property service to get owner's properties
-        // This is a simplified version - you might need to handle pagination
-        try {
-            var response = propertyClient.getPropertiesByOwner(ownerId);
-            if (response != null && response.getResult() != null) {
-                return response.getResult()
-                        .stream()
-                        .map(PropertyResponse::getPropertyId)
-                        .toList();
+        // Read the owner's properties as an NDJSON stream and keep only the ids,
+        // instead of materializing every full PropertyResponse in one JSON array
+        try (Response response = propertyClient.streamPropertiesByOwner(ownerId)) {
+            if (response.status() != 200 || response.body() == null) {
+                log.error("Error fetching owner properties: HTTP {}", response.status());
+                return List.of();
+            }
 
+            List<String> propertyIds = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body().asInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    JsonNode id = objectMapper.readTree(line).get("propertyId");
+                    if (id != null && !id.isNull()) {
+                        propertyIds.add(id.asText());
+                    }
+                }
             }
+            return propertyIds;
         } catch (Exception e) {
             log.error("Error fetching owner properties", e);
         }
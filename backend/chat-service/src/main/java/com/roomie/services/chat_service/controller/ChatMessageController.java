@@ -31,9 +31,12 @@ public class ChatMessageController {
     }
 
     @GetMapping
-    public ApiResponse<List<ChatMessageResponse>> getMessages(@RequestParam("conversationId") String conversationId) {
+    public ApiResponse<List<ChatMessageResponse>> getMessages(
+            @RequestParam("conversationId") String conversationId,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "limit", required = false) Integer limit) {
 
-        List<ChatMessageResponse> data = chatMessageService.getMessages(conversationId);
+        List<ChatMessageResponse> data = chatMessageService.getMessages(conversationId, before, limit);
 
         return ApiResponse.success(data, "Fetched chat messages successfully");
     }
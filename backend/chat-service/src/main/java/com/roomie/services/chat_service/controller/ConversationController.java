@@ -28,7 +28,15 @@ public class ConversationController {
     }
 
     @GetMapping("/my-conversations")
-    public ApiResponse<List<ConversationResponse>> myConversations() {
-        return ApiResponse.success(conversationService.myConversations(), "Fetched conversations successfully");
+    public ApiResponse<List<ConversationResponse>> myConversations(
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(
+                conversationService.myConversations(page, size), "Fetched conversations successfully");
+    }
+
+    @PostMapping("/{conversationId}/read")
+    public ApiResponse<Void> markRead(@PathVariable String conversationId) {
+        conversationService.markRead(conversationId);
+        return ApiResponse.success(null, "Marked conversation as read");
     }
 }
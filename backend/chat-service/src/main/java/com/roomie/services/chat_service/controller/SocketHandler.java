@@ -18,6 +18,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.roomie.services.chat_service.dto.request.IntrospectRequest;
 import com.roomie.services.chat_service.entity.WebSocketSession;
 import com.roomie.services.chat_service.service.IdentityService;
+import com.roomie.services.chat_service.service.PresenceService;
+import com.roomie.services.chat_service.service.SocketClientRegistry;
+import com.roomie.services.chat_service.service.SocketEventBus;
 import com.roomie.services.chat_service.service.WebSocketSessionService;
 
 import lombok.AccessLevel;
@@ -33,6 +36,9 @@ public class SocketHandler {
     SocketIOServer server;
     IdentityService identityService;
     WebSocketSessionService webSocketSessionService;
+    SocketClientRegistry socketClientRegistry;
+    SocketEventBus socketEventBus;
+    PresenceService presenceService;
     ObjectMapper objectMapper = new ObjectMapper();
 
     @OnConnect
@@ -49,6 +55,10 @@ public class SocketHandler {
                     .createdAt(Instant.now())
                     .build();
             webSocketSessionService.create(session);
+            // Counted only if still connected; a later disconnect then uncounts it exactly once
+            if (socketClientRegistry.register(session.getUserId(), client)) {
+                presenceService.connected(session.getUserId());
+            }
             log.info("WebSocketSession created with userId: {}", session.getUserId());
         } else {
             log.info("Authentication fail: {}", client.getSessionId());
@@ -59,6 +69,10 @@ public class SocketHandler {
     @OnDisconnect
     public void clientDisconnected(SocketIOClient client) {
         log.info("Client disconnected: {}", client.getSessionId());
+        String userId = socketClientRegistry.unregister(client);
+        if (userId != null) {
+            presenceService.disconnected(userId);
+        }
         webSocketSessionService.deleteSession(client.getSessionId().toString());
     }
 
@@ -100,17 +114,11 @@ public class SocketHandler {
                     }
 
                     log.info("📞 Call request from {} to {}", data.get("from"), toUserId);
-                    var targetSession = webSocketSessionService.findByUserId(toUserId);
-                    if (targetSession != null) {
-                        for (SocketIOClient targetClient : server.getAllClients()) {
-                            if (targetClient.getSessionId().toString().equals(targetSession.getSocketSessionId())) {
-                                targetClient.sendEvent("incoming-call", data);
-                                log.info("✅ Call request sent to user {}", toUserId);
-                                if (ackRequest.isAckRequested()) {
-                                    ackRequest.sendAckData(Map.of("status", "sent"));
-                                }
-                                break;
-                            }
+                    // Ring every device of the callee, on whichever node it is connected
+                    if (socketEventBus.toUser(toUserId, "incoming-call", data)) {
+                        log.info("✅ Call request sent to user {}", toUserId);
+                        if (ackRequest.isAckRequested()) {
+                            ackRequest.sendAckData(Map.of("status", "sent"));
                         }
                     } else {
                         log.warn("⚠️ User {} not connected", toUserId);
@@ -133,15 +141,8 @@ public class SocketHandler {
 
                 log.info("📞 Callee accepted call, notifying {}", toUserId);
 
-                var targetSession = webSocketSessionService.findByUserId(toUserId);
-                if (targetSession != null) {
-                    for (SocketIOClient targetClient : server.getAllClients()) {
-                        if (targetClient.getSessionId().toString().equals(targetSession.getSocketSessionId())) {
-                            targetClient.sendEvent("call-accepted", data);
-                            log.info("✅ call-accepted sent to {}", toUserId);
-                            break;
-                        }
-                    }
+                if (socketEventBus.toUser(toUserId, "call-accepted", data)) {
+                    log.info("✅ call-accepted sent to {}", toUserId);
                 }
             } catch (Exception e) {
                 log.error("❌ Error processing accept-call event", e);
@@ -156,15 +157,8 @@ public class SocketHandler {
                     String toUserId = (String) data.get("to");
                     log.info("✅ Call answered, sending to {}", toUserId);
 
-                    var targetSession = webSocketSessionService.findByUserId(toUserId);
-                    if (targetSession != null) {
-                        for (SocketIOClient targetClient : server.getAllClients()) {
-                            if (targetClient.getSessionId().toString().equals(targetSession.getSocketSessionId())) {
-                                targetClient.sendEvent("webrtc-answer", data);
-                                log.info("✅ Answer sent to user {}", toUserId);
-                                break;
-                            }
-                        }
+                    if (socketEventBus.toUser(toUserId, "webrtc-answer", data)) {
+                        log.info("✅ Answer sent to user {}", toUserId);
                     }
                 } catch (Exception e) {
                     log.error("❌ Error processing answer-call event", e);
@@ -180,15 +174,8 @@ public class SocketHandler {
                     String toUserId = (String) data.get("to");
                     log.info("❌ Call rejected, notifying {}", toUserId);
 
-                    var targetSession = webSocketSessionService.findByUserId(toUserId);
-                    if (targetSession != null) {
-                        for (SocketIOClient targetClient : server.getAllClients()) {
-                            if (targetClient.getSessionId().toString().equals(targetSession.getSocketSessionId())) {
-                                targetClient.sendEvent("call-rejected", data);
-                                log.info("✅ Rejection sent to user {}", toUserId);
-                                break;
-                            }
-                        }
+                    if (socketEventBus.toUser(toUserId, "call-rejected", data)) {
+                        log.info("✅ Rejection sent to user {}", toUserId);
                     }
                 } catch (Exception e) {
                     log.error("❌ Error processing reject-call event", e);
@@ -204,15 +191,8 @@ public class SocketHandler {
                     String toUserId = (String) data.get("to");
                     log.info("📴 Call ended, notifying {}", toUserId);
 
-                    var targetSession = webSocketSessionService.findByUserId(toUserId);
-                    if (targetSession != null) {
-                        for (SocketIOClient targetClient : server.getAllClients()) {
-                            if (targetClient.getSessionId().toString().equals(targetSession.getSocketSessionId())) {
-                                targetClient.sendEvent("call-ended", data);
-                                log.info("✅ Call end notification sent to user {}", toUserId);
-                                break;
-                            }
-                        }
+                    if (socketEventBus.toUser(toUserId, "call-ended", data)) {
+                        log.info("✅ Call end notification sent to user {}", toUserId);
                     }
                 } catch (Exception e) {
                     log.error("❌ Error processing end-call event", e);
@@ -227,15 +207,8 @@ public class SocketHandler {
                     Map<String, Object> data = parseSocketData(rawData);
                     String toUserId = (String) data.get("to");
 
-                    var targetSession = webSocketSessionService.findByUserId(toUserId);
-                    if (targetSession != null) {
-                        for (SocketIOClient targetClient : server.getAllClients()) {
-                            if (targetClient.getSessionId().toString().equals(targetSession.getSocketSessionId())) {
-                                targetClient.sendEvent("ice-candidate", data);
-                                log.debug("📡 ICE candidate forwarded to {}", toUserId);
-                                break;
-                            }
-                        }
+                    if (socketEventBus.toUser(toUserId, "ice-candidate", data)) {
+                        log.debug("📡 ICE candidate forwarded to {}", toUserId);
                     }
                 } catch (Exception e) {
                     log.error("❌ Error processing ice-candidate event", e);
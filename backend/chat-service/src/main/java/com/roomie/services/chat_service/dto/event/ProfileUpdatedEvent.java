@@ -0,0 +1,24 @@
+package com.roomie.services.chat_service.dto.event;
+
+import java.time.Instant;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Published by profile-service on profile-updated when a profile changes or is deleted
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ProfileUpdatedEvent {
+    String userId;
+    String username;
+    String firstName;
+    String lastName;
+    String avatar;
+    boolean deleted;
+    Instant timestamp;
+}
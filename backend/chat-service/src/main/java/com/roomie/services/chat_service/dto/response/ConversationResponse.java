@@ -22,4 +22,7 @@ public class ConversationResponse {
     List<ParticipantInfo> participants;
     Instant createdDate;
     Instant modifiedDate;
+    String lastMessage;
+    Instant lastMessageAt;
+    int unreadCount; // of the current user
 }
@@ -2,7 +2,7 @@ package com.roomie.services.chat_service.entity;
 
 import java.time.Instant;
 
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
@@ -15,18 +15,18 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "chat_message")
+// History pages: newest first within a conversation, ties on createdDate broken by _id
+@CompoundIndex(name = "conversation_created_idx", def = "{'conversationId': 1, 'createdDate': -1, '_id': -1}")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ChatMessage {
     @MongoId
     String id;
 
-    @Indexed
     String conversationId;
 
     String message;
 
     ParticipantInfo sender;
 
-    @Indexed
     Instant createdDate;
 }
@@ -2,7 +2,9 @@ package com.roomie.services.chat_service.entity;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
@@ -16,6 +18,10 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "conversation")
+// Inbox: a user's conversations, most recently active first, ties broken by id like INBOX_ORDER
+@CompoundIndex(
+        name = "participant_last_message_id_idx",
+        def = "{'participants.userId': 1, 'lastMessageAt': -1, '_id': -1}")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Conversation {
     @MongoId
@@ -31,4 +37,13 @@ public class Conversation {
     Instant createdDate;
 
     Instant modifiedDate;
+
+    // Preview of the latest message, kept by ConversationService.recordMessage
+    String lastMessage;
+
+    // Time of the latest message; createdDate until the first one, so new chats sort on top
+    Instant lastMessageAt;
+
+    // userId -> messages the user has not read yet
+    Map<String, Integer> unreadCounts;
 }
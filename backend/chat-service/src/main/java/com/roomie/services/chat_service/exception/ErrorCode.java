@@ -17,6 +17,9 @@ public enum ErrorCode {
     UNAUTHORIZED(1007, "You do not have permission", HttpStatus.FORBIDDEN),
     INVALID_DOB(1008, "Your age must be at least {min}", HttpStatus.BAD_REQUEST),
     CONVERSATION_NOT_FOUND(1009, "Chat conversation not found", HttpStatus.NOT_FOUND),
+    MESSAGE_NOT_FOUND(1010, "Chat message not found", HttpStatus.NOT_FOUND),
+    PROFILE_NOT_FOUND(1011, "Profile not found", HttpStatus.NOT_FOUND),
+    PROFILE_SERVICE_UNAVAILABLE(1012, "Profile service is unavailable", HttpStatus.SERVICE_UNAVAILABLE),
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
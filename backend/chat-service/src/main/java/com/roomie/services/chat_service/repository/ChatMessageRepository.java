@@ -1,7 +1,10 @@
 package com.roomie.services.chat_service.repository;
 
+import java.time.Instant;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,5 +12,10 @@ import com.roomie.services.chat_service.entity.ChatMessage;
 
 @Repository
 public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
-    List<ChatMessage> findAllByConversationIdOrderByCreatedDateDesc(String conversationId);
+    List<ChatMessage> findByConversationId(String conversationId, Pageable pageable);
+
+    List<ChatMessage> findByConversationIdAndCreatedDate(String conversationId, Instant createdDate, Sort sort);
+
+    List<ChatMessage> findByConversationIdAndCreatedDateBefore(
+            String conversationId, Instant createdDate, Pageable pageable);
 }
@@ -3,6 +3,7 @@ package com.roomie.services.chat_service.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -14,5 +15,5 @@ public interface ConversationRepository extends MongoRepository<Conversation, St
     Optional<Conversation> findByParticipantsHash(String hash);
 
     @Query("{'participants.userId' : ?0}")
-    List<Conversation> findAllByParticipantIdsContains(String userId);
+    List<Conversation> findAllByParticipantIdsContains(String userId, Pageable pageable);
 }
@@ -1,22 +1,21 @@
 package com.roomie.services.chat_service.service;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import com.corundumstudio.socketio.SocketIOServer;
 import com.roomie.services.chat_service.dto.request.ChatMessageRequest;
 import com.roomie.services.chat_service.dto.response.ChatMessageResponse;
 import com.roomie.services.chat_service.entity.ChatMessage;
-import com.roomie.services.chat_service.entity.ParticipantInfo;
 import com.roomie.services.chat_service.exception.AppException;
 import com.roomie.services.chat_service.exception.ErrorCode;
 import com.roomie.services.chat_service.mapper.ChatMessageMapper;
 import com.roomie.services.chat_service.repository.ChatMessageRepository;
-import com.roomie.services.chat_service.repository.ConversationRepository;
-import com.roomie.services.chat_service.repository.httpclient.ProfileClient;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -28,64 +27,68 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ChatMessageService {
-    SocketIOServer server;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id"));
+
+    SocketEventBus socketEventBus;
+    MessageTailCache messageTailCache;
+    MessageWriteBehind messageWriteBehind;
+    ConversationMembershipCache conversationMembershipCache;
+    ParticipantProfileCache participantProfileCache;
+    ConversationService conversationService;
     ChatMessageRepository chatMessageRepository;
-    ConversationRepository conversationRepository;
-    ProfileClient profileClient;
 
     ChatMessageMapper chatMessageMapper;
 
-    public List<ChatMessageResponse> getMessages(String conversationId) {
-        // Validate conversationId
-        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
-        conversationRepository
-                .findById(conversationId)
-                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND))
-                .getParticipants()
-                .stream()
-                .filter(participantInfo -> userId.equals(participantInfo.getUserId()))
-                .findAny()
-                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
-
-        var messages = chatMessageRepository.findAllByConversationIdOrderByCreatedDateDesc(conversationId);
-
-        return messages.stream().map(this::toChatMessageResponse).toList();
-    }
-
-    public ChatMessageResponse create(ChatMessageRequest request) {
+    /**
+     * One page of history, newest first
+     *
+     * @param before id of the oldest message the client already has; null for the latest page
+     * @param limit page size, defaults to {@value #DEFAULT_PAGE_SIZE}
+     */
+    public List<ChatMessageResponse> getMessages(String conversationId, String before, Integer limit) {
         String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        conversationMembershipCache.requireParticipant(conversationId, userId);
 
-        // Validate conversation
-        var conversation = conversationRepository
-                .findById(request.getConversationId())
-                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
 
-        boolean isParticipant = conversation.getParticipants().stream()
-                .anyMatch(p -> p.getUserId().equals(userId));
+        // Opening the chat reads it
+        if (before == null) {
+            conversationService.markRead(conversationId, userId);
+        }
 
-        if (!isParticipant) {
-            throw new AppException(ErrorCode.CONVERSATION_NOT_FOUND);
+        MessageTailCache.Tail tail = messageTailCache.get(conversationId);
+        if (tail == null && before == null && pageSize <= messageTailCache.getSize()) {
+            tail = loadTail(conversationId);
         }
 
-        // Get user info
-        var userResponse = profileClient.getProfile(userId);
-        if (userResponse == null) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        List<ChatMessage> messages = tail != null ? pageFromTail(tail, before, pageSize) : null;
+        if (messages == null) {
+            messages = pageFromMongo(conversationId, before, pageSize);
         }
-        var userInfo = userResponse.getResult();
+
+        return messages.stream()
+                .map(message -> toChatMessageResponse(message, userId))
+                .toList();
+    }
+
+    public ChatMessageResponse create(ChatMessageRequest request) {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        conversationMembershipCache.requireParticipant(request.getConversationId(), userId);
 
         // Build message
         ChatMessage chatMessage = chatMessageMapper.toChatMessage(request);
-        chatMessage.setSender(ParticipantInfo.builder()
-                .userId(userInfo.getUserId())
-                .username(userInfo.getUsername())
-                .firstName(userInfo.getFirstName())
-                .lastName(userInfo.getLastName())
-                .avatar(userInfo.getAvatar())
-                .build());
+        chatMessage.setSender(participantProfileCache.get(userId));
         chatMessage.setCreatedDate(Instant.now());
 
-        chatMessage = chatMessageRepository.save(chatMessage);
+        // Write-behind emits before the message is stored
+        if (!messageWriteBehind.enqueue(chatMessage)) {
+            chatMessage = chatMessageRepository.save(chatMessage);
+        }
+        messageTailCache.push(chatMessage);
 
         ChatMessageResponse response = chatMessageMapper.toChatMessageResponse(chatMessage);
 
@@ -93,13 +96,91 @@ public class ChatMessageService {
 
         log.info("Emitting new_message to room {}", room);
 
-        server.getRoomOperations(room).sendEvent("new_message", response);
+        socketEventBus.toRoom(room, "new_message", response);
+
+        conversationService.recordMessage(
+                chatMessage, conversationMembershipCache.getParticipants(request.getConversationId()));
 
         return response;
     }
 
-    private ChatMessageResponse toChatMessageResponse(ChatMessage chatMessage) {
-        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+    private MessageTailCache.Tail loadTail(String conversationId) {
+        String version = messageTailCache.version(conversationId);
+        List<ChatMessage> latest = chatMessageRepository.findByConversationId(
+                conversationId, PageRequest.of(0, messageTailCache.getSize(), NEWEST_FIRST));
+        messageTailCache.fill(conversationId, version, latest);
+
+        return new MessageTailCache.Tail(latest, latest.size() < messageTailCache.getSize());
+    }
+
+    /**
+     * @return null if the page reaches past the cached tail
+     */
+    private List<ChatMessage> pageFromTail(MessageTailCache.Tail tail, String before, int pageSize) {
+        List<ChatMessage> messages = tail.messages();
+
+        int from = 0;
+        if (before != null) {
+            from = indexOf(messages, before) + 1;
+            // Cursor older than the tail
+            if (from == 0) return null;
+        }
+
+        int to = from + pageSize;
+        if (to > messages.size()) {
+            if (!tail.complete()) return null;
+            to = messages.size();
+        }
+        return messages.subList(from, to);
+    }
+
+    /**
+     * Keyset page on conversation_created_idx: messages sharing the cursor's createdDate that sort
+     * after it, then strictly older ones
+     */
+    private List<ChatMessage> pageFromMongo(String conversationId, String before, int pageSize) {
+        if (before == null) {
+            return chatMessageRepository.findByConversationId(
+                    conversationId, PageRequest.of(0, pageSize, NEWEST_FIRST));
+        }
+
+        // Write-behind may not have stored the cursor yet; look there first, as it leaves the queue
+        // only once it is in Mongo
+        ChatMessage cursor = messageWriteBehind.findPending(before);
+        if (cursor == null) {
+            cursor = chatMessageRepository.findById(before).orElse(null);
+        }
+        if (cursor == null || !conversationId.equals(cursor.getConversationId())) {
+            throw new AppException(ErrorCode.MESSAGE_NOT_FOUND);
+        }
+
+        List<ChatMessage> sameInstant = chatMessageRepository.findByConversationIdAndCreatedDate(
+                conversationId, cursor.getCreatedDate(), NEWEST_FIRST);
+        int from = indexOf(sameInstant, before) + 1;
+        if (from == 0) {
+            // Cursor not stored: skip the messages of its instant that sort before it (newer ids)
+            while (from < sameInstant.size() && sameInstant.get(from).getId().compareTo(before) > 0) {
+                from++;
+            }
+        }
+        List<ChatMessage> page = new ArrayList<>(sameInstant.subList(from, sameInstant.size()));
+        if (page.size() >= pageSize) {
+            return page.subList(0, pageSize);
+        }
+
+        page.addAll(chatMessageRepository.findByConversationIdAndCreatedDateBefore(
+                conversationId, cursor.getCreatedDate(), PageRequest.of(0, pageSize - page.size(), NEWEST_FIRST)));
+        return page;
+    }
+
+    private static int indexOf(List<ChatMessage> messages, String id) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (id.equals(messages.get(i).getId())) return i;
+        }
+        return -1;
+    }
+
+    private ChatMessageResponse toChatMessageResponse(ChatMessage chatMessage, String userId) {
         var chatMessageResponse = chatMessageMapper.toChatMessageResponse(chatMessage);
 
         chatMessageResponse.setMe(userId.equals(chatMessage.getSender().getUserId()));
@@ -0,0 +1,111 @@
+package com.roomie.services.chat_service.service;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.roomie.services.chat_service.entity.ChatMessage;
+import com.roomie.services.chat_service.entity.Conversation;
+import com.roomie.services.chat_service.repository.ChatMessageRepository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gives conversations created before the inbox fields existed their lastMessage / lastMessageAt,
+ * so they sort into the inbox by their real activity, and drops the inbox index they replaced.
+ * Runs in the background on every start and finds nothing to do once done; concurrent runs on
+ * several nodes are harmless.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ConversationInboxBackfill {
+    /** Superseded by participant_last_message_id_idx, which adds _id as tie-breaker */
+    static final String OBSOLETE_INDEX = "participant_last_message_idx";
+
+    MongoTemplate mongoTemplate;
+    ChatMessageRepository chatMessageRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("conversation-inbox-backfill").start(() -> {
+            dropObsoleteIndex();
+            backfill();
+        });
+    }
+
+    void dropObsoleteIndex() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(Conversation.class);
+            boolean present =
+                    indexOps.getIndexInfo().stream().map(IndexInfo::getName).anyMatch(OBSOLETE_INDEX::equals);
+            if (present) {
+                indexOps.dropIndex(OBSOLETE_INDEX);
+                log.info("Dropped obsolete conversation index {}", OBSOLETE_INDEX);
+            }
+        } catch (Exception e) {
+            // Another node dropped it first, or Mongo is unavailable: the next start tries again
+            log.warn("Could not drop conversation index {}: {}", OBSOLETE_INDEX, e.getMessage());
+        }
+    }
+
+    void backfill() {
+        Query missing = Query.query(Criteria.where("lastMessageAt").exists(false));
+        missing.fields().include("_id", "createdDate");
+
+        // Streamed from a cursor: a large backlog is never held in memory at once
+        try (Stream<Conversation> conversations = mongoTemplate.stream(missing, Conversation.class)) {
+            int updated = 0;
+            Iterator<Conversation> iterator = conversations.iterator();
+            while (iterator.hasNext()) {
+                Conversation conversation = iterator.next();
+                List<ChatMessage> latest = chatMessageRepository.findByConversationId(
+                        conversation.getId(), PageRequest.of(0, 1, ChatMessageService.NEWEST_FIRST));
+
+                Update update;
+                if (latest.isEmpty()) {
+                    Instant createdDate = conversation.getCreatedDate();
+                    update = new Update().set("lastMessageAt", createdDate != null ? createdDate : Instant.EPOCH);
+                } else {
+                    update = new Update()
+                            .set(
+                                    "lastMessage",
+                                    ConversationService.preview(
+                                            latest.getFirst().getMessage()))
+                            .set("lastMessageAt", latest.getFirst().getCreatedDate());
+                }
+
+                // Skip it if a message was recorded meanwhile
+                Query stillMissing = Query.query(Criteria.where("_id")
+                        .is(conversation.getId())
+                        .and("lastMessageAt")
+                        .exists(false));
+                updated += (int) mongoTemplate
+                        .updateFirst(stillMissing, update, Conversation.class)
+                        .getModifiedCount();
+            }
+
+            if (updated > 0) {
+                log.info("Backfilled inbox fields of {} conversations", updated);
+            }
+        } catch (Exception e) {
+            log.error("Conversation inbox backfill failed", e);
+        }
+    }
+}
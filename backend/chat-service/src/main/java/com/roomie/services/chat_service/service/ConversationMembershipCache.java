@@ -0,0 +1,65 @@
+package com.roomie.services.chat_service.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.roomie.services.chat_service.entity.ParticipantInfo;
+import com.roomie.services.chat_service.exception.AppException;
+import com.roomie.services.chat_service.exception.ErrorCode;
+import com.roomie.services.chat_service.repository.ConversationRepository;
+
+/**
+ * Participant ids per conversation, so checking the sender of every message does not load the
+ * conversation from Mongo. Participants are fixed when a conversation is created, so entries
+ * only leave by size or idle time.
+ */
+@Service
+public class ConversationMembershipCache {
+    private final ConversationRepository conversationRepository;
+    private final Cache<String, Set<String>> members;
+
+    public ConversationMembershipCache(
+            ConversationRepository conversationRepository,
+            @Value("${chat.cache.memberships.max-size:50000}") long maxSize,
+            @Value("${chat.cache.memberships.idle-ttl:PT6H}") Duration idleTtl) {
+        this.conversationRepository = conversationRepository;
+        this.members = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTtl)
+                .build();
+    }
+
+    /**
+     * @throws AppException CONVERSATION_NOT_FOUND if it does not exist or the user is not in it
+     */
+    public void requireParticipant(String conversationId, String userId) {
+        if (!getParticipants(conversationId).contains(userId)) {
+            throw new AppException(ErrorCode.CONVERSATION_NOT_FOUND);
+        }
+    }
+
+    /**
+     * @throws AppException CONVERSATION_NOT_FOUND if it does not exist
+     */
+    public Set<String> getParticipants(String conversationId) {
+        return members.get(conversationId, this::load);
+    }
+
+    private Set<String> load(String conversationId) {
+        return conversationRepository
+                .findById(conversationId)
+                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND))
+                .getParticipants()
+                .stream()
+                .map(ParticipantInfo::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -2,22 +2,27 @@ package com.roomie.services.chat_service.service;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import com.roomie.services.chat_service.dto.request.ConversationRequest;
 import com.roomie.services.chat_service.dto.response.ConversationResponse;
+import com.roomie.services.chat_service.entity.ChatMessage;
 import com.roomie.services.chat_service.entity.Conversation;
 import com.roomie.services.chat_service.entity.ParticipantInfo;
-import com.roomie.services.chat_service.exception.AppException;
-import com.roomie.services.chat_service.exception.ErrorCode;
 import com.roomie.services.chat_service.mapper.ConversationMapper;
 import com.roomie.services.chat_service.repository.ConversationRepository;
-import com.roomie.services.chat_service.repository.httpclient.ProfileClient;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -29,30 +34,91 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ConversationService {
+    static final int MAX_PAGE_SIZE = 100;
+    static final int PREVIEW_LENGTH = 200;
+    static final String UNREAD_PREFIX = "unreadCounts.";
+
+    static final Sort INBOX_ORDER = Sort.by(Sort.Order.desc("lastMessageAt"), Sort.Order.desc("id"));
+
     ConversationRepository conversationRepository;
-    ProfileClient profileClient;
+    MongoTemplate mongoTemplate;
+    ConversationMembershipCache conversationMembershipCache;
+    ParticipantProfileCache participantProfileCache;
     ConversationMapper conversationMapper;
 
-    public List<ConversationResponse> myConversations() {
+    /**
+     * One page of the inbox, most recently active first, with previews and unread counts
+     */
+    public List<ConversationResponse> myConversations(int page, int size) {
         String userId = SecurityContextHolder.getContext().getAuthentication().getName();
-        List<Conversation> conversations = conversationRepository.findAllByParticipantIdsContains(userId);
+        List<Conversation> conversations = conversationRepository.findAllByParticipantIdsContains(
+                userId, PageRequest.of(Math.max(0, page), Math.clamp(size, 1, MAX_PAGE_SIZE), INBOX_ORDER));
 
-        return conversations.stream().map(this::toConversationResponse).toList();
+        return conversations.stream()
+                .map(conversation -> toConversationResponse(conversation, userId))
+                .toList();
     }
 
-    public ConversationResponse create(ConversationRequest request) {
-        // Fetch user infos
+    /**
+     * Move the preview to a newly sent message and count it as unread for everyone but the sender
+     */
+    public void recordMessage(ChatMessage message, Set<String> participants) {
+        String senderId = message.getSender().getUserId();
+        List<String> recipients = participants.stream()
+                .filter(participant -> !participant.equals(senderId))
+                .toList();
+
+        Update update = new Update()
+                .set("lastMessage", preview(message.getMessage()))
+                .set("lastMessageAt", message.getCreatedDate())
+                .set("modifiedDate", message.getCreatedDate());
+        recipients.forEach(recipient -> update.inc(UNREAD_PREFIX + recipient, 1));
+
+        try {
+            // Two messages racing: only the newer one may become the preview
+            Query newer = Query.query(Criteria.where("_id")
+                    .is(message.getConversationId())
+                    .orOperator(
+                            Criteria.where("lastMessageAt").is(null),
+                            Criteria.where("lastMessageAt").lte(message.getCreatedDate())));
+            if (mongoTemplate.updateFirst(newer, update, Conversation.class).getMatchedCount() > 0
+                    || recipients.isEmpty()) return;
+
+            Update countOnly = new Update();
+            recipients.forEach(recipient -> countOnly.inc(UNREAD_PREFIX + recipient, 1));
+            mongoTemplate.updateFirst(byId(message.getConversationId()), countOnly, Conversation.class);
+        } catch (Exception e) {
+            // The message is already sent; only the inbox lags until the next one
+            log.warn("Could not update inbox of conversation {}: {}", message.getConversationId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Clear the current user's unread counter, e.g. for a message that arrived while the chat was open
+     */
+    public void markRead(String conversationId) {
         String userId = SecurityContextHolder.getContext().getAuthentication().getName();
-        var userInfoResponse = profileClient.getProfile(userId);
-        var participantInfoResponse =
-                profileClient.getProfile(request.getParticipantIds().getFirst());
+        conversationMembershipCache.requireParticipant(conversationId, userId);
+        markRead(conversationId, userId);
+    }
 
-        if (Objects.isNull(userInfoResponse) || Objects.isNull(participantInfoResponse)) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
-        }
+    /**
+     * Clear the user's unread counter
+     */
+    public void markRead(String conversationId, String userId) {
+        mongoTemplate.updateFirst(
+                byId(conversationId)
+                        .addCriteria(Criteria.where(UNREAD_PREFIX + userId).gt(0)),
+                new Update().set(UNREAD_PREFIX + userId, 0),
+                Conversation.class);
+    }
 
-        var userInfo = userInfoResponse.getResult();
-        var participantInfo = participantInfoResponse.getResult();
+    public ConversationResponse create(ConversationRequest request) {
+        // Fetch user infos
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        ParticipantInfo userInfo = participantProfileCache.get(userId);
+        ParticipantInfo participantInfo =
+                participantProfileCache.get(request.getParticipantIds().getFirst());
 
         List<String> userIds = new ArrayList<>();
         userIds.add(userId);
@@ -64,35 +130,24 @@ public class ConversationService {
         var conversation = conversationRepository
                 .findByParticipantsHash(userIdHash)
                 .orElseGet(() -> {
-                    List<ParticipantInfo> participantInfos = List.of(
-                            ParticipantInfo.builder()
-                                    .userId(userInfo.getUserId())
-                                    .username(userInfo.getUsername())
-                                    .firstName(userInfo.getFirstName())
-                                    .lastName(userInfo.getLastName())
-                                    .avatar(userInfo.getAvatar())
-                                    .build(),
-                            ParticipantInfo.builder()
-                                    .userId(participantInfo.getUserId())
-                                    .username(participantInfo.getUsername())
-                                    .firstName(participantInfo.getFirstName())
-                                    .lastName(participantInfo.getLastName())
-                                    .avatar(participantInfo.getAvatar())
-                                    .build());
+                    List<ParticipantInfo> participantInfos = List.of(userInfo, participantInfo);
 
                     // Build conversation info
+                    Instant now = Instant.now();
                     Conversation newConversation = Conversation.builder()
                             .type(request.getType())
                             .participantsHash(userIdHash)
-                            .createdDate(Instant.now())
-                            .modifiedDate(Instant.now())
+                            .createdDate(now)
+                            .modifiedDate(now)
                             .participants(participantInfos)
+                            .lastMessageAt(now)
+                            .unreadCounts(new HashMap<>())
                             .build();
 
                     return conversationRepository.save(newConversation);
                 });
 
-        return toConversationResponse(conversation);
+        return toConversationResponse(conversation, userId);
     }
 
     private String generateParticipantHash(List<String> ids) {
@@ -104,11 +159,23 @@ public class ConversationService {
         return stringJoiner.toString();
     }
 
-    private ConversationResponse toConversationResponse(Conversation conversation) {
-        String currentUserId =
-                SecurityContextHolder.getContext().getAuthentication().getName();
+    private static Query byId(String conversationId) {
+        return Query.query(Criteria.where("_id").is(conversationId));
+    }
+
+    static String preview(String message) {
+        if (message == null || message.length() <= PREVIEW_LENGTH) return message;
+        int end = PREVIEW_LENGTH;
+        // Do not split a surrogate pair (emoji)
+        if (Character.isHighSurrogate(message.charAt(end - 1))) end--;
+        return message.substring(0, end);
+    }
 
+    private ConversationResponse toConversationResponse(Conversation conversation, String currentUserId) {
         ConversationResponse conversationResponse = conversationMapper.toConversationResponse(conversation);
+        if (conversation.getUnreadCounts() != null) {
+            conversationResponse.setUnreadCount(conversation.getUnreadCounts().getOrDefault(currentUserId, 0));
+        }
 
         conversation.getParticipants().stream()
                 .filter(participantInfo -> !participantInfo.getUserId().equals(currentUserId))
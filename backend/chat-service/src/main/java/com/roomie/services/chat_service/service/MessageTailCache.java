@@ -0,0 +1,182 @@
+package com.roomie.services.chat_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.roomie.services.chat_service.entity.ChatMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Last N messages of recently opened conversations, so opening a chat does not hit Mongo.
+ *
+ * chat:tail:{conversationId} is a Redis list of message JSON, newest first, capped at
+ * chat.history.tail-size and expiring after chat.history.tail-ttl without activity. It is only
+ * filled on a read miss; new messages are pushed onto lists that already exist. Every push bumps
+ * chat:tail:ver:{conversationId}, and a fill is dropped if the version moved while Mongo was
+ * queried, so a slow reader never installs a tail missing a message sent meanwhile.
+ * Redis errors are treated as a miss.
+ */
+@Slf4j
+@Service
+public class MessageTailCache {
+    private static final String TAIL_PREFIX = "chat:tail:";
+    private static final String VERSION_PREFIX = "chat:tail:ver:";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /** Bump the version; prepend and trim only if the tail is cached */
+    private static final RedisScript<Long> PUSH_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[3]) "
+                    + "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+                    + "redis.call('LPUSH', KEYS[1], ARGV[1]) "
+                    + "redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    /** Install the tail unless another fill won or a message was pushed since the version was read */
+    private static final RedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('GET', KEYS[2]) or '0' "
+                    + "if version ~= ARGV[1] or redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+                    + "for i = 3, #ARGV do redis.call('RPUSH', KEYS[1], ARGV[i]) end "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "return 1",
+            Long.class);
+
+    private static final Comparator<ChatMessage> NEWEST_FIRST = Comparator.comparing(
+                    ChatMessage::getCreatedDate, Comparator.nullsLast(Comparator.<Instant>reverseOrder()))
+            .thenComparing(ChatMessage::getId, Comparator.nullsLast(Comparator.<String>reverseOrder()));
+
+    private final StringRedisTemplate redisTemplate;
+    private final int size;
+    private final Duration ttl;
+
+    public MessageTailCache(
+            StringRedisTemplate redisTemplate,
+            @Value("${chat.history.tail-size:100}") int size,
+            @Value("${chat.history.tail-ttl:P1D}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.size = Math.max(1, size);
+        this.ttl = ttl;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Cached tail, newest first
+     *
+     * @return null if the conversation is not cached
+     */
+    public Tail get(String conversationId) {
+        List<String> entries;
+        try {
+            entries = redisTemplate.opsForList().range(TAIL_PREFIX + conversationId, 0, -1);
+        } catch (Exception e) {
+            log.warn("Could not read message tail of {}: {}", conversationId, e.getMessage());
+            return null;
+        }
+        if (entries == null || entries.isEmpty()) return null;
+
+        // A message pushed while its tail was being filled can be listed twice
+        Map<String, ChatMessage> messages = new LinkedHashMap<>();
+        try {
+            for (String entry : entries) {
+                ChatMessage message = MAPPER.readValue(entry, ChatMessage.class);
+                messages.putIfAbsent(message.getId(), message);
+            }
+        } catch (Exception e) {
+            log.warn("Dropping unreadable message tail of {}: {}", conversationId, e.getMessage());
+            evict(conversationId);
+            return null;
+        }
+
+        List<ChatMessage> newestFirst = new ArrayList<>(messages.values());
+        newestFirst.sort(NEWEST_FIRST);
+        // Shorter than the cap: nothing older exists
+        return new Tail(newestFirst, entries.size() < size);
+    }
+
+    /**
+     * Read before loading the tail from Mongo, and hand to {@link #fill}
+     */
+    public String version(String conversationId) {
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_PREFIX + conversationId);
+            return version != null ? version : "0";
+        } catch (Exception e) {
+            log.warn("Could not read message tail version of {}: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cache the last messages of a conversation, newest first, as loaded from Mongo
+     */
+    public void fill(String conversationId, String version, List<ChatMessage> newestFirst) {
+        if (version == null || newestFirst.isEmpty()) return;
+
+        try {
+            List<String> args = new ArrayList<>(newestFirst.size() + 2);
+            args.add(version);
+            args.add(String.valueOf(ttl.toMillis()));
+            for (ChatMessage message : newestFirst.subList(0, Math.min(size, newestFirst.size()))) {
+                args.add(MAPPER.writeValueAsString(message));
+            }
+            redisTemplate.execute(FILL_SCRIPT, keys(conversationId), args.toArray());
+        } catch (Exception e) {
+            log.warn("Could not cache message tail of {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    /**
+     * A message was saved
+     */
+    public void push(ChatMessage message) {
+        try {
+            redisTemplate.execute(
+                    PUSH_SCRIPT,
+                    keys(message.getConversationId()),
+                    MAPPER.writeValueAsString(message),
+                    String.valueOf(size),
+                    String.valueOf(ttl.toMillis()));
+        } catch (Exception e) {
+            // A stale tail would hide the message from everyone opening the chat
+            log.warn("Could not push message {} to its tail: {}", message.getId(), e.getMessage());
+            evict(message.getConversationId());
+        }
+    }
+
+    private void evict(String conversationId) {
+        try {
+            redisTemplate.delete(TAIL_PREFIX + conversationId);
+        } catch (Exception e) {
+            log.warn("Could not evict message tail of {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private static List<String> keys(String conversationId) {
+        return List.of(TAIL_PREFIX + conversationId, VERSION_PREFIX + conversationId);
+    }
+
+    /**
+     * @param messages newest first
+     * @param complete true if the conversation has no messages older than these
+     */
+    public record Tail(List<ChatMessage> messages, boolean complete) {}
+}
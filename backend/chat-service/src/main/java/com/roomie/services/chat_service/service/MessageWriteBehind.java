@@ -0,0 +1,149 @@
+package com.roomie.services.chat_service.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.roomie.services.chat_service.entity.ChatMessage;
+import com.roomie.services.chat_service.repository.ChatMessageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional write-behind for sent messages (chat.messages.write-behind.enabled).
+ *
+ * A message gets its id up front and is emitted before it is stored; a flusher inserts queued
+ * messages in batches of chat.messages.write-behind.batch-size every flush-interval. A full queue
+ * makes the sender save synchronously, so Mongo being slow throttles senders instead of growing
+ * the heap. Messages still queued when a node crashes are lost: leave it off where that matters.
+ *
+ * Once a batch is stored its messages are pushed to the tail cache again, in case a tail was
+ * filled from Mongo while they were still queued; reads drop the duplicates. Until then
+ * {@link #findPending} resolves their ids, e.g. for a history cursor.
+ */
+@Slf4j
+@Service
+public class MessageWriteBehind {
+    private final ChatMessageRepository chatMessageRepository;
+    private final MessageTailCache messageTailCache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final BlockingQueue<ChatMessage> queue;
+    // Queued or being stored, by id; a message leaves it once it is in Mongo
+    private final Map<String, ChatMessage> pending = new ConcurrentHashMap<>();
+
+    public MessageWriteBehind(
+            ChatMessageRepository chatMessageRepository,
+            MessageTailCache messageTailCache,
+            @Value("${chat.messages.write-behind.enabled:false}") boolean enabled,
+            @Value("${chat.messages.write-behind.batch-size:200}") int batchSize,
+            @Value("${chat.messages.write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${chat.messages.write-behind.queue-capacity:10000}") int queueCapacity) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.messageTailCache = messageTailCache;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            log.info("Chat message write-behind enabled: batches of {} every {}", batchSize, flushInterval);
+        }
+    }
+
+    /**
+     * Store what is still queued before the node goes away
+     */
+    @PreDestroy
+    public void stop() {
+        if (enabled) flush();
+    }
+
+    /**
+     * Queue the message for the next batch, assigning its id
+     *
+     * @return false if write-behind is off or the queue is full; the caller must save it
+     */
+    public boolean enqueue(ChatMessage message) {
+        if (!enabled) return false;
+
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        pending.put(message.getId(), message);
+        if (!queue.offer(message)) {
+            pending.remove(message.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the message if it is accepted but not stored yet, otherwise null
+     */
+    public ChatMessage findPending(String id) {
+        return id == null ? null : pending.get(id);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${chat.messages.write-behind.flush-interval:PT0.2S}",
+            initialDelayString = "${chat.messages.write-behind.flush-interval:PT0.2S}")
+    public void flush() {
+        if (!enabled) return;
+        try {
+            // Only what is queued now: messages requeued by a failed save wait for the next run
+            int pending = queue.size();
+            List<ChatMessage> batch = new ArrayList<>(batchSize);
+            while (pending > 0 && queue.drainTo(batch, Math.min(batchSize, pending)) > 0) {
+                pending -= batch.size();
+                store(batch);
+                batch.clear();
+            }
+        } catch (Exception e) {
+            log.error("Chat message flush failed", e);
+        }
+    }
+
+    private void store(List<ChatMessage> batch) {
+        try {
+            chatMessageRepository.insert(batch);
+        } catch (Exception e) {
+            // Part of an ordered insert may have landed: save one by one, which upserts by id
+            log.warn("Batch insert of {} messages failed, saving them one by one: {}", batch.size(), e.getMessage());
+            List<ChatMessage> stored = new ArrayList<>(batch.size());
+            for (ChatMessage message : batch) {
+                try {
+                    stored.add(chatMessageRepository.save(message));
+                } catch (Exception saveError) {
+                    requeue(message, saveError);
+                }
+            }
+            batch = stored;
+        }
+        batch.forEach(message -> pending.remove(message.getId()));
+        batch.forEach(messageTailCache::push);
+    }
+
+    private void requeue(ChatMessage message, Exception cause) {
+        if (!queue.offer(message)) {
+            pending.remove(message.getId());
+            log.error("Lost message {} of conversation {}", message.getId(), message.getConversationId(), cause);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.roomie.services.chat_service.service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.roomie.services.chat_service.dto.event.ProfileUpdatedEvent;
+import com.roomie.services.chat_service.entity.ParticipantInfo;
+import com.roomie.services.chat_service.exception.AppException;
+import com.roomie.services.chat_service.exception.ErrorCode;
+import com.roomie.services.chat_service.repository.httpclient.ProfileClient;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local cache of the profile fields embedded in messages and conversations, so sending a message
+ * does not call profile-service.
+ *
+ * Entries are dropped when profile-service publishes profile-updated. Every node has to see every
+ * event, so each one listens in its own consumer group, from the latest offset. The TTL bounds
+ * staleness if an event is missed.
+ */
+@Slf4j
+@Service
+public class ParticipantProfileCache {
+    static final String TOPIC_PROFILE_UPDATED = "profile-updated";
+
+    private static final ObjectMapper MAPPER =
+            new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final ProfileClient profileClient;
+    private final Cache<String, ParticipantInfo> profiles;
+
+    public ParticipantProfileCache(
+            ProfileClient profileClient,
+            @Value("${chat.cache.profiles.max-size:10000}") long maxSize,
+            @Value("${chat.cache.profiles.ttl:PT1H}") Duration ttl) {
+        this.profileClient = profileClient;
+        this.profiles =
+                Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    /**
+     * @return a copy the caller may keep or change
+     * @throws AppException PROFILE_NOT_FOUND, or PROFILE_SERVICE_UNAVAILABLE if profile-service failed
+     */
+    public ParticipantInfo get(String userId) {
+        ParticipantInfo profile;
+        try {
+            profile = profiles.get(userId, this::load);
+        } catch (FeignException.NotFound e) {
+            throw new AppException(ErrorCode.PROFILE_NOT_FOUND);
+        } catch (FeignException e) {
+            log.error("Could not load profile of {}: {}", userId, e.getMessage());
+            throw new AppException(ErrorCode.PROFILE_SERVICE_UNAVAILABLE);
+        }
+        if (profile == null) {
+            throw new AppException(ErrorCode.PROFILE_NOT_FOUND);
+        }
+
+        return ParticipantInfo.builder()
+                .userId(profile.getUserId())
+                .username(profile.getUsername())
+                .firstName(profile.getFirstName())
+                .lastName(profile.getLastName())
+                .avatar(profile.getAvatar())
+                .build();
+    }
+
+    public void evict(String userId) {
+        profiles.invalidate(userId);
+    }
+
+    @KafkaListener(
+            topics = TOPIC_PROFILE_UPDATED,
+            groupId = "#{'chat-profile-cache-' + @presenceService.nodeId}",
+            properties = "auto.offset.reset=latest")
+    public void onProfileUpdated(String message) {
+        try {
+            ProfileUpdatedEvent event = MAPPER.readValue(message, ProfileUpdatedEvent.class);
+            if (event.getUserId() != null) {
+                evict(event.getUserId());
+                log.debug("Dropped cached profile of {}", event.getUserId());
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring malformed profile-updated event: {}", message);
+        }
+    }
+
+    /** Not cached when profile-service has no profile */
+    private ParticipantInfo load(String userId) {
+        var response = profileClient.getProfile(userId);
+        if (Objects.isNull(response) || Objects.isNull(response.getResult())) return null;
+
+        var userInfo = response.getResult();
+        return ParticipantInfo.builder()
+                .userId(userInfo.getUserId())
+                .username(userInfo.getUsername())
+                .firstName(userInfo.getFirstName())
+                .lastName(userInfo.getLastName())
+                .avatar(userInfo.getAvatar())
+                .build();
+    }
+}
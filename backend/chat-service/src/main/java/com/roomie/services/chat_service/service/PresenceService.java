@@ -0,0 +1,144 @@
+package com.roomie.services.chat_service.service;
+
+import java.time.Duration;
+import java.util.*;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cluster-wide presence: which chat-service nodes hold sockets of a user.
+ *
+ * chat:presence:{userId} is a hash nodeId -> number of that user's sockets on the node, changed
+ * with atomic increments so concurrent connects/disconnects on different nodes never clobber
+ * each other. chat:nodes is a sorted set nodeId -> last heartbeat; entries of nodes that stop
+ * heartbeating (crashed) are ignored and dropped when read.
+ */
+@Slf4j
+@Service
+public class PresenceService {
+    private static final String PRESENCE_PREFIX = "chat:presence:";
+    private static final String NODES_KEY = "chat:nodes";
+
+    /** HINCRBY, and drop the field once the count reaches zero */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "if n <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) end "
+                    + "return n",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId;
+    private final Duration nodeTimeout;
+
+    private volatile Set<String> liveNodes = Set.of();
+
+    public PresenceService(
+            StringRedisTemplate redisTemplate,
+            @Value("${chat.cluster.node-id:}") String nodeId,
+            @Value("${chat.cluster.node-timeout:PT30S}") Duration nodeTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.nodeTimeout = nodeTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        beat();
+        log.info("Chat node {} registered", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            redisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+        } catch (Exception e) {
+            log.warn("Could not deregister chat node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** A socket of the user connected to this node */
+    public void connected(String userId) {
+        adjust(userId, 1);
+    }
+
+    /** A socket of the user on this node went away */
+    public void disconnected(String userId) {
+        adjust(userId, -1);
+    }
+
+    /**
+     * Live nodes holding at least one socket of the user (this node included)
+     */
+    public Set<String> getNodes(String userId) {
+        if (userId == null) return Set.of();
+
+        Set<String> nodes = new HashSet<>();
+        List<Object> dead = new ArrayList<>();
+        for (Object node : redisTemplate.opsForHash().keys(PRESENCE_PREFIX + userId)) {
+            if (isLive((String) node)) {
+                nodes.add((String) node);
+            } else {
+                dead.add(node);
+            }
+        }
+        if (!dead.isEmpty()) {
+            redisTemplate.opsForHash().delete(PRESENCE_PREFIX + userId, dead.toArray());
+        }
+        return nodes;
+    }
+
+    public boolean isOnline(String userId) {
+        return !getNodes(userId).isEmpty();
+    }
+
+    /**
+     * Known live, or started since the last heartbeat of this node
+     */
+    private boolean isLive(String node) {
+        if (nodeId.equals(node) || liveNodes.contains(node)) return true;
+
+        Double lastBeat = redisTemplate.opsForZSet().score(NODES_KEY, node);
+        return lastBeat != null && lastBeat >= System.currentTimeMillis() - nodeTimeout.toMillis();
+    }
+
+    private void adjust(String userId, int delta) {
+        try {
+            redisTemplate.execute(ADJUST_SCRIPT, List.of(PRESENCE_PREFIX + userId), nodeId, String.valueOf(delta));
+        } catch (Exception e) {
+            log.warn("Could not update presence of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /** Refresh this node's heartbeat and the local view of live nodes */
+    @Scheduled(
+            fixedDelayString = "${chat.cluster.heartbeat-interval:PT10S}",
+            initialDelayString = "${chat.cluster.heartbeat-interval:PT10S}")
+    public void beat() {
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+
+            long cutoff = now - nodeTimeout.toMillis();
+            redisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, cutoff);
+            Set<String> nodes = redisTemplate.opsForZSet().rangeByScore(NODES_KEY, cutoff, Double.MAX_VALUE);
+            liveNodes = nodes != null ? Set.copyOf(nodes) : Set.of();
+        } catch (Exception e) {
+            // Keep the last known view
+            log.warn("Chat node heartbeat failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.roomie.services.chat_service.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.corundumstudio.socketio.SocketIOClient;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory routing table from userId to the user's connected socket clients (one per device/tab).
+ * Maintained by SocketHandler on connect/disconnect, so signaling is forwarded with a map lookup
+ * instead of a Mongo query plus a scan over all clients.
+ */
+@Slf4j
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SocketClientRegistry {
+    private static final String USER_ID_KEY = "userId";
+
+    Map<String, Set<SocketIOClient>> clientsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * @return whether the client is still registered; false if it disconnected while the token was
+     *     being introspected, in which case it was removed again
+     */
+    public boolean register(String userId, SocketIOClient client) {
+        client.set(USER_ID_KEY, userId);
+        clientsByUser
+                .computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet())
+                .add(client);
+
+        // Disconnected while the token was being introspected: the disconnect found nothing to remove
+        if (!client.isChannelOpen()) {
+            unregister(client);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the userId the client was registered for, or null if it was not registered (anymore)
+     */
+    public String unregister(SocketIOClient client) {
+        String userId = client.get(USER_ID_KEY);
+        if (userId == null) return null;
+
+        boolean[] removed = {false};
+        clientsByUser.computeIfPresent(userId, (key, clients) -> {
+            removed[0] = clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+        return removed[0] ? userId : null;
+    }
+
+    public String getUserId(SocketIOClient client) {
+        return client.get(USER_ID_KEY);
+    }
+
+    public Set<SocketIOClient> getClients(String userId) {
+        if (userId == null) return Set.of();
+        return clientsByUser.getOrDefault(userId, Set.of());
+    }
+
+    public boolean isOnline(String userId) {
+        return !getClients(userId).isEmpty();
+    }
+
+    /**
+     * Send an event to every connected client of the user
+     *
+     * @return number of clients it was sent to
+     */
+    public int sendToUser(String userId, String event, Object data) {
+        int sent = 0;
+        for (SocketIOClient client : getClients(userId)) {
+            if (client.isChannelOpen()) {
+                client.sendEvent(event, data);
+                sent++;
+            }
+        }
+        return sent;
+    }
+}
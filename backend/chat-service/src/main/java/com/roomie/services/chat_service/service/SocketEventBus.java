@@ -0,0 +1,117 @@
+package com.roomie.services.chat_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import com.corundumstudio.socketio.SocketIOServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers Socket.IO events to clients on any chat-service node.
+ *
+ * Events are emitted locally first, then relayed over Redis pub/sub:
+ * - room broadcasts on chat:socket:rooms, which every node re-emits to its local room members
+ * - user events on chat:socket:node:{nodeId}, only to the other nodes PresenceService lists for
+ *   the user
+ * Payloads are serialized like CustomJsonSupport does, so remote clients get the same JSON.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SocketEventBus {
+    static final String ROOM_CHANNEL = "chat:socket:rooms";
+    static final String NODE_CHANNEL_PREFIX = "chat:socket:node:";
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    SocketIOServer server;
+    SocketClientRegistry socketClientRegistry;
+    PresenceService presenceService;
+    StringRedisTemplate redisTemplate;
+    RedisMessageListenerContainer listenerContainer;
+
+    /** Relayed event; exactly one of room / userId is set */
+    record Envelope(String origin, String room, String userId, String event, JsonNode data) {}
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(
+                this::onMessage,
+                List.of(
+                        new ChannelTopic(ROOM_CHANNEL),
+                        new ChannelTopic(NODE_CHANNEL_PREFIX + presenceService.getNodeId())));
+    }
+
+    /**
+     * Emit to a room on every node
+     */
+    public void toRoom(String room, String event, Object data) {
+        server.getRoomOperations(room).sendEvent(event, data);
+        publish(ROOM_CHANNEL, new Envelope(presenceService.getNodeId(), room, null, event, MAPPER.valueToTree(data)));
+    }
+
+    /**
+     * Emit to the sockets of the user on this node and relay it to the other nodes holding one,
+     * so every device of the user gets it, wherever it is connected
+     *
+     * @return false if the user has no socket on any live node
+     */
+    public boolean toUser(String userId, String event, Object data) {
+        boolean delivered = socketClientRegistry.sendToUser(userId, event, data) > 0;
+
+        String self = presenceService.getNodeId();
+        Envelope envelope = null;
+        for (String node : presenceService.getNodes(userId)) {
+            if (node.equals(self)) continue;
+            if (envelope == null) {
+                envelope = new Envelope(self, null, userId, event, MAPPER.valueToTree(data));
+            }
+            publish(NODE_CHANNEL_PREFIX + node, envelope);
+            delivered = true;
+        }
+        return delivered;
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        try {
+            Envelope envelope = MAPPER.readValue(message.getBody(), Envelope.class);
+            if (presenceService.getNodeId().equals(envelope.origin())) return;
+
+            Object data = MAPPER.treeToValue(envelope.data(), Object.class);
+            if (envelope.room() != null) {
+                server.getRoomOperations(envelope.room()).sendEvent(envelope.event(), data);
+            } else {
+                socketClientRegistry.sendToUser(envelope.userId(), envelope.event(), data);
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to relay socket event: {}", new String(message.getBody(), StandardCharsets.UTF_8), e);
+        }
+    }
+
+    private void publish(String channel, Envelope envelope) {
+        try {
+            redisTemplate.convertAndSend(channel, MAPPER.writeValueAsString(envelope));
+        } catch (Exception e) {
+            log.error("❌ Failed to publish socket event {} to {}", envelope.event(), channel, e);
+        }
+    }
+}
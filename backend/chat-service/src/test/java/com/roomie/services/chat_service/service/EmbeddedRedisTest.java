@@ -0,0 +1,49 @@
+package com.roomie.services.chat_service.service;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Embedded Redis on a free port, started once per test class; call {@link #flushRedis()} to start
+ * a test from an empty server.
+ */
+abstract class EmbeddedRedisTest {
+
+    private static RedisServer redisServer;
+
+    protected static LettuceConnectionFactory connectionFactory;
+    protected static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    protected static void flushRedis() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+}
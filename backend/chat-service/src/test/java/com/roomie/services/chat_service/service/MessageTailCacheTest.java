@@ -0,0 +1,81 @@
+package com.roomie.services.chat_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.roomie.services.chat_service.entity.ChatMessage;
+import com.roomie.services.chat_service.entity.ParticipantInfo;
+
+class MessageTailCacheTest extends EmbeddedRedisTest {
+
+    private MessageTailCache cache;
+
+    @BeforeEach
+    void flush() {
+        flushRedis();
+        cache = new MessageTailCache(redisTemplate, 3, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void pushIsIgnoredUntilTheTailIsFilled() {
+        cache.push(message("m1", 1));
+
+        assertThat(cache.get("c1")).isNull();
+    }
+
+    @Test
+    void filledTailKeepsTheLatestMessagesNewestFirst() {
+        cache.fill("c1", cache.version("c1"), List.of(message("m2", 2), message("m1", 1)));
+        cache.push(message("m3", 3));
+        cache.push(message("m4", 4));
+
+        MessageTailCache.Tail tail = cache.get("c1");
+
+        assertThat(tail.messages()).extracting(ChatMessage::getId).containsExactly("m4", "m3", "m2");
+        assertThat(tail.complete()).isFalse();
+        assertThat(tail.messages().get(0).getCreatedDate()).isEqualTo(Instant.ofEpochSecond(4));
+    }
+
+    @Test
+    void shortTailHoldsTheWholeConversation() {
+        cache.fill("c1", cache.version("c1"), List.of(message("m1", 1)));
+
+        assertThat(cache.get("c1").complete()).isTrue();
+    }
+
+    @Test
+    void fillIsDroppedWhenAMessageArrivedWhileLoading() {
+        String version = cache.version("c1");
+        cache.push(message("m2", 2));
+
+        // Loaded from Mongo before m2 was saved
+        cache.fill("c1", version, List.of(message("m1", 1)));
+
+        assertThat(cache.get("c1")).isNull();
+    }
+
+    @Test
+    void messageSavedBeforeTheLoadButPushedAfterIsListedOnce() {
+        String version = cache.version("c1");
+        cache.fill("c1", version, List.of(message("m2", 2), message("m1", 1)));
+        cache.push(message("m2", 2));
+
+        assertThat(cache.get("c1").messages()).extracting(ChatMessage::getId).containsExactly("m2", "m1");
+    }
+
+    private static ChatMessage message(String id, long second) {
+        return ChatMessage.builder()
+                .id(id)
+                .conversationId("c1")
+                .message("tin nhắn " + id)
+                .sender(ParticipantInfo.builder().userId("alice").build())
+                .createdDate(Instant.ofEpochSecond(second))
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.roomie.services.chat_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.corundumstudio.socketio.BroadcastOperations;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIOServer;
+
+/**
+ * Two chat-service nodes sharing an embedded Redis: events emitted on one node must reach
+ * sockets and rooms held by the other.
+ */
+class SocketEventBusTest extends EmbeddedRedisTest {
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        flushRedis();
+        nodeA = new Node("node-a");
+        nodeB = new Node("node-b");
+    }
+
+    @AfterEach
+    void stopNodes() throws Exception {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    void userEventReachesTheNodeHoldingTheSocket() {
+        SocketIOClient bobPhone = nodeB.connect("bob");
+        SocketIOClient bobLaptop = nodeB.connect("bob");
+        Map<String, Object> offer = Map.of("from", "alice", "to", "bob");
+
+        boolean delivered = nodeA.bus.toUser("bob", "incoming-call", offer);
+
+        assertThat(delivered).isTrue();
+        verify(bobPhone, timeout(2000)).sendEvent(eq("incoming-call"), eq(offer));
+        verify(bobLaptop, timeout(2000)).sendEvent(eq("incoming-call"), eq(offer));
+    }
+
+    @Test
+    void userEventOnTheSameNodeIsNotRelayed() {
+        SocketIOClient bob = nodeA.connect("bob");
+        Map<String, Object> candidate = Map.of("to", "bob", "candidate", "c1");
+
+        assertThat(nodeA.bus.toUser("bob", "ice-candidate", candidate)).isTrue();
+
+        // Delivered once, locally; node B has nobody to relay it to
+        verify(bob, after(300).times(1)).sendEvent(eq("ice-candidate"), eq(candidate));
+    }
+
+    @Test
+    void userEventReachesEveryNodeOfAUserConnectedToSeveral() {
+        SocketIOClient bobPhone = nodeA.connect("bob");
+        SocketIOClient bobLaptop = nodeB.connect("bob");
+        Map<String, Object> offer = Map.of("from", "alice", "to", "bob");
+
+        assertThat(nodeA.bus.toUser("bob", "incoming-call", offer)).isTrue();
+
+        // Emitted locally on A and relayed to B only, so the phone gets it exactly once
+        verify(bobLaptop, timeout(2000)).sendEvent(eq("incoming-call"), eq(offer));
+        verify(bobPhone, after(300).times(1)).sendEvent(eq("incoming-call"), eq(offer));
+    }
+
+    @Test
+    void offlineUserIsReportedAsNotDelivered() {
+        SocketIOClient bob = nodeB.connect("bob");
+        nodeB.disconnect("bob", bob);
+
+        assertThat(nodeA.bus.toUser("bob", "incoming-call", Map.of("to", "bob")))
+                .isFalse();
+        assertThat(nodeA.presence.isOnline("bob")).isFalse();
+        assertThat(redisTemplate.hasKey("chat:presence:bob")).isFalse();
+    }
+
+    @Test
+    void roomBroadcastIsEmittedOnceOnEveryNode() {
+        BroadcastOperations roomOnA = nodeA.room("conversation-1");
+        BroadcastOperations roomOnB = nodeB.room("conversation-1");
+        Map<String, Object> message = Map.of("id", "m1", "message", "xin chào");
+
+        nodeA.bus.toRoom("conversation-1", "new_message", message);
+
+        verify(roomOnB, timeout(2000)).sendEvent(eq("new_message"), eq(message));
+        // Node A emitted it locally and must ignore its own relay
+        verify(roomOnA, after(300).times(1)).sendEvent(eq("new_message"), eq(message));
+    }
+
+    @Test
+    void presenceOfDeadNodeIsIgnored() {
+        // Registered a socket, then stopped heartbeating without cleaning up
+        PresenceService ghost = new PresenceService(redisTemplate, "ghost", Duration.ofSeconds(3));
+        ghost.connected("carol");
+
+        assertThat(nodeA.presence.getNodes("carol")).isEmpty();
+        assertThat(nodeA.bus.toUser("carol", "incoming-call", Map.of("to", "carol")))
+                .isFalse();
+        assertThat(redisTemplate.opsForHash().hasKey("chat:presence:carol", "ghost"))
+                .isFalse();
+    }
+
+    /** One chat-service instance: its own registry, presence, mocked Socket.IO server and subscriptions */
+    private static class Node {
+        final SocketIOServer server = mock(SocketIOServer.class);
+        final SocketClientRegistry registry = new SocketClientRegistry();
+        final PresenceService presence;
+        final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        final SocketEventBus bus;
+
+        Node(String nodeId) {
+            presence = new PresenceService(redisTemplate, nodeId, Duration.ofSeconds(3));
+            presence.start();
+
+            container.setConnectionFactory(connectionFactory);
+            container.afterPropertiesSet();
+            bus = new SocketEventBus(server, registry, presence, redisTemplate, container);
+            bus.subscribe();
+            container.start();
+        }
+
+        SocketIOClient connect(String userId) {
+            SocketIOClient client = mock(SocketIOClient.class);
+            when(client.get("userId")).thenReturn(userId);
+            when(client.isChannelOpen()).thenReturn(true);
+            if (registry.register(userId, client)) {
+                presence.connected(userId);
+            }
+            return client;
+        }
+
+        void disconnect(String userId, SocketIOClient client) {
+            if (registry.unregister(client) != null) {
+                presence.disconnected(userId);
+            }
+        }
+
+        BroadcastOperations room(String room) {
+            BroadcastOperations operations = mock(BroadcastOperations.class);
+            when(server.getRoomOperations(room)).thenReturn(operations);
+            return operations;
+        }
+
+        void stop() throws Exception {
+            container.stop();
+            container.destroy();
+            presence.stop();
+        }
+    }
+}
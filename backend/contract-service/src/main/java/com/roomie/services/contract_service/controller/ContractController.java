@@ -42,6 +42,11 @@ public class ContractController {
         return ApiResponse.success(contract, "Fetched contract successfully");
     }
 
+    @PostMapping("/batch")
+    public ApiResponse<List<ContractResponse>> getByIds(@RequestBody List<String> ids) {
+        return ApiResponse.success(contractService.getByIds(ids), "Fetched contracts successfully");
+    }
+
     @GetMapping("/my-contracts")
     public ApiResponse<Map<String, List<ContractResponse>>> getMyContracts() {
         String userId = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -38,6 +38,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -145,6 +146,13 @@ public class ContractService {
         }
     }
 
+    /** One $in query for many contracts; unknown ids are simply absent from the result. */
+    public List<ContractResponse> getByIds(Collection<String> ids) {
+        return contractRepository.findAllById(ids).stream()
+                .map(contractMapper::toResponse)
+                .toList();
+    }
+
     public Optional<ContractResponse> getById(String id) {
         Optional<Contract> cached = cacheService.get(cacheKey(id), Contract.class);
         if (cached.isPresent())
@@ -0,0 +1,23 @@
+package com.roomie.services.notification_service.dto.event;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MeterOcrJobEvent {
+    String jobId;
+    String meterReadingId;
+    String meterType;   // ELECTRICITY, WATER
+    String userId;
+    String status;      // RUNNING, COMPLETED, FAILED
+    Double value;
+    Double confidence;
+    String error;
+    Instant timestamp;
+}
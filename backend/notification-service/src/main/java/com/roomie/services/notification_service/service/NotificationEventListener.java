@@ -24,6 +24,7 @@ import java.util.Map;
 public class NotificationEventListener {
 
     NotificationService notificationService;
+    WebSocketNotificationService webSocketNotificationService;
     ObjectMapper objectMapper;
 
     // ==================== BOOKING EVENTS ====================
@@ -595,6 +596,25 @@ public class NotificationEventListener {
         }
     }
 
+    // ==================== METER OCR EVENTS ====================
+
+    /**
+     * Progress of a queued meter photo OCR: pushed live only, not stored as a notification
+     */
+    @KafkaListener(topics = "meter.ocr.updated", groupId = "notification-service")
+    public void onMeterOcrUpdated(String message, Acknowledgment ack) {
+        try {
+            MeterOcrJobEvent event = parseEvent(message, MeterOcrJobEvent.class);
+            log.debug("Processing meter.ocr.updated event: {} {}", event.getJobId(), event.getStatus());
+
+            webSocketNotificationService.sendMeterOcrUpdate(event.getUserId(), event);
+
+            ack.acknowledge();
+        } catch (Exception e) {
+            log.error("Failed to process meter.ocr.updated event", e);
+        }
+    }
+
     // ==================== HELPER METHODS ====================
 
     private <T> T parseEvent(String message, Class<T> clazz) throws Exception {
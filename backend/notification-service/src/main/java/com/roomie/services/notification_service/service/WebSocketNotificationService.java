@@ -48,6 +48,22 @@ public class WebSocketNotificationService {
         }
     }
 
+    /**
+     * Gửi tiến độ đọc chỉ số đồng hồ (OCR) cho người đã upload ảnh
+     */
+    public void sendMeterOcrUpdate(String userId, Object update) {
+        try {
+            messagingTemplate.convertAndSendToUser(
+                    userId,
+                    "/queue/meter-ocr",
+                    update
+            );
+            log.debug("Sent meter OCR update to user: {}", userId);
+        } catch (Exception e) {
+            log.error("Failed to send meter OCR update to user: {}", userId, e);
+        }
+    }
+
     /**
      * Broadcast notification to all users
      */
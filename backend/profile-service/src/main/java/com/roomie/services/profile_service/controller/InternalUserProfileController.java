@@ -13,6 +13,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
@@ -26,6 +28,13 @@ public class InternalUserProfileController {
                 .build();
     }
 
+    @PostMapping("/internal/users/batch")
+    ApiResponse<List<UserProfileResponse>> getProfiles(@RequestBody List<String> userIds) {
+        return ApiResponse.<List<UserProfileResponse>>builder()
+                .result(userProfileService.getByUserIds(userIds))
+                .build();
+    }
+
     @GetMapping("/internal/users/{userId}")
     ApiResponse<UserProfileResponse> getProfile(@PathVariable String userId) {
         return ApiResponse.<UserProfileResponse>builder()
@@ -0,0 +1,25 @@
+package com.roomie.services.profile_service.dto.event;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+/**
+ * Published on profile-updated whenever a profile's public fields change or it is deleted,
+ * so services caching profiles (chat-service) can drop their copy.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ProfileUpdatedEvent {
+    String userId;
+    String username;
+    String firstName;
+    String lastName;
+    String avatar;
+    boolean deleted;
+    Instant timestamp;
+}
@@ -1,5 +1,6 @@
 package com.roomie.services.profile_service.service;
 
+import com.roomie.services.profile_service.dto.event.ProfileUpdatedEvent;
 import com.roomie.services.profile_service.dto.request.ProfileCreationRequest;
 import com.roomie.services.profile_service.dto.request.SearchUserRequest;
 import com.roomie.services.profile_service.dto.request.UpdateProfileRequest;
@@ -18,6 +19,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,6 +27,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -34,11 +37,14 @@ import java.util.Optional;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class UserProfileService {
+    static final String TOPIC_PROFILE_UPDATED = "profile-updated";
+
     UserProfileRepository userProfileRepository;
     UserProfileMapper userProfileMapper;
     FileClient fileClient;
     IdentityClient  identityClient;
     IDCardQRService idCardQRService;
+    KafkaTemplate<String, Object> kafkaTemplate;
 
     public UserProfileResponse updateProfileFromIDCard(MultipartFile idCardImage) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -113,6 +119,7 @@ public class UserProfileService {
 
         UserProfile saved = userProfileRepository.save(profile);
         log.info("Updated profile from IDCard for userId: {} - {}", userId, fullName);
+        publishProfileUpdated(saved);
 
         return userProfileMapper.toUserProfileResponse(saved);
     }
@@ -151,6 +158,7 @@ public class UserProfileService {
         profile.setDob(request.getDob());
 
         userProfileRepository.save(profile);
+        publishProfileUpdated(profile);
 
         return userProfileMapper.toUserProfileResponse(profile);
     }
@@ -168,6 +176,15 @@ public class UserProfileService {
                 .orElseThrow(() -> new AppException(ErrorCode.PROFILE_NOT_FOUND));
     }
 
+    /** One query for many users; ids without a profile are left out */
+    public List<UserProfileResponse> getByUserIds(List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) return List.of();
+
+        return userProfileRepository.findByUserIdIn(userIds).stream()
+                .map(userProfileMapper::toUserProfileResponse)
+                .toList();
+    }
+
     public UserProfileResponse updateAvatar(MultipartFile file) {
         String userId = SecurityContextHolder.getContext().getAuthentication().getName();
 
@@ -184,6 +201,7 @@ public class UserProfileService {
         profile.setAvatar(uploaded.getPublicUrl());
         profile.setUpdatedAt(LocalDateTime.now());
         userProfileRepository.save(profile);
+        publishProfileUpdated(profile);
 
         return userProfileMapper.toUserProfileResponse(profile);
 
@@ -210,6 +228,22 @@ public class UserProfileService {
     @CacheEvict(value = "profile", key = "#userId")
     public void deleteProfile(String userId) {
         userProfileRepository.deleteByUserId(userId);
+        kafkaTemplate.send(TOPIC_PROFILE_UPDATED, userId, ProfileUpdatedEvent.builder()
+                .userId(userId)
+                .deleted(true)
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    private void publishProfileUpdated(UserProfile profile) {
+        kafkaTemplate.send(TOPIC_PROFILE_UPDATED, profile.getUserId(), ProfileUpdatedEvent.builder()
+                .userId(profile.getUserId())
+                .username(profile.getUsername())
+                .firstName(profile.getFirstName())
+                .lastName(profile.getLastName())
+                .avatar(profile.getAvatar())
+                .timestamp(Instant.now())
+                .build());
     }
 
     // HELPER: Tách họ tên tiếng Việt chuẩn
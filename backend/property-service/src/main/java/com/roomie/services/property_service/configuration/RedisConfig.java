@@ -10,6 +10,7 @@ import com.roomie.services.property_service.dto.response.PropertyResponse;
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
 import io.lettuce.core.TimeoutOptions;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
@@ -20,6 +21,9 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.*;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,6 +35,8 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
+    public static final String PROPERTIES_CACHE = "properties";
+
     @Value("${spring.data.redis.host:localhost}")
     private String redisHost;
 
@@ -40,6 +46,15 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${property.cache.local.max-size:10000}")
+    private long localCacheMaxSize;
+
+    @Value("${property.cache.local.ttl:60s}")
+    private Duration localCacheTtl;
+
+    @Value("${property.cache.invalidation-channel:property-service:cache-invalidation}")
+    private String invalidationChannel;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration redisConf = new RedisStandaloneConfiguration();
@@ -62,14 +77,12 @@ public class RedisConfig {
 
     @Bean
     public RedisCacheConfiguration cacheConfiguration() {
-        Jackson2JsonRedisSerializer<PropertyResponse> serializer =
-                new Jackson2JsonRedisSerializer<>(PropertyResponse.class);
-
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
-        serializer.setObjectMapper(objectMapper);
+        Jackson2JsonRedisSerializer<PropertyResponse> serializer =
+                new Jackson2JsonRedisSerializer<>(objectMapper, PropertyResponse.class);
 
         return RedisCacheConfiguration.defaultCacheConfig()
                 .serializeValuesWith(
@@ -80,11 +93,26 @@ public class RedisConfig {
 
 
     @Bean
-    public RedisCacheManager cacheManager(LettuceConnectionFactory connectionFactory) {
-        return RedisCacheManager.builder(connectionFactory)
+    public TwoTierCacheManager cacheManager(LettuceConnectionFactory connectionFactory,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            MeterRegistry meterRegistry) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfiguration())
                 .transactionAware()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                invalidationChannel, localCacheMaxSize, localCacheTtl);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(LettuceConnectionFactory connectionFactory,
+                                                                            TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return container;
     }
 
 }
\ No newline at end of file
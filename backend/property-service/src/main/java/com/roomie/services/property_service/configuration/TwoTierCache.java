@@ -0,0 +1,174 @@
+package com.roomie.services.property_service.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine near-cache (L1) in front of the shared Redis cache (L2).
+ *
+ * Reads try L1, then L2 (promoting hits into L1). Writes and evictions go to both tiers
+ * and are announced through {@link TwoTierCacheManager} so other nodes drop their L1 copy;
+ * miss fills go through {@link #putIfAbsent} and are not announced. A Redis error on lookup
+ * is treated as a miss; on put, evict or clear it is logged and the rest still happens.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final TwoTierCacheManager manager;
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remotePuts;
+    private final Counter remoteEvictions;
+
+    TwoTierCache(String name,
+                 com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                 Cache remote,
+                 TwoTierCacheManager manager,
+                 MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, Tags.of("tier", "l1"));
+
+        Tags remoteTags = Tags.of("cache", name, "tier", "l2");
+        this.remoteHits = meterRegistry.counter("cache.gets", remoteTags.and("result", "hit"));
+        this.remoteMisses = meterRegistry.counter("cache.gets", remoteTags.and("result", "miss"));
+        this.remotePuts = meterRegistry.counter("cache.puts", remoteTags);
+        this.remoteEvictions = meterRegistry.counter("cache.evictions", remoteTags);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        ValueWrapper wrapper;
+        try {
+            wrapper = remote.get(key);
+        } catch (RuntimeException e) {
+            // Redis down: treat as a miss so callers fall back to their loader
+            log.warn("L2 lookup of {}::{} failed: {}", name, key, e.getMessage());
+            return null;
+        }
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+
+        remoteHits.increment();
+        Object storeValue = toStoreValue(wrapper.get());
+        local.put(key, storeValue);
+        return storeValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        putIfAbsent(key, value);
+        return value;
+    }
+
+    /** A write: other nodes must drop their L1 copy */
+    @Override
+    public void put(Object key, Object value) {
+        try {
+            remote.put(key, value);
+            remotePuts.increment();
+        } catch (RuntimeException e) {
+            log.warn("L2 put of {}::{} failed: {}", name, key, e.getMessage());
+        }
+        local.put(key, toStoreValue(value));
+        manager.publishEvict(name, key);
+    }
+
+    /**
+     * A miss fill: nothing changed, so no invalidation is published, and a value written to L2
+     * meanwhile is kept
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = null;
+        try {
+            existing = remote.putIfAbsent(key, value);
+            remotePuts.increment();
+        } catch (RuntimeException e) {
+            log.warn("L2 fill of {}::{} failed: {}", name, key, e.getMessage());
+        }
+        if (existing != null) {
+            return existing;
+        }
+        local.put(key, toStoreValue(value));
+        return null;
+    }
+
+    /** Runs after the write committed, so it never throws: L1 and other nodes are invalidated even if L2 is down */
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        try {
+            remote.evict(key);
+            remoteEvictions.increment();
+        } catch (RuntimeException e) {
+            log.warn("L2 evict of {}::{} failed: {}", name, key, e.getMessage());
+        }
+        manager.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            log.warn("L2 clear of {} failed: {}", name, e.getMessage());
+        }
+        manager.publishClear(name);
+    }
+
+    // ===== Invalidations received from other nodes =====
+
+    void evictLocal(Object key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+}
@@ -0,0 +1,120 @@
+package com.roomie.services.property_service.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager that layers a per-node Caffeine cache over the Redis cache manager.
+ *
+ * Every put / evict / clear is published on a Redis channel as
+ * {@code <nodeId>|E|<cache>|<key>} or {@code <nodeId>|C|<cache>}; each node listens on
+ * that channel and drops the matching L1 entries, ignoring its own messages. The short
+ * L1 TTL bounds staleness if a message is lost while a node is disconnected.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long localMaxSize;
+    private final Duration localTtl;
+
+    private final Counter publishedInvalidations;
+    private final Counter receivedInvalidations;
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               String channel,
+                               long localMaxSize,
+                               Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+
+        this.publishedInvalidations = meterRegistry.counter("cache.invalidations", "direction", "published");
+        this.receivedInvalidations = meterRegistry.counter("cache.invalidations", "direction", "received");
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    private TwoTierCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+
+        return new TwoTierCache(name, local, remoteCacheManager.getCache(name), this, meterRegistry);
+    }
+
+    // ===== Pub/sub invalidation =====
+
+    void publishEvict(String cacheName, Object key) {
+        publish(nodeId + "|E|" + cacheName + "|" + key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(nodeId + "|C|" + cacheName);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            publishedInvalidations.increment();
+        } catch (Exception e) {
+            // Other nodes fall back to the L1 TTL
+            log.warn("Failed to publish cache invalidation {}: {}", message, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        receivedInvalidations.increment();
+        if ("C".equals(parts[1])) {
+            cache.clearLocal();
+        } else if (parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
@@ -3,16 +3,27 @@ package com.roomie.services.property_service.controller;
 import com.roomie.services.property_service.dto.request.Model3dCallbackRequest;
 import com.roomie.services.property_service.dto.request.PropertyRequest;
 import com.roomie.services.property_service.dto.response.ApiResponse;
+import com.roomie.services.property_service.dto.response.CursorPageResponse;
 import com.roomie.services.property_service.dto.response.PropertyResponse;
+import com.roomie.services.property_service.dto.response.ReindexStatus;
 import com.roomie.services.property_service.enums.ApprovalStatus;
 import com.roomie.services.property_service.service.PropertyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/internal")
@@ -20,7 +31,11 @@ import java.util.List;
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class InternalPropertyController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int FLUSH_EVERY = 100;
+
     PropertyService propertyService;
+    ObjectMapper objectMapper;
 
     @GetMapping("/pending")
     public ApiResponse<List<PropertyResponse>> getPendingProperties() {
@@ -28,6 +43,20 @@ public class InternalPropertyController {
         return ApiResponse.success(list, "Pending properties retrieved");
     }
 
+    @GetMapping("/pending/page")
+    public ApiResponse<CursorPageResponse<PropertyResponse>> getPendingPropertiesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyService.findByStatusPage(ApprovalStatus.PENDING, cursor, size),
+                "Pending properties retrieved");
+    }
+
+    /** One PropertyResponse JSON object per line, written as the Mongo cursor advances. */
+    @GetMapping(value = "/pending/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPendingProperties() {
+        return ndjson(() -> propertyService.streamByStatus(ApprovalStatus.PENDING));
+    }
+
     @PutMapping("/{id}/approve")
     public ApiResponse<Void> approve(@PathVariable String id) {
         propertyService.approve(id);
@@ -46,6 +75,11 @@ public class InternalPropertyController {
         return ApiResponse.success(response, "Property retrieved");
     }
 
+    @PostMapping("/batch")
+    public ApiResponse<List<PropertyResponse>> getByIds(@RequestBody List<String> ids) {
+        return ApiResponse.success(propertyService.getByIds(ids), "Properties retrieved");
+    }
+
     @PutMapping("/{id}")
     public ApiResponse<Void> update(@PathVariable String id, @RequestBody PropertyRequest dto) {
         propertyService.update(id, dto);
@@ -58,10 +92,20 @@ public class InternalPropertyController {
         return ApiResponse.success(listProperty,"Owner properties retrieved");
     }
 
+    /** One PropertyResponse JSON object per line, written as the Mongo cursor advances. */
+    @GetMapping(value = "/owner/{ownerId}/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPropertiesByOwner(@PathVariable String ownerId) {
+        return ndjson(() -> propertyService.streamByOwner(ownerId));
+    }
+
     @PostMapping("/reindex")
-    public ApiResponse<Void> reindex() {
-        propertyService.reindexAll();
-        return ApiResponse.success(null, "Reindex completed");
+    public ApiResponse<ReindexStatus> reindex() {
+        return ApiResponse.success(propertyService.reindexAll(), "Reindex started");
+    }
+
+    @GetMapping("/reindex/status")
+    public ApiResponse<ReindexStatus> reindexStatus() {
+        return ApiResponse.success(propertyService.getReindexStatus(), "Reindex status retrieved");
     }
 
     @PostMapping("/3d-callback")
@@ -84,5 +128,25 @@ public class InternalPropertyController {
         propertyService.updatePropertyStatus(propertyId, "AVAILABLE");
         return ApiResponse.success("OK", "Property marked as available");
     }
-}
 
+    private ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<PropertyResponse>> source) {
+        StreamingResponseBody body = out -> {
+            try (Stream<PropertyResponse> stream = source.get()) {
+                writeLines(stream.iterator(), out);
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLines(Iterator<PropertyResponse> items, OutputStream out) throws IOException {
+        int written = 0;
+        while (items.hasNext()) {
+            out.write(objectMapper.writeValueAsBytes(items.next()));
+            out.write('\n');
+            if (++written % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+}
@@ -1,11 +1,17 @@
 package com.roomie.services.property_service.controller;
 
+import com.roomie.services.property_service.dto.request.DistanceMatrixRequest;
 import com.roomie.services.property_service.dto.request.PropertyRequest;
+import com.roomie.services.property_service.dto.request.PropertySearchRequest;
 import com.roomie.services.property_service.dto.response.ApiResponse;
+import com.roomie.services.property_service.dto.response.CursorPageResponse;
 import com.roomie.services.property_service.dto.response.DirectionsResponse;
 import com.roomie.services.property_service.dto.response.NearbyPropertyResponse;
+import com.roomie.services.property_service.dto.response.PropertyDistanceResponse;
 import com.roomie.services.property_service.dto.response.PropertyResponse;
+import com.roomie.services.property_service.dto.response.PropertySearchResponse;
 import com.roomie.services.property_service.service.DirectionsService;
+import com.roomie.services.property_service.service.PropertySearchService;
 import com.roomie.services.property_service.service.PropertyService;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
@@ -24,6 +30,7 @@ import java.util.List;
 public class PropertyController {
     PropertyService propertyService;
     DirectionsService directionsService;
+    PropertySearchService propertySearchService;
 
     @PostMapping
     public ApiResponse<PropertyResponse> createProperty(@RequestBody @Valid PropertyRequest request) {
@@ -58,21 +65,50 @@ public class PropertyController {
         return ApiResponse.success(propertyService.getMyProperties(), "Get my property successfully");
     }
 
+    @GetMapping("/owner/me/page")
+    public ApiResponse<CursorPageResponse<PropertyResponse>> getMyPropertiesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyService.getMyPropertiesPage(cursor, size), "Get my property successfully");
+    }
+
     @GetMapping("/owner/{ownerId}")
     public ApiResponse<List<PropertyResponse>> getPropertiesByOwner(@PathVariable String ownerId) {
         return ApiResponse.success(propertyService.getPropertiesByOwner(ownerId), "Get properties by owner successfully");
     }
 
+    @GetMapping("/owner/{ownerId}/page")
+    public ApiResponse<CursorPageResponse<PropertyResponse>> getPropertiesByOwnerPage(
+            @PathVariable String ownerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyService.getPropertiesByOwnerPage(ownerId, cursor, size),
+                "Get properties by owner successfully");
+    }
+
     @GetMapping("/public")
     public ApiResponse<List<PropertyResponse>> getPublicProperties() {
         return ApiResponse.success(propertyService.getAllPublicProperties(), "Get all public property successfully");
     }
 
+    @GetMapping("/public/page")
+    public ApiResponse<CursorPageResponse<PropertyResponse>> getPublicPropertiesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyService.getPublicPropertiesPage(cursor, size),
+                "Get all public property successfully");
+    }
+
     @GetMapping("/search")
     public ApiResponse<List<PropertyResponse>> search(@RequestParam String q) {
         return ApiResponse.success(propertyService.searchFullText(q), "Search results fetched successfully");
     }
 
+    @GetMapping("/search/advanced")
+    public ApiResponse<PropertySearchResponse> advancedSearch(@ModelAttribute PropertySearchRequest request) {
+        return ApiResponse.success(propertySearchService.search(request), "Search results fetched successfully");
+    }
+
     @GetMapping("/nearby")
     public ApiResponse<List<NearbyPropertyResponse>> searchNearby(
             @RequestParam Double lat,
@@ -90,12 +126,23 @@ public class PropertyController {
             @RequestParam Double originLat,
             @RequestParam Double originLng,
             @RequestParam Double destLat,
-            @RequestParam Double destLng) {
+            @RequestParam Double destLng,
+            @RequestParam(defaultValue = "points") String polylineFormat) {
         return ApiResponse.success(
-                directionsService.getDirections(originLat, originLng, destLat, destLng),
+                directionsService.getDirections(originLat, originLng, destLat, destLng,
+                        "encoded".equalsIgnoreCase(polylineFormat)),
                 "Directions fetched successfully");
     }
 
+    @PostMapping("/directions/matrix")
+    public ApiResponse<List<PropertyDistanceResponse>> getDistancesToProperties(
+            @RequestBody @Valid DistanceMatrixRequest request) {
+        return ApiResponse.success(
+                directionsService.getDistancesToProperties(
+                        request.getOriginLat(), request.getOriginLng(), request.getPropertyIds()),
+                "Distances fetched successfully");
+    }
+
     @PostMapping("/{id}/publish")
     public ApiResponse<PropertyResponse> publishProperty(@PathVariable String id) {
         return ApiResponse.success(propertyService.publish(id), "Property published successfully");
@@ -106,11 +153,30 @@ public class PropertyController {
         return ApiResponse.success(propertyService.findByPriceRange(min, max), "Properties fetched by price range");
     }
 
+    @GetMapping("/by-price/page")
+    public ApiResponse<CursorPageResponse<PropertyResponse>> byPricePage(
+            @RequestParam BigDecimal min,
+            @RequestParam BigDecimal max,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyService.findByPriceRangePage(min, max, cursor, size),
+                "Properties fetched by price range");
+    }
+
     @GetMapping("/by-province")
     public ApiResponse<List<PropertyResponse>> byProvince(@RequestParam String province) {
         return ApiResponse.success(propertyService.findByProvince(province), "Properties fetched by province");
     }
 
+    @GetMapping("/by-province/page")
+    public ApiResponse<CursorPageResponse<PropertyResponse>> byProvincePage(
+            @RequestParam String province,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.success(propertyService.findByProvincePage(province, cursor, size),
+                "Properties fetched by province");
+    }
+
     @PostMapping("/{propertyId}/rented")
     public ApiResponse<Void> markAsRented(@PathVariable String propertyId) {
         propertyService.markAsRented(propertyId);
@@ -0,0 +1,25 @@
+package com.roomie.services.property_service.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DistanceMatrixRequest {
+    @NotNull
+    Double originLat;
+    @NotNull
+    Double originLng;
+
+    @NotEmpty
+    @Size(max = 100)
+    List<String> propertyIds;
+}
@@ -0,0 +1,38 @@
+package com.roomie.services.property_service.dto.request;
+
+import com.roomie.services.property_service.enums.PropertyType;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PropertySearchRequest {
+    String q;
+
+    BigDecimal minPrice;
+    BigDecimal maxPrice;
+
+    String province;
+    String district;
+    PropertyType propertyType;
+    Integer minBedrooms;
+    List<String> amenities;     // every amenity must be present
+
+    Double lat;
+    Double lng;
+    Double radiusKm;
+
+    /** RELEVANCE (default when q is set), NEWEST (default otherwise), PRICE_ASC, PRICE_DESC, DISTANCE */
+    String sort;
+
+    @Builder.Default
+    Integer size = 20;
+    /** Opaque search_after token returned as nextCursor by the previous page */
+    String cursor;
+}
@@ -0,0 +1,16 @@
+package com.roomie.services.property_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    List<T> items;
+    String nextCursor;   // null on the last page
+}
@@ -16,6 +16,8 @@ public class DirectionsResponse {
     String durationText;
     long durationSeconds;
     List<double[]> polylinePoints;
+    /** Google encoded polyline, returned instead of polylinePoints when polylineFormat=encoded */
+    String encodedPolyline;
     String startAddress;
     String endAddress;
 }
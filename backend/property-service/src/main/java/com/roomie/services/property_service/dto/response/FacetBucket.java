@@ -0,0 +1,14 @@
+package com.roomie.services.property_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FacetBucket {
+    String key;
+    long count;
+}
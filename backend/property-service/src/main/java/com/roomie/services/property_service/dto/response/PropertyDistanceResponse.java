@@ -0,0 +1,18 @@
+package com.roomie.services.property_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PropertyDistanceResponse {
+    String propertyId;
+    String status;          // OK, NO_LOCATION, NOT_FOUND, ZERO_RESULTS, ...
+    String distanceText;
+    Long distanceMeters;
+    String durationText;
+    Long durationSeconds;
+}
@@ -0,0 +1,19 @@
+package com.roomie.services.property_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PropertySearchResponse {
+    List<PropertyResponse> items;
+    long total;
+    Map<String, List<FacetBucket>> facets;  // propertyType, province, district, bedrooms, amenities, price
+    String nextCursor;                      // null on the last page
+}
@@ -0,0 +1,30 @@
+package com.roomie.services.property_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReindexStatus {
+    String jobId;
+    String state;           // RUNNING, COMPLETED, FAILED
+    String targetIndex;     // versioned index that the alias is swapped to on completion
+
+    long total;             // listings in Mongo when the job started
+    long processed;
+    long indexed;
+    long geocoded;
+    long failed;
+
+    Double progressPercent;
+    Double docsPerSecond;
+
+    Instant startedAt;
+    Instant finishedAt;
+    String error;
+}
@@ -2,6 +2,9 @@ package com.roomie.services.property_service.entity;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 
 @Data
 @Builder
@@ -17,4 +20,8 @@ public class Address {
     String street;
     String houseNumber;
     String location; // có thể lưu lat,lng dạng "10.762622,106.660172"
+
+    /** Typed copy of {@link #location} (x = lng, y = lat) backing the 2dsphere nearby query */
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    GeoJsonPoint point;
 }
@@ -3,6 +3,7 @@ package com.roomie.services.property_service.entity;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
@@ -14,11 +15,13 @@ import java.time.Instant;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Document(collection = "favorites")
+@CompoundIndex(name = "user_property_idx", def = "{'userId': 1, 'propertyId': 1}")
 public class Favorite {
     @MongoId
     String id;
 
     String userId;
+    @Indexed
     String propertyId;
 
     Instant createdAt;
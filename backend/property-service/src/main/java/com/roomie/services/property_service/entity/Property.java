@@ -6,6 +6,8 @@ import com.roomie.services.property_service.enums.PropertyStatus;
 import com.roomie.services.property_service.enums.PropertyType;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
@@ -19,6 +21,16 @@ import java.util.List;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Document(collection = "properties")
+// Keyset pagination: the filtered / sorted fields followed by _id, so each page is an index range scan
+@CompoundIndexes({
+        @CompoundIndex(name = "status_id_idx", def = "{'status': 1, '_id': 1}"),
+        @CompoundIndex(name = "status_property_status_id_idx", def = "{'status': 1, 'propertyStatus': 1, '_id': 1}"),
+        @CompoundIndex(name = "owner_id_idx", def = "{'owner.ownerId': 1, '_id': 1}"),
+        @CompoundIndex(name = "price_id_idx", def = "{'monthlyRent': 1, '_id': 1}"),
+        // Case-insensitive, matching the province page query's collation
+        @CompoundIndex(name = "province_id_idx", def = "{'address.province': 1, '_id': 1}",
+                collation = "{'locale': 'vi', 'strength': 2}")
+})
 public class Property {
     @MongoId
     String propertyId;
@@ -51,6 +63,9 @@ public class Property {
 
     ApprovalStatus status;
 
+    /** Denormalized number of favorites, maintained with $inc when favorites are toggled */
+    Long favoriteCount;
+
     /** URL to the generated 3D model file (GLB/GLTF format) */
     String model3dUrl;
     /** Current status of 3D reconstruction: NONE, PROCESSING, COMPLETED, FAILED */
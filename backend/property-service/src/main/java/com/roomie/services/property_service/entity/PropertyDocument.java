@@ -71,6 +71,9 @@ public class PropertyDocument {
     List<String> kitchen;
     @Field(type = FieldType.Nested)
     List<String> others;
+    /** All amenity categories flattened, used for exact-match filtering and facets */
+    @Field(type = FieldType.Keyword)
+    List<String> amenities;
 
     @Field(type = FieldType.Nested)
     List<Media> mediaList;
@@ -21,6 +21,11 @@ public enum ErrorCode {
     INSUFFICIENT_IMAGES(1012, "At least 8 images required for 3D reconstruction", HttpStatus.BAD_REQUEST),
     MODEL3D_ALREADY_PROCESSING(1013, "3D model is already being processed", HttpStatus.CONFLICT),
     MODEL3D_WORKFLOW_ERROR(1014, "Failed to trigger 3D reconstruction workflow", HttpStatus.INTERNAL_SERVER_ERROR),
+    INVALID_SEARCH_CURSOR(1015, "Invalid search cursor", HttpStatus.BAD_REQUEST),
+    REINDEX_ALREADY_RUNNING(1016, "A reindex job is already running", HttpStatus.CONFLICT),
+    INVALID_PAGE_CURSOR(1017, "Invalid page cursor", HttpStatus.BAD_REQUEST),
+    INVALID_SORT(1018, "Sort must be RELEVANCE, NEWEST, PRICE_ASC, PRICE_DESC or DISTANCE (with lat, lng and radiusKm)",
+            HttpStatus.BAD_REQUEST),
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
@@ -6,8 +6,15 @@ import com.roomie.services.property_service.entity.*;
 import org.mapstruct.*;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
 @Mapper(componentModel = "spring", imports = {GeoPoint.class})
 public interface PropertyMapper {
+    // Derived from address.location by GeocodingService.syncGeoPoint
+    @Mapping(target = "address.point", ignore = true)
     Property toEntity(PropertyRequest dto);
 
     PropertyResponse toResponse(Property entity);
@@ -21,7 +28,19 @@ public interface PropertyMapper {
     @Mapping(target = "houseNumber", source = "address.houseNumber")
     @Mapping(target = "fullAddress", source = "address.fullAddress")
     @Mapping(target = "location", source = "address.location")
+    @Mapping(target = "amenities", expression = "java(flattenAmenities(entity.getAmenities()))")
     PropertyDocument toDocument(Property entity);
 
+    @Mapping(target = "amenities", ignore = true)
     Property toEntityFromDocument(PropertyDocument doc);
+
+    default List<String> flattenAmenities(Amenities amenities) {
+        if (amenities == null) return null;
+
+        List<String> all = new ArrayList<>();
+        Stream.of(amenities.getHomeSafety(), amenities.getBedroom(), amenities.getKitchen(), amenities.getOthers())
+                .filter(Objects::nonNull)
+                .forEach(all::addAll);
+        return all;
+    }
 }
\ No newline at end of file
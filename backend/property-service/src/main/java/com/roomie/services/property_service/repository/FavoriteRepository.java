@@ -20,5 +20,5 @@ public interface FavoriteRepository extends MongoRepository<Favorite, String> {
 
     boolean existsByUserIdAndPropertyId(String userId, String propertyId);
 
-    void deleteByUserIdAndPropertyId(String userId, String propertyId);
+    long deleteByUserIdAndPropertyId(String userId, String propertyId);
 }
\ No newline at end of file
@@ -2,12 +2,22 @@ package com.roomie.services.property_service.repository;
 
 import com.roomie.services.property_service.entity.Property;
 import com.roomie.services.property_service.enums.ApprovalStatus;
+import com.roomie.services.property_service.enums.PropertyLabel;
 import com.roomie.services.property_service.enums.PropertyStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PropertyRepository extends MongoRepository<Property, String> {
@@ -25,4 +35,24 @@ public interface PropertyRepository extends MongoRepository<Property, String> {
     List<Property> findByStatusAndPropertyStatus(ApprovalStatus status, PropertyStatus propertyStatus);
 
     List<Property> findByOwner_OwnerId(String ownerId);
+
+    // $geoNear on the address.point 2dsphere index: filtered, sorted by distance and paged server-side
+    GeoResults<Property> findByStatusAndPropertyStatusAndAddress_PointNear(
+            ApprovalStatus status, PropertyStatus propertyStatus, Point point, Distance maxDistance, Pageable pageable);
+
+    // Cursor over id + point only, used to (re)build the in-memory geo index
+    @Query(value = "{ 'status': ?0, 'propertyStatus': ?1, 'address.point': { $exists: true } }",
+            fields = "{ '_id': 1, 'address.point': 1 }")
+    Stream<Property> streamGeoPointsByStatusAndPropertyStatus(ApprovalStatus status, PropertyStatus propertyStatus);
+
+    // Label candidates whose age bucket may have changed since the last run
+    List<Property> findByPropertyLabelAndCreatedAtBefore(PropertyLabel label, Instant createdBefore);
+
+    List<Property> findByCreatedAtAfterAndPropertyLabelNotIn(Instant createdAfter, Collection<PropertyLabel> labels);
+
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'favoriteCount': 1 }")
+    Optional<Property> findFavoriteCountByPropertyId(String propertyId);
+
+    // Cursor over the whole collection, used by the reindex job
+    Stream<Property> streamAllBy();
 }
\ No newline at end of file
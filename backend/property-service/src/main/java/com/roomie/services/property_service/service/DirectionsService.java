@@ -1,35 +1,170 @@
 package com.roomie.services.property_service.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.roomie.services.property_service.dto.response.DirectionsResponse;
-import lombok.RequiredArgsConstructor;
+import com.roomie.services.property_service.dto.response.PropertyDistanceResponse;
+import com.roomie.services.property_service.entity.Property;
+import com.roomie.services.property_service.repository.PropertyRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.util.*;
 
+/**
+ * Google Directions / Distance Matrix client.
+ *
+ * Coordinates are quantized to 4 decimals (~11 m) before calling Google, and successful
+ * answers are cached on that key, so repeated commute lookups from the same spot to the
+ * same listings are served from memory.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DirectionsService {
 
+    private static final String DIRECTIONS_API_URL = "https://maps.googleapis.com/maps/api/directions/json";
+    private static final String DISTANCE_MATRIX_API_URL = "https://maps.googleapis.com/maps/api/distancematrix/json";
+
+    // Distance Matrix accepts at most 25 destinations per origin
+    private static final int MATRIX_BATCH_SIZE = 25;
+    private static final double QUANTUM = 1e4;
+
     @Value("${property.google-maps-api-key}")
     private String googleMapsApiKey;
 
+    private final PropertyRepository propertyRepository;
     private final RestTemplate restTemplate = new RestTemplate();
 
-    private static final String DIRECTIONS_API_URL = "https://maps.googleapis.com/maps/api/directions/json";
+    private final Cache<String, RouteSummary> routeCache;
+    private final Cache<String, ElementSummary> distanceCache;
+
+    public DirectionsService(PropertyRepository propertyRepository,
+                             @Value("${property.directions.cache-ttl:6h}") Duration cacheTtl,
+                             @Value("${property.directions.cache-size:50000}") long cacheSize) {
+        this.propertyRepository = propertyRepository;
+        this.routeCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.distanceCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
 
-    @SuppressWarnings("unchecked")
     public DirectionsResponse getDirections(double originLat, double originLng,
                                             double destLat, double destLng) {
-        String origin = originLat + "," + originLng;
-        String destination = destLat + "," + destLng;
+        return getDirections(originLat, originLng, destLat, destLng, false);
+    }
+
+    public DirectionsResponse getDirections(double originLat, double originLng,
+                                            double destLat, double destLng, boolean encodedPolyline) {
+        String origin = quantize(originLat, originLng);
+        String destination = quantize(destLat, destLng);
+
+        RouteSummary route = routeCache.getIfPresent(origin + ">" + destination);
+        if (route == null) {
+            route = fetchRoute(origin, destination);
+            if (route == null) {
+                return DirectionsResponse.builder()
+                        .distanceText("N/A")
+                        .distanceMeters(0)
+                        .durationText("N/A")
+                        .durationSeconds(0)
+                        .polylinePoints(List.of())
+                        .build();
+            }
+            routeCache.put(origin + ">" + destination, route);
+        }
+
+        DirectionsResponse.DirectionsResponseBuilder response = DirectionsResponse.builder()
+                .distanceText(route.distanceText())
+                .distanceMeters(route.distanceMeters())
+                .durationText(route.durationText())
+                .durationSeconds(route.durationSeconds())
+                .startAddress(route.startAddress())
+                .endAddress(route.endAddress());
+
+        if (encodedPolyline) {
+            response.encodedPolyline(route.polyline());
+        } else {
+            response.polylinePoints(decodePolyline(route.polyline()));
+        }
+        return response.build();
+    }
+
+    /**
+     * Driving distance and time from one origin to many listings: one property lookup,
+     * cached pairs skipped, the rest sent to the Distance Matrix API in batches of 25.
+     */
+    public List<PropertyDistanceResponse> getDistancesToProperties(double originLat, double originLng,
+                                                                  List<String> propertyIds) {
+        String origin = quantize(originLat, originLng);
+
+        Map<String, String> destinationById = new HashMap<>();
+        for (Property p : propertyRepository.findAllById(propertyIds)) {
+            GeoJsonPoint point = p.getAddress() != null ? p.getAddress().getPoint() : null;
+            if (point != null) {
+                destinationById.put(p.getPropertyId(), quantize(point.getY(), point.getX()));
+            } else {
+                destinationById.put(p.getPropertyId(), null);
+            }
+        }
+
+        Map<String, ElementSummary> byDestination = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String destination : new LinkedHashSet<>(destinationById.values())) {
+            if (destination == null) continue;
+            ElementSummary cached = distanceCache.getIfPresent(origin + ">" + destination);
+            if (cached != null) {
+                byDestination.put(destination, cached);
+            } else {
+                missing.add(destination);
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += MATRIX_BATCH_SIZE) {
+            List<String> batch = missing.subList(from, Math.min(from + MATRIX_BATCH_SIZE, missing.size()));
+            byDestination.putAll(fetchDistances(origin, batch));
+        }
 
+        List<PropertyDistanceResponse> results = new ArrayList<>(propertyIds.size());
+        for (String propertyId : propertyIds) {
+            if (!destinationById.containsKey(propertyId)) {
+                results.add(PropertyDistanceResponse.builder().propertyId(propertyId).status("NOT_FOUND").build());
+                continue;
+            }
+            String destination = destinationById.get(propertyId);
+            if (destination == null) {
+                results.add(PropertyDistanceResponse.builder().propertyId(propertyId).status("NO_LOCATION").build());
+                continue;
+            }
+
+            ElementSummary element = byDestination.get(destination);
+            if (element == null) {
+                results.add(PropertyDistanceResponse.builder().propertyId(propertyId).status("UNAVAILABLE").build());
+                continue;
+            }
+            results.add(PropertyDistanceResponse.builder()
+                    .propertyId(propertyId)
+                    .status(element.status())
+                    .distanceText(element.distanceText())
+                    .distanceMeters(element.distanceMeters())
+                    .durationText(element.durationText())
+                    .durationSeconds(element.durationSeconds())
+                    .build());
+        }
+        return results;
+    }
+
+    private RouteSummary fetchRoute(String origin, String destination) {
         String url = UriComponentsBuilder.fromHttpUrl(DIRECTIONS_API_URL)
                 .queryParam("origin", origin)
                 .queryParam("destination", destination)
@@ -38,50 +173,69 @@ public class DirectionsService {
                 .queryParam("key", googleMapsApiKey)
                 .toUriString();
 
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+        GoogleDirections response = restTemplate.getForObject(url, GoogleDirections.class);
 
-        if (response == null || !"OK".equals(response.get("status"))) {
+        if (response == null || !"OK".equals(response.status())) {
             log.warn("Google Directions API returned status: {}",
-                    response != null ? response.get("status") : "null");
-            return DirectionsResponse.builder()
-                    .distanceText("N/A")
-                    .distanceMeters(0)
-                    .durationText("N/A")
-                    .durationSeconds(0)
-                    .polylinePoints(List.of())
-                    .build();
+                    response != null ? response.status() : "null");
+            return null;
         }
+        if (response.routes() == null || response.routes().isEmpty()) {
+            return null;
+        }
+
+        GoogleRoute route = response.routes().get(0);
+        GoogleLeg leg = route.legs().get(0);
+
+        return new RouteSummary(
+                leg.distance().text(), leg.distance().value(),
+                leg.duration().text(), leg.duration().value(),
+                route.overviewPolyline() != null ? route.overviewPolyline().points() : "",
+                leg.startAddress(), leg.endAddress());
+    }
 
-        List<Map<String, Object>> routes = (List<Map<String, Object>>) response.get("routes");
-        if (routes == null || routes.isEmpty()) {
-            return DirectionsResponse.builder()
-                    .distanceText("N/A")
-                    .distanceMeters(0)
-                    .durationText("N/A")
-                    .durationSeconds(0)
-                    .polylinePoints(List.of())
-                    .build();
+    private Map<String, ElementSummary> fetchDistances(String origin, List<String> destinations) {
+        String url = UriComponentsBuilder.fromHttpUrl(DISTANCE_MATRIX_API_URL)
+                .queryParam("origins", origin)
+                .queryParam("destinations", String.join("|", destinations))
+                .queryParam("mode", "driving")
+                .queryParam("language", "vi")
+                .queryParam("key", googleMapsApiKey)
+                .toUriString();
+
+        Map<String, ElementSummary> results = new HashMap<>();
+        GoogleDistanceMatrix response;
+        try {
+            response = restTemplate.getForObject(url, GoogleDistanceMatrix.class);
+        } catch (Exception e) {
+            log.error("Google Distance Matrix call failed: {}", e.getMessage());
+            return results;
         }
 
-        Map<String, Object> route = routes.get(0);
-        List<Map<String, Object>> legs = (List<Map<String, Object>>) route.get("legs");
-        Map<String, Object> leg = legs.get(0);
+        if (response == null || !"OK".equals(response.status())
+                || response.rows() == null || response.rows().isEmpty()) {
+            log.warn("Google Distance Matrix API returned status: {}",
+                    response != null ? response.status() : "null");
+            return results;
+        }
 
-        Map<String, Object> distance = (Map<String, Object>) leg.get("distance");
-        Map<String, Object> duration = (Map<String, Object>) leg.get("duration");
+        List<GoogleElement> elements = response.rows().get(0).elements();
+        for (int i = 0; i < destinations.size() && i < elements.size(); i++) {
+            GoogleElement e = elements.get(i);
+            ElementSummary summary = "OK".equals(e.status())
+                    ? new ElementSummary("OK", e.distance().text(), e.distance().value(),
+                            e.duration().text(), e.duration().value())
+                    : new ElementSummary(e.status(), null, null, null, null);
 
-        String overviewPolyline = (String) ((Map<String, Object>) route.get("overview_polyline")).get("points");
-        List<double[]> decodedPoints = decodePolyline(overviewPolyline);
+            results.put(destinations.get(i), summary);
+            // NOT_FOUND / ZERO_RESULTS are stable answers for a given pair, so they are cached too
+            distanceCache.put(origin + ">" + destinations.get(i), summary);
+        }
+        return results;
+    }
 
-        return DirectionsResponse.builder()
-                .distanceText((String) distance.get("text"))
-                .distanceMeters(((Number) distance.get("value")).longValue())
-                .durationText((String) duration.get("text"))
-                .durationSeconds(((Number) duration.get("value")).longValue())
-                .polylinePoints(decodedPoints)
-                .startAddress((String) leg.get("start_address"))
-                .endAddress((String) leg.get("end_address"))
-                .build();
+    private static String quantize(double lat, double lng) {
+        return Math.round(lat * QUANTUM) / QUANTUM + "," + Math.round(lng * QUANTUM) / QUANTUM;
     }
 
     private List<double[]> decodePolyline(String encoded) {
@@ -114,4 +268,52 @@ public class DirectionsService {
         }
         return points;
     }
+
+    // ===== Cached values =====
+
+    private record RouteSummary(String distanceText, long distanceMeters,
+                                String durationText, long durationSeconds,
+                                String polyline, String startAddress, String endAddress) {
+    }
+
+    private record ElementSummary(String status, String distanceText, Long distanceMeters,
+                                  String durationText, Long durationSeconds) {
+    }
+
+    // ===== Google API payloads (only the fields we read) =====
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleDirections(String status, List<GoogleRoute> routes) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleRoute(List<GoogleLeg> legs,
+                               @JsonProperty("overview_polyline") GooglePolyline overviewPolyline) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleLeg(GoogleValue distance, GoogleValue duration,
+                             @JsonProperty("start_address") String startAddress,
+                             @JsonProperty("end_address") String endAddress) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GooglePolyline(String points) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleValue(String text, long value) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleDistanceMatrix(String status, List<GoogleRow> rows) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleRow(List<GoogleElement> elements) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record GoogleElement(String status, GoogleValue distance, GoogleValue duration) {
+    }
 }
@@ -12,12 +12,21 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,9 +35,37 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FavoriteService {
 
+    // Per-user set of favorited property ids; the marker member tells "cached, empty" from "not cached"
+    static final String USER_FAVORITES_KEY = "favorites:user:";
+    static final String LOADED_MARKER = "__loaded__";
+    static final Duration USER_FAVORITES_TTL = Duration.ofDays(1);
+    // Bumped on every toggle, so a set loaded from Mongo before the toggle is not installed after it
+    static final String USER_FAVORITES_VERSION_KEY = "favorites:user:ver:";
+
+    /** Install the loaded set unless it is already cached or a toggle happened since the version was read */
+    private static final RedisScript<Long> POPULATE_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('GET', KEYS[2]) or '0' "
+                    + "if version ~= ARGV[1] or redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+                    + "for i = 3, #ARGV do redis.call('SADD', KEYS[1], ARGV[i]) end "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "return 1",
+            Long.class);
+
+    /** Bump the version; add (ARGV[1] = 1) or remove the property only if the set is cached */
+    private static final RedisScript<Long> TOGGLE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[3]) "
+                    + "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+                    + "if ARGV[1] == '1' then redis.call('SADD', KEYS[1], ARGV[2]) "
+                    + "else redis.call('SREM', KEYS[1], ARGV[2]) end "
+                    + "return 1",
+            Long.class);
+
     FavoriteRepository favoriteRepository;
     PropertyRepository propertyRepository;
     PropertyMapper propertyMapper;
+    PropertyLabelService propertyLabelService;
+    StringRedisTemplate redisTemplate;
 
     /**
      * Toggle favorite status (add if not exist, remove if exist)
@@ -44,9 +81,12 @@ public class FavoriteService {
         // Check if already favorited
         boolean exists = favoriteRepository.existsByUserIdAndPropertyId(userId, propertyId);
 
+        propertyLabelService.markFavoritesTouched(propertyId);
         if (exists) {
             // Remove from favorites
-            favoriteRepository.deleteByUserIdAndPropertyId(userId, propertyId);
+            long removed = favoriteRepository.deleteByUserIdAndPropertyId(userId, propertyId);
+            propertyLabelService.onFavoriteCountChanged(propertyId, -removed);
+            updateCachedFavorites(userId, propertyId, false);
             log.info("User {} removed property {} from favorites", userId, propertyId);
             return false;
         } else {
@@ -58,6 +98,8 @@ public class FavoriteService {
                     .build();
 
             favoriteRepository.save(favorite);
+            propertyLabelService.onFavoriteCountChanged(propertyId, 1);
+            updateCachedFavorites(userId, propertyId, true);
             log.info("User {} added property {} to favorites", userId, propertyId);
             return true;
         }
@@ -67,8 +109,21 @@ public class FavoriteService {
      * Check if property is favorited by current user
      */
     public boolean isFavorited(String propertyId) {
-        String userId = getCurrentUserId();
-        return favoriteRepository.existsByUserIdAndPropertyId(userId, propertyId);
+        return isFavorited(getCurrentUserId(), propertyId);
+    }
+
+    public boolean isFavorited(String userId, String propertyId) {
+        String key = USER_FAVORITES_KEY + userId;
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                // Answer from what was loaded: the set is not installed if a toggle raced the load
+                return loadCachedFavorites(userId).contains(propertyId);
+            }
+            return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(key, propertyId));
+        } catch (Exception e) {
+            log.warn("Favorite cache unavailable for user {}: {}", userId, e.getMessage());
+            return favoriteRepository.existsByUserIdAndPropertyId(userId, propertyId);
+        }
     }
 
     /**
@@ -77,20 +132,29 @@ public class FavoriteService {
     public List<PropertyResponse> getMyFavorites() {
         String userId = getCurrentUserId();
 
-        List<Favorite> favorites = favoriteRepository.findByUserId(userId);
+        List<String> propertyIds = favoriteRepository.findByUserId(userId).stream()
+                .map(Favorite::getPropertyId)
+                .distinct()
+                .toList();
+
+        // One $in query for all favorites, returned in favorite order
+        Map<String, Property> byId = new HashMap<>();
+        propertyRepository.findAllById(propertyIds).forEach(p -> byId.put(p.getPropertyId(), p));
 
-        return favorites.stream()
-                .map(fav -> propertyRepository.findById(fav.getPropertyId()))
-                .filter(opt -> opt.isPresent())
-                .map(opt -> propertyMapper.toResponse(opt.get()))
-                .collect(Collectors.toList());
+        return propertyIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(propertyMapper::toResponse)
+                .toList();
     }
 
     /**
      * Get favorite count for a property
      */
     public long getFavoriteCount(String propertyId) {
-        return favoriteRepository.countByPropertyId(propertyId);
+        return propertyRepository.findFavoriteCountByPropertyId(propertyId)
+                .map(Property::getFavoriteCount)
+                .orElseGet(() -> favoriteRepository.countByPropertyId(propertyId));
     }
 
     /**
@@ -99,7 +163,46 @@ public class FavoriteService {
     @Transactional
     public void removeFavorite(String propertyId) {
         String userId = getCurrentUserId();
-        favoriteRepository.deleteByUserIdAndPropertyId(userId, propertyId);
+        propertyLabelService.markFavoritesTouched(propertyId);
+        long removed = favoriteRepository.deleteByUserIdAndPropertyId(userId, propertyId);
+        propertyLabelService.onFavoriteCountChanged(propertyId, -removed);
+        updateCachedFavorites(userId, propertyId, false);
+    }
+
+    private Set<String> loadCachedFavorites(String userId) {
+        String key = USER_FAVORITES_KEY + userId;
+        String version = redisTemplate.opsForValue().get(USER_FAVORITES_VERSION_KEY + userId);
+
+        Set<String> members = favoriteRepository.findByUserId(userId).stream()
+                .map(Favorite::getPropertyId)
+                .collect(Collectors.toSet());
+
+        List<String> args = new ArrayList<>(members.size() + 3);
+        args.add(version != null ? version : "0");
+        args.add(String.valueOf(USER_FAVORITES_TTL.toMillis()));
+        args.add(LOADED_MARKER);
+        args.addAll(members);
+        redisTemplate.execute(POPULATE_SCRIPT, keys(userId), args.toArray());
+        return members;
+    }
+
+    /** Only touch a set that is already cached; otherwise the next read loads it from Mongo. */
+    private void updateCachedFavorites(String userId, String propertyId, boolean added) {
+        try {
+            redisTemplate.execute(TOGGLE_SCRIPT, keys(userId),
+                    added ? "1" : "0", propertyId, String.valueOf(USER_FAVORITES_TTL.toMillis()));
+        } catch (Exception e) {
+            log.warn("Failed to update favorite cache for user {}: {}", userId, e.getMessage());
+            try {
+                redisTemplate.delete(USER_FAVORITES_KEY + userId);
+            } catch (Exception deleteError) {
+                log.warn("Failed to drop favorite cache for user {}: {}", userId, deleteError.getMessage());
+            }
+        }
+    }
+
+    private static List<String> keys(String userId) {
+        return List.of(USER_FAVORITES_KEY + userId, USER_FAVORITES_VERSION_KEY + userId);
     }
 
     private String getCurrentUserId() {
@@ -0,0 +1,209 @@
+package com.roomie.services.property_service.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory uniform lat/lng cell grid of listing coordinates.
+ *
+ * Each cell keeps ids, coordinates (radians) and cos(lat) in parallel primitive arrays,
+ * so a radius query only walks the cells overlapping the search box and compares the
+ * haversine term without boxing or trigonometry on the stored side.
+ *
+ * Not thread-safe: {@link PropertyGeoIndexService} guards access with a read/write lock.
+ */
+public class GeoGridIndex {
+
+    static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180.0;
+
+    private final double cellSizeDeg;
+    private final int rows;
+    private final int cols;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<String, Long> cellByPropertyId = new HashMap<>();
+
+    public GeoGridIndex(double cellSizeDeg) {
+        if (cellSizeDeg <= 0 || cellSizeDeg > 90) {
+            throw new IllegalArgumentException("cellSizeDeg must be in (0, 90]");
+        }
+        this.cellSizeDeg = cellSizeDeg;
+        this.rows = (int) Math.ceil(180.0 / cellSizeDeg);
+        this.cols = (int) Math.ceil(360.0 / cellSizeDeg);
+    }
+
+    public int size() {
+        return cellByPropertyId.size();
+    }
+
+    public boolean contains(String propertyId) {
+        return cellByPropertyId.containsKey(propertyId);
+    }
+
+    /** Insert or move a listing. */
+    public void put(String propertyId, double lat, double lng) {
+        remove(propertyId);
+
+        long key = cellKey(row(lat), col(lng));
+        cells.computeIfAbsent(key, k -> new Cell()).add(propertyId, lat, lng);
+        cellByPropertyId.put(propertyId, key);
+    }
+
+    public boolean remove(String propertyId) {
+        Long key = cellByPropertyId.remove(propertyId);
+        if (key == null) return false;
+
+        Cell cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(propertyId);
+            if (cell.size == 0) cells.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Listings within radiusKm of (lat, lng), sorted by distance ascending and
+     * sliced to [offset, offset + limit).
+     */
+    public SearchResult search(double lat, double lng, double radiusKm, int offset, int limit) {
+        if (radiusKm <= 0 || cellByPropertyId.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        double lat0 = Math.toRadians(lat);
+        double lng0 = Math.toRadians(lng);
+        double cosLat0 = Math.cos(lat0);
+
+        // Haversine "a" term of the radius: a point matches when its own a <= maxA
+        double halfAngle = Math.min(radiusKm / EARTH_RADIUS_KM, Math.PI) / 2;
+        double maxA = Math.sin(halfAngle) * Math.sin(halfAngle);
+
+        double dLatDeg = radiusKm / KM_PER_DEGREE;
+        int rowFrom = Math.max(0, row(lat - dLatDeg));
+        int rowTo = Math.min(rows - 1, row(lat + dLatDeg));
+
+        // Near the poles the longitude span covers the whole circle
+        double maxAbsLat = Math.min(90.0, Math.abs(lat) + dLatDeg);
+        double cosMax = Math.cos(Math.toRadians(maxAbsLat));
+        int colSpan = cosMax < 1e-9 ? cols : (int) Math.ceil(dLatDeg / cosMax / cellSizeDeg) + 1;
+        int colFrom;
+        int colTo;
+        if (colSpan * 2 + 1 >= cols) {
+            colFrom = 0;
+            colTo = cols - 1;
+        } else {
+            int center = col(lng);
+            colFrom = center - colSpan;
+            colTo = center + colSpan;
+        }
+
+        String[] hitIds = new String[16];
+        double[] hitA = new double[16];
+        int hits = 0;
+
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int c = colFrom; c <= colTo; c++) {
+                Cell cell = cells.get(cellKey(r, Math.floorMod(c, cols)));
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    double sinDLat = Math.sin((cell.lats[i] - lat0) / 2);
+                    double sinDLng = Math.sin((cell.lngs[i] - lng0) / 2);
+                    double a = sinDLat * sinDLat + cosLat0 * cell.cosLats[i] * sinDLng * sinDLng;
+                    if (a > maxA) continue;
+
+                    if (hits == hitIds.length) {
+                        hitIds = Arrays.copyOf(hitIds, hits * 2);
+                        hitA = Arrays.copyOf(hitA, hits * 2);
+                    }
+                    hitIds[hits] = cell.ids[i];
+                    hitA[hits] = a;
+                    hits++;
+                }
+            }
+        }
+
+        int from = Math.min(Math.max(offset, 0), hits);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), hits);
+        if (from == to) {
+            return new SearchResult(List.of(), hits);
+        }
+
+        // Sort (a, index) pairs packed into longs; a is non-negative so its float bits order numerically
+        long[] order = new long[hits];
+        for (int i = 0; i < hits; i++) {
+            order[i] = ((long) Float.floatToRawIntBits((float) hitA[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        List<Hit> page = new ArrayList<>(to - from);
+        for (int k = from; k < to; k++) {
+            int i = (int) order[k];
+            double a = hitA[i];
+            double distanceKm = EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+            page.add(new Hit(hitIds[i], distanceKm));
+        }
+        return new SearchResult(page, hits);
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((lat + 90.0) / cellSizeDeg)));
+    }
+
+    private int col(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180.0) / cellSizeDeg), cols);
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * cols + col;
+    }
+
+    public record Hit(String propertyId, double distanceKm) {
+    }
+
+    public record SearchResult(List<Hit> hits, int totalMatches) {
+    }
+
+    private static final class Cell {
+        String[] ids = new String[8];
+        double[] lats = new double[8];
+        double[] lngs = new double[8];
+        double[] cosLats = new double[8];
+        int size;
+
+        void add(String id, double latDeg, double lngDeg) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lngs = Arrays.copyOf(lngs, capacity);
+                cosLats = Arrays.copyOf(cosLats, capacity);
+            }
+            double lat = Math.toRadians(latDeg);
+            ids[size] = id;
+            lats[size] = lat;
+            lngs[size] = Math.toRadians(lngDeg);
+            cosLats[size] = Math.cos(lat);
+            size++;
+        }
+
+        void remove(String id) {
+            for (int i = 0; i < size; i++) {
+                if (!ids[i].equals(id)) continue;
+
+                // Swap-remove keeps the arrays dense
+                int last = --size;
+                ids[i] = ids[last];
+                lats[i] = lats[last];
+                lngs[i] = lngs[last];
+                cosLats[i] = cosLats[last];
+                ids[last] = null;
+                return;
+            }
+        }
+    }
+}
@@ -2,8 +2,15 @@ package com.roomie.services.property_service.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.roomie.services.property_service.entity.Address;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
@@ -12,33 +19,199 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.*;
 
+/**
+ * Google geocoding behind a two-tier cache keyed by normalized address text.
+ *
+ * Lookups go local cache → Redis → upstream. "No such address" answers are cached too
+ * (with a shorter TTL), transient errors are not. Concurrent misses for the same key
+ * share a single upstream call.
+ */
 @Service
 @Slf4j
 public class GeocodingService {
 
+    static final String REDIS_KEY_PREFIX = "geocode:";
+    // Cached marker for addresses the upstream could not resolve
+    static final String NOT_FOUND = "";
+
     @Value("${property.google-maps-api-key:}")
     private String googleMapsApiKey;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    @Value("${property.geocoding.base-url:https://maps.googleapis.com/maps/api/geocode/json}")
+    private String baseUrl;
+
+    // When true, writes index immediately and Address.location is backfilled once geocoding completes
+    @Value("${property.geocoding.async:false}")
+    private boolean async;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final Cache<String, String> localCache;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService asyncExecutor;
+
+    public GeocodingService(StringRedisTemplate redisTemplate,
+                            @Value("${property.geocoding.positive-ttl:30d}") Duration positiveTtl,
+                            @Value("${property.geocoding.negative-ttl:1d}") Duration negativeTtl,
+                            @Value("${property.geocoding.local-cache-size:10000}") int localCacheSize,
+                            @Value("${property.geocoding.async-threads:2}") int asyncThreads) {
+        this.redisTemplate = redisTemplate;
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        // Same lifetimes as in Redis: found addresses positive-ttl, NOT_FOUND markers negative-ttl
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localCacheSize)
+                .expireAfter(new Expiry<String, String>() {
+                    @Override
+                    public long expireAfterCreate(String key, String value, long currentTime) {
+                        return ttl(value).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, String value, long currentTime, long currentDuration) {
+                        return ttl(value).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, String value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1000),
+                r -> {
+                    Thread t = new Thread(r, "geocoding-async");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
     /**
      * Geocode an address string to "lat,lng" format.
      * Returns null if geocoding fails or API key is missing.
      */
     public String geocode(String address) {
-        if (address == null || address.isBlank() || googleMapsApiKey == null || googleMapsApiKey.isBlank()) {
+        String key = normalize(address);
+        if (key.isEmpty()) return null;
+
+        String cached = lookup(key);
+        if (cached != null) {
+            return NOT_FOUND.equals(cached) ? null : cached;
+        }
+
+        if (googleMapsApiKey == null || googleMapsApiKey.isBlank()) {
             return null;
         }
 
+        // Single flight: the first caller fetches, concurrent callers wait for its result
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.get(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
+        }
+
+        try {
+            // The previous flight may have stored its answer between our lookup and putIfAbsent
+            String stored = lookup(key);
+            String result = stored != null ? (NOT_FOUND.equals(stored) ? null : stored) : fetch(key, address);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Non-blocking variant: completes immediately on a cache hit, otherwise geocodes on a
+     * small background pool. Completes with null when the address cannot be resolved or
+     * the pool is saturated.
+     */
+    public CompletableFuture<String> geocodeAsync(String address) {
+        String key = normalize(address);
+        if (key.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        String cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(NOT_FOUND.equals(cached) ? null : cached);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> geocode(address), asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Geocoding queue full, skipping '{}'", address);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public boolean needsGeocoding(Address address) {
+        return address != null && (address.getLocation() == null || address.getLocation().isBlank());
+    }
+
+    private String lookup(String key) {
+        String local = localCache.getIfPresent(key);
+        if (local != null) return local;
+
+        try {
+            String remote = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key);
+            if (remote != null) {
+                localCache.put(key, remote);
+                return remote;
+            }
+        } catch (Exception e) {
+            log.warn("Geocode cache read failed for '{}': {}", key, e.getMessage());
+        }
+        return null;
+    }
+
+    private Duration ttl(String value) {
+        return NOT_FOUND.equals(value) ? negativeTtl : positiveTtl;
+    }
+
+    private void store(String key, String value) {
+        localCache.put(key, value);
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, value, ttl(value));
+        } catch (Exception e) {
+            log.warn("Geocode cache write failed for '{}': {}", key, e.getMessage());
+        }
+    }
+
+    /** Calls the upstream API; caches OK and ZERO_RESULTS answers, not transient failures. */
+    private String fetch(String key, String address) {
         try {
             String encodedAddress = URLEncoder.encode(address, StandardCharsets.UTF_8);
-            String url = "https://maps.googleapis.com/maps/api/geocode/json?address="
-                    + encodedAddress + "&key=" + googleMapsApiKey;
+            String url = baseUrl + "?address=" + encodedAddress + "&key=" + googleMapsApiKey;
 
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(url))
+                    .timeout(Duration.ofSeconds(10))
                     .GET()
                     .build();
 
@@ -53,14 +226,97 @@ public class GeocodingService {
                 double lng = location.path("lng").asDouble();
                 String result = lat + "," + lng;
                 log.info("Geocoded '{}' → {}", address, result);
+                store(key, result);
                 return result;
+            } else if ("ZERO_RESULTS".equals(status)) {
+                log.warn("Geocoding found no result for '{}'", address);
+                store(key, NOT_FOUND);
+                return null;
             } else {
                 log.warn("Geocoding failed for '{}': status={}", address, status);
                 return null;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         } catch (Exception e) {
             log.error("Geocoding error for '{}': {}", address, e.getMessage());
             return null;
         }
     }
+
+    /** Lower-case, NFC, single spaces, no spaces around commas. */
+    static String normalize(String address) {
+        if (address == null) return "";
+        return Normalizer.normalize(address, Normalizer.Form.NFC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s*,\\s*", ",")
+                .replaceAll("\\s+", " ")
+                .replaceAll("^[, ]+|[, ]+$", "");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        asyncExecutor.shutdownNow();
+    }
+
+    /**
+     * Geocode the address if it has no location yet, then keep address.point in sync.
+     * Returns true if the address was changed and needs to be saved.
+     */
+    public boolean resolveLocation(Address address) {
+        if (address == null) return false;
+
+        if (needsGeocoding(address)) {
+            String location = geocode(toAddressText(address));
+            if (location != null) {
+                address.setLocation(location);
+            }
+        }
+
+        return syncGeoPoint(address);
+    }
+
+    /**
+     * Keep address.point in sync with the "lat,lng" location string.
+     * Returns true if the point was changed.
+     */
+    public boolean syncGeoPoint(Address address) {
+        if (address == null) return false;
+
+        GeoJsonPoint point = toGeoPoint(address.getLocation());
+        if (Objects.equals(point, address.getPoint())) return false;
+
+        address.setPoint(point);
+        return true;
+    }
+
+    public static String toAddressText(Address address) {
+        String addressText = address.getFullAddress();
+        if (addressText == null || addressText.isBlank()) {
+            addressText = String.join(", ",
+                    address.getHouseNumber() != null ? address.getHouseNumber() : "",
+                    address.getStreet() != null ? address.getStreet() : "",
+                    address.getWard() != null ? address.getWard() : "",
+                    address.getDistrict() != null ? address.getDistrict() : "",
+                    address.getProvince() != null ? address.getProvince() : ""
+            ).replaceAll("^[, ]+|[, ]+$", "");
+        }
+        return addressText;
+    }
+
+    private static GeoJsonPoint toGeoPoint(String location) {
+        if (location == null || location.isBlank()) return null;
+
+        String[] parts = location.trim().split(",");
+        if (parts.length != 2) return null;
+
+        try {
+            double lat = Double.parseDouble(parts[0].trim());
+            double lng = Double.parseDouble(parts[1].trim());
+            return new GeoJsonPoint(lng, lat);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package com.roomie.services.property_service.service;
+
+import com.roomie.services.property_service.entity.Property;
+import com.roomie.services.property_service.enums.ApprovalStatus;
+import com.roomie.services.property_service.enums.PropertyStatus;
+import com.roomie.services.property_service.repository.PropertyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps an in-process {@link GeoGridIndex} of ACTIVE + AVAILABLE listings so nearby
+ * search on map pans is answered without a database round trip.
+ *
+ * The index is loaded on startup and updated incrementally by PropertyService on every
+ * status/location change. Each change is also published as {@code <nodeId>|<propertyId>} on
+ * {@code property.geo-index.channel}; other nodes reload that listing from Mongo, so they trail
+ * a write by one pub/sub hop. The periodic rebuild only repairs messages lost while a node was
+ * disconnected from Redis.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PropertyGeoIndexService {
+
+    private final PropertyRepository propertyRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${property.geo-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${property.geo-index.cell-size-deg:0.05}")
+    private double cellSizeDeg;
+
+    @Value("${property.geo-index.channel:property-service:geo-index}")
+    private String channel;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private GeoGridIndex index;
+    private volatile boolean ready;
+
+    // Incremental updates that arrive while a rebuild is scanning Mongo, replayed onto the new grid
+    private List<Consumer<GeoGridIndex>> pendingDuringRebuild;
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public GeoGridIndex.SearchResult search(double lat, double lng, double radiusKm, int page, int size) {
+        lock.readLock().lock();
+        try {
+            return index.search(lat, lng, radiusKm, page * size, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (!enabled) return;
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(channel));
+    }
+
+    /** Add, move or drop a listing depending on its current status and location. */
+    public void refresh(Property property) {
+        if (!enabled || property == null || property.getPropertyId() == null) return;
+
+        applyLocally(property);
+        publish(property.getPropertyId());
+    }
+
+    public void remove(String propertyId) {
+        if (!enabled || propertyId == null) return;
+
+        apply(grid -> grid.remove(propertyId));
+        publish(propertyId);
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) return;
+
+        String propertyId = parts[1];
+        try {
+            propertyRepository.findById(propertyId).ifPresentOrElse(
+                    this::applyLocally,
+                    () -> apply(grid -> grid.remove(propertyId)));
+        } catch (Exception e) {
+            // The next rebuild picks it up
+            log.warn("Failed to apply geo index change of {}: {}", propertyId, e.getMessage());
+        }
+    }
+
+    private void applyLocally(Property property) {
+        String id = property.getPropertyId();
+        GeoJsonPoint point = property.getAddress() != null ? property.getAddress().getPoint() : null;
+
+        if (isSearchable(property) && point != null) {
+            apply(grid -> grid.put(id, point.getY(), point.getX()));
+        } else {
+            apply(grid -> grid.remove(id));
+        }
+    }
+
+    private void publish(String propertyId) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + "|" + propertyId);
+        } catch (Exception e) {
+            // Other nodes catch up on their next rebuild
+            log.warn("Failed to publish geo index change of {}: {}", propertyId, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) return;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Nearby search falls back to the Mongo $geoNear query until the next rebuild succeeds
+            log.error("Failed to build geo index on startup: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${property.geo-index.rebuild-interval-ms:600000}",
+            initialDelayString = "${property.geo-index.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        if (!enabled) return;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Scheduled geo index rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        GeoGridIndex fresh = new GeoGridIndex(cellSizeDeg);
+        try (Stream<Property> stream = propertyRepository.streamGeoPointsByStatusAndPropertyStatus(
+                ApprovalStatus.ACTIVE, PropertyStatus.AVAILABLE)) {
+            stream.forEach(p -> {
+                GeoJsonPoint point = p.getAddress() != null ? p.getAddress().getPoint() : null;
+                if (point != null) {
+                    fresh.put(p.getPropertyId(), point.getY(), point.getX());
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(op -> op.accept(fresh));
+            pendingDuringRebuild = null;
+            index = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Geo index rebuilt: {} listings in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void apply(Consumer<GeoGridIndex> op) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) op.accept(index);
+            if (pendingDuringRebuild != null) pendingDuringRebuild.add(op);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isSearchable(Property property) {
+        return property.getStatus() == ApprovalStatus.ACTIVE
+                && property.getPropertyStatus() == PropertyStatus.AVAILABLE;
+    }
+}
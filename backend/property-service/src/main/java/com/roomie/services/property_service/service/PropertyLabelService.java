@@ -1,5 +1,7 @@
 package com.roomie.services.property_service.service;
 
+import com.roomie.services.property_service.configuration.RedisConfig;
+import com.roomie.services.property_service.entity.Favorite;
 import com.roomie.services.property_service.entity.Property;
 import com.roomie.services.property_service.enums.PropertyLabel;
 import com.roomie.services.property_service.repository.FavoriteRepository;
@@ -8,13 +10,22 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
+import java.util.*;
 
 /**
  * Service to automatically assign PropertyLabel based on intelligent algorithm
@@ -24,6 +35,13 @@ import java.util.List;
  * 2. HOT: Properties with high favorite count (>= 10 favorites)
  * 3. RECOMMENDED: Properties with good engagement (5-9 favorites) and recent (< 30 days)
  * 4. NONE: All other properties
+ *
+ * Labels are kept incrementally: favorite toggles adjust Property.favoriteCount with $inc
+ * and re-label that one property, and the nightly job only revisits properties whose age
+ * bucket (7 / 30 days) may have changed, plus any whose counter drifted. Only properties
+ * marked by a favorite toggle are recounted. A counter that was never initialized (listings
+ * older than the field) is set to the counted favorites on the first toggle; until then
+ * labels fall back to counting them.
  */
 @Service
 @RequiredArgsConstructor
@@ -33,6 +51,13 @@ public class PropertyLabelService {
 
     PropertyRepository propertyRepository;
     FavoriteRepository favoriteRepository;
+    MongoTemplate mongoTemplate;
+    CacheManager cacheManager;
+    StringRedisTemplate redisTemplate;
+
+    // Properties whose favorites changed since the last reconciliation
+    static final String FAVORITES_TOUCHED_KEY = "property-service:favorites:touched";
+    private static final int RECONCILE_BATCH_SIZE = 500;
 
     // Thresholds
     private static final int NEW_PROPERTY_DAYS = 7;           // 7 days
@@ -47,8 +72,12 @@ public class PropertyLabelService {
     public PropertyLabel calculateLabel(Property property) {
 
         Instant now = Instant.now();
-        long daysSinceCreation = ChronoUnit.DAYS.between(property.getCreatedAt(), now);
-        long favoriteCount = favoriteRepository.countByPropertyId(property.getPropertyId());
+        long daysSinceCreation = property.getCreatedAt() != null
+                ? ChronoUnit.DAYS.between(property.getCreatedAt(), now)
+                : Long.MAX_VALUE;
+        long favoriteCount = property.getFavoriteCount() != null
+                ? property.getFavoriteCount()
+                : favoriteRepository.countByPropertyId(property.getPropertyId());
 
         // Priority 1: HOT (High engagement regardless of age)
         if (favoriteCount >= HOT_FAVORITE_THRESHOLD) {
@@ -81,45 +110,86 @@ public class PropertyLabelService {
      * Update label for a specific property
      */
     public void updatePropertyLabel(String propertyId) {
-        propertyRepository.findById(propertyId).ifPresent(property -> {
-            PropertyLabel newLabel = calculateLabel(property);
+        propertyRepository.findById(propertyId).ifPresent(this::relabel);
+    }
 
-            if (property.getPropertyLabel() != newLabel) {
-                property.setPropertyLabel(newLabel);
-                property.setUpdatedAt(Instant.now());
-                propertyRepository.save(property);
+    /**
+     * Atomically adjust the favorite counter and re-label the property if it crossed a threshold
+     * Called after the favorite was written; a counter that was never initialized is set to the
+     * actual count instead, which already includes this change
+     */
+    public void onFavoriteCountChanged(String propertyId, long delta) {
+        if (delta == 0) return;
 
-                log.info("Property {} label updated: {} -> {}",
-                        propertyId, property.getPropertyLabel(), newLabel);
-            }
-        });
+        Property updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(propertyId).and("favoriteCount").ne(null)),
+                new Update().inc("favoriteCount", delta),
+                FindAndModifyOptions.options().returnNew(true),
+                Property.class);
+        if (updated == null) {
+            // If a concurrent toggle initialized it first, the nightly recount of touched properties settles it
+            updated = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(propertyId).and("favoriteCount").is(null)),
+                    new Update().set("favoriteCount", favoriteRepository.countByPropertyId(propertyId)),
+                    FindAndModifyOptions.options().returnNew(true),
+                    Property.class);
+        }
+
+        if (updated != null) {
+            relabel(updated);
+            evictCachedResponse(propertyId);
+        }
     }
 
     /**
-     * Batch update all property labels
+     * Re-label properties whose age bucket may have changed and reconcile favorite counters
      * Scheduled to run daily at 2 AM
      */
     @Scheduled(cron = "0 0 2 * * *") // Daily at 2 AM
     public void updateAllPropertyLabels() {
         log.info("Starting scheduled property label update...");
 
-        List<Property> properties = propertyRepository.findAll();
+        Instant now = Instant.now();
+        Map<String, Property> candidates = new HashMap<>();
+
+        // NEW that turned older than 7 days, RECOMMENDED older than 30 days, and recent ones not yet NEW
+        propertyRepository.findByPropertyLabelAndCreatedAtBefore(
+                        PropertyLabel.NEW, now.minus(NEW_PROPERTY_DAYS + 1, ChronoUnit.DAYS))
+                .forEach(p -> candidates.put(p.getPropertyId(), p));
+        propertyRepository.findByPropertyLabelAndCreatedAtBefore(
+                        PropertyLabel.RECOMMENDED, now.minus(RECOMMENDED_DAYS + 1, ChronoUnit.DAYS))
+                .forEach(p -> candidates.put(p.getPropertyId(), p));
+        propertyRepository.findByCreatedAtAfterAndPropertyLabelNotIn(
+                        now.minus(NEW_PROPERTY_DAYS, ChronoUnit.DAYS), List.of(PropertyLabel.NEW, PropertyLabel.HOT))
+                .forEach(p -> candidates.put(p.getPropertyId(), p));
+
+        Set<String> drifted = reconcileFavoriteCounts();
+        Set<String> changed = new HashSet<>(drifted);
+        drifted.removeAll(candidates.keySet());
+        propertyRepository.findAllById(drifted).forEach(p -> candidates.put(p.getPropertyId(), p));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Property.class);
         int updatedCount = 0;
 
-        for (Property property : properties) {
+        for (Property property : candidates.values()) {
             PropertyLabel oldLabel = property.getPropertyLabel();
             PropertyLabel newLabel = calculateLabel(property);
 
             if (oldLabel != newLabel) {
-                property.setPropertyLabel(newLabel);
-                property.setUpdatedAt(Instant.now());
-                propertyRepository.save(property);
+                bulk.updateOne(Query.query(Criteria.where("_id").is(property.getPropertyId())),
+                        new Update().set("propertyLabel", newLabel).set("updatedAt", now));
+                changed.add(property.getPropertyId());
                 updatedCount++;
             }
         }
+        if (updatedCount > 0) {
+            bulk.execute();
+        }
+        // Relabelled and reconciled properties both changed their cached detail response
+        changed.forEach(this::evictCachedResponse);
 
-        log.info("Property label update completed. {} properties updated out of {}",
-                updatedCount, properties.size());
+        log.info("Property label update completed. {} properties updated out of {} candidates",
+                updatedCount, candidates.size());
     }
 
     /**
@@ -134,31 +204,115 @@ public class PropertyLabelService {
      * Get label statistics
      */
     public PropertyLabelStats getLabelStatistics() {
-        List<Property> properties = propertyRepository.findAll();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("propertyLabel").count().as("count"));
 
-        long hotCount = properties.stream()
-                .filter(p -> p.getPropertyLabel() == PropertyLabel.HOT)
-                .count();
+        Map<String, Long> counts = new HashMap<>();
+        long total = 0;
+        for (Document row : mongoTemplate.aggregate(aggregation, Property.class, Document.class)) {
+            long count = ((Number) row.get("count")).longValue();
+            Object label = row.get("_id");
+            if (label != null) counts.put(label.toString(), count);
+            total += count;
+        }
 
-        long newCount = properties.stream()
-                .filter(p -> p.getPropertyLabel() == PropertyLabel.NEW)
-                .count();
+        return PropertyLabelStats.builder()
+                .total(total)
+                .hot(counts.getOrDefault(PropertyLabel.HOT.name(), 0L))
+                .newLabel(counts.getOrDefault(PropertyLabel.NEW.name(), 0L))
+                .recommended(counts.getOrDefault(PropertyLabel.RECOMMENDED.name(), 0L))
+                .none(counts.getOrDefault(PropertyLabel.NONE.name(), 0L))
+                .build();
+    }
 
-        long recommendedCount = properties.stream()
-                .filter(p -> p.getPropertyLabel() == PropertyLabel.RECOMMENDED)
-                .count();
+    private void relabel(Property property) {
+        PropertyLabel oldLabel = property.getPropertyLabel();
+        PropertyLabel newLabel = calculateLabel(property);
 
-        long noneCount = properties.stream()
-                .filter(p -> p.getPropertyLabel() == PropertyLabel.NONE)
-                .count();
+        if (oldLabel != newLabel) {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(property.getPropertyId())),
+                    new Update().set("propertyLabel", newLabel).set("updatedAt", Instant.now()),
+                    Property.class);
+            property.setPropertyLabel(newLabel);
 
-        return PropertyLabelStats.builder()
-                .total(properties.size())
-                .hot(hotCount)
-                .newLabel(newCount)
-                .recommended(recommendedCount)
-                .none(noneCount)
-                .build();
+            log.info("Property {} label updated: {} -> {}",
+                    property.getPropertyId(), oldLabel, newLabel);
+        }
+    }
+
+    private void evictCachedResponse(String propertyId) {
+        cacheManager.getCache(RedisConfig.PROPERTIES_CACHE).evict(propertyId);
+    }
+
+    /**
+     * Mark a property whose favorites are about to change, before the favorite is written, so
+     * the nightly job recounts it even if the counter update that follows never happens
+     */
+    public void markFavoritesTouched(String propertyId) {
+        try {
+            redisTemplate.opsForSet().add(FAVORITES_TOUCHED_KEY, propertyId);
+        } catch (Exception e) {
+            log.warn("Could not mark favorites of property {} for reconciliation: {}", propertyId, e.getMessage());
+        }
+    }
+
+    /**
+     * Recount favorites of the properties touched since the last run and apply the drift as an
+     * $inc delta, guarded by the counter value it was computed from so a concurrent toggle is not
+     * overwritten; those are retried next run. Returns the ids whose counter changed.
+     */
+    private Set<String> reconcileFavoriteCounts() {
+        Set<String> changed = new HashSet<>();
+        Set<String> retry = new HashSet<>();
+        int reconciled = 0;
+
+        List<String> batch;
+        try {
+            while (!(batch = popTouched()).isEmpty()) {
+                Map<String, Long> actual = new HashMap<>();
+                Aggregation aggregation = Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("propertyId").in(batch)),
+                        Aggregation.group("propertyId").count().as("count"));
+                for (Document row : mongoTemplate.aggregate(aggregation, Favorite.class, Document.class)) {
+                    actual.put(String.valueOf(row.get("_id")), ((Number) row.get("count")).longValue());
+                }
+
+                Query storedQuery = Query.query(Criteria.where("_id").in(batch));
+                storedQuery.fields().include("favoriteCount");
+                for (Property property : mongoTemplate.find(storedQuery, Property.class)) {
+                    String propertyId = property.getPropertyId();
+                    Long stored = property.getFavoriteCount();
+                    long delta = actual.getOrDefault(propertyId, 0L) - (stored != null ? stored : 0L);
+                    if (stored != null && delta == 0) continue;
+
+                    long matched = mongoTemplate.updateFirst(
+                            Query.query(Criteria.where("_id").is(propertyId).and("favoriteCount").is(stored)),
+                            new Update().inc("favoriteCount", delta),
+                            Property.class).getMatchedCount();
+                    if (matched > 0) {
+                        changed.add(propertyId);
+                    } else {
+                        retry.add(propertyId);
+                    }
+                }
+                reconciled += batch.size();
+            }
+        } catch (Exception e) {
+            log.warn("Favorite counter reconciliation stopped early: {}", e.getMessage());
+        }
+        retry.forEach(this::markFavoritesTouched);
+
+        if (reconciled > 0) {
+            log.info("Reconciled favorite counters of {} touched properties, {} corrected, {} deferred",
+                    reconciled, changed.size(), retry.size());
+        }
+        return changed;
+    }
+
+    private List<String> popTouched() {
+        List<String> ids = redisTemplate.opsForSet().pop(FAVORITES_TOUCHED_KEY, RECONCILE_BATCH_SIZE);
+        return ids != null ? ids : List.of();
     }
 
     @lombok.Data
@@ -170,4 +324,4 @@ public class PropertyLabelService {
         long recommended;
         long none;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,427 @@
+package com.roomie.services.property_service.service;
+
+import com.roomie.services.property_service.dto.response.ReindexStatus;
+import com.roomie.services.property_service.entity.Property;
+import com.roomie.services.property_service.entity.PropertyDocument;
+import com.roomie.services.property_service.exception.AppException;
+import com.roomie.services.property_service.exception.ErrorCode;
+import com.roomie.services.property_service.mapper.PropertyMapper;
+import com.roomie.services.property_service.repository.PropertyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Zero-downtime, memory-bounded rebuild of the Elasticsearch "properties" index.
+ *
+ * Listings are read through a Mongo cursor in pages, missing locations are geocoded
+ * on a small bounded pool, and each page is written with one bulk request into a fresh
+ * versioned index ("properties_v{millis}"). The stages are pipelined: while one page is
+ * bulk-written, the next is read and geocoded, and at most these two pages are held.
+ * When the scan finishes, the "properties" alias is moved to the new index in a single
+ * atomic alias request, so searches keep hitting the old index until then.
+ *
+ * Live writes are mirrored into the new index while the job runs, on every node: the target
+ * index is published in Redis ({@value #MIRROR_KEY}), which also keeps a second reindex from
+ * starting elsewhere. Nodes re-read it at most every {@code property.reindex.mirror-check-interval},
+ * and the job waits that long before scanning so every node mirrors by then. The backfill
+ * writes with op_type=create, so a page read before a mirrored write never overwrites it, and
+ * ids deleted meanwhile are kept in a Redis set and removed again after each page.
+ */
+@Service
+@Slf4j
+public class PropertyReindexService {
+
+    static final String ALIAS = "properties";
+    static final String MIRROR_KEY = "property-service:reindex:mirror";
+    static final String DELETED_KEY_PREFIX = "property-service:reindex:deleted:";
+
+    /** Outlives a crashed job only this long; refreshed after every page */
+    private static final Duration MIRROR_TTL = Duration.ofHours(1);
+
+    private final PropertyRepository propertyRepository;
+    private final PropertyMapper propertyMapper;
+    private final GeocodingService geocodingService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final StringRedisTemplate redisTemplate;
+
+    private final Counter indexedCounter;
+    private final Counter failedCounter;
+    private final Timer bulkTimer;
+
+    @Value("${property.reindex.page-size:500}")
+    private int pageSize;
+
+    @Value("${property.reindex.geocode-concurrency:4}")
+    private int geocodeConcurrency;
+
+    @Value("${property.reindex.mirror-check-interval:PT1S}")
+    private Duration mirrorCheckInterval;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "property-reindex");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicReference<ReindexStatus> status = new AtomicReference<>();
+    private volatile IndexCoordinates mirrorTarget;
+    private volatile MirrorLookup mirrorLookup = new MirrorLookup(null, 0);
+
+    /** Last answer from Redis; target is null when no job runs */
+    private record MirrorLookup(IndexCoordinates target, long checkedAtNanos) {
+    }
+
+    public PropertyReindexService(PropertyRepository propertyRepository,
+                                  PropertyMapper propertyMapper,
+                                  GeocodingService geocodingService,
+                                  ElasticsearchOperations elasticsearchOperations,
+                                  StringRedisTemplate redisTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.propertyRepository = propertyRepository;
+        this.propertyMapper = propertyMapper;
+        this.geocodingService = geocodingService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.redisTemplate = redisTemplate;
+
+        this.indexedCounter = Counter.builder("property.reindex.documents")
+                .tag("outcome", "indexed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("property.reindex.documents")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.bulkTimer = Timer.builder("property.reindex.bulk")
+                .description("Duration of one reindex page's bulk write")
+                .register(meterRegistry);
+        meterRegistry.gauge("property.reindex.progress", status,
+                ref -> ref.get() != null && ref.get().getProgressPercent() != null ? ref.get().getProgressPercent() : 0);
+    }
+
+    public ReindexStatus getStatus() {
+        return status.get();
+    }
+
+    public synchronized ReindexStatus start() {
+        ReindexStatus current = status.get();
+        if (current != null && "RUNNING".equals(current.getState())) {
+            throw new AppException(ErrorCode.REINDEX_ALREADY_RUNNING);
+        }
+
+        String targetIndex = ALIAS + "_v" + System.currentTimeMillis();
+        ReindexStatus initial = ReindexStatus.builder()
+                .jobId(UUID.randomUUID().toString())
+                .state("RUNNING")
+                .targetIndex(targetIndex)
+                .startedAt(Instant.now())
+                .build();
+        status.set(initial);
+
+        jobExecutor.submit(() -> run(targetIndex));
+        return initial;
+    }
+
+    /** Mirror a live write into the index being built, so it is not lost on alias swap. */
+    public void mirrorSave(PropertyDocument doc) {
+        IndexCoordinates target = currentMirrorTarget();
+        if (target == null) return;
+        try {
+            elasticsearchOperations.save(doc, target);
+        } catch (Exception e) {
+            log.warn("Failed to mirror property {} into {}: {}", doc.getPropertyId(), target.getIndexName(), e.getMessage());
+        }
+    }
+
+    public void mirrorDelete(String propertyId) {
+        IndexCoordinates target = currentMirrorTarget();
+        if (target == null) return;
+        try {
+            // Recorded first, so a backfill page that still holds the listing deletes it again
+            String deletedKey = DELETED_KEY_PREFIX + target.getIndexName();
+            redisTemplate.opsForSet().add(deletedKey, propertyId);
+            redisTemplate.expire(deletedKey, MIRROR_TTL);
+            elasticsearchOperations.delete(propertyId, target);
+        } catch (Exception e) {
+            log.warn("Failed to mirror delete of {} into {}: {}", propertyId, target.getIndexName(), e.getMessage());
+        }
+    }
+
+    /** The index a job on any node is building, or null; Redis is read once per mirror-check-interval */
+    private IndexCoordinates currentMirrorTarget() {
+        IndexCoordinates local = mirrorTarget;
+        if (local != null) return local;
+
+        MirrorLookup lookup = mirrorLookup;
+        long now = System.nanoTime();
+        if (now - lookup.checkedAtNanos() < mirrorCheckInterval.toNanos()) {
+            return lookup.target();
+        }
+        try {
+            String index = redisTemplate.opsForValue().get(MIRROR_KEY);
+            IndexCoordinates target = index != null ? IndexCoordinates.of(index) : null;
+            mirrorLookup = new MirrorLookup(target, now);
+            return target;
+        } catch (Exception e) {
+            log.warn("Could not read reindex mirror target: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void run(String targetIndex) {
+        IndexCoordinates target = IndexCoordinates.of(targetIndex);
+        ExecutorService geocodePool = Executors.newFixedThreadPool(Math.max(1, geocodeConcurrency));
+        ExecutorService bulkWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "property-reindex-bulk");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicLong processed = new AtomicLong();
+        AtomicLong indexed = new AtomicLong();
+        AtomicLong geocoded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long total = 0;
+
+        try {
+            total = propertyRepository.count();
+            IndexOperations templateOps = elasticsearchOperations.indexOps(PropertyDocument.class);
+            IndexOperations targetOps = elasticsearchOperations.indexOps(target);
+            targetOps.create(templateOps.createSettings(), templateOps.createMapping());
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(MIRROR_KEY, targetIndex, MIRROR_TTL))) {
+                throw new IllegalStateException("Another node is already reindexing into "
+                        + redisTemplate.opsForValue().get(MIRROR_KEY));
+            }
+            mirrorTarget = target;
+            // Nodes that read "no job" just before the key was set mirror once their lookup expires
+            Thread.sleep(mirrorCheckInterval.toMillis());
+
+            log.info("Reindex started into {} ({} listings)", targetIndex, total);
+
+            long totalCount = total;
+            try (Stream<Property> stream = propertyRepository.streamAllBy()) {
+                Iterator<Property> it = stream.iterator();
+                List<Property> page = new ArrayList<>(pageSize);
+                Future<?> inFlight = null;
+
+                while (it.hasNext()) {
+                    page.add(it.next());
+                    if (page.size() == pageSize || !it.hasNext()) {
+                        // Read and geocode this page while the previous one is being written
+                        List<Property> ready = geocodePage(page, geocodePool, geocoded);
+                        page = new ArrayList<>(pageSize);
+
+                        await(inFlight);
+                        inFlight = bulkWriter.submit(() -> {
+                            bulkTimer.record(() -> writePage(ready, target, indexed, failed));
+                            processed.addAndGet(ready.size());
+                            redisTemplate.expire(MIRROR_KEY, MIRROR_TTL);
+                            publishProgress(totalCount, processed, indexed, geocoded, failed, null, null);
+                        });
+                    }
+                }
+                await(inFlight);
+            }
+
+            targetOps.refresh();
+            swapAlias(targetIndex);
+            publishProgress(total, processed, indexed, geocoded, failed, "COMPLETED", null);
+
+            ReindexStatus done = status.get();
+            log.info("Reindex completed into {}: {} indexed, {} failed, {} geocoded, {} docs/s",
+                    targetIndex, indexed.get(), failed.get(), geocoded.get(), done.getDocsPerSecond());
+        } catch (Exception e) {
+            log.error("Reindex into {} failed", targetIndex, e);
+            publishProgress(total, processed, indexed, geocoded, failed, "FAILED", e.getMessage());
+            try {
+                elasticsearchOperations.indexOps(target).delete();
+            } catch (Exception cleanup) {
+                log.warn("Could not delete partial index {}: {}", targetIndex, cleanup.getMessage());
+            }
+        } finally {
+            if (mirrorTarget != null) {
+                mirrorTarget = null;
+                clearMirror(targetIndex);
+            }
+            geocodePool.shutdownNow();
+            bulkWriter.shutdownNow();
+        }
+    }
+
+    /** Wait for the previous page's bulk write; its failure fails the job */
+    private static void await(Future<?> inFlight) throws InterruptedException {
+        if (inFlight == null) return;
+        try {
+            inFlight.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Bulk write failed", e.getCause());
+        }
+    }
+
+    /**
+     * Geocoding stage: only listings without a location hit the external API, bounded by the pool size
+     *
+     * @return the page, for the bulk write stage
+     */
+    private List<Property> geocodePage(List<Property> page, ExecutorService geocodePool, AtomicLong geocoded) {
+        List<Property> changed = new ArrayList<>();
+        Map<Property, Future<Boolean>> resolutions = new LinkedHashMap<>();
+        for (Property p : page) {
+            if (p.getAddress() == null) continue;
+            if (p.getAddress().getLocation() == null || p.getAddress().getLocation().isBlank()) {
+                resolutions.put(p, geocodePool.submit(() -> geocodingService.resolveLocation(p.getAddress())));
+            } else if (geocodingService.syncGeoPoint(p.getAddress())) {
+                changed.add(p);
+            }
+        }
+
+        for (Map.Entry<Property, Future<Boolean>> entry : resolutions.entrySet()) {
+            try {
+                if (entry.getValue().get()) {
+                    changed.add(entry.getKey());
+                    geocoded.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reindex interrupted", e);
+            } catch (ExecutionException e) {
+                log.warn("Geocoding failed for property {}: {}", entry.getKey().getPropertyId(), e.getMessage());
+            }
+        }
+        if (!changed.isEmpty()) {
+            propertyRepository.saveAll(changed);
+        }
+        return page;
+    }
+
+    private void writePage(List<Property> page, IndexCoordinates target, AtomicLong indexed, AtomicLong failed) {
+        // Bulk write stage; create only, a mirrored live write already in the index is newer
+        String deletedKey = DELETED_KEY_PREFIX + target.getIndexName();
+        List<IndexQuery> queries = new ArrayList<>(page.size());
+        for (Property p : page) {
+            PropertyDocument doc = propertyMapper.toDocument(p);
+            queries.add(new IndexQueryBuilder()
+                    .withId(p.getPropertyId())
+                    .withObject(doc)
+                    .withOpType(IndexQuery.OpType.CREATE)
+                    .build());
+        }
+
+        long failures = 0;
+        try {
+            elasticsearchOperations.bulkIndex(queries, target);
+        } catch (BulkFailureException e) {
+            // 409: a mirrored live write got there first, the listing is in the index either way
+            Map<String, BulkFailureException.FailureDetails> errors = new HashMap<>(e.getFailedDocuments());
+            errors.values().removeIf(details -> Integer.valueOf(409).equals(details.status()));
+            failures = errors.size();
+            if (failures > 0) {
+                log.warn("Bulk reindex page had {} failures, e.g. {}", failures,
+                        errors.entrySet().stream().findFirst().orElse(null));
+                failed.addAndGet(failures);
+                failedCounter.increment(failures);
+            }
+        }
+        indexed.addAndGet(queries.size() - failures);
+        indexedCounter.increment(queries.size() - failures);
+
+        // Listings deleted while this page was in flight: the create above may have brought them back
+        Set<String> deleted = redisTemplate.opsForSet().members(deletedKey);
+        if (deleted != null) {
+            page.stream()
+                    .map(Property::getPropertyId)
+                    .filter(deleted::contains)
+                    .forEach(id -> elasticsearchOperations.delete(id, target));
+        }
+    }
+
+    private void clearMirror(String targetIndex) {
+        try {
+            redisTemplate.delete(List.of(MIRROR_KEY, DELETED_KEY_PREFIX + targetIndex));
+        } catch (Exception e) {
+            log.warn("Could not clear reindex mirror target {}: {}", targetIndex, e.getMessage());
+        }
+    }
+
+    /**
+     * Point the alias at the new index and drop whatever it pointed at before, atomically.
+     * The first run also replaces a legacy concrete "properties" index with the alias.
+     */
+    private void swapAlias(String targetIndex) {
+        IndexOperations aliasOps = elasticsearchOperations.indexOps(IndexCoordinates.of(ALIAS));
+
+        Set<String> previousIndices = new HashSet<>();
+        try {
+            Map<String, Set<AliasData>> aliases = aliasOps.getAliases(ALIAS);
+            previousIndices.addAll(aliases.keySet());
+        } catch (Exception e) {
+            log.debug("Alias {} not found: {}", ALIAS, e.getMessage());
+        }
+        boolean legacyConcreteIndex = previousIndices.isEmpty() && aliasOps.exists();
+
+        AliasActions actions = new AliasActions();
+        actions.add(new AliasAction.Add(AliasActionParameters.builder()
+                .withIndices(targetIndex)
+                .withAliases(ALIAS)
+                .build()));
+        if (legacyConcreteIndex) {
+            actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder()
+                    .withIndices(ALIAS)
+                    .build()));
+        }
+        for (String previous : previousIndices) {
+            actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder()
+                    .withIndices(previous)
+                    .build()));
+        }
+
+        elasticsearchOperations.indexOps(IndexCoordinates.of(targetIndex)).alias(actions);
+        log.info("Alias {} now points to {} (replaced {})", ALIAS, targetIndex,
+                legacyConcreteIndex ? ALIAS : previousIndices);
+    }
+
+    private void publishProgress(long total, AtomicLong processed, AtomicLong indexed, AtomicLong geocoded,
+                                 AtomicLong failed, String finalState, String error) {
+        status.updateAndGet(s -> {
+            Instant now = Instant.now();
+            double seconds = Math.max(Duration.between(s.getStartedAt(), now).toMillis(), 1) / 1000.0;
+            return s.toBuilder()
+                    .state(finalState != null ? finalState : s.getState())
+                    .total(total)
+                    .processed(processed.get())
+                    .indexed(indexed.get())
+                    .geocoded(geocoded.get())
+                    .failed(failed.get())
+                    .progressPercent(total > 0 ? Math.round(processed.get() * 1000.0 / total) / 10.0 : 100.0)
+                    .docsPerSecond(Math.round(indexed.get() / seconds * 10.0) / 10.0)
+                    .finishedAt(finalState != null ? now : null)
+                    .error(error)
+                    .build();
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+}
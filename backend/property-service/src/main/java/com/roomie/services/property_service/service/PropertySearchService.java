@@ -0,0 +1,272 @@
+package com.roomie.services.property_service.service;
+
+import co.elastic.clients.elasticsearch._types.DistanceUnit;
+import co.elastic.clients.elasticsearch._types.GeoDistanceType;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomie.services.property_service.dto.request.PropertySearchRequest;
+import com.roomie.services.property_service.dto.response.FacetBucket;
+import com.roomie.services.property_service.dto.response.PropertyResponse;
+import com.roomie.services.property_service.dto.response.PropertySearchResponse;
+import com.roomie.services.property_service.entity.Property;
+import com.roomie.services.property_service.entity.PropertyDocument;
+import com.roomie.services.property_service.enums.ApprovalStatus;
+import com.roomie.services.property_service.enums.PropertyStatus;
+import com.roomie.services.property_service.exception.AppException;
+import com.roomie.services.property_service.exception.ErrorCode;
+import com.roomie.services.property_service.mapper.PropertyMapper;
+import com.roomie.services.property_service.repository.PropertyRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Faceted listing search on the Elasticsearch "properties" index.
+ *
+ * One bool query combines full-text, price, location, type, bedroom, amenity and
+ * geo-distance filters; facet counts come back as aggregations of the same request,
+ * and deep paging uses search_after cursors instead of from/size.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class PropertySearchService {
+
+    static final int MAX_PAGE_SIZE = 100;
+    static final int FACET_SIZE = 20;
+
+    // Monthly rent buckets (VND)
+    static final double[] PRICE_BREAKS = {2_000_000, 5_000_000, 10_000_000, 20_000_000};
+
+    ElasticsearchOperations elasticsearchOperations;
+    PropertyRepository propertyRepository;
+    PropertyMapper propertyMapper;
+    ObjectMapper cursorMapper = new ObjectMapper();
+
+    /**
+     * Push new document fields (e.g. amenities) to an index created by an older mapping.
+     * Adding fields is allowed in place; changed field types still need a reindex. Documents
+     * written before a field existed do not carry it, so they only match filters on it after a
+     * reindex (POST /internal/reindex).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void updateMapping() {
+        try {
+            IndexOperations indexOps = elasticsearchOperations.indexOps(PropertyDocument.class);
+            if (indexOps.exists()) {
+                indexOps.putMapping();
+            }
+        } catch (Exception e) {
+            log.warn("Could not update properties index mapping: {}", e.getMessage());
+        }
+    }
+
+    public PropertySearchResponse search(PropertySearchRequest request) {
+        int size = Math.min(Math.max(request.getSize() != null ? request.getSize() : 20, 1), MAX_PAGE_SIZE);
+        boolean geo = request.getLat() != null && request.getLng() != null;
+
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(buildQuery(request, geo))
+                .withSort(buildSort(request, geo))
+                .withSort(s -> s.field(f -> f.field("propertyId").order(SortOrder.Asc)))
+                .withMaxResults(size)
+                .withTrackTotalHits(true);
+
+        addFacets(builder);
+
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            builder.withSearchAfter(decodeCursor(request.getCursor()));
+        }
+
+        SearchHits<PropertyDocument> hits = elasticsearchOperations.search(builder.build(), PropertyDocument.class);
+
+        List<SearchHit<PropertyDocument>> page = hits.getSearchHits();
+        String nextCursor = page.size() == size
+                ? encodeCursor(page.get(page.size() - 1).getSortValues())
+                : null;
+
+        return PropertySearchResponse.builder()
+                .items(hydrate(page))
+                .total(hits.getTotalHits())
+                .facets(readFacets(hits))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private Query buildQuery(PropertySearchRequest r, boolean geo) {
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+
+        if (r.getQ() != null && !r.getQ().isBlank()) {
+            bool.must(m -> m.multiMatch(mm -> mm
+                    .query(r.getQ())
+                    .fields("title^2", "description")));
+        }
+
+        // Only listings that are publicly bookable
+        bool.filter(f -> f.term(t -> t.field("status").value(ApprovalStatus.ACTIVE.name())));
+        bool.filter(f -> f.term(t -> t.field("propertyStatus").value(PropertyStatus.AVAILABLE.name())));
+
+        if (r.getMinPrice() != null || r.getMaxPrice() != null) {
+            bool.filter(f -> f.range(rg -> {
+                rg.field("monthlyRent");
+                if (r.getMinPrice() != null) rg.gte(JsonData.of(r.getMinPrice().doubleValue()));
+                if (r.getMaxPrice() != null) rg.lte(JsonData.of(r.getMaxPrice().doubleValue()));
+                return rg;
+            }));
+        }
+        if (r.getProvince() != null && !r.getProvince().isBlank()) {
+            bool.filter(f -> f.term(t -> t.field("province").value(r.getProvince()).caseInsensitive(true)));
+        }
+        if (r.getDistrict() != null && !r.getDistrict().isBlank()) {
+            bool.filter(f -> f.term(t -> t.field("district").value(r.getDistrict()).caseInsensitive(true)));
+        }
+        if (r.getPropertyType() != null) {
+            bool.filter(f -> f.term(t -> t.field("propertyType").value(r.getPropertyType().name())));
+        }
+        if (r.getMinBedrooms() != null) {
+            bool.filter(f -> f.range(rg -> rg.field("bedrooms").gte(JsonData.of(r.getMinBedrooms()))));
+        }
+        if (r.getAmenities() != null) {
+            r.getAmenities().stream()
+                    .filter(a -> a != null && !a.isBlank())
+                    .forEach(a -> bool.filter(f -> f.term(t -> t.field("amenities").value(a))));
+        }
+        if (geo) {
+            double radiusKm = r.getRadiusKm() != null ? r.getRadiusKm() : 5.0;
+            bool.filter(f -> f.geoDistance(gd -> gd
+                    .field("location")
+                    .location(loc -> loc.latlon(ll -> ll.lat(r.getLat()).lon(r.getLng())))
+                    .distance(radiusKm + "km")
+                    .distanceType(GeoDistanceType.Arc)));
+        }
+
+        return Query.of(q -> q.bool(bool.build()));
+    }
+
+    private SortOptions buildSort(PropertySearchRequest r, boolean geo) {
+        String sort = r.getSort() != null ? r.getSort().toUpperCase(Locale.ROOT)
+                : (r.getQ() != null && !r.getQ().isBlank() ? "RELEVANCE" : "NEWEST");
+
+        return switch (sort) {
+            case "PRICE_ASC" -> SortOptions.of(s -> s.field(f -> f.field("monthlyRent").order(SortOrder.Asc)));
+            case "PRICE_DESC" -> SortOptions.of(s -> s.field(f -> f.field("monthlyRent").order(SortOrder.Desc)));
+            case "RELEVANCE" -> SortOptions.of(s -> s.score(sc -> sc.order(SortOrder.Desc)));
+            case "DISTANCE" -> {
+                if (!geo) throw new AppException(ErrorCode.INVALID_SORT);
+                yield SortOptions.of(s -> s.geoDistance(g -> g
+                        .field("location")
+                        .location(loc -> loc.latlon(ll -> ll.lat(r.getLat()).lon(r.getLng())))
+                        .order(SortOrder.Asc)
+                        .unit(DistanceUnit.Kilometers)));
+            }
+            case "NEWEST" -> SortOptions.of(s -> s.field(f -> f.field("createdAt").order(SortOrder.Desc)));
+            default -> throw new AppException(ErrorCode.INVALID_SORT);
+        };
+    }
+
+    private void addFacets(NativeQueryBuilder builder) {
+        builder.withAggregation("propertyType", termsFacet("propertyType"));
+        builder.withAggregation("province", termsFacet("province"));
+        builder.withAggregation("district", termsFacet("district"));
+        builder.withAggregation("bedrooms", termsFacet("bedrooms"));
+        builder.withAggregation("amenities", termsFacet("amenities"));
+
+        List<AggregationRange> ranges = new ArrayList<>();
+        double from = 0;
+        for (double to : PRICE_BREAKS) {
+            String fromStr = String.valueOf(from);
+            String toStr = String.valueOf(to);
+            ranges.add(AggregationRange.of(ar -> ar.from(fromStr).to(toStr)));
+            from = to;
+        }
+        String lastFrom = String.valueOf(from);
+        ranges.add(AggregationRange.of(ar -> ar.from(lastFrom)));
+        builder.withAggregation("price", Aggregation.of(a -> a.range(rg -> rg.field("monthlyRent").ranges(ranges))));
+    }
+
+    private static Aggregation termsFacet(String field) {
+        return Aggregation.of(a -> a.terms(t -> t.field(field).size(FACET_SIZE)));
+    }
+
+    private Map<String, List<FacetBucket>> readFacets(SearchHits<PropertyDocument> hits) {
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        if (!(hits.getAggregations() instanceof ElasticsearchAggregations aggregations)) return facets;
+
+        for (ElasticsearchAggregation aggregation : aggregations.aggregations()) {
+            String name = aggregation.aggregation().getName();
+            Aggregate aggregate = aggregation.aggregation().getAggregate();
+            List<FacetBucket> buckets = new ArrayList<>();
+
+            if (aggregate.isSterms()) {
+                aggregate.sterms().buckets().array().forEach(b ->
+                        buckets.add(new FacetBucket(b.key().stringValue(), b.docCount())));
+            } else if (aggregate.isLterms()) {
+                aggregate.lterms().buckets().array().forEach(b ->
+                        buckets.add(new FacetBucket(String.valueOf(b.key()), b.docCount())));
+            } else if (aggregate.isRange()) {
+                aggregate.range().buckets().array().forEach(b ->
+                        buckets.add(new FacetBucket(b.key(), b.docCount())));
+            }
+            facets.put(name, buckets);
+        }
+        return facets;
+    }
+
+    /** One $in query for the page, returned in hit order. */
+    private List<PropertyResponse> hydrate(List<SearchHit<PropertyDocument>> page) {
+        if (page.isEmpty()) return List.of();
+
+        List<String> ids = page.stream().map(h -> h.getContent().getPropertyId()).toList();
+        Map<String, Property> byId = new HashMap<>();
+        propertyRepository.findAllById(ids).forEach(p -> byId.put(p.getPropertyId(), p));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(propertyMapper::toResponse)
+                .toList();
+    }
+
+    private String encodeCursor(List<Object> sortValues) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(cursorMapper.writeValueAsBytes(sortValues));
+        } catch (Exception e) {
+            log.error("Failed to encode search cursor: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Object> decodeCursor(String cursor) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII));
+            return cursorMapper.readValue(json, new TypeReference<List<Object>>() {});
+        } catch (Exception e) {
+            throw new AppException(ErrorCode.INVALID_SEARCH_CURSOR);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.roomie.services.property_service.service;
 
 import co.elastic.clients.elasticsearch._types.GeoDistanceType;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import com.roomie.services.property_service.configuration.RedisConfig;
 import com.roomie.services.property_service.dto.request.Model3dCallbackRequest;
 import com.roomie.services.property_service.dto.request.PropertyRequest;
 import com.roomie.services.property_service.dto.response.*;
@@ -24,23 +25,41 @@ import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 
 @Service
@@ -57,12 +76,19 @@ public class PropertyService {
     PropertyLabelService propertyLabelService;
     ElasticsearchOperations elasticsearchOperations;
     GeocodingService geocodingService;
+    PropertyGeoIndexService geoIndexService;
+    PropertyReindexService reindexService;
+    CacheManager cacheManager;
+    MongoTemplate mongoTemplate;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final Collation PROVINCE_COLLATION = Collation.of("vi").strength(Collation.ComparisonLevel.secondary());
 
     @NonFinal
     @Value("${colmap.worker.url:http://100.96.78.62:5000/reconstruct}")
     String colmapWorkerUrl;
 
-    @CacheEvict(value = "properties", allEntries = true)
     public PropertyResponse create(PropertyRequest request) {
         Property entity = propertyMapper.toEntity(request);
         String userId = getCurrentUserId();
@@ -74,15 +100,17 @@ public class PropertyService {
         entity.setPropertyLabel(PropertyLabel.NONE);
         entity.setCreatedAt(Instant.now());
         entity.setUpdatedAt(Instant.now());
+        geocodingService.syncGeoPoint(entity.getAddress());
 
         Property saved = propertyRepository.save(entity);
 
         index(saved);
+        geoIndexService.refresh(saved);
 
         return propertyMapper.toResponse(saved);
     }
 
-    @CacheEvict(value = "properties", key = "#id")
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public PropertyResponse update(String id, PropertyRequest request) {
 
         Property property = findPropertyOrThrow(id);
@@ -94,6 +122,7 @@ public class PropertyService {
         Property saved = propertyRepository.save(property);
 
         index(saved);
+        geoIndexService.refresh(saved);
 
         return propertyMapper.toResponse(saved);
     }
@@ -112,34 +141,56 @@ public class PropertyService {
         if (r.getGarages() != null) p.setGarages(r.getGarages());
     }
 
-    @CacheEvict(value = "properties", key = "#id")
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public void delete(String id) {
 
         Property property = findPropertyOrThrow(id);
         checkOwner(property);
 
         propertyRepository.deleteById(id);
-        searchRepository.deleteById(id);
+        deleteFromSearch(id);
+        geoIndexService.remove(id);
     }
 
     public PropertyResponse getById(String id) {
-        Property property = findPropertyOrThrow(id);
-        PropertyResponse response = propertyMapper.toResponse(property);
+        // The shared (user-independent) response is cached; isFavorited is added per request
+        Cache cache = cacheManager.getCache(RedisConfig.PROPERTIES_CACHE);
+        Cache.ValueWrapper cached = cache.get(id);
 
-        // Add favorite count and status if user is authenticated
-        try {
-            String userId = getCurrentUserId();
-            if (userId != null) {
-                // This info can be added to response or handled in frontend
-                long favoriteCount = favoriteService.getFavoriteCount(id);
-                boolean isFavorited = favoriteService.isFavorited(id);
-                // You can add these to PropertyResponse if needed
+        PropertyResponse shared;
+        if (cached != null && cached.get() != null) {
+            shared = (PropertyResponse) cached.get();
+        } else {
+            shared = propertyMapper.toResponse(findPropertyOrThrow(id));
+            // favoriteCount comes from the denormalized counter
+            if (shared.getFavoriteCount() == null) {
+                shared.setFavoriteCount(0L);
             }
-        } catch (Exception e) {
-            // User not authenticated, skip favorite info
+            cache.putIfAbsent(id, shared);
         }
 
-        return response;
+        String userId = getCurrentUserIdOrNull();
+        if (userId == null) {
+            return shared;
+        }
+        return shared.toBuilder()
+                .isFavorited(favoriteService.isFavorited(userId, id))
+                .build();
+    }
+
+    /**
+     * Batch lookup for other services: one $in query, cache bypassed, no per-user fields
+     */
+    public List<PropertyResponse> getByIds(Collection<String> ids) {
+        List<PropertyResponse> responses = new ArrayList<>();
+        propertyRepository.findAllById(ids).forEach(property -> {
+            PropertyResponse response = propertyMapper.toResponse(property);
+            if (response.getFavoriteCount() == null) {
+                response.setFavoriteCount(0L);
+            }
+            responses.add(response);
+        });
+        return responses;
     }
 
     public List<PropertyResponse> findAll(int page, int size) {
@@ -197,11 +248,36 @@ public class PropertyService {
     }
 
     public List<NearbyPropertyResponse> searchNearby(double lat, double lng, double radiusKm, int page, int size) {
-        // Use MongoDB-based calculation (reliable, always has latest data)
+        // In-memory geo grid; other nodes' writes arrive over pub/sub. $geoNear until the grid is built
         log.info("Nearby search: lat={}, lng={}, radius={}km", lat, lng, radiusKm);
+        if (geoIndexService.isReady()) {
+            return searchNearbyIndex(lat, lng, radiusKm, page, size);
+        }
         return searchNearbyMongo(lat, lng, radiusKm, page, size);
     }
 
+    private List<NearbyPropertyResponse> searchNearbyIndex(double lat, double lng, double radiusKm, int page, int size) {
+        GeoGridIndex.SearchResult result = geoIndexService.search(lat, lng, radiusKm, page, size);
+        if (result.hits().isEmpty()) return List.of();
+
+        // Only the requested page is hydrated, in one batch
+        List<String> ids = result.hits().stream().map(GeoGridIndex.Hit::propertyId).toList();
+        Map<String, Property> propertiesById = new HashMap<>();
+        propertyRepository.findAllById(ids).forEach(p -> propertiesById.put(p.getPropertyId(), p));
+
+        List<NearbyPropertyResponse> results = new ArrayList<>(ids.size());
+        for (GeoGridIndex.Hit hit : result.hits()) {
+            Property property = propertiesById.get(hit.propertyId());
+            if (property == null) continue;
+
+            results.add(NearbyPropertyResponse.builder()
+                    .property(propertyMapper.toResponse(property))
+                    .distanceKm(Math.round(hit.distanceKm() * 100.0) / 100.0)
+                    .build());
+        }
+        return results;
+    }
+
     private List<NearbyPropertyResponse> searchNearbyES(double lat, double lng, double radiusKm, int page, int size) {
         NativeQuery query = NativeQuery.builder()
                 .withQuery(q -> q.bool(b -> b
@@ -223,6 +299,13 @@ public class PropertyService {
 
         SearchHits<PropertyDocument> searchHits = elasticsearchOperations.search(query, PropertyDocument.class);
 
+        // Hydrate all hits with a single $in query instead of one findById per hit
+        List<String> ids = searchHits.getSearchHits().stream()
+                .map(hit -> hit.getContent().getPropertyId())
+                .toList();
+        Map<String, Property> propertiesById = new HashMap<>();
+        propertyRepository.findAllById(ids).forEach(p -> propertiesById.put(p.getPropertyId(), p));
+
         List<NearbyPropertyResponse> results = new ArrayList<>();
 
         for (SearchHit<PropertyDocument> hit : searchHits.getSearchHits()) {
@@ -236,13 +319,11 @@ public class PropertyService {
                 }
             }
 
-            Optional<Property> propertyOpt = propertyRepository.findById(doc.getPropertyId());
-            if (propertyOpt.isEmpty()) continue;
-
-            PropertyResponse response = propertyMapper.toResponse(propertyOpt.get());
+            Property property = propertiesById.get(doc.getPropertyId());
+            if (property == null) continue;
 
             results.add(NearbyPropertyResponse.builder()
-                    .property(response)
+                    .property(propertyMapper.toResponse(property))
                     .distanceKm(distanceKm)
                     .build());
         }
@@ -251,78 +332,60 @@ public class PropertyService {
     }
 
     private List<NearbyPropertyResponse> searchNearbyMongo(double lat, double lng, double radiusKm, int page, int size) {
-        List<Property> allProperties = propertyRepository.findByStatusAndPropertyStatus(
-                ApprovalStatus.ACTIVE, PropertyStatus.AVAILABLE);
-
-        List<NearbyPropertyResponse> results = new ArrayList<>();
-
-        for (Property p : allProperties) {
-            if (p.getAddress() == null || p.getAddress().getLocation() == null) continue;
-
-            String loc = p.getAddress().getLocation().trim();
-            String[] parts = loc.split(",");
-            if (parts.length != 2) continue;
-
-            try {
-                double pLat = Double.parseDouble(parts[0].trim());
-                double pLng = Double.parseDouble(parts[1].trim());
-                double distance = haversine(lat, lng, pLat, pLng);
-
-                if (distance <= radiusKm) {
-                    results.add(NearbyPropertyResponse.builder()
-                            .property(propertyMapper.toResponse(p))
-                            .distanceKm(Math.round(distance * 100.0) / 100.0)
-                            .build());
-                }
-            } catch (NumberFormatException ignored) {}
-        }
-
-        results.sort((a, b) -> Double.compare(
-                a.getDistanceKm() != null ? a.getDistanceKm() : Double.MAX_VALUE,
-                b.getDistanceKm() != null ? b.getDistanceKm() : Double.MAX_VALUE));
-
-        int start = Math.min(page * size, results.size());
-        int end = Math.min(start + size, results.size());
-        return results.subList(start, end);
+        // Filtering, distance calculation, sorting and paging all happen inside $geoNear
+        GeoResults<Property> geoResults = propertyRepository.findByStatusAndPropertyStatusAndAddress_PointNear(
+                ApprovalStatus.ACTIVE,
+                PropertyStatus.AVAILABLE,
+                new GeoJsonPoint(lng, lat),
+                new Distance(radiusKm, Metrics.KILOMETERS),
+                PageRequest.of(page, size));
+
+        return geoResults.getContent().stream()
+                .<NearbyPropertyResponse>map(result -> NearbyPropertyResponse.builder()
+                        .property(propertyMapper.toResponse(result.getContent()))
+                        .distanceKm(Math.round(result.getDistance().getValue() * 100.0) / 100.0)
+                        .build())
+                .toList();
     }
 
-    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371.0; // Earth radius in km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    public ReindexStatus reindexAll() {
+        return reindexService.start();
     }
 
-    public void reindexAll() {
-
-        searchRepository.deleteAll();
+    public ReindexStatus getReindexStatus() {
+        return reindexService.getStatus();
+    }
 
-        propertyRepository.findAll().forEach(this::index);
+    private void deleteFromSearch(String id) {
+        searchRepository.deleteById(id);
+        reindexService.mirrorDelete(id);
     }
 
     private void index(Property p) {
         try {
-            // Auto-geocode if location is missing
-            if (p.getAddress() != null && (p.getAddress().getLocation() == null || p.getAddress().getLocation().isBlank())) {
-                String addressText = p.getAddress().getFullAddress();
-                if (addressText == null || addressText.isBlank()) {
-                    addressText = String.join(", ",
-                            p.getAddress().getHouseNumber() != null ? p.getAddress().getHouseNumber() : "",
-                            p.getAddress().getStreet() != null ? p.getAddress().getStreet() : "",
-                            p.getAddress().getWard() != null ? p.getAddress().getWard() : "",
-                            p.getAddress().getDistrict() != null ? p.getAddress().getDistrict() : "",
-                            p.getAddress().getProvince() != null ? p.getAddress().getProvince() : ""
-                    ).replaceAll("^[, ]+|[, ]+$", "");
-                }
-                String location = geocodingService.geocode(addressText);
-                if (location != null) {
-                    p.getAddress().setLocation(location);
-                    propertyRepository.save(p);
-                    log.info("Auto-geocoded property {} → {}", p.getPropertyId(), location);
+            // Auto-geocode if location is missing; also backfills address.point for older documents
+            boolean locationChanged;
+            if (geocodingService.isAsync() && geocodingService.needsGeocoding(p.getAddress())) {
+                String propertyId = p.getPropertyId();
+                CompletableFuture<String> location =
+                        geocodingService.geocodeAsync(GeocodingService.toAddressText(p.getAddress()));
+                if (location.isDone()) {
+                    // Cache hit: index the resolved location now rather than a stale copy after the backfill
+                    String resolved = location.getNow(null);
+                    if (resolved != null) {
+                        p.getAddress().setLocation(resolved);
+                    }
+                } else {
+                    location.thenAcceptAsync(resolved -> backfillLocation(propertyId, resolved));
                 }
+                locationChanged = geocodingService.syncGeoPoint(p.getAddress());
+            } else {
+                locationChanged = geocodingService.resolveLocation(p.getAddress());
+            }
+
+            if (locationChanged) {
+                propertyRepository.save(p);
+                log.info("Resolved location of property {} → {}", p.getPropertyId(), p.getAddress().getLocation());
             }
 
             PropertyDocument doc = propertyMapper.toDocument(p);
@@ -330,11 +393,26 @@ public class PropertyService {
             doc.setCreatedAt(p.getCreatedAt());
             doc.setUpdatedAt(p.getUpdatedAt());
             searchRepository.save(doc);
+            reindexService.mirrorSave(doc);
         } catch (Exception e) {
             log.error("Failed to index property {}: {}", p.getPropertyId(), e.getMessage());
         }
     }
 
+    private void backfillLocation(String propertyId, String location) {
+        if (location == null) return;
+
+        propertyRepository.findById(propertyId).ifPresent(property -> {
+            if (!geocodingService.needsGeocoding(property.getAddress())) return;
+
+            property.getAddress().setLocation(location);
+            index(property);
+            geoIndexService.refresh(property);
+            cacheManager.getCache(RedisConfig.PROPERTIES_CACHE).evict(propertyId);
+        });
+    }
+
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public PropertyResponse publish(String id) {
 
         Property property = findPropertyOrThrow(id);
@@ -351,6 +429,7 @@ public class PropertyService {
         return propertyMapper.toResponse(property);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public PropertyResponse approve(String id) {
 
         Property property = findPropertyOrThrow(id);
@@ -367,10 +446,12 @@ public class PropertyService {
         propertyRepository.save(property);
 
         index(property);
+        geoIndexService.refresh(property);
 
         return propertyMapper.toResponse(property);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public PropertyResponse reject(String id) {
 
         Property property = findPropertyOrThrow(id);
@@ -384,10 +465,12 @@ public class PropertyService {
         propertyRepository.save(property);
 
         index(property);
+        geoIndexService.refresh(property);
 
         return propertyMapper.toResponse(property);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public void markAsRented(String id) {
 
         Property property = findPropertyOrThrow(id);
@@ -402,9 +485,11 @@ public class PropertyService {
         property.setUpdatedAt(Instant.now());
         propertyRepository.save(property);
 
-        searchRepository.deleteById(id);
+        deleteFromSearch(id);
+        geoIndexService.remove(id);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public void markAsAvailable(String id) {
 
         Property property = findPropertyOrThrow(id);
@@ -421,8 +506,10 @@ public class PropertyService {
         if (property.getStatus() == ApprovalStatus.ACTIVE) {
             index(saved);
         }
+        geoIndexService.refresh(saved);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#id")
     public void deactivate(String id) {
 
         Property property = findPropertyOrThrow(id);
@@ -431,7 +518,8 @@ public class PropertyService {
         property.setUpdatedAt(Instant.now());
         propertyRepository.save(property);
 
-        searchRepository.deleteById(id);
+        deleteFromSearch(id);
+        geoIndexService.remove(id);
     }
 
     public List<PropertyResponse> getAllPublicProperties() {
@@ -451,6 +539,128 @@ public class PropertyService {
                 .toList();
     }
 
+    // ===== Keyset pagination and streaming =====
+    // Pages are ordered by _id and continue from the last id of the previous page
+    // ("_id > cursor"), so every page costs one bounded index scan no matter how deep it is.
+
+    public CursorPageResponse<PropertyResponse> getPublicPropertiesPage(String cursor, int size) {
+        return keysetPage(Criteria.where("status").is(ApprovalStatus.ACTIVE)
+                .and("propertyStatus").is(PropertyStatus.AVAILABLE), cursor, size);
+    }
+
+    public CursorPageResponse<PropertyResponse> findByStatusPage(ApprovalStatus status, String cursor, int size) {
+        return keysetPage(Criteria.where("status").is(status), cursor, size);
+    }
+
+    /** Ordered by rent, then _id; the cursor carries both ("rent|id") */
+    public CursorPageResponse<PropertyResponse> findByPriceRangePage(BigDecimal min, BigDecimal max,
+                                                                     String cursor, int size) {
+        int limit = pageLimit(size);
+
+        Query query = new Query(Criteria.where("monthlyRent").gte(min).lte(max))
+                .with(Sort.by(Sort.Direction.ASC, "monthlyRent", "_id"))
+                .limit(limit + 1);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] last = decodePageCursor(cursor).split("\\|", 2);
+            if (last.length < 2) throw new AppException(ErrorCode.INVALID_PAGE_CURSOR);
+            BigDecimal lastRent;
+            try {
+                lastRent = new BigDecimal(last[0]);
+            } catch (NumberFormatException e) {
+                throw new AppException(ErrorCode.INVALID_PAGE_CURSOR);
+            }
+
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("monthlyRent").gt(lastRent),
+                    Criteria.where("monthlyRent").is(lastRent).and("_id").gt(last[1])));
+        }
+
+        return toPage(mongoTemplate.find(query, Property.class), limit,
+                p -> p.getMonthlyRent() + "|" + p.getPropertyId());
+    }
+
+    /** Case-insensitive through the collation of province_id_idx, so the match stays an index range */
+    public CursorPageResponse<PropertyResponse> findByProvincePage(String province, String cursor, int size) {
+        return keysetPage(Criteria.where("address.province").is(province), PROVINCE_COLLATION, cursor, size);
+    }
+
+    public CursorPageResponse<PropertyResponse> getPropertiesByOwnerPage(String ownerId, String cursor, int size) {
+        return keysetPage(Criteria.where("owner.ownerId").is(ownerId), cursor, size);
+    }
+
+    public CursorPageResponse<PropertyResponse> getMyPropertiesPage(String cursor, int size) {
+        return getPropertiesByOwnerPage(getCurrentUserId(), cursor, size);
+    }
+
+    /** Mongo cursor mapped to responses; the caller must close it. */
+    public Stream<PropertyResponse> streamByStatus(ApprovalStatus status) {
+        return streamResponses(Criteria.where("status").is(status));
+    }
+
+    /** Mongo cursor mapped to responses; the caller must close it. */
+    public Stream<PropertyResponse> streamByOwner(String ownerId) {
+        return streamResponses(Criteria.where("owner.ownerId").is(ownerId));
+    }
+
+    private CursorPageResponse<PropertyResponse> keysetPage(Criteria filter, String cursor, int size) {
+        return keysetPage(filter, null, cursor, size);
+    }
+
+    private CursorPageResponse<PropertyResponse> keysetPage(Criteria filter, Collation collation,
+                                                            String cursor, int size) {
+        int limit = pageLimit(size);
+
+        Query query = new Query(filter)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit + 1);
+        if (collation != null) {
+            query.collation(collation);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            query.addCriteria(Criteria.where("_id").gt(decodePageCursor(cursor)));
+        }
+
+        return toPage(mongoTemplate.find(query, Property.class), limit, Property::getPropertyId);
+    }
+
+    /** Trims the extra row fetched to detect the end, and builds the cursor from the last row kept */
+    private CursorPageResponse<PropertyResponse> toPage(List<Property> properties, int limit,
+                                                        Function<Property, String> cursorOf) {
+        boolean hasMore = properties.size() > limit;
+        if (hasMore) {
+            properties = properties.subList(0, limit);
+        }
+
+        return CursorPageResponse.<PropertyResponse>builder()
+                .items(properties.stream().map(propertyMapper::toResponse).toList())
+                .nextCursor(hasMore ? encodePageCursor(cursorOf.apply(properties.get(limit - 1))) : null)
+                .build();
+    }
+
+    private static int pageLimit(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private Stream<PropertyResponse> streamResponses(Criteria filter) {
+        Query query = new Query(filter)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, Property.class).map(propertyMapper::toResponse);
+    }
+
+    private static String encodePageCursor(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePageCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_PAGE_CURSOR);
+        }
+    }
+
     private Property findPropertyOrThrow(String id) {
         return propertyRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.PROPERTY_NOT_FOUND));
@@ -494,6 +704,15 @@ public class PropertyService {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
 
+    private String getCurrentUserIdOrNull() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
     private String getCurrentUserRole() {
         return SecurityContextHolder.getContext()
                 .getAuthentication()
@@ -505,6 +724,7 @@ public class PropertyService {
 
     // ===== 3D Model Reconstruction =====
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#propertyId")
     public PropertyResponse requestModel3d(String propertyId) {
         Property property = findPropertyOrThrow(propertyId);
         checkOwner(property);
@@ -541,6 +761,7 @@ public class PropertyService {
         return propertyMapper.toResponse(property);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#request.propertyId")
     public void handleModel3dCallback(Model3dCallbackRequest request) {
         Property property = findPropertyOrThrow(request.getPropertyId());
 
@@ -580,6 +801,7 @@ public class PropertyService {
         }
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#propertyId")
     public PropertyResponse toggleModel3dVisibility(String propertyId, boolean visible) {
         Property property = findPropertyOrThrow(propertyId);
         checkOwner(property);
@@ -588,10 +810,12 @@ public class PropertyService {
         return propertyMapper.toResponse(property);
     }
 
+    @CacheEvict(value = RedisConfig.PROPERTIES_CACHE, key = "#propertyId")
     public void updatePropertyStatus(String propertyId, String status) {
         Property property = findPropertyOrThrow(propertyId);
         property.setPropertyStatus(PropertyStatus.valueOf(status));
         propertyRepository.save(property);
+        geoIndexService.refresh(property);
         log.info("Property {} status updated to {}", propertyId, status);
     }
 }
@@ -0,0 +1,99 @@
+package com.roomie.services.property_service.service;
+
+import com.roomie.services.property_service.entity.Favorite;
+import com.roomie.services.property_service.entity.Property;
+import com.roomie.services.property_service.enums.PropertyLabel;
+import com.roomie.services.property_service.mapper.PropertyMapper;
+import com.roomie.services.property_service.repository.FavoriteRepository;
+import com.roomie.services.property_service.repository.PropertyRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FavoriteServiceTest {
+
+    private final FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+    private final PropertyRepository propertyRepository = mock(PropertyRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CacheManager cacheManager = mock(CacheManager.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS);
+
+    private FavoriteService favoriteService;
+
+    @BeforeEach
+    void setUp() {
+        PropertyLabelService labelService = new PropertyLabelService(
+                propertyRepository, favoriteRepository, mongoTemplate, cacheManager, redisTemplate);
+        favoriteService = new FavoriteService(
+                favoriteRepository, propertyRepository, mock(PropertyMapper.class), labelService, redisTemplate);
+
+        when(cacheManager.getCache(anyString())).thenReturn(mock(Cache.class));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void firstToggleOnAPropertyWithoutStoredCountStoresTheRealCount() {
+        Property legacy = Property.builder()
+                .propertyId("p1")
+                .propertyLabel(PropertyLabel.NONE)
+                .createdAt(Instant.now().minus(90, ChronoUnit.DAYS))
+                .build();
+        when(propertyRepository.findById("p1")).thenReturn(Optional.of(legacy));
+        // Nine favorites from before the counter existed, plus alice's
+        when(favoriteRepository.countByPropertyId("p1")).thenReturn(10L);
+
+        Property counted = Property.builder()
+                .propertyId("p1")
+                .propertyLabel(PropertyLabel.NONE)
+                .createdAt(legacy.getCreatedAt())
+                .favoriteCount(10L)
+                .build();
+        // No counter to $inc, then the initializing update matches
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Property.class)))
+                .thenReturn(null, counted);
+
+        assertThat(favoriteService.toggleFavorite("p1")).isTrue();
+
+        verify(favoriteRepository).save(any(Favorite.class));
+        ArgumentCaptor<UpdateDefinition> updates = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), updates.capture(),
+                any(FindAndModifyOptions.class), eq(Property.class));
+        assertThat(updates.getAllValues().get(1).getUpdateObject())
+                .isEqualTo(new Document("$set", new Document("favoriteCount", 10L)));
+
+        // Relabelled from the real count, not from 1
+        ArgumentCaptor<UpdateDefinition> label = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), label.capture(), eq(Property.class));
+        assertThat(label.getValue().getUpdateObject().get("$set", Document.class).get("propertyLabel"))
+                .isEqualTo(PropertyLabel.HOT);
+    }
+}
@@ -0,0 +1,92 @@
+package com.roomie.services.property_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoGridIndexTest {
+
+    // 0.01° of latitude is about 1.11 km
+    private static final double KM_PER_CENTI_DEGREE = GeoGridIndex.EARTH_RADIUS_KM * Math.PI / 180.0 / 100;
+
+    private final GeoGridIndex index = new GeoGridIndex(0.1);
+
+    @Test
+    void listingsOnEitherSideOfACellBoundaryAreBothFound() {
+        index.put("south", 10.0999, 106.7);
+        index.put("north", 10.1001, 106.7);
+        index.put("west", 10.05, 106.7999);
+        index.put("east", 10.05, 106.8001);
+
+        assertThat(index.search(10.1, 106.7, 0.1, 0, 10).hits())
+                .extracting(GeoGridIndex.Hit::propertyId)
+                .containsExactlyInAnyOrder("south", "north");
+        assertThat(index.search(10.05, 106.8, 0.1, 0, 10).hits())
+                .extracting(GeoGridIndex.Hit::propertyId)
+                .containsExactlyInAnyOrder("west", "east");
+    }
+
+    @Test
+    void radiusFiltersListingsFromNeighbouringCellsSortedByDistance() {
+        // North of the centre, each in a different cell
+        index.put("far", 10.76, 106.7);
+        index.put("near", 10.71, 106.7);
+        index.put("mid", 10.74, 106.7);
+
+        GeoGridIndex.SearchResult result = index.search(10.7, 106.7, 5, 0, 10);
+
+        assertThat(result.totalMatches()).isEqualTo(2);
+        assertThat(result.hits()).extracting(GeoGridIndex.Hit::propertyId).containsExactly("near", "mid");
+        assertThat(result.hits().get(0).distanceKm()).isCloseTo(KM_PER_CENTI_DEGREE, within(0.01));
+        assertThat(result.hits().get(1).distanceKm()).isCloseTo(4 * KM_PER_CENTI_DEGREE, within(0.01));
+    }
+
+    @Test
+    void radiusReachesAcrossTheAntimeridian() {
+        index.put("east", 0, 179.99);
+        index.put("west", 0, -179.99);
+
+        assertThat(index.search(0, 180, 5, 0, 10).hits())
+                .extracting(GeoGridIndex.Hit::propertyId)
+                .containsExactlyInAnyOrder("east", "west");
+    }
+
+    @Test
+    void pageIsSlicedAfterSortingButTotalCountsEveryMatch() {
+        for (int i = 1; i <= 5; i++) {
+            index.put("p" + i, 10.7 + i * 0.001, 106.7);
+        }
+
+        GeoGridIndex.SearchResult page = index.search(10.7, 106.7, 1, 2, 2);
+
+        assertThat(page.totalMatches()).isEqualTo(5);
+        assertThat(page.hits()).extracting(GeoGridIndex.Hit::propertyId).containsExactly("p3", "p4");
+    }
+
+    @Test
+    void movedListingIsOnlyFoundAtItsNewLocation() {
+        index.put("p1", 10.7, 106.7);
+        index.put("p1", 21.0, 105.8);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search(10.7, 106.7, 5, 0, 10).hits()).isEmpty();
+        assertThat(index.search(21.0, 105.8, 5, 0, 10).hits())
+                .extracting(GeoGridIndex.Hit::propertyId)
+                .containsExactly("p1");
+    }
+
+    @Test
+    void removedListingIsNoLongerFound() {
+        index.put("p1", 10.7, 106.7);
+        index.put("p2", 10.7001, 106.7);
+
+        assertThat(index.remove("p1")).isTrue();
+        assertThat(index.remove("p1")).isFalse();
+
+        assertThat(index.contains("p1")).isFalse();
+        assertThat(index.search(10.7, 106.7, 5, 0, 10).hits())
+                .extracting(GeoGridIndex.Hit::propertyId)
+                .containsExactly("p2");
+    }
+}
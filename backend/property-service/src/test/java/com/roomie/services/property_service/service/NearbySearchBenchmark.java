@@ -0,0 +1,120 @@
+package com.roomie.services.property_service.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearby search: GeoGridIndex vs. the previous full scan of searchNearbyMongo
+ * (haversine over every AVAILABLE listing, sort, sublist), both in memory so the
+ * numbers exclude Mongo I/O and only compare the search algorithms.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.roomie.services.property_service.service.NearbySearchBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NearbySearchBenchmark {
+
+    // Ho Chi Minh City and Ha Noi centres; listings cluster around them
+    private static final double[][] CITIES = {{10.7769, 106.7009}, {21.0278, 105.8342}};
+
+    @Param({"10000", "100000", "1000000"})
+    int listings;
+
+    @Param({"5"})
+    double radiusKm;
+
+    String[] ids;
+    double[] lats;
+    double[] lngs;
+    GeoGridIndex index;
+
+    double[][] queries;
+    int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new String[listings];
+        lats = new double[listings];
+        lngs = new double[listings];
+        index = new GeoGridIndex(0.05);
+
+        for (int i = 0; i < listings; i++) {
+            double[] city = CITIES[random.nextInt(10) < 7 ? 0 : 1];
+            ids[i] = "p" + i;
+            lats[i] = city[0] + gaussian(random) * 0.15;
+            lngs[i] = city[1] + gaussian(random) * 0.15;
+            index.put(ids[i], lats[i], lngs[i]);
+        }
+
+        queries = new double[1024][];
+        for (int i = 0; i < queries.length; i++) {
+            double[] city = CITIES[i % 2];
+            queries[i] = new double[]{city[0] + gaussian(random) * 0.1, city[1] + gaussian(random) * 0.1};
+        }
+    }
+
+    @Benchmark
+    public void gridIndex(Blackhole bh) {
+        double[] q = nextQuery();
+        bh.consume(index.search(q[0], q[1], radiusKm, 0, 50));
+    }
+
+    @Benchmark
+    public void fullScan(Blackhole bh) {
+        double[] q = nextQuery();
+        List<double[]> results = new ArrayList<>();
+        for (int i = 0; i < listings; i++) {
+            double distance = haversine(q[0], q[1], lats[i], lngs[i]);
+            if (distance <= radiusKm) {
+                results.add(new double[]{i, Math.round(distance * 100.0) / 100.0});
+            }
+        }
+        results.sort((a, b) -> Double.compare(a[1], b[1]));
+        bh.consume(results.subList(0, Math.min(50, results.size())));
+    }
+
+    private double[] nextQuery() {
+        double[] q = queries[nextQuery];
+        nextQuery = (nextQuery + 1) & (queries.length - 1);
+        return q;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double R = 6371.0;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NearbySearchBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -5,8 +5,9 @@ import { API } from "../configurations/configuration";
 export const adminGetAllProperties = () =>
   BaseService.get(API.GET_ALL_PROPERTIES);
 
-export const adminGetPendingProperties = () =>
-  BaseService.get(API.ADMIN_PENDING_PROPERTIES);
+// params: { cursor, size }; the result has items and nextCursor (null on the last page)
+export const adminGetPendingProperties = (params) =>
+  BaseService.get(API.ADMIN_PENDING_PROPERTIES, params);
 
 export const adminApproveProperty = (id) =>
   BaseService.put(API.ADMIN_APPROVE_PROPERTY(id));